@@ -0,0 +1,186 @@
+package main.archive;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import main.core.StartingPosition;
+import main.exceptions.InvalidMoveException;
+import main.notation.GameReplayer;
+import main.notation.PgnReader.Result;
+
+/**
+ * Read-only archive of finished games, memory-mapped for random access by game ID
+ * 
+ * The archive is made of two files written by GameArchiveWriter:
+ * 	data file	the moves of every game, packed as two bytes per move: [start square][end square]
+ * 	index file	one fixed-width entry per game, the game ID being the number of the entry:
+ * 				[data offset 8][move count 4][result 1][flags 1][reserved 2]
+ * 
+ * Both files are mapped in segments (see MappedSegments), and no game crosses a segment,
+ * so the moves of a game are returned as a view of the mapping, without copying or parsing
+ * @author einar
+ *
+ */
+public class GameArchive implements Closeable {
+	// Width of an index entry
+	public static final int INDEX_ENTRY_LENGTH = 16;
+	
+	// Width of a packed move
+	public static final int MOVE_LENGTH = 2;
+	
+	// Flag of an index entry for games using the RowMover and DoubleJumper pieces
+	public static final byte FLAG_CUSTOM_PIECES = 0x01;
+	
+	private static final Result[] RESULTS = Result.values();
+	
+	private final FileChannel dataChannel;
+	private final FileChannel indexChannel;
+	private final MappedByteBuffer[] dataSegments;
+	private final MappedByteBuffer[] indexSegments;
+	private final long gameCount;
+	
+	private GameArchive(FileChannel dataChannel, FileChannel indexChannel) throws IOException {
+		this.dataChannel = dataChannel;
+		this.indexChannel = indexChannel;
+		this.gameCount = indexChannel.size() / INDEX_ENTRY_LENGTH;
+		this.dataSegments = MappedSegments.map(dataChannel, dataChannel.size());
+		this.indexSegments = MappedSegments.map(indexChannel, gameCount * INDEX_ENTRY_LENGTH);
+	}
+	
+	/**
+	 * Open an archive for reading
+	 * @param dataFile		path of the data file
+	 * @param indexFile		path of the index file
+	 * @return the archive
+	 * @throws IOException if either file cannot be mapped
+	 */
+	public static GameArchive open(Path dataFile, Path indexFile) throws IOException {
+		FileChannel dataChannel = FileChannel.open(dataFile, StandardOpenOption.READ);
+		try {
+			FileChannel indexChannel = FileChannel.open(indexFile, StandardOpenOption.READ);
+			try {
+				return new GameArchive(dataChannel, indexChannel);
+			} catch (IOException e) {
+				indexChannel.close();
+				throw e;
+			}
+		} catch (IOException e) {
+			dataChannel.close();
+			throw e;
+		}
+	}
+	
+	/*******************
+	 * PUBLIC METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Get the number of games in the archive, game IDs range from 0 to this number, exclusive
+	 * @return number of games
+	 */
+	public long getGameCount() {
+		return gameCount;
+	}
+	
+	/**
+	 * Get the number of moves of a game
+	 * @param gameId	ID of the game
+	 * @return number of half-moves
+	 */
+	public int getMoveCount(long gameId) {
+		return indexSegment(gameId).getInt(indexOffset(gameId) + 8);
+	}
+	
+	/**
+	 * Get the result of a game
+	 * @param gameId	ID of the game
+	 * @return result of the game
+	 */
+	public Result getResult(long gameId) {
+		return RESULTS[indexSegment(gameId).get(indexOffset(gameId) + 12)];
+	}
+	
+	/**
+	 * Get the starting position of a game
+	 * @param gameId	ID of the game
+	 * @return starting position of the game
+	 */
+	public StartingPosition getStartingPosition(long gameId) {
+		boolean useCustomPieces = (indexSegment(gameId).get(indexOffset(gameId) + 13) & FLAG_CUSTOM_PIECES) != 0;
+		return useCustomPieces ? StartingPosition.CUSTOM_PIECES : StartingPosition.STANDARD;
+	}
+	
+	/**
+	 * Get the moves of a game, without copying them out of the mapping
+	 * @param gameId	ID of the game
+	 * @return read-only view holding MOVE_LENGTH bytes per move, positioned at the first move
+	 */
+	public ByteBuffer getMoves(long gameId) {
+		ByteBuffer index = indexSegment(gameId);
+		int entryOffset = indexOffset(gameId);
+		long dataOffset = index.getLong(entryOffset);
+		int length = index.getInt(entryOffset + 8) * MOVE_LENGTH;
+		if (length == 0) {
+			// An empty game may start past the last mapped segment, e.g. in an empty data file
+			return ByteBuffer.allocate(0).asReadOnlyBuffer();
+		}
+		
+		ByteBuffer moves = dataSegments[(int) (dataOffset / MappedSegments.SEGMENT_SIZE)].duplicate();
+		int start = (int) (dataOffset % MappedSegments.SEGMENT_SIZE);
+		moves.limit(start + length).position(start);
+		return moves.slice().asReadOnlyBuffer();
+	}
+	
+	/**
+	 * Replay a game into the board of a replayer
+	 * @param gameId		ID of the game
+	 * @param replayer		replayer for the starting position of the game, restarted before the first move
+	 * @throws InvalidMoveException if a move of the game is not legal
+	 * @throws IllegalArgumentException if the replayer uses another starting position than the game
+	 */
+	public void replay(long gameId, GameReplayer replayer) throws InvalidMoveException {
+		if (replayer.getStartingPosition() != getStartingPosition(gameId)) {
+			throw new IllegalArgumentException("Game " + gameId + " starts from " + getStartingPosition(gameId));
+		}
+		ByteBuffer moves = getMoves(gameId);
+		replayer.startGame();
+		while (moves.hasRemaining()) {
+			replayer.apply(moves.get() & 0xFF, moves.get() & 0xFF);
+		}
+	}
+	
+	@Override
+	public void close() throws IOException {
+		try {
+			dataChannel.close();
+		} finally {
+			indexChannel.close();
+		}
+	}
+	
+	/*******************
+	 * PRIVATE METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Get the index segment holding the entry of a game
+	 * @throws IndexOutOfBoundsException if there is no such game
+	 */
+	private ByteBuffer indexSegment(long gameId) {
+		if (gameId < 0 || gameId >= gameCount) {
+			throw new IndexOutOfBoundsException("No game " + gameId);
+		}
+		return indexSegments[(int) (gameId * INDEX_ENTRY_LENGTH / MappedSegments.SEGMENT_SIZE)];
+	}
+	
+	private static int indexOffset(long gameId) {
+		return (int) (gameId * INDEX_ENTRY_LENGTH % MappedSegments.SEGMENT_SIZE);
+	}
+}
@@ -0,0 +1,193 @@
+package main.archive;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import main.notation.PgnReader.Result;
+
+/**
+ * Appends finished games to the data and index files of a GameArchive
+ * 
+ * A game is given move by move between startGame and endGame. Its moves are collected
+ * in memory, and written once the game is complete, padding the data file so that
+ * no game crosses a mapped segment
+ * @author einar
+ *
+ */
+public class GameArchiveWriter implements Closeable {
+	// Size of the write buffers of both files
+	private static final int WRITE_BUFFER_SIZE = 1 << 16;
+	
+	private final FileChannel dataChannel;
+	private final FileChannel indexChannel;
+	private final ByteBuffer dataBuffer;
+	private final ByteBuffer indexBuffer;
+	
+	// Position of the end of the data file, including buffered data
+	private long dataOffset;
+	private long gameCount;
+	
+	// Moves of the game being written
+	private ByteBuffer currentMoves;
+	private boolean currentUsesCustomPieces;
+	
+	private GameArchiveWriter(FileChannel dataChannel, FileChannel indexChannel) throws IOException {
+		this.dataChannel = dataChannel;
+		this.indexChannel = indexChannel;
+		this.dataBuffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+		this.indexBuffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+		this.currentMoves = ByteBuffer.allocate(256 * GameArchive.MOVE_LENGTH);
+		this.dataOffset = dataChannel.size();
+		this.gameCount = indexChannel.size() / GameArchive.INDEX_ENTRY_LENGTH;
+		dataChannel.position(dataOffset);
+		indexChannel.position(gameCount * GameArchive.INDEX_ENTRY_LENGTH);
+	}
+	
+	/**
+	 * Open an archive for appending games, creating its files if they do not exist
+	 * @param dataFile		path of the data file
+	 * @param indexFile		path of the index file
+	 * @return the writer
+	 * @throws IOException if either file cannot be opened
+	 */
+	public static GameArchiveWriter open(Path dataFile, Path indexFile) throws IOException {
+		FileChannel dataChannel = FileChannel.open(dataFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			FileChannel indexChannel = FileChannel.open(indexFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			try {
+				return new GameArchiveWriter(dataChannel, indexChannel);
+			} catch (IOException e) {
+				indexChannel.close();
+				throw e;
+			}
+		} catch (IOException e) {
+			dataChannel.close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Start collecting the moves of a new game
+	 * @param useCustomPieces	whether the game uses the RowMover and DoubleJumper pieces
+	 */
+	public void startGame(boolean useCustomPieces) {
+		currentMoves.clear();
+		currentUsesCustomPieces = useCustomPieces;
+	}
+	
+	/**
+	 * Add the next move of the current game
+	 * @param startSquare	row-major index of the square the piece moved from
+	 * @param endSquare		row-major index of the square the piece moved to
+	 */
+	public void addMove(int startSquare, int endSquare) {
+		if (currentMoves.remaining() < GameArchive.MOVE_LENGTH) {
+			ByteBuffer grown = ByteBuffer.allocate(currentMoves.capacity() * 2);
+			currentMoves.flip();
+			grown.put(currentMoves);
+			currentMoves = grown;
+		}
+		currentMoves.put((byte) startSquare).put((byte) endSquare);
+	}
+	
+	/**
+	 * Write the current game to the archive
+	 * @param result	result of the game
+	 * @return ID of the game in the archive
+	 * @throws IOException if the archive cannot be written
+	 */
+	public long endGame(Result result) throws IOException {
+		currentMoves.flip();
+		int length = currentMoves.remaining();
+		
+		// Start the game in the next segment if it does not fit in the current one
+		long padding = MappedSegments.getPadding(dataOffset, length);
+		while (padding > 0) {
+			ensureRemaining(dataChannel, dataBuffer, 1);
+			int chunk = (int) Math.min(dataBuffer.remaining(), padding);
+			dataBuffer.position(dataBuffer.position() + chunk);
+			dataOffset += chunk;
+			padding -= chunk;
+		}
+		
+		long gameOffset = dataOffset;
+		while (currentMoves.hasRemaining()) {
+			ensureRemaining(dataChannel, dataBuffer, 1);
+			int chunk = Math.min(dataBuffer.remaining(), currentMoves.remaining());
+			ByteBuffer slice = currentMoves.duplicate();
+			slice.limit(slice.position() + chunk);
+			dataBuffer.put(slice);
+			currentMoves.position(currentMoves.position() + chunk);
+		}
+		dataOffset += length;
+		
+		// Entries are only written after the moves they refer to
+		if (indexBuffer.remaining() < GameArchive.INDEX_ENTRY_LENGTH) {
+			drain(dataChannel, dataBuffer);
+			drain(indexChannel, indexBuffer);
+		}
+		indexBuffer.putLong(gameOffset)
+			.putInt(length / GameArchive.MOVE_LENGTH)
+			.put((byte) result.ordinal())
+			.put(currentUsesCustomPieces ? GameArchive.FLAG_CUSTOM_PIECES : 0)
+			.putShort((short) 0);
+		return gameCount++;
+	}
+	
+	/**
+	 * Get the number of games in the archive, including the games written by this writer
+	 * @return number of games
+	 */
+	public long getGameCount() {
+		return gameCount;
+	}
+	
+	/**
+	 * Write the buffered games, and close both files
+	 * The data file is written first, so an index entry never refers to missing moves
+	 * @throws IOException if the archive cannot be written
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			drain(dataChannel, dataBuffer);
+			drain(indexChannel, indexBuffer);
+		} finally {
+			try {
+				dataChannel.close();
+			} finally {
+				indexChannel.close();
+			}
+		}
+	}
+	
+	/*******************
+	 * PRIVATE METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Write out the buffer if it has less than the given number of bytes remaining
+	 */
+	private static void ensureRemaining(FileChannel channel, ByteBuffer buffer, int length) throws IOException {
+		if (buffer.remaining() < length) {
+			drain(channel, buffer);
+		}
+	}
+	
+	/**
+	 * Write out everything held by the buffer, leaving it empty
+	 * Padding skipped over in the buffer is written with whatever the buffer held, and is never read
+	 */
+	private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+}
@@ -0,0 +1,74 @@
+package main.archive;
+
+/**
+ * Sorting of records held as two parallel long arrays, e.g. a hash and its payload
+ * Records are ordered by their first long, then by their second long. Sorting works on
+ * the primitives in place, so sorting millions of records allocates nothing
+ * @author einar
+ *
+ */
+public final class LongPairSort {
+	// Ranges up to this length are sorted by insertion
+	private static final int INSERTION_SORT_LENGTH = 16;
+	
+	private LongPairSort() {}
+	
+	/**
+	 * Sort a range of records
+	 * @param keys		first long of every record
+	 * @param values	second long of every record
+	 * @param from		index of the first record, inclusive
+	 * @param to		index of the last record, exclusive
+	 */
+	public static void sort(long[] keys, long[] values, int from, int to) {
+		while (to - from > INSERTION_SORT_LENGTH) {
+			int middle = (from + to) >>> 1;
+			long pivotKey = keys[middle];
+			long pivotValue = values[middle];
+			int left = from;
+			int right = to - 1;
+			while (left <= right) {
+				while (compare(keys[left], values[left], pivotKey, pivotValue) < 0) {
+					left++;
+				}
+				while (compare(keys[right], values[right], pivotKey, pivotValue) > 0) {
+					right--;
+				}
+				if (left <= right) {
+					swap(keys, values, left++, right--);
+				}
+			}
+			// Recurse into the smaller half, and loop on the larger one
+			if (right - from < to - left) {
+				sort(keys, values, from, right + 1);
+				from = left;
+			} else {
+				sort(keys, values, left, to);
+				to = right + 1;
+			}
+		}
+		for (int idx=from+1; idx<to; idx++) {
+			for (int prev=idx; prev>from && compare(keys[prev - 1], values[prev - 1], keys[prev], values[prev]) > 0; prev--) {
+				swap(keys, values, prev - 1, prev);
+			}
+		}
+	}
+	
+	/**
+	 * Compare two records
+	 * @return negative, zero or positive as the first record is smaller, equal or larger
+	 */
+	public static int compare(long key1, long value1, long key2, long value2) {
+		int result = Long.compare(key1, key2);
+		return result != 0 ? result : Long.compare(value1, value2);
+	}
+	
+	private static void swap(long[] keys, long[] values, int idx1, int idx2) {
+		long key = keys[idx1];
+		keys[idx1] = keys[idx2];
+		keys[idx2] = key;
+		long value = values[idx1];
+		values[idx1] = values[idx2];
+		values[idx2] = value;
+	}
+}
@@ -0,0 +1,48 @@
+package main.archive;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * Read-only mapping of a file that may be larger than a single MappedByteBuffer
+ * The file is mapped in segments of SEGMENT_SIZE bytes. Writers of the mapped formats
+ * make sure that no record crosses a segment, so every record is read from a single buffer
+ * @author einar
+ *
+ */
+public final class MappedSegments {
+	// Size of every segment but the last
+	public static final long SEGMENT_SIZE = 1L << 30;
+	
+	private MappedSegments() {}
+	
+	/**
+	 * Map the first bytes of a file read-only, one mapping per segment
+	 * @param channel	channel of the file
+	 * @param size		number of bytes to map
+	 * @return the segments, in file order
+	 * @throws IOException if the file cannot be mapped
+	 */
+	public static MappedByteBuffer[] map(FileChannel channel, long size) throws IOException {
+		MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((size + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+		for (int idx=0; idx<segments.length; idx++) {
+			long position = idx * SEGMENT_SIZE;
+			segments[idx] = channel.map(MapMode.READ_ONLY, position, Math.min(SEGMENT_SIZE, size - position));
+		}
+		return segments;
+	}
+	
+	/**
+	 * Get the number of bytes of padding needed so that a record starting at the given offset
+	 * does not cross the end of a segment
+	 * @param offset	offset the record would start at
+	 * @param length	length of the record, at most SEGMENT_SIZE
+	 * @return number of bytes to skip, 0 if the record fits
+	 */
+	public static long getPadding(long offset, long length) {
+		long segmentEnd = (offset / SEGMENT_SIZE + 1) * SEGMENT_SIZE;
+		return offset + length > segmentEnd ? segmentEnd - offset : 0;
+	}
+}
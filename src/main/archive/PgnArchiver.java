@@ -0,0 +1,127 @@
+package main.archive;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import main.core.Board;
+import main.core.Move;
+import main.core.Square;
+import main.core.StartingPosition;
+import main.exceptions.InvalidMoveException;
+import main.notation.GameReplayer;
+import main.notation.PgnGameListener;
+import main.notation.PgnReader;
+import main.notation.PgnReader.Result;
+import main.notation.SanMove;
+
+/**
+ * Converts PGN games into a GameArchive
+ * Every game is replayed through a Board to resolve its moves to squares, so the archive
+ * can later be read without parsing. Games that cannot be replayed are left out
+ * @author einar
+ *
+ */
+public class PgnArchiver implements PgnGameListener {
+	private final GameArchiveWriter writer;
+	private final GameReplayer replayer;
+	private final boolean useCustomPieces;
+	private boolean currentGameLegal;
+	private long skippedGameCount;
+	
+	/**
+	 * @param writer				writer of the archive the games are added to
+	 * @param startingPosition		initial layout of every game read
+	 */
+	public PgnArchiver(GameArchiveWriter writer, StartingPosition startingPosition) {
+		this.writer = writer;
+		this.replayer = new GameReplayer(startingPosition);
+		this.useCustomPieces = startingPosition == StartingPosition.CUSTOM_PIECES;
+	}
+	
+	/**
+	 * Archive every game read from the channel
+	 * @param channel	channel to read PGN text from
+	 * @throws IOException if the channel cannot be read, or the archive cannot be written
+	 */
+	public void archive(ReadableByteChannel channel) throws IOException {
+		PgnReader reader = new PgnReader(this);
+		reader.readAll(channel);
+	}
+	
+	@Override
+	public void startGame(long gameNumber) {
+		replayer.startGame();
+		writer.startGame(useCustomPieces);
+		currentGameLegal = true;
+	}
+
+	@Override
+	public boolean move(SanMove move) {
+		if (move == null) {
+			currentGameLegal = false;
+			return false;
+		}
+		try {
+			replayer.apply(move);
+		} catch (InvalidMoveException e) {
+			currentGameLegal = false;
+			return false;
+		}
+		Board board = replayer.getBoard();
+		Move lastMove = board.getLastMove();
+		writer.addMove(getIndex(board, lastMove.getStartSquare()), getIndex(board, lastMove.getEndSquare()));
+		return true;
+	}
+
+	@Override
+	public void endGame(Result result) {
+		if (!currentGameLegal) {
+			skippedGameCount++;
+			return;
+		}
+		try {
+			writer.endGame(result);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	/**
+	 * Get the number of games left out because they could not be replayed
+	 * @return number of skipped games
+	 */
+	public long getSkippedGameCount() {
+		return skippedGameCount;
+	}
+	
+	private static int getIndex(Board board, Square square) {
+		return square.getRow() * board.getNumCols() + square.getCol();
+	}
+	
+	/**
+	 * Convert a PGN file from the command line, appending to an existing archive
+	 * @param args	path of the PGN file, paths of the data and index files, optionally followed by "custom"
+	 * @throws IOException if a file cannot be read or written
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 3) {
+			System.err.println("Usage: PgnArchiver <file.pgn> <archive.data> <archive.index> [custom]");
+			return;
+		}
+		StartingPosition startingPosition = (args.length > 3 && args[3].equals("custom"))
+				? StartingPosition.CUSTOM_PIECES : StartingPosition.STANDARD;
+		Path pgnFile = Paths.get(args[0]);
+		try (GameArchiveWriter writer = GameArchiveWriter.open(Paths.get(args[1]), Paths.get(args[2]));
+				FileChannel channel = FileChannel.open(pgnFile, StandardOpenOption.READ)) {
+			PgnArchiver archiver = new PgnArchiver(writer, startingPosition);
+			archiver.archive(channel);
+			System.out.println("Archive holds " + writer.getGameCount() + " games, skipped "
+					+ archiver.getSkippedGameCount() + " illegal games");
+		}
+	}
+}
@@ -0,0 +1,215 @@
+package main.archive;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import main.core.Board;
+import main.core.PositionHash;
+import main.pieces.Piece.Color;
+
+/**
+ * Memory-mapped index from position hash to the archived games that reached the position
+ * 
+ * The index is made of two files written by PositionIndexBuilder:
+ * 	key file		one entry per position, sorted by hash: [hash 8][postings offset 8]
+ * 	postings file	the posting list of every position: [count][postings]
+ * 
+ * A posting is a (game ID, ply) pair, the ply being the number of half-moves after which the
+ * game reached the position. Lists are sorted, and delta-compressed as unsigned varints:
+ * the difference to the previous game ID, followed by the ply, or by the difference to the
+ * previous ply when the game ID did not change. No list crosses a mapped segment
+ * @author einar
+ *
+ */
+public class PositionIndex implements Closeable {
+	// Width of a key file entry
+	public static final int KEY_ENTRY_LENGTH = 16;
+	
+	private final FileChannel keyChannel;
+	private final FileChannel postingsChannel;
+	private final MappedByteBuffer[] keySegments;
+	private final MappedByteBuffer[] postingsSegments;
+	private final long positionCount;
+	
+	private PositionIndex(FileChannel keyChannel, FileChannel postingsChannel) throws IOException {
+		this.keyChannel = keyChannel;
+		this.postingsChannel = postingsChannel;
+		this.positionCount = keyChannel.size() / KEY_ENTRY_LENGTH;
+		this.keySegments = MappedSegments.map(keyChannel, positionCount * KEY_ENTRY_LENGTH);
+		this.postingsSegments = MappedSegments.map(postingsChannel, postingsChannel.size());
+	}
+	
+	/**
+	 * Open an index for lookups
+	 * @param keyFile			path of the key file
+	 * @param postingsFile		path of the postings file
+	 * @return the index
+	 * @throws IOException if either file cannot be mapped
+	 */
+	public static PositionIndex open(Path keyFile, Path postingsFile) throws IOException {
+		FileChannel keyChannel = FileChannel.open(keyFile, StandardOpenOption.READ);
+		try {
+			FileChannel postingsChannel = FileChannel.open(postingsFile, StandardOpenOption.READ);
+			try {
+				return new PositionIndex(keyChannel, postingsChannel);
+			} catch (IOException e) {
+				postingsChannel.close();
+				throw e;
+			}
+		} catch (IOException e) {
+			keyChannel.close();
+			throw e;
+		}
+	}
+	
+	/*******************
+	 * PUBLIC METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Get the number of distinct positions in the index
+	 * @return number of positions
+	 */
+	public long getPositionCount() {
+		return positionCount;
+	}
+	
+	/**
+	 * Find the games that reached the current position of a board
+	 * @param board			board in the position to look up
+	 * @param sideToMove	color of the player to move
+	 * @return the games that reached the position, empty if there are none
+	 */
+	public Postings find(Board board, Color sideToMove) {
+		return find(PositionHash.compute(board, sideToMove));
+	}
+	
+	/**
+	 * Find the games that reached a position, by binary search over the key file
+	 * @param hash	hash of the position
+	 * @return the games that reached the position, empty if there are none
+	 */
+	public Postings find(long hash) {
+		long low = 0;
+		long high = positionCount - 1;
+		while (low <= high) {
+			long middle = (low + high) >>> 1;
+			long middleHash = getHash(middle);
+			if (middleHash < hash) {
+				low = middle + 1;
+			} else if (middleHash > hash) {
+				high = middle - 1;
+			} else {
+				return new Postings(getPostings(middle));
+			}
+		}
+		return new Postings(null);
+	}
+	
+	@Override
+	public void close() throws IOException {
+		try {
+			keyChannel.close();
+		} finally {
+			postingsChannel.close();
+		}
+	}
+	
+	/*******************
+	 * PRIVATE METHODS
+	 * 
+	 *******************/
+	
+	private long getHash(long entry) {
+		long offset = entry * KEY_ENTRY_LENGTH;
+		return keySegments[(int) (offset / MappedSegments.SEGMENT_SIZE)].getLong((int) (offset % MappedSegments.SEGMENT_SIZE));
+	}
+	
+	/**
+	 * Get a view of the posting list of an entry, positioned at its count
+	 */
+	private ByteBuffer getPostings(long entry) {
+		long offset = entry * KEY_ENTRY_LENGTH;
+		long postingsOffset = keySegments[(int) (offset / MappedSegments.SEGMENT_SIZE)].getLong((int) (offset % MappedSegments.SEGMENT_SIZE) + 8);
+		ByteBuffer postings = postingsSegments[(int) (postingsOffset / MappedSegments.SEGMENT_SIZE)].duplicate();
+		postings.position((int) (postingsOffset % MappedSegments.SEGMENT_SIZE));
+		return postings;
+	}
+	
+	/**
+	 * Read an unsigned varint at the position of the buffer
+	 */
+	static long readVarint(ByteBuffer buffer) {
+		long value = 0;
+		int shift = 0;
+		byte next;
+		do {
+			next = buffer.get();
+			value |= (long) (next & 0x7F) << shift;
+			shift += 7;
+		} while (next < 0);
+		return value;
+	}
+	
+	/**
+	 * Cursor over the posting list of a position, decoded from the mapping as it advances
+	 */
+	public static class Postings {
+		private final ByteBuffer buffer;
+		private final long size;
+		private long remaining;
+		private long gameId;
+		private int ply;
+		
+		private Postings(ByteBuffer buffer) {
+			this.buffer = buffer;
+			this.size = buffer == null ? 0 : readVarint(buffer);
+			this.remaining = size;
+		}
+		
+		/**
+		 * Advance to the next posting
+		 * @return false if there are no more postings
+		 */
+		public boolean next() {
+			if (remaining == 0) {
+				return false;
+			}
+			long gameDelta = readVarint(buffer);
+			if (gameDelta == 0 && remaining != size) {
+				ply += (int) readVarint(buffer);
+			} else {
+				gameId += gameDelta;
+				ply = (int) readVarint(buffer);
+			}
+			remaining--;
+			return true;
+		}
+		
+		/**
+		 * Get the number of games and plies in the list
+		 * @return number of postings
+		 */
+		public long size() {
+			return size;
+		}
+		
+		public long getGameId() {
+			return gameId;
+		}
+		
+		/**
+		 * Get the number of half-moves after which the game reached the position
+		 * @return ply of the current posting
+		 */
+		public int getPly() {
+			return ply;
+		}
+	}
+}
@@ -0,0 +1,424 @@
+package main.archive;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import main.core.Board;
+import main.core.Move;
+import main.core.PositionHash;
+import main.core.StartingPosition;
+import main.exceptions.InvalidMoveException;
+import main.notation.GameReplayer;
+import main.pieces.Piece;
+
+/**
+ * Builds a PositionIndex by replaying archived games through a Board
+ * 
+ * Every (hash, game ID, ply) triple is collected into a run held in memory. Full runs are
+ * sorted and spilled to temporary files next to the index, and build() merges the runs
+ * into the sorted key file and the delta-compressed postings file, so the number of
+ * positions indexed is not limited by the heap
+ * @author einar
+ *
+ */
+public class PositionIndexBuilder implements Closeable {
+	// Default number of triples held in memory before a run is spilled, 64 MiB of heap
+	public static final int DEFAULT_RUN_CAPACITY = 1 << 22;
+	
+	// Largest ply that can be indexed
+	public static final int MAX_PLY = 0xFFFF;
+	
+	// Size of the buffers used to read and write files
+	private static final int IO_BUFFER_SIZE = 1 << 16;
+	
+	// Width of a spilled triple: [hash 8][game ID << 16 | ply 8]
+	private static final int RUN_ENTRY_LENGTH = 16;
+	
+	private final Path keyFile;
+	private final Path postingsFile;
+	
+	// Current run, as hashes and packed postings
+	private final long[] hashes;
+	private final long[] postings;
+	private int runSize;
+	
+	private final List<Path> spilledRuns;
+	
+	/**
+	 * @param keyFile			path of the key file to write
+	 * @param postingsFile		path of the postings file to write
+	 * @param runCapacity		number of triples held in memory before a run is spilled
+	 */
+	public PositionIndexBuilder(Path keyFile, Path postingsFile, int runCapacity) {
+		this.keyFile = keyFile;
+		this.postingsFile = postingsFile;
+		this.hashes = new long[runCapacity];
+		this.postings = new long[runCapacity];
+		this.spilledRuns = new ArrayList<Path>();
+	}
+	
+	/*******************
+	 * PUBLIC METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Add every position reached by every game of an archive
+	 * Positions are hashed incrementally from the moves, the starting position is not indexed
+	 * @param archive	archive to index
+	 * @throws IOException if a run cannot be spilled
+	 * @throws InvalidMoveException if a game of the archive cannot be replayed
+	 */
+	public void addArchive(GameArchive archive) throws IOException, InvalidMoveException {
+		GameReplayer standardReplayer = new GameReplayer(StartingPosition.STANDARD);
+		GameReplayer customReplayer = null;
+		
+		for (long gameId=0; gameId<archive.getGameCount(); gameId++) {
+			GameReplayer replayer = standardReplayer;
+			if (archive.getStartingPosition(gameId) == StartingPosition.CUSTOM_PIECES) {
+				if (customReplayer == null) {
+					customReplayer = new GameReplayer(StartingPosition.CUSTOM_PIECES);
+				}
+				replayer = customReplayer;
+			}
+			
+			replayer.startGame();
+			Board board = replayer.getBoard();
+			long hash = PositionHash.compute(board, replayer.getCurrentPlayer().getColor());
+			ByteBuffer moves = archive.getMoves(gameId);
+			for (int ply=1; ply<=MAX_PLY && moves.hasRemaining(); ply++) {
+				int startSquare = moves.get() & 0xFF;
+				int endSquare = moves.get() & 0xFF;
+				replayer.apply(startSquare, endSquare);
+				
+				Move move = board.getLastMove();
+				Piece piece = move.getPiece();
+				hash ^= PositionHash.getPieceKey(piece, startSquare) ^ PositionHash.getPieceKey(piece, endSquare)
+						^ PositionHash.getBlackToMoveKey();
+				if (move.getCapturedPiece() != null) {
+					hash ^= PositionHash.getPieceKey(move.getCapturedPiece(), endSquare);
+				}
+				add(hash, gameId, ply);
+			}
+		}
+	}
+	
+	/**
+	 * Add a single position reached by a game
+	 * @param hash		hash of the position
+	 * @param gameId	ID of the game
+	 * @param ply		number of half-moves after which the game reached the position, at most MAX_PLY
+	 * @throws IOException if a run cannot be spilled
+	 */
+	public void add(long hash, long gameId, int ply) throws IOException {
+		if (runSize == hashes.length) {
+			spillRun();
+		}
+		hashes[runSize] = hash;
+		postings[runSize] = (gameId << 16) | ply;
+		runSize++;
+	}
+	
+	/**
+	 * Merge every run into the key file and the postings file
+	 * @throws IOException if a file cannot be read or written
+	 */
+	public void build() throws IOException {
+		LongPairSort.sort(hashes, postings, 0, runSize);
+		PriorityQueue<Run> runs = new PriorityQueue<Run>();
+		Run memoryRun = new MemoryRun();
+		if (memoryRun.advance()) {
+			runs.add(memoryRun);
+		}
+		for (Path spilledRun : spilledRuns) {
+			Run run = new FileRun(spilledRun);
+			if (run.advance()) {
+				runs.add(run);
+			} else {
+				run.close();
+			}
+		}
+		
+		try (IndexWriter writer = new IndexWriter()) {
+			while (!runs.isEmpty()) {
+				Run run = runs.poll();
+				writer.add(run.hash, run.posting);
+				if (run.advance()) {
+					runs.add(run);
+				} else {
+					run.close();
+				}
+			}
+		} finally {
+			for (Run run : runs) {
+				run.close();
+			}
+		}
+		runSize = 0;
+	}
+	
+	/**
+	 * Delete the spilled runs
+	 * @throws IOException if a run cannot be deleted
+	 */
+	@Override
+	public void close() throws IOException {
+		for (Path spilledRun : spilledRuns) {
+			Files.deleteIfExists(spilledRun);
+		}
+		spilledRuns.clear();
+	}
+	
+	/*******************
+	 * PRIVATE METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Sort the current run, and write it to a temporary file
+	 */
+	private void spillRun() throws IOException {
+		LongPairSort.sort(hashes, postings, 0, runSize);
+		Path directory = keyFile.toAbsolutePath().getParent();
+		Path runFile = Files.createTempFile(directory, "positions", ".run");
+		spilledRuns.add(runFile);
+		
+		try (FileChannel channel = FileChannel.open(runFile, StandardOpenOption.WRITE)) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(IO_BUFFER_SIZE);
+			for (int idx=0; idx<runSize; idx++) {
+				if (buffer.remaining() < RUN_ENTRY_LENGTH) {
+					write(channel, buffer);
+				}
+				buffer.putLong(hashes[idx]).putLong(postings[idx]);
+			}
+			write(channel, buffer);
+		}
+		runSize = 0;
+	}
+	
+	private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+	
+	/**
+	 * A sorted run being merged, positioned at its smallest remaining triple
+	 */
+	private abstract static class Run implements Comparable<Run> {
+		protected long hash;
+		protected long posting;
+		
+		/**
+		 * Move to the next triple of the run
+		 * @return false if the run is exhausted
+		 */
+		abstract boolean advance() throws IOException;
+		
+		void close() throws IOException {}
+		
+		@Override
+		public int compareTo(Run other) {
+			return LongPairSort.compare(hash, posting, other.hash, other.posting);
+		}
+	}
+	
+	/**
+	 * The last run, merged straight from memory
+	 */
+	private class MemoryRun extends Run {
+		private int next;
+		
+		@Override
+		boolean advance() {
+			if (next == runSize) {
+				return false;
+			}
+			hash = hashes[next];
+			posting = postings[next];
+			next++;
+			return true;
+		}
+	}
+	
+	/**
+	 * A run spilled to a file
+	 */
+	private static class FileRun extends Run {
+		private final FileChannel channel;
+		private final ByteBuffer buffer;
+		
+		FileRun(Path path) throws IOException {
+			this.channel = FileChannel.open(path, StandardOpenOption.READ);
+			this.buffer = ByteBuffer.allocateDirect(IO_BUFFER_SIZE);
+			buffer.flip();
+		}
+		
+		@Override
+		boolean advance() throws IOException {
+			if (buffer.remaining() < RUN_ENTRY_LENGTH) {
+				buffer.compact();
+				while (buffer.position() < RUN_ENTRY_LENGTH && channel.read(buffer) != -1) {
+					// Keep reading until a whole triple is buffered
+				}
+				buffer.flip();
+				if (buffer.remaining() < RUN_ENTRY_LENGTH) {
+					return false;
+				}
+			}
+			hash = buffer.getLong();
+			posting = buffer.getLong();
+			return true;
+		}
+		
+		@Override
+		void close() throws IOException {
+			channel.close();
+		}
+	}
+	
+	/**
+	 * Writes the merged triples, grouping the postings of each hash into a compressed list
+	 */
+	private class IndexWriter implements Closeable {
+		private final FileChannel keyChannel;
+		private final FileChannel postingsChannel;
+		private final ByteBuffer keyBuffer;
+		private final ByteBuffer postingsBuffer;
+		private long postingsOffset;
+		
+		// Compressed postings of the current hash
+		private ByteBuffer currentList;
+		private long currentHash;
+		private long currentCount;
+		private long previousGameId;
+		private int previousPly;
+		
+		IndexWriter() throws IOException {
+			this.keyChannel = FileChannel.open(keyFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+			this.postingsChannel = FileChannel.open(postingsFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+			this.keyBuffer = ByteBuffer.allocateDirect(IO_BUFFER_SIZE);
+			this.postingsBuffer = ByteBuffer.allocateDirect(IO_BUFFER_SIZE);
+			this.currentList = ByteBuffer.allocate(1024);
+		}
+		
+		void add(long hash, long posting) throws IOException {
+			if (currentCount > 0 && hash != currentHash) {
+				writeCurrentList();
+			}
+			long gameId = posting >>> 16;
+			int ply = (int) (posting & 0xFFFF);
+			if (currentCount == 0) {
+				currentHash = hash;
+				putVarint(gameId);
+				putVarint(ply);
+			} else if (gameId == previousGameId) {
+				putVarint(0);
+				putVarint(ply - previousPly);
+			} else {
+				putVarint(gameId - previousGameId);
+				putVarint(ply);
+			}
+			previousGameId = gameId;
+			previousPly = ply;
+			currentCount++;
+		}
+		
+		/**
+		 * Write the key entry and the posting list of the current hash
+		 */
+		private void writeCurrentList() throws IOException {
+			currentList.flip();
+			int countLength = varintLength(currentCount);
+			long padding = MappedSegments.getPadding(postingsOffset, countLength + currentList.remaining());
+			while (padding > 0) {
+				ensureRemaining(postingsChannel, postingsBuffer, 1);
+				int chunk = (int) Math.min(postingsBuffer.remaining(), padding);
+				postingsBuffer.position(postingsBuffer.position() + chunk);
+				postingsOffset += chunk;
+				padding -= chunk;
+			}
+			
+			ensureRemaining(keyChannel, keyBuffer, PositionIndex.KEY_ENTRY_LENGTH);
+			keyBuffer.putLong(currentHash).putLong(postingsOffset);
+			
+			ensureRemaining(postingsChannel, postingsBuffer, countLength);
+			writeVarint(postingsBuffer, currentCount);
+			postingsOffset += countLength;
+			while (currentList.hasRemaining()) {
+				ensureRemaining(postingsChannel, postingsBuffer, 1);
+				int chunk = Math.min(postingsBuffer.remaining(), currentList.remaining());
+				ByteBuffer slice = currentList.duplicate();
+				slice.limit(slice.position() + chunk);
+				postingsBuffer.put(slice);
+				currentList.position(currentList.position() + chunk);
+				postingsOffset += chunk;
+			}
+			currentList.clear();
+			currentCount = 0;
+		}
+		
+		private void putVarint(long value) {
+			if (currentList.remaining() < 10) {
+				ByteBuffer grown = ByteBuffer.allocate(currentList.capacity() * 2);
+				currentList.flip();
+				grown.put(currentList);
+				currentList = grown;
+			}
+			writeVarint(currentList, value);
+		}
+		
+		private void ensureRemaining(FileChannel channel, ByteBuffer buffer, int length) throws IOException {
+			if (buffer.remaining() < length) {
+				write(channel, buffer);
+			}
+		}
+		
+		@Override
+		public void close() throws IOException {
+			try {
+				if (currentCount > 0) {
+					writeCurrentList();
+				}
+				write(postingsChannel, postingsBuffer);
+				write(keyChannel, keyBuffer);
+			} finally {
+				try {
+					keyChannel.close();
+				} finally {
+					postingsChannel.close();
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Write an unsigned varint at the position of the buffer
+	 */
+	private static void writeVarint(ByteBuffer buffer, long value) {
+		while ((value & ~0x7FL) != 0) {
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+	
+	private static int varintLength(long value) {
+		int length = 1;
+		while ((value & ~0x7FL) != 0) {
+			value >>>= 7;
+			length++;
+		}
+		return length;
+	}
+}
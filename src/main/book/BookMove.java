@@ -0,0 +1,40 @@
+package main.book;
+
+/**
+ * A move of the opening book, with its weight among the moves of the same position
+ * @author einar
+ *
+ */
+public final class BookMove {
+	private final int startSquare;
+	private final int endSquare;
+	private final int weight;
+	
+	/**
+	 * @param startSquare	row-major index of the square of the piece to move
+	 * @param endSquare		row-major index of the square to move to
+	 * @param weight		weight of the move, higher for moves that scored better
+	 */
+	public BookMove(int startSquare, int endSquare, int weight) {
+		this.startSquare = startSquare;
+		this.endSquare = endSquare;
+		this.weight = weight;
+	}
+	
+	public int getStartSquare() {
+		return startSquare;
+	}
+	
+	public int getEndSquare() {
+		return endSquare;
+	}
+	
+	public int getWeight() {
+		return weight;
+	}
+	
+	@Override
+	public String toString() {
+		return startSquare + "-" + endSquare + " (" + weight + ")";
+	}
+}
@@ -0,0 +1,167 @@
+package main.book;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import main.archive.MappedSegments;
+import main.core.Board;
+import main.core.PositionHash;
+import main.pieces.Piece.Color;
+
+/**
+ * Read-only opening book, memory-mapped so that every JVM on a host shares it through the page cache
+ * 
+ * The book file, written by OpeningBookBuilder, is an array of fixed-width entries sorted by position hash:
+ * 	[hash 8][start square 1][end square 1][reserved 2][weight 4]
+ * A position has one entry per book move, and is found by binary search
+ * @author einar
+ *
+ */
+public class OpeningBook implements Closeable {
+	// Width of a book entry
+	public static final int ENTRY_LENGTH = 16;
+	
+	private final FileChannel channel;
+	private final MappedByteBuffer[] segments;
+	private final long entryCount;
+	
+	private OpeningBook(FileChannel channel) throws IOException {
+		this.channel = channel;
+		this.entryCount = channel.size() / ENTRY_LENGTH;
+		this.segments = MappedSegments.map(channel, entryCount * ENTRY_LENGTH);
+	}
+	
+	/**
+	 * Open a book for lookups
+	 * @param bookFile	path of the book file
+	 * @return the book
+	 * @throws IOException if the file cannot be mapped
+	 */
+	public static OpeningBook open(Path bookFile) throws IOException {
+		FileChannel channel = FileChannel.open(bookFile, StandardOpenOption.READ);
+		try {
+			return new OpeningBook(channel);
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+	
+	/*******************
+	 * PUBLIC METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Get the number of entries in the book
+	 * @return number of (position, move) entries
+	 */
+	public long getEntryCount() {
+		return entryCount;
+	}
+	
+	/**
+	 * Pick a book move for the current position of a board, at random in proportion to the weights
+	 * @param board			board in the position to look up
+	 * @param sideToMove	color of the player to move
+	 * @param random		source of randomness
+	 * @return a book move, or null if the position is not in the book
+	 */
+	public BookMove choose(Board board, Color sideToMove, Random random) {
+		return choose(PositionHash.compute(board, sideToMove), random);
+	}
+	
+	/**
+	 * Pick a book move for a position, at random in proportion to the weights
+	 * @param hash		hash of the position
+	 * @param random	source of randomness
+	 * @return a book move, or null if the position is not in the book
+	 */
+	public BookMove choose(long hash, Random random) {
+		long first = findFirst(hash);
+		if (first < 0) {
+			return null;
+		}
+		long totalWeight = 0;
+		long entry = first;
+		for (; entry < entryCount && getHash(entry) == hash; entry++) {
+			totalWeight += getWeight(entry);
+		}
+		long target = (long) (random.nextDouble() * totalWeight);
+		for (long idx=first; idx<entry; idx++) {
+			target -= getWeight(idx);
+			if (target < 0) {
+				return getMove(idx);
+			}
+		}
+		return getMove(entry - 1);
+	}
+	
+	/**
+	 * Get every book move of a position
+	 * @param hash	hash of the position
+	 * @return the book moves, in order of their squares, empty if the position is not in the book
+	 */
+	public List<BookMove> getMoves(long hash) {
+		List<BookMove> moves = new ArrayList<BookMove>();
+		long first = findFirst(hash);
+		if (first >= 0) {
+			for (long entry=first; entry<entryCount && getHash(entry) == hash; entry++) {
+				moves.add(getMove(entry));
+			}
+		}
+		return moves;
+	}
+	
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+	
+	/*******************
+	 * PRIVATE METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Binary search for the first entry of a position
+	 * @return index of the entry, or -1 if the position is not in the book
+	 */
+	private long findFirst(long hash) {
+		long low = 0;
+		long high = entryCount;
+		while (low < high) {
+			long middle = (low + high) >>> 1;
+			if (getHash(middle) < hash) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return (low < entryCount && getHash(low) == hash) ? low : -1;
+	}
+	
+	private long getHash(long entry) {
+		long offset = entry * ENTRY_LENGTH;
+		return segments[(int) (offset / MappedSegments.SEGMENT_SIZE)].getLong((int) (offset % MappedSegments.SEGMENT_SIZE));
+	}
+	
+	private int getWeight(long entry) {
+		long offset = entry * ENTRY_LENGTH;
+		return segments[(int) (offset / MappedSegments.SEGMENT_SIZE)].getInt((int) (offset % MappedSegments.SEGMENT_SIZE) + 12);
+	}
+	
+	private BookMove getMove(long entry) {
+		long offset = entry * ENTRY_LENGTH;
+		MappedByteBuffer segment = segments[(int) (offset / MappedSegments.SEGMENT_SIZE)];
+		int start = (int) (offset % MappedSegments.SEGMENT_SIZE);
+		return new BookMove(segment.get(start + 8) & 0xFF, segment.get(start + 9) & 0xFF, segment.getInt(start + 12));
+	}
+}
@@ -0,0 +1,209 @@
+package main.book;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import main.archive.GameArchive;
+import main.archive.LongPairSort;
+import main.core.Board;
+import main.core.Move;
+import main.core.PositionHash;
+import main.core.StartingPosition;
+import main.exceptions.InvalidMoveException;
+import main.notation.GameReplayer;
+import main.notation.PgnReader.Result;
+import main.pieces.Piece;
+import main.pieces.Piece.Color;
+
+/**
+ * Builds an OpeningBook from the first moves of archived games
+ * 
+ * Every move played in the first plies of a game is weighted by the result for the player
+ * who made it: 2 for a win, 1 for a draw or an unknown result, 0 for a loss. Entries are
+ * kept as two parallel arrays, which are sorted and merged whenever they fill up, so the
+ * memory used grows with the number of distinct book moves rather than with the corpus
+ * @author einar
+ *
+ */
+public class OpeningBookBuilder {
+	// Default number of plies of every game added to the book
+	public static final int DEFAULT_MAX_PLY = 20;
+	
+	private static final int INITIAL_CAPACITY = 1 << 16;
+	private static final int WRITE_BUFFER_SIZE = 1 << 16;
+	
+	private final int maxPly;
+	
+	// Entries as hashes, and as (start square << 40 | end square << 32 | weight)
+	private long[] hashes;
+	private long[] moves;
+	private int size;
+	
+	/**
+	 * @param maxPly	number of plies of every game added to the book
+	 */
+	public OpeningBookBuilder(int maxPly) {
+		this.maxPly = maxPly;
+		this.hashes = new long[INITIAL_CAPACITY];
+		this.moves = new long[INITIAL_CAPACITY];
+	}
+	
+	/*******************
+	 * PUBLIC METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Add the first moves of every game of an archive
+	 * @param archive	archive of games
+	 * @throws InvalidMoveException if a game of the archive cannot be replayed
+	 */
+	public void addArchive(GameArchive archive) throws InvalidMoveException {
+		GameReplayer replayer = new GameReplayer(StartingPosition.STANDARD);
+		for (long gameId=0; gameId<archive.getGameCount(); gameId++) {
+			// Book positions are only meaningful for the standard starting position
+			if (archive.getStartingPosition(gameId) != StartingPosition.STANDARD) {
+				continue;
+			}
+			Result result = archive.getResult(gameId);
+			replayer.startGame();
+			Board board = replayer.getBoard();
+			long hash = PositionHash.compute(board, Color.WHITE);
+			
+			ByteBuffer gameMoves = archive.getMoves(gameId);
+			for (int ply=0; ply<maxPly && gameMoves.hasRemaining(); ply++) {
+				int startSquare = gameMoves.get() & 0xFF;
+				int endSquare = gameMoves.get() & 0xFF;
+				Color mover = replayer.getCurrentPlayer().getColor();
+				add(hash, startSquare, endSquare, getWeight(result, mover));
+				
+				replayer.apply(startSquare, endSquare);
+				Move move = board.getLastMove();
+				Piece piece = move.getPiece();
+				hash ^= PositionHash.getPieceKey(piece, startSquare) ^ PositionHash.getPieceKey(piece, endSquare)
+						^ PositionHash.getBlackToMoveKey();
+				if (move.getCapturedPiece() != null) {
+					hash ^= PositionHash.getPieceKey(move.getCapturedPiece(), endSquare);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Add a move played in a position
+	 * @param hash			hash of the position
+	 * @param startSquare	row-major index of the square of the piece moved
+	 * @param endSquare		row-major index of the square moved to
+	 * @param weight		weight added to the move
+	 */
+	public void add(long hash, int startSquare, int endSquare, int weight) {
+		if (size == hashes.length) {
+			merge();
+			// Grow if merging did not free at least half of the arrays
+			if (size > hashes.length / 2) {
+				hashes = Arrays.copyOf(hashes, hashes.length * 2);
+				moves = Arrays.copyOf(moves, moves.length * 2);
+			}
+		}
+		hashes[size] = hash;
+		moves[size] = ((long) startSquare << 40) | ((long) endSquare << 32) | weight;
+		size++;
+	}
+	
+	/**
+	 * Write the book
+	 * @param bookFile		path of the book file
+	 * @param minWeight		smallest total weight of a move kept in the book
+	 * @return number of entries written
+	 * @throws IOException if the file cannot be written
+	 */
+	public long write(Path bookFile, int minWeight) throws IOException {
+		merge();
+		long entryCount = 0;
+		try (FileChannel channel = FileChannel.open(bookFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+			for (int idx=0; idx<size; idx++) {
+				int weight = (int) moves[idx];
+				if (weight < minWeight || weight == 0) {
+					continue;
+				}
+				if (buffer.remaining() < OpeningBook.ENTRY_LENGTH) {
+					drain(channel, buffer);
+				}
+				buffer.putLong(hashes[idx])
+					.put((byte) (moves[idx] >>> 40))
+					.put((byte) (moves[idx] >>> 32))
+					.putShort((short) 0)
+					.putInt(weight);
+				entryCount++;
+			}
+			drain(channel, buffer);
+		}
+		return entryCount;
+	}
+	
+	/*******************
+	 * PRIVATE METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Sort the entries, and merge the entries of the same move in the same position
+	 */
+	private void merge() {
+		LongPairSort.sort(hashes, moves, 0, size);
+		int merged = 0;
+		for (int idx=0; idx<size; idx++) {
+			if (merged > 0 && hashes[merged - 1] == hashes[idx] && (moves[merged - 1] >>> 32) == (moves[idx] >>> 32)) {
+				moves[merged - 1] += (int) moves[idx];
+			} else {
+				hashes[merged] = hashes[idx];
+				moves[merged] = moves[idx];
+				merged++;
+			}
+		}
+		size = merged;
+	}
+	
+	private static int getWeight(Result result, Color mover) {
+		switch (result) {
+			case WHITE_WINS:
+				return mover == Color.WHITE ? 2 : 0;
+			case BLACK_WINS:
+				return mover == Color.BLACK ? 2 : 0;
+			default:
+				return 1;
+		}
+	}
+	
+	private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+	
+	/**
+	 * Build a book from an archive from the command line
+	 * @param args	paths of the archive data and index files and of the book, optionally followed by the number of plies
+	 * @throws Exception if a file cannot be read or written, or a game cannot be replayed
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length < 3) {
+			System.err.println("Usage: OpeningBookBuilder <archive.data> <archive.index> <book> [plies]");
+			return;
+		}
+		int maxPly = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_MAX_PLY;
+		OpeningBookBuilder builder = new OpeningBookBuilder(maxPly);
+		try (GameArchive archive = GameArchive.open(Paths.get(args[0]), Paths.get(args[1]))) {
+			builder.addArchive(archive);
+		}
+		System.out.println("Book holds " + builder.write(Paths.get(args[2]), 2) + " moves");
+	}
+}
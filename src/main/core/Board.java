@@ -1,6 +1,7 @@
 package main.core;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -10,6 +11,8 @@ import main.exceptions.InvalidMoveException;
 import main.exceptions.LocationOutsideBoardException;
 import main.pieces.King;
 import main.pieces.Piece;
+import main.pieces.Piece.Color;
+import main.pieces.PieceType;
 
 /**
  * Board class
@@ -25,6 +28,30 @@ public class Board {
 	private Stack<Move> futureMoveHistory;
 	private Player[] players;
 	
+	// Material and piece-square score of the position, from white's point of view, kept up to date by every move
+	private Evaluation evaluation;
+	private int score;
+	
+	// Bitboard of the occupied squares, bit row * 8 + col, kept up to date by the squares on 8x8 boards
+	private long occupancy;
+	
+	// Squares of the board in a padded one-dimensional layout, for walking paths without bounds checks
+	private Mailbox mailbox;
+	
+	// Squares of the white and black pieces, for boards of any size, kept up to date by the squares
+	private WideBitboard whiteSquares;
+	private WideBitboard blackSquares;
+	
+	// Zobrist hash of the pieces on the board, without the player to move, kept up to date by every move
+	private long pieceHash;
+	
+	// Position the board was created with, indexed by square index, restored by resetToInitialPosition
+	private Piece[] initialPieces;
+	private int[] initialMoveCounts;
+	private Piece[][] initialPlayerPieces;
+	private int initialScore;
+	private long initialPieceHash;
+	
 	/**
 	 * Generates a new main.core board with the given parameters and main.pieces
 	 * There are two systems for coordinates of squares on the board:
@@ -47,15 +74,20 @@ public class Board {
 		this.players = players;
 		
 		// Initialize the board with appropriate number of squares
+		this.whiteSquares = new WideBitboard(numRows, numColumns);
+		this.blackSquares = new WideBitboard(numRows, numColumns);
 		this.squares = new Square[numRows][numColumns];
 		for (int row=0; row<numRows; row++) {
 			for (int col=0; col<numColumns; col++) {
 				squares[row][col] = new Square(row, col, this);
 			}
 		}
+		this.mailbox = new Mailbox(squares);
 		
 		// Places main.pieces on each square by checking mapping
+		this.evaluation = Evaluation.get(numRows, numColumns, getWhiteDirection());
 		placePieces(pieceMapping);
+		saveInitialPosition();
 		
 		moveHistory = new Stack<Move>();
 		futureMoveHistory = new Stack<Move>();
@@ -87,12 +119,39 @@ public class Board {
 
 					// Place this piece on the square
 					currSquare.setPiece(currentPiece);
+					score += getScore(currentPiece, currSquare);
+					pieceHash ^= getPieceKey(currentPiece, currSquare);
 				}				
 			}
 		}
 	}
 	
 	
+	/**
+	 * Remember the pieces placed by the constructor, so that the game can be restarted without rebuilding the board
+	 */
+	private void saveInitialPosition() {
+		initialPieces = new Piece[numRows * numColumns];
+		initialMoveCounts = new int[numRows * numColumns];
+		for (int row=0; row<numRows; row++) {
+			for (int col=0; col<numColumns; col++) {
+				if (squares[row][col].hasPiece()) {
+					initialPieces[row * numColumns + col] = squares[row][col].getPiece();
+					initialMoveCounts[row * numColumns + col] = squares[row][col].getPiece().getMoveCount();
+				}
+			}
+		}
+		initialPlayerPieces = new Piece[players == null ? 0 : players.length][];
+		for (int idx=0; idx<initialPlayerPieces.length; idx++) {
+			if (players[idx] != null) {
+				initialPlayerPieces[idx] = players[idx].getAvailablePieces().toArray(new Piece[0]);
+			}
+		}
+		initialScore = score;
+		initialPieceHash = pieceHash;
+	}
+	
+	
 	/*******************
 	 * PUBLIC METHODS
 	 * 
@@ -204,6 +263,89 @@ public class Board {
 		return true;
 	}
 	
+	/**
+	 * Make a move while searching for the best move
+	 * Unlike move, the redo history is left untouched, so a search can explore moves and take them back
+	 * @param move	a valid move, as checked by isMoveValid
+	 * @return true if the move was made, false if it would leave the player making it in check
+	 */
+	public boolean makeSearchMove(Move move) {
+		makeMove(move);
+		if (isCheck(move.getPlayer())) {
+			undoLastMoveHelper();
+			return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Take back the last move made with makeSearchMove
+	 */
+	public void undoSearchMove() {
+		undoLastMoveHelper();
+	}
+	
+	/**
+	 * Create an independent copy of the current position, with new pieces and players
+	 * The copy has no move history, and can be searched while this board is still being played on
+	 * @return copy of this board
+	 */
+	public Board copy() {
+		Map<String, Piece> pieceMapping = new HashMap<String, Piece>();
+		Player[] playerCopies = new Player[players.length];
+		for (int idx=0; idx<players.length; idx++) {
+			Player player = players[idx];
+			List<Piece> pieceCopies = new ArrayList<Piece>();
+			for (Piece piece : player.getAvailablePieces()) {
+				Piece pieceCopy = piece.createSameKind(piece.getColor());
+				// Pieces that have moved lose their initial movements
+				pieceCopy.setMoveCount(piece.getMoveCount());
+				pieceMapping.put(piece.getSquare().toString(), pieceCopy);
+				pieceCopies.add(pieceCopy);
+			}
+			playerCopies[idx] = new Player(player.getName(), player.getColor(), player.getDirection(), pieceCopies);
+		}
+		return new Board(numRows, numColumns, pieceMapping, playerCopies);
+	}
+	
+	/**
+	 * Put every piece back where it was when the board was created, and forget the moves made
+	 * The squares, pieces and players are reused, so nothing is allocated
+	 */
+	public void resetToInitialPosition() {
+		for (int row=0; row<numRows; row++) {
+			for (int col=0; col<numColumns; col++) {
+				if (squares[row][col].hasPiece()) {
+					squares[row][col].removePiece();
+				}
+			}
+		}
+		for (int idx=0; idx<initialPieces.length; idx++) {
+			Piece piece = initialPieces[idx];
+			if (piece != null) {
+				piece.setMoveCount(initialMoveCounts[idx]);
+				squares[idx / numColumns][idx % numColumns].setPiece(piece);
+			}
+		}
+		for (int idx=0; idx<initialPlayerPieces.length; idx++) {
+			Player player = players[idx];
+			if (player == null) {
+				continue;
+			}
+			List<Piece> availablePieces = player.getAvailablePieces();
+			availablePieces.clear();
+			for (Piece piece : initialPlayerPieces[idx]) {
+				availablePieces.add(piece);
+			}
+			player.getCapturedPieces().clear();
+			player.setKingCaptured(false);
+		}
+		score = initialScore;
+		pieceHash = initialPieceHash;
+		moveHistory.clear();
+		futureMoveHistory.clear();
+	}
+	
 	/**
 	 * Whether there are moves to be undone
 	 * @return	True if a move can be undone
@@ -212,6 +354,17 @@ public class Board {
 		return moveHistory.size() != 0;
 	}
 	
+	/**
+	 * Get the last move that was made, i.e. the move that would be undone next
+	 * @return the last move, or null if no move has been made
+	 */
+	public Move getLastMove() {
+		if (moveHistory.size() == 0) {
+			return null;
+		}
+		return moveHistory.peek();
+	}
+	
 	/**
 	 * Whether there are moves that can be redone
 	 * @return	True if there are moves that can be redone
@@ -250,18 +403,30 @@ public class Board {
 		
 		// Move last moved piece back to original spot
 		Piece pieceToMove = lastMove.getPiece();
+		// The key of a piece can depend on whether it has moved, so each key is taken with the matching move count
+		long endKey = getPieceKey(pieceToMove, lastMove.getEndSquare());
 		pieceToMove.decrementMoveCount();
 		
 		lastMove.getEndSquare().removePiece();
 		lastMove.getStartSquare().setPiece(pieceToMove);
+		score += getScore(pieceToMove, lastMove.getStartSquare()) - getScore(pieceToMove, lastMove.getEndSquare());
+		pieceHash ^= getPieceKey(pieceToMove, lastMove.getStartSquare()) ^ endKey;
 		// Check if the last move captured a piece
 		if (lastMove.isCaptureMove()) {
 			// Reset captured piece
 			lastMove.getEndSquare().setPiece(lastMove.getCapturedPiece());
+			score += getScore(lastMove.getCapturedPiece(), lastMove.getEndSquare());
+			pieceHash ^= getPieceKey(lastMove.getCapturedPiece(), lastMove.getEndSquare());
 			
 			// Get reference to opposite player
 			Player oppositePlayer = getOppositePlayer(lastMove.getPlayer());
 			oppositePlayer.addAvailablePiece(lastMove.getCapturedPiece());
+
+			// The piece is no longer captured by the player who made the move
+			lastMove.getPlayer().removeCapturedPiece(lastMove.getCapturedPiece());
+			if (lastMove.getCapturedPiece() instanceof King) {
+				oppositePlayer.setKingCaptured(false);
+			}
 		}
 	}
 	
@@ -368,6 +533,103 @@ public class Board {
 		}
 	}
 	
+	/**
+	 * Get the static evaluation of the current position: material plus piece-square bonuses
+	 * The score is maintained as moves are made and undone, so this is a constant time read
+	 * @return score in centipawns, positive when white is better
+	 */
+	public int getEvaluation() {
+		return score;
+	}
+	
+	/**
+	 * Get the static evaluation of the current position for a player
+	 * @param player	player whose point of view is taken
+	 * @return score in centipawns, positive when the player is better
+	 */
+	public int getEvaluation(Player player) {
+		return player.getColor() == Color.WHITE ? score : -score;
+	}
+	
+	/**
+	 * Compute the static evaluation by scanning the whole board, rather than reading the maintained score
+	 * @return score in centipawns, positive when white is better
+	 */
+	public int computeEvaluation() {
+		int total = 0;
+		for (int row=0; row<numRows; row++) {
+			for (int col=0; col<numColumns; col++) {
+				if (squares[row][col].hasPiece()) {
+					total += getScore(squares[row][col].getPiece(), squares[row][col]);
+				}
+			}
+		}
+		return total;
+	}
+	
+	/**
+	 * Whether the board is small enough for PositionHash; larger boards always hash to 0
+	 * @return true if positions of this board have distinct hashes
+	 */
+	public boolean isHashable() {
+		return numRows * numColumns <= PositionHash.MAX_SQUARES;
+	}
+	
+	/**
+	 * Get the Zobrist hash of the current position, as PositionHash.compute would
+	 * The hash is maintained as moves are made and undone, so this is a constant time read
+	 * @param sideToMove	color of the player to move
+	 * @return hash of the position
+	 */
+	public long getPositionHash(Color sideToMove) {
+		return sideToMove == Color.BLACK ? pieceHash ^ PositionHash.getBlackToMoveKey() : pieceHash;
+	}
+	
+	/**
+	 * Check whether a piece is pinned: taking it off the board would leave its player in check
+	 * A player who is not in check can move a piece that is not pinned anywhere its moves allow,
+	 * since a piece of its own never attacks its king
+	 * On an 8x8 board this is answered from the line masks: only a slider on the line through the
+	 * king and the piece can be uncovered, as every other standard piece either jumps or moves a
+	 * single step. Custom pieces may ride along any line, so they are checked by removing the piece
+	 * @param piece				piece to test, which is on the board and is not the king
+	 * @param currentPlayer		player owning the piece, who is not in check
+	 * @return true if the piece is pinned
+	 */
+	public boolean isPinned(Piece piece, Player currentPlayer) {
+		if (isBitboardSized() && !hasCustomPieces(getOppositePlayer(currentPlayer))) {
+			int kingIndex = getSquareIndex(currentPlayer.getKing().getSquare());
+			int pieceIndex = getSquareIndex(piece.getSquare());
+			if (LineMasks.getLine(kingIndex, pieceIndex) == 0 || (LineMasks.getBetween(kingIndex, pieceIndex) & occupancy) != 0) {
+				return false;
+			}
+			int attackerIndex = LineMasks.getFirstBlockerBeyond(kingIndex, pieceIndex, occupancy);
+			if (attackerIndex < 0) {
+				return false;
+			}
+			Piece attacker = squares[attackerIndex / numColumns][attackerIndex % numColumns].getPiece();
+			if (attacker.getColor() == piece.getColor()) {
+				return false;
+			}
+			switch (attacker.getType()) {
+				case QUEEN:
+					return true;
+				case ROOK:
+					return LineMasks.isOrthogonal(kingIndex, pieceIndex);
+				case BISHOP:
+					return !LineMasks.isOrthogonal(kingIndex, pieceIndex);
+				default:
+					return false;
+			}
+		}
+		
+		Square square = piece.getSquare();
+		square.removePiece();
+		boolean isInCheck = isCheck(currentPlayer);
+		square.setPiece(piece);
+		return isInCheck;
+	}
+	
 	/**
 	 * Check whether the current player is in check
 	 * @param currentPlayer		player to verify if in check
@@ -389,6 +651,12 @@ public class Board {
 			// Check if this piece can be moved to the king
 			Square startSquare = currentPiece.getSquare();
 			Square endSquare = king.getSquare();
+			
+			// Skip the pieces whose patterns cannot reach the king, whatever is in the way
+			MoveTargets targets = MoveTargets.get(numRows, numColumns, currentPiece.getDescriptor(), currentPlayer.getDirection());
+			if (!targets.getCaptureTargets(getSquareIndex(startSquare)).get(getSquareIndex(endSquare))) {
+				continue;
+			}
 			Move currentMove = new Move(startSquare, endSquare, currentPlayer);
 			boolean moveIsValid = isMoveValid(currentMove);
 			
@@ -517,32 +785,40 @@ public class Board {
 			return true;
 		}
 		
+		// Sliders on an 8x8 board are looked up in the magic bitboard tables: the path is clear if the end square is attacked
+		if (isBitboardSized()) {
+			long attacks = getSliderAttacks(move.getPiece().getType(), move.getStartRow() * numColumns + move.getStartCol());
+			if (attacks != 0) {
+				return ((attacks >>> (move.getEndRow() * numColumns + move.getEndCol())) & 1) != 0;
+			}
+			
+			// Other patterns stepping one square at a time follow a line: the path is clear if nothing is between the squares
+			if (Math.abs(movementPattern.getRowMovement()) <= 1 && Math.abs(movementPattern.getColMovement()) <= 1) {
+				long between = LineMasks.getBetween(getSquareIndex(move.getStartSquare()), getSquareIndex(move.getEndSquare()));
+				return (between & occupancy) == 0;
+			}
+		}
+		
 		GameDirection direction = move.getPlayer().getDirection();
-
-		int startRow = move.getStartRow();
-		int startCol = move.getStartCol();
-		Square currentSquare = move.getStartSquare();
+		
+		// Walk the mailbox one step of the pattern at a time; a sentinel ends the walk without bounds checks
+		int offset = mailbox.getOffset(PerspectiveTables.getRowSign(direction) * movementPattern.getRowMovement(),
+				PerspectiveTables.getColSign(direction) * movementPattern.getColMovement());
+		int index = mailbox.getIndex(move.getStartRow(), move.getStartCol());
 		
 		// Simulate each of the iterations of the movement, except the last
 		while (true) {
 			// Get the square that the piece should be at for this iteration
-			if (direction == GameDirection.UPWARDS) {
-				startRow -= movementPattern.getRowMovement();
-				startCol += movementPattern.getColMovement();
-			} else {
-				startRow += movementPattern.getRowMovement();
-				startCol -= movementPattern.getColMovement();
-			}
-			
-			currentSquare = squares[startRow][startCol];
+			index += offset;
+			Square currentSquare = mailbox.getSquare(index);
 			
 			// Once we reach the final square, we no longer need to check if there are main.pieces
 			if (currentSquare == move.getEndSquare()) {
 				break;
 			}
-			// If current square does have piece, this is not a valid path
 			
-			if (currentSquare.hasPiece()) {
+			// If the walk left the board or the current square does have a piece, this is not a valid path
+			if (currentSquare == null || currentSquare.hasPiece()) {
 				return false;
 			}
 		}
@@ -577,6 +853,8 @@ public class Board {
 			
 			// Remove piece from end square
 			move.getEndSquare().removePiece();
+			score -= getScore(pieceToCapture, move.getEndSquare());
+			pieceHash ^= getPieceKey(pieceToCapture, move.getEndSquare());
 			
 			// Remove piece from player's availablePiece list
 			oppositePlayer.removeAvailablePiece(pieceToCapture);
@@ -588,26 +866,125 @@ public class Board {
 		
 		// Place piece on end square
 		move.getEndSquare().setPiece(pieceToMove);
+		score += getScore(pieceToMove, move.getEndSquare()) - getScore(pieceToMove, move.getStartSquare());
+		// The key of a piece can depend on whether it has moved, so each key is taken with the matching move count
+		long startKey = getPieceKey(pieceToMove, move.getStartSquare());
 		
 		// Some main.pieces have custom functions that should run after every move
 		pieceToMove.afterMove();
 		pieceToMove.incrementMoveCount();
+		pieceHash ^= startKey ^ getPieceKey(pieceToMove, move.getEndSquare());
 		
 		// Store this move, in case we decide to undo the move later
 		moveHistory.add(move);
 	}
 	
 	/**
-	 * Return the player that is not currentPlayer
-	 * @param currentPlayer	the opposite of the player to return
-	 * @return 				return the player that is not currentPlayer
+	 * Get the squares a slider attacks from a square, or 0 if the piece type is not a slider
 	 */
-	private Player getOppositePlayer(Player currentPlayer) {
-		if (players[0] == currentPlayer) {
-			return players[1];
+	private long getSliderAttacks(PieceType type, int squareIndex) {
+		switch (type) {
+			case ROOK:
+				return MagicBitboards.getRookAttacks(squareIndex, occupancy);
+			case BISHOP:
+				return MagicBitboards.getBishopAttacks(squareIndex, occupancy);
+			case QUEEN:
+				return MagicBitboards.getQueenAttacks(squareIndex, occupancy);
+			default:
+				return 0;
+		}
+	}
+	
+	/**
+	 * Whether the board is 8x8, so that a long can hold one bit per square
+	 */
+	private boolean isBitboardSized() {
+		return numRows == MagicBitboards.BOARD_SIZE && numColumns == MagicBitboards.BOARD_SIZE;
+	}
+	
+	private static boolean hasCustomPieces(Player player) {
+		List<Piece> pieces = player.getAvailablePieces();
+		for (int idx=0; idx<pieces.size(); idx++) {
+			if (pieces.get(idx).getType() == PieceType.CUSTOM) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Get the index of a square, row * numColumns + col, as used by the WideBitboards of the board
+	 */
+	private int getSquareIndex(Square square) {
+		return square.getRow() * numColumns + square.getCol();
+	}
+	
+	/**
+	 * Record that a square of this board has gained or lost its piece
+	 * Called by the square itself, so that the occupancy follows every change of the squares
+	 * @param square	square that changed
+	 */
+	void updateOccupancy(Square square) {
+		int row = square.getRow();
+		int col = square.getCol();
+		if (squares[row][col] != square) {
+			return;
+		}
+		int squareIndex = row * numColumns + col;
+		if (square.hasPiece()) {
+			if (square.getPiece().getColor() == Color.WHITE) {
+				whiteSquares.set(squareIndex);
+				blackSquares.clear(squareIndex);
+			} else {
+				blackSquares.set(squareIndex);
+				whiteSquares.clear(squareIndex);
+			}
 		} else {
-			return players[0];
+			whiteSquares.clear(squareIndex);
+			blackSquares.clear(squareIndex);
 		}
+		if (!isBitboardSized()) {
+			return;
+		}
+		long bit = 1L << squareIndex;
+		if (square.hasPiece()) {
+			occupancy |= bit;
+		} else {
+			occupancy &= ~bit;
+		}
+	}
+	
+	/**
+	 * Get the Zobrist key of a piece on a square, or 0 on boards too large for PositionHash
+	 */
+	private long getPieceKey(Piece piece, Square square) {
+		int squareIndex = square.getRow() * numColumns + square.getCol();
+		if (!isHashable()) {
+			return 0;
+		}
+		return PositionHash.getPieceKey(piece, squareIndex);
+	}
+	
+	/**
+	 * Get the evaluation score of a piece on a square
+	 */
+	private int getScore(Piece piece, Square square) {
+		return evaluation.getScore(piece, square.getRow() * numColumns + square.getCol());
+	}
+	
+	/**
+	 * Get the direction white moves in, UPWARDS if white has no player
+	 */
+	private GameDirection getWhiteDirection() {
+		if (players == null) {
+			return GameDirection.UPWARDS;
+		}
+		for (Player player : players) {
+			if (player != null && player.getColor() == Color.WHITE) {
+				return player.getDirection();
+			}
+		}
+		return GameDirection.UPWARDS;
 	}
 	
 	/**
@@ -690,7 +1067,59 @@ public class Board {
 	public Square[][] getAllSquares() {
 		return squares;
 	}
+	
+	/**
+	 * Get the bitboard of occupied squares, bit row * 8 + col
+	 * @return the occupancy, or 0 if the board is not 8x8
+	 */
+	public long getOccupancy() {
+		return occupancy;
+	}
+
+	/**
+	 * Get the padded one-dimensional layout of the squares of the board
+	 * @return the mailbox
+	 */
+	public Mailbox getMailbox() {
+		return mailbox;
+	}
+	
+	/**
+	 * Get the squares of the pieces of one color, bit row * numColumns + col, on a board of any size
+	 * @param color		color of the pieces
+	 * @return the squares, which must not be modified
+	 */
+	public WideBitboard getPieceSquares(Color color) {
+		return color == Color.WHITE ? whiteSquares : blackSquares;
+	}
 
+	/**
+	 * Return the player playing the given color
+	 * @param color		color of the player
+	 * @return the player, or null if no player has this color
+	 */
+	public Player getPlayer(Color color) {
+		for (Player player : players) {
+			if (player.getColor() == color) {
+				return player;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Return the player that is not currentPlayer
+	 * @param currentPlayer	the opposite of the player to return
+	 * @return 				return the player that is not currentPlayer
+	 */
+	public Player getOppositePlayer(Player currentPlayer) {
+		if (players[0] == currentPlayer) {
+			return players[1];
+		} else {
+			return players[0];
+		}
+	}
+	
 	/**
 	 * Return a list of board squares in row major order.
 	 * Each board square is represented by a character
@@ -1,13 +1,10 @@
 package main.core;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import main.exceptions.InvalidMoveException;
 import main.pieces.*;
-import main.pieces.Piece.Color;
 import main.ui.MainGamePanel;
 
 public class ChessModel {
@@ -30,6 +27,9 @@ public class ChessModel {
 	// Whether to use custom pieces on game restart
 	private boolean useCustomPieces = false;
 	
+	// Layout the board was created with, null for a custom mapping
+	private StartingPosition startingPosition;
+	
 	/**
 	 * Initialize the game for playing with two players - "Player 1" and "Player 2"
 	 * This involves setting up the players, the piece locations, and then the board itself
@@ -119,6 +119,7 @@ public class ChessModel {
 	 */
 	public void startGameWithCustomMapping(String player1Name, String player2Name, Map<String, Piece> pieceMappings) {
 		// Use passed in piece mapping for piece locations
+		this.startingPosition = null;
 		this.pieceMappings = pieceMappings;
 		
 		// Setup players
@@ -134,97 +135,18 @@ public class ChessModel {
 	 * @param player2Name	name of player 2
 	 */
 	private void setupPlayers(String player1Name, String player2Name) {
-		players = new Player[2];
-		
-		List<Piece> whitePieceList = generatePieceListForPlayerByColor(Color.WHITE);
-		players[0] = new Player(player1Name, Color.WHITE, GameDirection.UPWARDS, whitePieceList);
-		
-		List<Piece> blackPieceList = generatePieceListForPlayerByColor(Color.BLACK);
-		players[1] = new Player(player2Name, Color.BLACK, GameDirection.DOWNWARDS, blackPieceList);
+		players = StartingPosition.createPlayers(player1Name, player2Name, pieceMappings);
 		this.currentPlayerIndex = 0;
 	}
 
-	/**
-	 * Extract the main.pieces for a player of a certain color from the board map
-	 * @param color	color of main.pieces to return
-	 * @return	a list of main.pieces for a player of a certain color
-	 */
-	private List<Piece> generatePieceListForPlayerByColor(Color color) {
-		List<Piece> playerPieces = new ArrayList<Piece>();
-		for (Piece piece : pieceMappings.values()) {
-		    if (piece.getColor() == color) {
-		    	playerPieces.add(piece);
-		    }
-		}
-		return playerPieces;
-	}
-	
 	/**
 	 * Generate the initial mapping of location to main.pieces on the board
 	 * i.e. the initial layout of main pieces on the board
 	 * This is the traditional chess layout
-	 * @return	return the map of location to piece on the board
 	 */
 	private void generatePieceMappings() {
-		pieceMappings = new HashMap<String, Piece>();
-		
-		// Map the string location to a piece
-		
-		// WHITE PIECES
-		// Setup pawns
-		pieceMappings.put("a2", new Pawn(Color.WHITE));
-		pieceMappings.put("b2", new Pawn(Color.WHITE));
-		pieceMappings.put("c2", new Pawn(Color.WHITE));
-		pieceMappings.put("d2", new Pawn(Color.WHITE));
-		pieceMappings.put("e2", new Pawn(Color.WHITE));
-		pieceMappings.put("f2", new Pawn(Color.WHITE));
-		pieceMappings.put("g2", new Pawn(Color.WHITE));
-		pieceMappings.put("h2", new Pawn(Color.WHITE));
-		
-		// Setup rooks
-		pieceMappings.put("a1", new Rook(Color.WHITE));
-		pieceMappings.put("h1", new Rook(Color.WHITE));
-		
-		// Setup knights
-		pieceMappings.put("b1", new Knight(Color.WHITE));
-		pieceMappings.put("g1", new Knight(Color.WHITE));
-				
-		// Setup bishops
-		pieceMappings.put("c1", new Bishop(Color.WHITE));
-		pieceMappings.put("f1", new Bishop(Color.WHITE));
-		
-		// Setup king and queen
-		pieceMappings.put("e1", new King(Color.WHITE));
-		pieceMappings.put("d1", new Queen(Color.WHITE));
-		
-		
-		// BLACK PIECES
-		
-		// Setup pawns
-		pieceMappings.put("a7", new Pawn(Color.BLACK));
-		pieceMappings.put("b7", new Pawn(Color.BLACK));
-		pieceMappings.put("c7", new Pawn(Color.BLACK));
-		pieceMappings.put("d7", new Pawn(Color.BLACK));
-		pieceMappings.put("e7", new Pawn(Color.BLACK));
-		pieceMappings.put("f7", new Pawn(Color.BLACK));
-		pieceMappings.put("g7", new Pawn(Color.BLACK));
-		pieceMappings.put("h7", new Pawn(Color.BLACK));
-		
-		// Setup rooks
-		pieceMappings.put("a8", new Rook(Color.BLACK));
-		pieceMappings.put("h8", new Rook(Color.BLACK));
-		
-		// Setup knights
-		pieceMappings.put("b8", new Knight(Color.BLACK));
-		pieceMappings.put("g8", new Knight(Color.BLACK));
-				
-		// Setup bishops
-		pieceMappings.put("c8", new Bishop(Color.BLACK));
-		pieceMappings.put("f8", new Bishop(Color.BLACK));
-		
-		// Setup king and queen
-		pieceMappings.put("e8", new King(Color.BLACK));
-		pieceMappings.put("d8", new Queen(Color.BLACK));
+		startingPosition = StartingPosition.STANDARD;
+		pieceMappings = startingPosition.generatePieceMapping();
 	}
 	
 	/**
@@ -232,75 +154,10 @@ public class ChessModel {
 	 * i.e. the initial layout of main pieces on the board
 	 * This is the traditional chess layout with RowMover and
 	 * DoubleJumper added for each player
-	 * @return	return the map of location to piece on the board
 	 */
 	private void generatePieceMappingsWithCustomPieces() {
-		pieceMappings = new HashMap<String, Piece>();
-		
-		// Map the string location to a piece
-		
-		// WHITE PIECES
-		// Setup pawns
-		pieceMappings.put("a2", new Pawn(Color.WHITE));
-		pieceMappings.put("b2", new Pawn(Color.WHITE));
-		pieceMappings.put("c2", new Pawn(Color.WHITE));
-		pieceMappings.put("d2", new Pawn(Color.WHITE));
-		pieceMappings.put("e2", new Pawn(Color.WHITE));
-		pieceMappings.put("f2", new Pawn(Color.WHITE));
-		pieceMappings.put("g2", new Pawn(Color.WHITE));
-		pieceMappings.put("h2", new Pawn(Color.WHITE));
-		
-		// Setup rooks
-		pieceMappings.put("a1", new Rook(Color.WHITE));
-		pieceMappings.put("h1", new Rook(Color.WHITE));
-		
-		// Setup knights
-		pieceMappings.put("b1", new Knight(Color.WHITE));
-		pieceMappings.put("g1", new Knight(Color.WHITE));
-				
-		// Setup bishops
-		pieceMappings.put("c1", new Bishop(Color.WHITE));
-		pieceMappings.put("f1", new Bishop(Color.WHITE));
-		
-		// Setup king and queen
-		pieceMappings.put("e1", new King(Color.WHITE));
-		pieceMappings.put("d1", new Queen(Color.WHITE));
-		
-		// Setup RowMover and DoubleJumper
-		pieceMappings.put("a3", new RowMover(Color.WHITE));
-		pieceMappings.put("h3", new DoubleJumper(Color.WHITE));
-		
-		
-		// BLACK PIECES
-		// Setup pawns
-		pieceMappings.put("a7", new Pawn(Color.BLACK));
-		pieceMappings.put("b7", new Pawn(Color.BLACK));
-		pieceMappings.put("c7", new Pawn(Color.BLACK));
-		pieceMappings.put("d7", new Pawn(Color.BLACK));
-		pieceMappings.put("e7", new Pawn(Color.BLACK));
-		pieceMappings.put("f7", new Pawn(Color.BLACK));
-		pieceMappings.put("g7", new Pawn(Color.BLACK));
-		pieceMappings.put("h7", new Pawn(Color.BLACK));
-		
-		// Setup rooks
-		pieceMappings.put("a8", new Rook(Color.BLACK));
-		pieceMappings.put("h8", new Rook(Color.BLACK));
-		
-		// Setup knights
-		pieceMappings.put("b8", new Knight(Color.BLACK));
-		pieceMappings.put("g8", new Knight(Color.BLACK));
-				
-		// Setup bishops
-		pieceMappings.put("c8", new Bishop(Color.BLACK));
-		pieceMappings.put("f8", new Bishop(Color.BLACK));
-		
-		// Setup king and queen
-		pieceMappings.put("e8", new King(Color.BLACK));
-		pieceMappings.put("d8", new Queen(Color.BLACK));
-		
-		// Setup RowMover and DoubleJumper
-		pieceMappings.put("a6", new RowMover(Color.BLACK));
-		pieceMappings.put("h6", new DoubleJumper(Color.BLACK));
+		startingPosition = StartingPosition.CUSTOM_PIECES;
+		pieceMappings = startingPosition.generatePieceMapping();
 	}
 	
 	/**
@@ -325,6 +182,14 @@ public class ChessModel {
 		return players[currentPlayerIndex].getName();
 	}
 	
+	/**
+	 * Get the color of the player who's turn it currently is
+	 * @return color of current player
+	 */
+	public Piece.Color getCurrentPlayerColor() {
+		return players[currentPlayerIndex].getColor();
+	}
+	
 	/**
 	 * Move a piece from one position to another, for the current player
 	 * @param startPosition		start position of piece, in string representation
@@ -441,6 +306,15 @@ public class ChessModel {
 		}
 	}
 	
+	/**
+	 * Get the board of the current game
+	 * Used by headless services that need direct access to the squares and pieces
+	 * @return board of the current game
+	 */
+	public Board getBoard() {
+		return board;
+	}
+	
 	/**
 	 * Get the number of rows on the board
 	 * @return
@@ -557,9 +431,15 @@ public class ChessModel {
 	/**
 	 * Resets the current game, placing all pieces back in their original spot
 	 * Will keep the same player objects, so scores will be unchanged
+	 * When the board was created from the layout being restarted, its pieces are put back in place
+	 * instead of building a new board
 	 */
 	public void resetGame() {
-		if (useCustomPieces) {
+		StartingPosition resetPosition = useCustomPieces ? StartingPosition.CUSTOM_PIECES : StartingPosition.STANDARD;
+		if (board != null && startingPosition == resetPosition) {
+			board.resetToInitialPosition();
+			currentPlayerIndex = 0;
+		} else if (useCustomPieces) {
 			startGameWithCustomPieces(players[0].getName(), players[1].getName());
 		} else {
 			startGame(players[0].getName(), players[1].getName());
@@ -0,0 +1,219 @@
+package main.core;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import main.pieces.Piece;
+import main.pieces.Piece.Color;
+import main.pieces.PieceType;
+
+/**
+ * Static evaluation terms of a board: material plus a piece-square bonus for every piece
+ * 
+ * The piece-square tables are written for an 8x8 board from the point of view of the player
+ * moving UPWARDS, with the first row being the far side of the board. They are flipped for
+ * the player moving DOWNWARDS, and stretched to boards of other sizes. The score of every
+ * piece type, color and square is computed once per board size and direction, and shared by
+ * every board of that geometry, so that Board can keep its evaluation up to date with a few
+ * lookups per move
+ * 
+ * Scores are in centipawns, positive when good for white
+ * @author einar
+ *
+ */
+public class Evaluation {
+	private static final Map<Long, Evaluation> EVALUATIONS = new ConcurrentHashMap<Long, Evaluation>();
+	
+	// Dimensions the piece-square tables are written for
+	private static final int TABLE_SIZE = 8;
+	
+	private static final int[][] PAWN_TABLE = {
+		{  0,  0,  0,  0,  0,  0,  0,  0},
+		{ 50, 50, 50, 50, 50, 50, 50, 50},
+		{ 10, 10, 20, 30, 30, 20, 10, 10},
+		{  5,  5, 10, 25, 25, 10,  5,  5},
+		{  0,  0,  0, 20, 20,  0,  0,  0},
+		{  5, -5,-10,  0,  0,-10, -5,  5},
+		{  5, 10, 10,-20,-20, 10, 10,  5},
+		{  0,  0,  0,  0,  0,  0,  0,  0}
+	};
+	
+	private static final int[][] KNIGHT_TABLE = {
+		{-50,-40,-30,-30,-30,-30,-40,-50},
+		{-40,-20,  0,  0,  0,  0,-20,-40},
+		{-30,  0, 10, 15, 15, 10,  0,-30},
+		{-30,  5, 15, 20, 20, 15,  5,-30},
+		{-30,  0, 15, 20, 20, 15,  0,-30},
+		{-30,  5, 10, 15, 15, 10,  5,-30},
+		{-40,-20,  0,  5,  5,  0,-20,-40},
+		{-50,-40,-30,-30,-30,-30,-40,-50}
+	};
+	
+	private static final int[][] BISHOP_TABLE = {
+		{-20,-10,-10,-10,-10,-10,-10,-20},
+		{-10,  0,  0,  0,  0,  0,  0,-10},
+		{-10,  0,  5, 10, 10,  5,  0,-10},
+		{-10,  5,  5, 10, 10,  5,  5,-10},
+		{-10,  0, 10, 10, 10, 10,  0,-10},
+		{-10, 10, 10, 10, 10, 10, 10,-10},
+		{-10,  5,  0,  0,  0,  0,  5,-10},
+		{-20,-10,-10,-10,-10,-10,-10,-20}
+	};
+	
+	private static final int[][] ROOK_TABLE = {
+		{  0,  0,  0,  0,  0,  0,  0,  0},
+		{  5, 10, 10, 10, 10, 10, 10,  5},
+		{ -5,  0,  0,  0,  0,  0,  0, -5},
+		{ -5,  0,  0,  0,  0,  0,  0, -5},
+		{ -5,  0,  0,  0,  0,  0,  0, -5},
+		{ -5,  0,  0,  0,  0,  0,  0, -5},
+		{ -5,  0,  0,  0,  0,  0,  0, -5},
+		{  0,  0,  0,  5,  5,  0,  0,  0}
+	};
+	
+	private static final int[][] QUEEN_TABLE = {
+		{-20,-10,-10, -5, -5,-10,-10,-20},
+		{-10,  0,  0,  0,  0,  0,  0,-10},
+		{-10,  0,  5,  5,  5,  5,  0,-10},
+		{ -5,  0,  5,  5,  5,  5,  0, -5},
+		{  0,  0,  5,  5,  5,  5,  0, -5},
+		{-10,  5,  5,  5,  5,  5,  0,-10},
+		{-10,  0,  5,  0,  0,  0,  0,-10},
+		{-20,-10,-10, -5, -5,-10,-10,-20}
+	};
+	
+	private static final int[][] KING_TABLE = {
+		{-30,-40,-40,-50,-50,-40,-40,-30},
+		{-30,-40,-40,-50,-50,-40,-40,-30},
+		{-30,-40,-40,-50,-50,-40,-40,-30},
+		{-30,-40,-40,-50,-50,-40,-40,-30},
+		{-20,-30,-30,-40,-40,-30,-30,-20},
+		{-10,-20,-20,-20,-20,-20,-20,-10},
+		{ 20, 20,  0,  0,  0,  0, 20, 20},
+		{ 20, 30, 10,  0,  0, 10, 30, 20}
+	};
+	
+	// A row mover can only move forwards, and captures backwards, so it gains by advancing while staying central
+	private static final int[][] ROW_MOVER_TABLE = {
+		{ 10, 15, 15, 15, 15, 15, 15, 10},
+		{ 20, 25, 30, 30, 30, 30, 25, 20},
+		{ 15, 20, 25, 30, 30, 25, 20, 15},
+		{ 10, 15, 20, 25, 25, 20, 15, 10},
+		{  5, 10, 15, 20, 20, 15, 10,  5},
+		{  0,  5, 10, 10, 10, 10,  5,  0},
+		{ -5,  0,  0,  0,  0,  0,  0, -5},
+		{-10, -5, -5, -5, -5, -5, -5,-10}
+	};
+	
+	// A double jumper reaches the most squares from the centre, and is confined near the edges
+	private static final int[][] DOUBLE_JUMPER_TABLE = {
+		{-20,-15,-10,-10,-10,-10,-15,-20},
+		{-15, -5,  0,  0,  0,  0, -5,-15},
+		{-10,  0, 10, 10, 10, 10,  0,-10},
+		{-10,  0, 10, 15, 15, 10,  0,-10},
+		{-10,  0, 10, 15, 15, 10,  0,-10},
+		{-10,  0, 10, 10, 10, 10,  0,-10},
+		{-15, -5,  0,  0,  0,  0, -5,-15},
+		{-20,-15,-10,-10,-10,-10,-15,-20}
+	};
+	
+	private final int numSquares;
+	
+	// Score of a piece, indexed by getIndex
+	private final int[] scores;
+	
+	/**
+	 * Compute the scores of every piece on every square of a board
+	 * @param numRows			number of rows of the board
+	 * @param numColumns		number of columns of the board
+	 * @param whiteDirection	direction in which white moves
+	 */
+	private Evaluation(int numRows, int numColumns, GameDirection whiteDirection) {
+		this.numSquares = numRows * numColumns;
+		this.scores = new int[PieceType.values().length * 2 * numSquares];
+		for (PieceType type : PieceType.values()) {
+			for (Color color : Color.values()) {
+				boolean upwards = (color == Color.WHITE) == (whiteDirection == GameDirection.UPWARDS);
+				int sign = color == Color.WHITE ? 1 : -1;
+				for (int row=0; row<numRows; row++) {
+					int tableRow = (upwards ? row : numRows - 1 - row) * TABLE_SIZE / numRows;
+					for (int col=0; col<numColumns; col++) {
+						int tableCol = col * TABLE_SIZE / numColumns;
+						int score = getPieceValue(type) + getTable(type)[tableRow][tableCol];
+						scores[getIndex(type, color, row * numColumns + col)] = sign * score;
+					}
+				}
+			}
+		}
+	}
+	
+	/*******************
+	 * PUBLIC METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Get the scores of a board geometry, computing them on first use
+	 * @param numRows			number of rows of the board
+	 * @param numColumns		number of columns of the board
+	 * @param whiteDirection	direction in which white moves
+	 * @return the shared evaluation
+	 */
+	public static Evaluation get(int numRows, int numColumns, GameDirection whiteDirection) {
+		long key = ((long) numRows << 32 | numColumns) << 1 | whiteDirection.ordinal();
+		return EVALUATIONS.computeIfAbsent(key, ignored -> new Evaluation(numRows, numColumns, whiteDirection));
+	}
+	
+	/**
+	 * Get the material value of a piece type
+	 * @param type	type of the piece
+	 * @return value of the piece in centipawns
+	 */
+	public static int getPieceValue(PieceType type) {
+		return type.getMaterialValue() * 100;
+	}
+	
+	/**
+	 * Get the score of a piece standing on a square, material included
+	 * @param piece			the piece
+	 * @param squareIndex	index of the square, row * columns + col
+	 * @return score of the piece, positive for white pieces and negative for black pieces
+	 */
+	public int getScore(Piece piece, int squareIndex) {
+		return scores[getIndex(piece.getType(), piece.getColor(), squareIndex)];
+	}
+	
+	/*******************
+	 * PRIVATE METHODS
+	 * 
+	 *******************/
+	
+	private int getIndex(PieceType type, Color color, int squareIndex) {
+		int colorIndex = color == Color.WHITE ? 0 : 1;
+		return (type.ordinal() * 2 + colorIndex) * numSquares + squareIndex;
+	}
+	
+	private static int[][] getTable(PieceType type) {
+		switch (type) {
+			case PAWN:
+				return PAWN_TABLE;
+			case KNIGHT:
+				return KNIGHT_TABLE;
+			case BISHOP:
+				return BISHOP_TABLE;
+			case ROOK:
+				return ROOK_TABLE;
+			case QUEEN:
+				return QUEEN_TABLE;
+			case KING:
+				return KING_TABLE;
+			case ROW_MOVER:
+				return ROW_MOVER_TABLE;
+			case DOUBLE_JUMPER:
+				return DOUBLE_JUMPER_TABLE;
+			default:
+				// Custom pieces are scored like knights, favouring the centre
+				return KNIGHT_TABLE;
+		}
+	}
+}
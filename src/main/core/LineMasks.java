@@ -0,0 +1,126 @@
+package main.core;
+
+/**
+ * Masks of the squares on the lines joining two squares of an 8x8 board
+ * 
+ * Two squares are on a line when they share a row, a column or a diagonal. For every such pair
+ * the tables hold the squares strictly between them, the squares of the ray that continues past
+ * the second square to the edge of the board, and the whole line. A path along a line is clear
+ * when its between mask has no occupied square, and a piece is pinned when nothing is between it
+ * and its king and the first piece on the ray beyond it slides along that line
+ * 
+ * Squares are numbered as in MagicBitboards, bit (row * 8 + col) with row 0 at the top
+ * @author einar
+ *
+ */
+public final class LineMasks {
+	private static final int NUM_SQUARES = MagicBitboards.NUM_SQUARES;
+	private static final int BOARD_SIZE = MagicBitboards.BOARD_SIZE;
+	
+	private static final long[][] BETWEEN = new long[NUM_SQUARES][NUM_SQUARES];
+	private static final long[][] RAY_BEYOND = new long[NUM_SQUARES][NUM_SQUARES];
+	private static final long[][] LINE = new long[NUM_SQUARES][NUM_SQUARES];
+	
+	static {
+		for (int from=0; from<NUM_SQUARES; from++) {
+			for (int rowStep=-1; rowStep<=1; rowStep++) {
+				for (int colStep=-1; colStep<=1; colStep++) {
+					if (rowStep != 0 || colStep != 0) {
+						fillDirection(from, rowStep, colStep);
+					}
+				}
+			}
+		}
+	}
+	
+	private LineMasks() {}
+	
+	/*******************
+	 * PUBLIC METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Get the squares strictly between two squares
+	 * @return bitboard of the squares, 0 if the squares are not on a line or are adjacent
+	 */
+	public static long getBetween(int from, int to) {
+		return BETWEEN[from][to];
+	}
+	
+	/**
+	 * Get the squares past the second square, going away from the first one, up to the edge of the board
+	 * @return bitboard of the squares, 0 if the squares are not on a line
+	 */
+	public static long getRayBeyond(int from, int to) {
+		return RAY_BEYOND[from][to];
+	}
+	
+	/**
+	 * Get every square of the line through two squares, from edge to edge
+	 * @return bitboard of the squares, 0 if the squares are not on a line
+	 */
+	public static long getLine(int from, int to) {
+		return LINE[from][to];
+	}
+	
+	/**
+	 * Whether two squares share a row or a column, rather than a diagonal
+	 * @return true if the squares are on the same row or column
+	 */
+	public static boolean isOrthogonal(int from, int to) {
+		return from / BOARD_SIZE == to / BOARD_SIZE || from % BOARD_SIZE == to % BOARD_SIZE;
+	}
+	
+	/**
+	 * Find the first occupied square past the second square, going away from the first one
+	 * @param occupancy		bitboard of the occupied squares
+	 * @return index of the square, or -1 if the ray is empty or the squares are not on a line
+	 */
+	public static int getFirstBlockerBeyond(int from, int to, long occupancy) {
+		long blockers = RAY_BEYOND[from][to] & occupancy;
+		if (blockers == 0) {
+			return -1;
+		}
+		// Indexes grow along the ray when the second square has the higher index
+		return to > from ? Long.numberOfTrailingZeros(blockers) : 63 - Long.numberOfLeadingZeros(blockers);
+	}
+	
+	/*******************
+	 * PRIVATE METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Fill the masks of every square reached from a square in one direction
+	 */
+	private static void fillDirection(int from, int rowStep, int colStep) {
+		int row = from / BOARD_SIZE;
+		int col = from % BOARD_SIZE;
+		
+		// Squares of the whole line, in both directions
+		long line = 1L << from;
+		for (int sign=-1; sign<=1; sign+=2) {
+			for (int r=row+sign*rowStep, c=col+sign*colStep; isOnBoard(r, c); r+=sign*rowStep, c+=sign*colStep) {
+				line |= 1L << (r * BOARD_SIZE + c);
+			}
+		}
+		
+		long between = 0;
+		for (int r=row+rowStep, c=col+colStep; isOnBoard(r, c); r+=rowStep, c+=colStep) {
+			int to = r * BOARD_SIZE + c;
+			BETWEEN[from][to] = between;
+			LINE[from][to] = line;
+			long beyond = 0;
+			for (int br=r+rowStep, bc=c+colStep; isOnBoard(br, bc); br+=rowStep, bc+=colStep) {
+				beyond |= 1L << (br * BOARD_SIZE + bc);
+			}
+			RAY_BEYOND[from][to] = beyond;
+			between |= 1L << to;
+		}
+	}
+	
+	private static boolean isOnBoard(int row, int col) {
+		return row >= 0 && row < BOARD_SIZE && col >= 0 && col < BOARD_SIZE;
+	}
+}
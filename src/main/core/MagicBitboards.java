@@ -0,0 +1,193 @@
+package main.core;
+
+import java.util.Arrays;
+
+/**
+ * Attack tables of sliding pieces on an 8x8 board, indexed with magic multiplication
+ * 
+ * A square is bit (row * 8 + col) of a bitboard, with row 0 at the top. For every square, the
+ * squares whose occupancy can block a slider are a mask; multiplying the masked occupancy by
+ * the square's magic number and shifting gathers those bits into a dense table index, and the
+ * table holds the attacked squares for that occupancy, up to and including the first blocker
+ * 
+ * The magic numbers are found when the class is loaded, by a seeded random search, so they are
+ * the same on every run
+ * @author einar
+ *
+ */
+public final class MagicBitboards {
+	public static final int NUM_SQUARES = 64;
+	public static final int BOARD_SIZE = 8;
+	
+	private static final int[][] ROOK_DIRECTIONS = { {-1, 0}, {1, 0}, {0, -1}, {0, 1} };
+	private static final int[][] BISHOP_DIRECTIONS = { {-1, -1}, {-1, 1}, {1, -1}, {1, 1} };
+	
+	private static final long SEED = 0x6A09E667F3BCC909L;
+	
+	private static final Table ROOK_TABLE;
+	private static final Table BISHOP_TABLE;
+	
+	static {
+		long[] state = { SEED };
+		ROOK_TABLE = new Table(ROOK_DIRECTIONS, state);
+		BISHOP_TABLE = new Table(BISHOP_DIRECTIONS, state);
+	}
+	
+	private MagicBitboards() {}
+	
+	/*******************
+	 * PUBLIC METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Get the squares a rook attacks
+	 * @param square		index of the rook's square
+	 * @param occupancy		bitboard of the occupied squares
+	 * @return bitboard of the attacked squares, including occupied squares that stop the rook
+	 */
+	public static long getRookAttacks(int square, long occupancy) {
+		return ROOK_TABLE.getAttacks(square, occupancy);
+	}
+	
+	/**
+	 * Get the squares a bishop attacks
+	 * @param square		index of the bishop's square
+	 * @param occupancy		bitboard of the occupied squares
+	 * @return bitboard of the attacked squares, including occupied squares that stop the bishop
+	 */
+	public static long getBishopAttacks(int square, long occupancy) {
+		return BISHOP_TABLE.getAttacks(square, occupancy);
+	}
+	
+	/**
+	 * Get the squares a queen attacks
+	 * @param square		index of the queen's square
+	 * @param occupancy		bitboard of the occupied squares
+	 * @return bitboard of the attacked squares, including occupied squares that stop the queen
+	 */
+	public static long getQueenAttacks(int square, long occupancy) {
+		return ROOK_TABLE.getAttacks(square, occupancy) | BISHOP_TABLE.getAttacks(square, occupancy);
+	}
+	
+	/**
+	 * Compute the squares a slider attacks by walking its rays, as the tables are built from
+	 * @param square		index of the slider's square
+	 * @param occupancy		bitboard of the occupied squares
+	 * @param diagonal		true for a bishop, false for a rook
+	 * @return bitboard of the attacked squares
+	 */
+	public static long computeAttacksSlowly(int square, long occupancy, boolean diagonal) {
+		return walkRays(square, occupancy, diagonal ? BISHOP_DIRECTIONS : ROOK_DIRECTIONS, false);
+	}
+	
+	/*******************
+	 * PRIVATE METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Walk the rays from a square until the edge or the first occupied square
+	 * @param excludeEdges	stop before the last square of each ray, giving the relevant occupancy mask
+	 */
+	private static long walkRays(int square, long occupancy, int[][] directions, boolean excludeEdges) {
+		long attacks = 0;
+		for (int[] direction : directions) {
+			int row = square / BOARD_SIZE + direction[0];
+			int col = square % BOARD_SIZE + direction[1];
+			while (isOnBoard(row, col)) {
+				if (excludeEdges && !isOnBoard(row + direction[0], col + direction[1])) {
+					break;
+				}
+				long bit = 1L << (row * BOARD_SIZE + col);
+				attacks |= bit;
+				if ((occupancy & bit) != 0) {
+					break;
+				}
+				row += direction[0];
+				col += direction[1];
+			}
+		}
+		return attacks;
+	}
+	
+	private static boolean isOnBoard(int row, int col) {
+		return row >= 0 && row < BOARD_SIZE && col >= 0 && col < BOARD_SIZE;
+	}
+	
+	/**
+	 * xorshift64* generator, advancing the state in place
+	 */
+	private static long nextRandom(long[] state) {
+		long value = state[0];
+		value ^= value >>> 12;
+		value ^= value << 25;
+		value ^= value >>> 27;
+		state[0] = value;
+		return value * 0x2545F4914F6CDD1DL;
+	}
+	
+	/**
+	 * Masks, magics and attack tables of one kind of slider
+	 */
+	private static class Table {
+		private final long[] masks = new long[NUM_SQUARES];
+		private final long[] magics = new long[NUM_SQUARES];
+		private final int[] shifts = new int[NUM_SQUARES];
+		private final long[][] attacks = new long[NUM_SQUARES][];
+		
+		Table(int[][] directions, long[] state) {
+			for (int square=0; square<NUM_SQUARES; square++) {
+				masks[square] = walkRays(square, 0, directions, true);
+				int bits = Long.bitCount(masks[square]);
+				shifts[square] = 64 - bits;
+				
+				// Every subset of the mask, with the attacks it gives
+				int subsetCount = 1 << bits;
+				long[] occupancies = new long[subsetCount];
+				long[] subsetAttacks = new long[subsetCount];
+				long subset = 0;
+				for (int idx=0; idx<subsetCount; idx++) {
+					occupancies[idx] = subset;
+					subsetAttacks[idx] = walkRays(square, subset, directions, false);
+					subset = (subset - masks[square]) & masks[square];
+				}
+				findMagic(square, occupancies, subsetAttacks, state);
+			}
+		}
+		
+		long getAttacks(int square, long occupancy) {
+			return attacks[square][(int) (((occupancy & masks[square]) * magics[square]) >>> shifts[square])];
+		}
+		
+		/**
+		 * Try sparse random numbers until one maps every occupancy to a slot without conflicting attacks
+		 */
+		private void findMagic(int square, long[] occupancies, long[] subsetAttacks, long[] state) {
+			long[] table = new long[occupancies.length];
+			boolean[] used = new boolean[occupancies.length];
+			while (true) {
+				long magic = nextRandom(state) & nextRandom(state) & nextRandom(state);
+				if (Long.bitCount((masks[square] * magic) & 0xFF00000000000000L) < 6) {
+					continue;
+				}
+				Arrays.fill(used, false);
+				boolean collision = false;
+				for (int idx=0; idx<occupancies.length && !collision; idx++) {
+					int index = (int) ((occupancies[idx] * magic) >>> shifts[square]);
+					if (!used[index]) {
+						used[index] = true;
+						table[index] = subsetAttacks[idx];
+					} else if (table[index] != subsetAttacks[idx]) {
+						collision = true;
+					}
+				}
+				if (!collision) {
+					magics[square] = magic;
+					attacks[square] = table;
+					return;
+				}
+			}
+		}
+	}
+}
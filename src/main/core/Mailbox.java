@@ -0,0 +1,82 @@
+package main.core;
+
+/**
+ * One-dimensional copy of the squares of a board, surrounded by off-board sentinel cells
+ * 
+ * Like the classic 10x12 board, each row is followed by padding cells that also serve as the
+ * padding before the next row, and padding rows are added above and below the board. A step
+ * of up to PADDING rows and columns from any square therefore lands on a square or on a
+ * sentinel, so a ray can be walked by adding an offset until a sentinel is hit, without
+ * checking the row and column bounds. Works for any board size
+ * @author einar
+ *
+ */
+public final class Mailbox {
+	// Largest row or column step that always lands on a cell of the mailbox
+	public static final int PADDING = 2;
+	
+	private final int width;
+	
+	// Squares of the board, null for the sentinel cells
+	private final Square[] cells;
+	
+	/**
+	 * Create the mailbox of a board
+	 * @param squares	squares of the board, indexed by row and column
+	 */
+	public Mailbox(Square[][] squares) {
+		int numRows = squares.length;
+		int numColumns = numRows == 0 ? 0 : squares[0].length;
+		this.width = numColumns + PADDING;
+		this.cells = new Square[(numRows + 2 * PADDING) * width + PADDING];
+		for (int row=0; row<numRows; row++) {
+			for (int col=0; col<numColumns; col++) {
+				cells[getIndex(row, col)] = squares[row][col];
+			}
+		}
+	}
+	
+	/*******************
+	 * PUBLIC METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Get the mailbox index of a square of the board
+	 * @param row	row of the square, on the board
+	 * @param col	column of the square, on the board
+	 * @return the index
+	 */
+	public int getIndex(int row, int col) {
+		return (row + PADDING) * width + col + PADDING;
+	}
+	
+	/**
+	 * Get the index offset of a step
+	 * @param rowStep	rows to move by, positive towards higher rows
+	 * @param colStep	columns to move by, positive towards higher columns
+	 * @return the offset to add to an index
+	 */
+	public int getOffset(int rowStep, int colStep) {
+		return rowStep * width + colStep;
+	}
+	
+	/**
+	 * Get the square at a mailbox index
+	 * @param index		index of a cell
+	 * @return the square, or null if the cell is a sentinel
+	 */
+	public Square getSquare(int index) {
+		return cells[index];
+	}
+	
+	/**
+	 * Whether a cell is an off-board sentinel
+	 * @param index		index of a cell
+	 * @return true if the cell is not on the board
+	 */
+	public boolean isSentinel(int index) {
+		return cells[index] == null;
+	}
+
+}
@@ -9,6 +9,8 @@ public class Move {
 	private Piece pieceToMove;
 	private Piece capturedPiece;
 	private boolean isCaptureMove;
+	private int rowMovementFromPlayerPerspective;
+	private int colMovementFromPlayerPerspective;
 	
 	
 	/**
@@ -25,6 +27,11 @@ public class Move {
 		this.pieceToMove = startSquare.getPiece();
 		this.capturedPiece = endSquare.getPiece();
 		
+		// Movement as seen by the player, compared against every movement pattern of the piece
+		GameDirection direction = player.getDirection();
+		this.rowMovementFromPlayerPerspective = PerspectiveTables.getRowSign(direction) * (endSquare.getRow() - startSquare.getRow());
+		this.colMovementFromPlayerPerspective = PerspectiveTables.getColSign(direction) * (endSquare.getCol() - startSquare.getCol());
+		
 		// Finds the movement pattern instance corresponding to this move
 		calculateIsCaptureMove();
 		calculateMovementPattern();
@@ -150,7 +157,7 @@ public class Move {
 	 * @return net change in rows from the players perspective
 	 */
 	public int getRowMovementFromPlayerPerspective() {
-		return getEndRowFromPlayerPerspective() - getStartRowFromPlayerPerspective();
+		return rowMovementFromPlayerPerspective;
 	}
 	
 	/**
@@ -158,7 +165,7 @@ public class Move {
 	 * @return net change in columns from the players perspective
 	 */
 	public int getColMovementFromPlayerPerspective() {
-		return getEndColFromPlayerPerspective() - getStartColFromPlayerPerspective();
+		return colMovementFromPlayerPerspective;
 	}
 	
 	/**
@@ -0,0 +1,132 @@
+package main.core;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import main.pieces.PieceDescriptor;
+import main.pieces.PieceType;
+
+/**
+ * The squares a kind of piece could move to from every square of a board, ignoring other pieces
+ * 
+ * The targets are derived from the movement patterns of a PieceDescriptor, as seen by a player
+ * moving in a given direction, by shifting the start square by each pattern's offsets. They
+ * are a superset of the valid moves: a move generator only has to validate the target squares
+ * instead of every square of the board. Tables are shared by every board of the same size
+ * @author einar
+ *
+ */
+public final class MoveTargets {
+	private static final Map<Long, MoveTargets> TABLES = new ConcurrentHashMap<Long, MoveTargets>();
+	
+	// Targets indexed by start square, row * numColumns + col
+	private final WideBitboard[] quietTargets;
+	private final WideBitboard[] captureTargets;
+	
+	private MoveTargets(int numRows, int numColumns, PieceDescriptor descriptor, GameDirection direction) {
+		int numSquares = numRows * numColumns;
+		this.quietTargets = new WideBitboard[numSquares];
+		this.captureTargets = new WideBitboard[numSquares];
+		for (int square=0; square<numSquares; square++) {
+			if (descriptor.getType() == PieceType.ROW_MOVER) {
+				// The whole next row without capturing and the whole previous row capturing, on boards of any width
+				WideBitboard row = WideBitboard.createRowMask(numRows, numColumns, square / numColumns);
+				int forward = PerspectiveTables.getRowSign(direction);
+				quietTargets[square] = row.shift(forward, 0);
+				captureTargets[square] = row.shift(-forward, 0);
+				continue;
+			}
+			WideBitboard start = new WideBitboard(numRows, numColumns);
+			start.set(square);
+			quietTargets[square] = new WideBitboard(numRows, numColumns);
+			addTargets(quietTargets[square], start, descriptor.getMovements(), direction, numRows, numColumns);
+			addTargets(quietTargets[square], start, descriptor.getInitialMovements(), direction, numRows, numColumns);
+			captureTargets[square] = new WideBitboard(numRows, numColumns);
+			addTargets(captureTargets[square], start, descriptor.getCaptureMovements(), direction, numRows, numColumns);
+		}
+	}
+	
+	/*******************
+	 * PUBLIC METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Get the targets of a piece type on a board size, computing them on first use
+	 * @param numRows		number of rows of the board
+	 * @param numColumns	number of columns of the board
+	 * @param type			type of the piece, which is not CUSTOM
+	 * @param direction		direction of the player owning the piece, as the patterns are seen from it
+	 * @return the targets
+	 */
+	public static MoveTargets get(int numRows, int numColumns, PieceType type, GameDirection direction) {
+		return get(numRows, numColumns, PieceDescriptor.get(type), direction);
+	}
+	
+	/**
+	 * Get the targets of the pieces sharing a descriptor on a board size, computing them on first use
+	 * @param numRows		number of rows of the board
+	 * @param numColumns	number of columns of the board
+	 * @param descriptor	movements of the piece
+	 * @param direction		direction of the player owning the piece, as the patterns are seen from it
+	 * @return the targets
+	 */
+	public static MoveTargets get(int numRows, int numColumns, PieceDescriptor descriptor, GameDirection direction) {
+		long key = ((((long) numRows * 4096 + numColumns) << 32) + descriptor.getId()) * 2 + direction.ordinal();
+		return TABLES.computeIfAbsent(key, ignored -> new MoveTargets(numRows, numColumns, descriptor, direction));
+	}
+	
+	/**
+	 * Get the squares a piece could move to without capturing, including moves only allowed as a first move
+	 * @param square	start square
+	 * @return the targets, which must not be modified
+	 */
+	public WideBitboard getQuietTargets(int square) {
+		return quietTargets[square];
+	}
+	
+	/**
+	 * Get the squares a piece could capture on
+	 * @param square	start square
+	 * @return the targets, which must not be modified
+	 */
+	public WideBitboard getCaptureTargets(int square) {
+		return captureTargets[square];
+	}
+	
+	/*******************
+	 * PRIVATE METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Add the squares reached from the start by a set of patterns
+	 * A pattern with a fixed number of iterations moves exactly that many steps, an unlimited pattern any number of steps
+	 */
+	private static void addTargets(WideBitboard targets, WideBitboard start, Set<MovementPattern> patterns, GameDirection direction, int numRows, int numColumns) {
+		for (MovementPattern pattern : patterns) {
+			// Forward is towards row 0 for a player moving upwards, and the columns are mirrored for the other player
+			int rowStep = PerspectiveTables.getRowSign(direction) * pattern.getRowMovement();
+			int colStep = PerspectiveTables.getColSign(direction) * pattern.getColMovement();
+			if (rowStep == 0 && colStep == 0) {
+				continue;
+			}
+			if (!pattern.hasUnlimitedIterations()) {
+				long rowOffset = (long) rowStep * pattern.getMovementIterations();
+				long colOffset = (long) colStep * pattern.getMovementIterations();
+				if (Math.abs(rowOffset) < numRows && Math.abs(colOffset) < numColumns) {
+					targets.or(start.shift((int) rowOffset, (int) colOffset));
+				}
+				continue;
+			}
+			for (int steps=1; Math.abs(rowStep * steps) < numRows && Math.abs(colStep * steps) < numColumns; steps++) {
+				WideBitboard target = start.shift(rowStep * steps, colStep * steps);
+				if (target.isEmpty()) {
+					break;
+				}
+				targets.or(target);
+			}
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package main.core;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Coordinates of the squares of a board as seen by the players, precomputed per board size
+ * 
+ * A player moving UPWARDS sees the rows counted from the bottom of the board, and a player moving
+ * DOWNWARDS sees the columns counted from the right, so that a pattern going forward and to the
+ * right means the same to both. The tables turn these conversions into array loads, indexed by
+ * direction and by square index row * numColumns + col. Differences of perspective coordinates
+ * are board differences multiplied by the row and column signs of the direction
+ * @author einar
+ *
+ */
+public final class PerspectiveTables {
+	private static final Map<Long, PerspectiveTables> TABLES = new ConcurrentHashMap<Long, PerspectiveTables>();
+	
+	// Sign of a board row or column difference as seen by a player, indexed by direction
+	private static final int[] ROW_SIGNS = new int[GameDirection.values().length];
+	private static final int[] COL_SIGNS = new int[GameDirection.values().length];
+	
+	static {
+		ROW_SIGNS[GameDirection.UPWARDS.ordinal()] = -1;
+		COL_SIGNS[GameDirection.UPWARDS.ordinal()] = 1;
+		ROW_SIGNS[GameDirection.DOWNWARDS.ordinal()] = 1;
+		COL_SIGNS[GameDirection.DOWNWARDS.ordinal()] = -1;
+	}
+	
+	// Perspective row and column, indexed by direction then square index
+	private final int[][] rows;
+	private final int[][] cols;
+	
+	private PerspectiveTables(int numRows, int numColumns) {
+		int numDirections = GameDirection.values().length;
+		this.rows = new int[numDirections][numRows * numColumns];
+		this.cols = new int[numDirections][numRows * numColumns];
+		for (int row=0; row<numRows; row++) {
+			for (int col=0; col<numColumns; col++) {
+				int index = row * numColumns + col;
+				rows[GameDirection.UPWARDS.ordinal()][index] = numRows - row;
+				cols[GameDirection.UPWARDS.ordinal()][index] = col;
+				rows[GameDirection.DOWNWARDS.ordinal()][index] = row;
+				cols[GameDirection.DOWNWARDS.ordinal()][index] = numColumns - col;
+			}
+		}
+	}
+	
+	/*******************
+	 * PUBLIC METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Get the tables of a board size, computing them on first use
+	 * @param numRows		number of rows of the board
+	 * @param numColumns	number of columns of the board
+	 * @return the tables
+	 */
+	public static PerspectiveTables get(int numRows, int numColumns) {
+		long key = (long) numRows << 32 | numColumns;
+		return TABLES.computeIfAbsent(key, ignored -> new PerspectiveTables(numRows, numColumns));
+	}
+	
+	/**
+	 * Get the row of a square as seen from a direction
+	 * @param direction		direction of the player
+	 * @param index			index of the square
+	 * @return the perspective row
+	 */
+	public int getRow(GameDirection direction, int index) {
+		return rows[direction.ordinal()][index];
+	}
+	
+	/**
+	 * Get the column of a square as seen from a direction
+	 * @param direction		direction of the player
+	 * @param index			index of the square
+	 * @return the perspective column
+	 */
+	public int getCol(GameDirection direction, int index) {
+		return cols[direction.ordinal()][index];
+	}
+	
+	/**
+	 * Get the factor turning a board row difference into a perspective row difference, and back
+	 * @param direction		direction of the player
+	 * @return -1 for UPWARDS, 1 for DOWNWARDS
+	 */
+	public static int getRowSign(GameDirection direction) {
+		return ROW_SIGNS[direction.ordinal()];
+	}
+	
+	/**
+	 * Get the factor turning a board column difference into a perspective column difference, and back
+	 * @param direction		direction of the player
+	 * @return 1 for UPWARDS, -1 for DOWNWARDS
+	 */
+	public static int getColSign(GameDirection direction) {
+		return COL_SIGNS[direction.ordinal()];
+	}
+}
@@ -0,0 +1,108 @@
+package main.core;
+
+import main.pieces.CustomPiece;
+import main.pieces.Piece;
+import main.pieces.Piece.Color;
+import main.pieces.PieceDefinition;
+import main.pieces.PieceType;
+
+/**
+ * 64-bit Zobrist hash of a position: the piece on every square, and the player to move
+ * 
+ * The keys are generated from a fixed seed with a fixed generator, so the same position
+ * has the same hash in every JVM, and hashes can be stored on disk. Every custom piece shares
+ * the CUSTOM keys, so the key of its definition is folded in to tell the definitions apart, along
+ * with whether it can still make its first-move-only moves. Standard pieces need no such key, as a
+ * pawn with its initial moves left is always on its starting row
+ * @author einar
+ *
+ */
+public final class PositionHash {
+	// Largest number of squares supported, matching the one byte square indexes used on disk
+	public static final int MAX_SQUARES = 256;
+	
+	private static final long SEED = 0x2545F4914F6CDD1DL;
+	
+	// Key of every piece type and color on every square, indexed by getKeyIndex
+	private static final long[] PIECE_KEYS;
+	private static final long BLACK_TO_MOVE_KEY;
+	
+	static {
+		long state = SEED;
+		PIECE_KEYS = new long[PieceType.values().length * 2 * MAX_SQUARES];
+		for (int idx=0; idx<PIECE_KEYS.length; idx++) {
+			state += 0x9E3779B97F4A7C15L;
+			PIECE_KEYS[idx] = mix(state);
+		}
+		state += 0x9E3779B97F4A7C15L;
+		BLACK_TO_MOVE_KEY = mix(state);
+	}
+	
+	private PositionHash() {}
+	
+	/**
+	 * Compute the hash of the current position of a board
+	 * @param board			board to hash
+	 * @param sideToMove	color of the player to move
+	 * @return hash of the position
+	 */
+	public static long compute(Board board, Color sideToMove) {
+		int numCols = board.getNumCols();
+		long hash = sideToMove == Color.BLACK ? BLACK_TO_MOVE_KEY : 0;
+		for (int row=0; row<board.getNumRows(); row++) {
+			for (int col=0; col<numCols; col++) {
+				Piece piece = board.getSquare(row, col).getPiece();
+				if (piece != null) {
+					hash ^= getPieceKey(piece, row * numCols + col);
+				}
+			}
+		}
+		return hash;
+	}
+	
+	/**
+	 * Get the key of a piece standing on a square
+	 * @param piece			piece on the square
+	 * @param squareIndex	row-major index of the square
+	 * @return key to XOR into the hash
+	 */
+	public static long getPieceKey(Piece piece, int squareIndex) {
+		int colorIndex = piece.getColor() == Color.WHITE ? 0 : 1;
+		long key = PIECE_KEYS[((piece.getType().ordinal() * 2) + colorIndex) * MAX_SQUARES + squareIndex];
+		if (piece instanceof CustomPiece) {
+			boolean unmoved = piece.hasInitialMovements() && piece.isInitialMovement();
+			key ^= getDefinitionKey(((CustomPiece) piece).getDefinition(), squareIndex, unmoved);
+		}
+		return key;
+	}
+	
+	/**
+	 * Get the key that is XORed into the hash when black is to move
+	 * @return key of the player to move
+	 */
+	public static long getBlackToMoveKey() {
+		return BLACK_TO_MOVE_KEY;
+	}
+	
+	/**
+	 * Key of a custom piece definition on a square, derived from its letter and notation rather
+	 * than from the descriptor id, which depends on the order the definitions were loaded in
+	 * @param unmoved	whether the piece can still make its first-move-only moves
+	 */
+	private static long getDefinitionKey(PieceDefinition definition, int squareIndex, boolean unmoved) {
+		long value = ((long) definition.getNotation().hashCode() << 32) | ((long) definition.getLetter() << 8) | squareIndex;
+		if (unmoved) {
+			value |= 1L << 24;
+		}
+		return mix(SEED ^ value);
+	}
+	
+	/**
+	 * SplitMix64 finalizer
+	 */
+	private static long mix(long value) {
+		value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+		value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+		return value ^ (value >>> 31);
+	}
+}
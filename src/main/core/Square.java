@@ -19,6 +19,10 @@ public class Square {
 	private int row;
 	private int col;
 	private Board board;
+	
+	// Index of the square, row * numColumns + col, and the perspective coordinates of its board size
+	private int index;
+	private PerspectiveTables perspectiveTables;
 
 	/**
 	 * Initialize a square without a piece on it
@@ -32,6 +36,8 @@ public class Square {
 		this.row = row;
 		this.col = col;
 		this.board = board;
+		this.index = row * board.getNumCols() + col;
+		this.perspectiveTables = PerspectiveTables.get(board.getNumRows(), board.getNumCols());
 	}
 	
 	/*******************
@@ -76,6 +82,9 @@ public class Square {
 		this.piece.setSquare(null);
 		this.piece = null;
 		hasPiece = false;
+		if (board != null) {
+			board.updateOccupancy(this);
+		}
 	}
 	
 	/*******************
@@ -114,11 +123,7 @@ public class Square {
 	 * @return row of the square from a specific perspective
 	 */
 	public int getRowFromDirectionPerspective(GameDirection direction) {
-		if (direction == GameDirection.UPWARDS) {
-			return board.getNumRows() - getRow();
-		} else {
-			return getRow();
-		}
+		return perspectiveTables.getRow(direction, index);
 	}
 	
 	/**
@@ -127,11 +132,7 @@ public class Square {
 	 * @return column of the square from a specific perspective
 	 */
 	public int getColFromDirectionPerspective(GameDirection direction) {
-		if (direction == GameDirection.UPWARDS) {
-			return getCol();
-		} else {
-			return board.getNumCols() - getCol();
-		}
+		return perspectiveTables.getCol(direction, index);
 	}
 	
 	/**
@@ -145,6 +146,9 @@ public class Square {
 		
 		// We also provide a reference to the square for the piece
 		piece.setSquare(this);
+		if (board != null) {
+			board.updateOccupancy(this);
+		}
 	}
 	
 
@@ -0,0 +1,136 @@
+package main.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import main.pieces.*;
+import main.pieces.Piece.Color;
+
+/**
+ * The initial layouts a game can be started from
+ * Shared by the interactive game and by the headless tools that replay games
+ * @author einar
+ *
+ */
+public enum StartingPosition {
+	/**
+	 * The traditional chess layout
+	 */
+	STANDARD,
+	
+	/**
+	 * The traditional chess layout with RowMover and DoubleJumper added for each player
+	 */
+	CUSTOM_PIECES;
+	
+	// Dimensions of the board for every starting position
+	private static final int BOARD_ROWS = 8;
+	private static final int BOARD_COLUMNS = 8;
+	
+	/**
+	 * Generate the initial mapping of location to pieces on the board
+	 * A new set of pieces is created on every call
+	 * @return	map of location to piece on the board
+	 */
+	public Map<String, Piece> generatePieceMapping() {
+		Map<String, Piece> pieceMappings = new HashMap<String, Piece>();
+		
+		// WHITE PIECES
+		placeBackRowAndPawns(pieceMappings, Color.WHITE, '1', '2');
+		
+		// BLACK PIECES
+		placeBackRowAndPawns(pieceMappings, Color.BLACK, '8', '7');
+		
+		// Setup RowMover and DoubleJumper
+		if (this == CUSTOM_PIECES) {
+			pieceMappings.put("a3", new RowMover(Color.WHITE));
+			pieceMappings.put("h3", new DoubleJumper(Color.WHITE));
+			pieceMappings.put("a6", new RowMover(Color.BLACK));
+			pieceMappings.put("h6", new DoubleJumper(Color.BLACK));
+		}
+		return pieceMappings;
+	}
+	
+	/**
+	 * Get the number of rows on the board for this starting position
+	 * @return number of rows
+	 */
+	public int getNumRows() {
+		return BOARD_ROWS;
+	}
+	
+	/**
+	 * Get the number of columns on the board for this starting position
+	 * @return number of columns
+	 */
+	public int getNumCols() {
+		return BOARD_COLUMNS;
+	}
+	
+	/**
+	 * Setup each player with the appropriate color and direction
+	 * White is always the first player and moves upwards
+	 * @param player1Name		name of player 1
+	 * @param player2Name		name of player 2
+	 * @param pieceMappings		map of location to piece, from which each player's pieces are taken
+	 * @return	array of the two players
+	 */
+	public static Player[] createPlayers(String player1Name, String player2Name, Map<String, Piece> pieceMappings) {
+		Player[] players = new Player[2];
+		
+		List<Piece> whitePieceList = generatePieceListForPlayerByColor(pieceMappings, Color.WHITE);
+		players[0] = new Player(player1Name, Color.WHITE, GameDirection.UPWARDS, whitePieceList);
+		
+		List<Piece> blackPieceList = generatePieceListForPlayerByColor(pieceMappings, Color.BLACK);
+		players[1] = new Player(player2Name, Color.BLACK, GameDirection.DOWNWARDS, blackPieceList);
+		return players;
+	}
+	
+	/**
+	 * Extract the pieces for a player of a certain color from the board map
+	 * @param pieceMappings		map of location to piece
+	 * @param color				color of pieces to return
+	 * @return	a list of pieces for a player of a certain color
+	 */
+	private static List<Piece> generatePieceListForPlayerByColor(Map<String, Piece> pieceMappings, Color color) {
+		List<Piece> playerPieces = new ArrayList<Piece>();
+		for (Piece piece : pieceMappings.values()) {
+		    if (piece.getColor() == color) {
+		    	playerPieces.add(piece);
+		    }
+		}
+		return playerPieces;
+	}
+	
+	/**
+	 * Place the pawns and the back row of pieces for one color
+	 * @param pieceMappings		map of location to piece to fill
+	 * @param color				color of the pieces to place
+	 * @param backRank			rank character of the back row
+	 * @param pawnRank			rank character of the pawn row
+	 */
+	private static void placeBackRowAndPawns(Map<String, Piece> pieceMappings, Color color, char backRank, char pawnRank) {
+		// Setup pawns
+		for (char file='a'; file<='h'; file++) {
+			pieceMappings.put("" + file + pawnRank, new Pawn(color));
+		}
+		
+		// Setup rooks
+		pieceMappings.put("a" + backRank, new Rook(color));
+		pieceMappings.put("h" + backRank, new Rook(color));
+		
+		// Setup knights
+		pieceMappings.put("b" + backRank, new Knight(color));
+		pieceMappings.put("g" + backRank, new Knight(color));
+		
+		// Setup bishops
+		pieceMappings.put("c" + backRank, new Bishop(color));
+		pieceMappings.put("f" + backRank, new Bishop(color));
+		
+		// Setup king and queen
+		pieceMappings.put("e" + backRank, new King(color));
+		pieceMappings.put("d" + backRank, new Queen(color));
+	}
+}
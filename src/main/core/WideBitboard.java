@@ -0,0 +1,255 @@
+package main.core;
+
+import java.util.Arrays;
+
+/**
+ * Set of squares of a board of any size, one bit per square in an array of longs
+ * 
+ * Square (row, col) is bit row * numColumns + col, so a board larger than 8x8 simply spans
+ * several words. Shifting by rows and columns moves every square at once; squares that would
+ * wrap from one edge of a row onto the next row, or fall off the board, are dropped
+ * @author einar
+ *
+ */
+public final class WideBitboard {
+	private final int numRows;
+	private final int numColumns;
+	private final long[] words;
+	
+	/**
+	 * Create an empty set
+	 * @param numRows		number of rows of the board
+	 * @param numColumns	number of columns of the board
+	 */
+	public WideBitboard(int numRows, int numColumns) {
+		this.numRows = numRows;
+		this.numColumns = numColumns;
+		this.words = new long[(numRows * numColumns + 63) / 64];
+	}
+	
+	/*******************
+	 * PUBLIC METHODS
+	 * 
+	 *******************/
+	
+	public WideBitboard copy() {
+		WideBitboard copy = new WideBitboard(numRows, numColumns);
+		System.arraycopy(words, 0, copy.words, 0, words.length);
+		return copy;
+	}
+	
+	public boolean get(int square) {
+		return (words[square >>> 6] & (1L << square)) != 0;
+	}
+	
+	public void set(int square) {
+		words[square >>> 6] |= 1L << square;
+	}
+	
+	public void clear(int square) {
+		words[square >>> 6] &= ~(1L << square);
+	}
+	
+	public void clearAll() {
+		Arrays.fill(words, 0);
+	}
+	
+	public boolean isEmpty() {
+		for (long word : words) {
+			if (word != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Count the squares in the set
+	 * @return number of squares
+	 */
+	public int cardinality() {
+		int count = 0;
+		for (long word : words) {
+			count += Long.bitCount(word);
+		}
+		return count;
+	}
+	
+	/**
+	 * Find the next square in the set
+	 * @param from	first square to consider
+	 * @return the square, or -1 if there is none from this square on
+	 */
+	public int nextSetBit(int from) {
+		int wordIndex = from >>> 6;
+		if (wordIndex >= words.length) {
+			return -1;
+		}
+		long word = words[wordIndex] & (-1L << from);
+		while (word == 0) {
+			if (++wordIndex == words.length) {
+				return -1;
+			}
+			word = words[wordIndex];
+		}
+		return wordIndex * 64 + Long.numberOfTrailingZeros(word);
+	}
+	
+	/**
+	 * Keep only the squares that are also in another set
+	 * @return this set
+	 */
+	public WideBitboard and(WideBitboard other) {
+		for (int idx=0; idx<words.length; idx++) {
+			words[idx] &= other.words[idx];
+		}
+		return this;
+	}
+	
+	/**
+	 * Add the squares of another set
+	 * @return this set
+	 */
+	public WideBitboard or(WideBitboard other) {
+		for (int idx=0; idx<words.length; idx++) {
+			words[idx] |= other.words[idx];
+		}
+		return this;
+	}
+	
+	/**
+	 * Remove the squares of another set
+	 * @return this set
+	 */
+	public WideBitboard andNot(WideBitboard other) {
+		for (int idx=0; idx<words.length; idx++) {
+			words[idx] &= ~other.words[idx];
+		}
+		return this;
+	}
+	
+	/**
+	 * Move every square of the set by a number of rows and columns
+	 * @param rowOffset		rows to move by, positive towards higher rows
+	 * @param colOffset		columns to move by, positive towards higher columns
+	 * @return a new set, without the squares that would leave the board
+	 */
+	public WideBitboard shift(int rowOffset, int colOffset) {
+		WideBitboard shifted = copy();
+		if (Math.abs(rowOffset) >= numRows || Math.abs(colOffset) >= numColumns) {
+			shifted.clearAll();
+			return shifted;
+		}
+		
+		// Drop the columns that would wrap around a row edge before moving the bits
+		if (colOffset > 0) {
+			shifted.and(createColumnMask(numRows, numColumns, 0, numColumns - colOffset));
+		} else if (colOffset < 0) {
+			shifted.and(createColumnMask(numRows, numColumns, -colOffset, numColumns));
+		}
+		
+		int bitOffset = rowOffset * numColumns + colOffset;
+		if (bitOffset > 0) {
+			shifted.shiftWordsUp(bitOffset);
+		} else if (bitOffset < 0) {
+			shifted.shiftWordsDown(-bitOffset);
+		}
+		shifted.clearBeyondLastSquare();
+		return shifted;
+	}
+	
+	/**
+	 * Create the set of every square in a range of columns
+	 * @param fromCol	first column of the range
+	 * @param toCol		column after the last column of the range
+	 * @return the set
+	 */
+	public static WideBitboard createColumnMask(int numRows, int numColumns, int fromCol, int toCol) {
+		WideBitboard mask = new WideBitboard(numRows, numColumns);
+		for (int row=0; row<numRows; row++) {
+			for (int col=fromCol; col<toCol; col++) {
+				mask.set(row * numColumns + col);
+			}
+		}
+		return mask;
+	}
+	
+	/**
+	 * Create the set of every square of a row
+	 * @param row	the row
+	 * @return the set
+	 */
+	public static WideBitboard createRowMask(int numRows, int numColumns, int row) {
+		WideBitboard mask = new WideBitboard(numRows, numColumns);
+		for (int col=0; col<numColumns; col++) {
+			mask.set(row * numColumns + col);
+		}
+		return mask;
+	}
+	
+	public int getWordCount() {
+		return words.length;
+	}
+	
+	public long getWord(int index) {
+		return words[index];
+	}
+	
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof WideBitboard)) {
+			return false;
+		}
+		WideBitboard other = (WideBitboard) o;
+		return numRows == other.numRows && numColumns == other.numColumns && Arrays.equals(words, other.words);
+	}
+	
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(words);
+	}
+	
+	/*******************
+	 * PRIVATE METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Shift the bits towards higher squares
+	 */
+	private void shiftWordsUp(int bits) {
+		int wordShift = bits >>> 6;
+		int bitShift = bits & 63;
+		for (int idx=words.length-1; idx>=0; idx--) {
+			int source = idx - wordShift;
+			long word = source >= 0 ? words[source] << bitShift : 0;
+			if (bitShift != 0 && source - 1 >= 0) {
+				word |= words[source - 1] >>> (64 - bitShift);
+			}
+			words[idx] = word;
+		}
+	}
+	
+	/**
+	 * Shift the bits towards lower squares
+	 */
+	private void shiftWordsDown(int bits) {
+		int wordShift = bits >>> 6;
+		int bitShift = bits & 63;
+		for (int idx=0; idx<words.length; idx++) {
+			int source = idx + wordShift;
+			long word = source < words.length ? words[source] >>> bitShift : 0;
+			if (bitShift != 0 && source + 1 < words.length) {
+				word |= words[source + 1] << (64 - bitShift);
+			}
+			words[idx] = word;
+		}
+	}
+	
+	private void clearBeyondLastSquare() {
+		int usedBits = (numRows * numColumns) & 63;
+		if (usedBits != 0) {
+			words[words.length - 1] &= (1L << usedBits) - 1;
+		}
+	}
+}
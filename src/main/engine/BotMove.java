@@ -0,0 +1,60 @@
+package main.engine;
+
+/**
+ * A move chosen by a bot, in board coordinates so that it can be played on any copy of the position
+ * @author einar
+ *
+ */
+public class BotMove {
+	private final int startRow, startCol, endRow, endCol;
+	private final int score;
+	private final int depth;
+	private final boolean fromBook;
+	
+	/**
+	 * @param startRow		row of the piece to move
+	 * @param startCol		column of the piece to move
+	 * @param endRow		row to move to
+	 * @param endCol		column to move to
+	 * @param score			score of the move for the bot, in centipawns
+	 * @param depth			depth of the search that found the move, 0 for a book move
+	 * @param fromBook		whether the move was taken from the opening book
+	 */
+	public BotMove(int startRow, int startCol, int endRow, int endCol, int score, int depth, boolean fromBook) {
+		this.startRow = startRow;
+		this.startCol = startCol;
+		this.endRow = endRow;
+		this.endCol = endCol;
+		this.score = score;
+		this.depth = depth;
+		this.fromBook = fromBook;
+	}
+	
+	public int getStartRow() {
+		return startRow;
+	}
+	
+	public int getStartCol() {
+		return startCol;
+	}
+	
+	public int getEndRow() {
+		return endRow;
+	}
+	
+	public int getEndCol() {
+		return endCol;
+	}
+	
+	public int getScore() {
+		return score;
+	}
+	
+	public int getDepth() {
+		return depth;
+	}
+	
+	public boolean isFromBook() {
+		return fromBook;
+	}
+}
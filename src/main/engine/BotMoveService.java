@@ -0,0 +1,215 @@
+package main.engine;
+
+import java.io.Closeable;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import main.book.BookMove;
+import main.book.OpeningBook;
+import main.core.Board;
+import main.core.Move;
+import main.core.Player;
+import main.pieces.Piece.Color;
+import main.tablebase.Tablebases;
+
+/**
+ * Computes bot moves for many games at once, on a fixed number of worker threads
+ * 
+ * Every requested move gets a slice of the bot's remaining clock, larger in positions with
+ * more moves to consider, and its deadline starts when it is requested, so time spent queued
+ * behind other games counts against it. The search polls its deadline cooperatively and
+ * returns the best move of its deepest completed iteration, so no search can hold a worker
+ * for longer than its slice. Positions found in the opening book are answered without searching,
+ * and endgames covered by the tablebases are searched with exact scores from them
+ * @author einar
+ *
+ */
+public class BotMoveService implements Closeable {
+	public static final int MAX_DEPTH = 64;
+	
+	// Moves the remaining clock is assumed to be shared between
+	private static final int MOVES_TO_GO = 30;
+	
+	// Number of legal moves of an average position
+	private static final int AVERAGE_MOVE_COUNT = 30;
+	
+	// Bounds of a slice, in milliseconds and as a share of the remaining clock
+	private static final long MIN_SLICE_MILLIS = 10;
+	private static final int MAX_SLICE_DIVISOR = 4;
+	
+	private final ThreadPoolExecutor workers;
+	private final OpeningBook book;
+	private final Tablebases tablebases;
+	private final Random random;
+	
+	/**
+	 * @param workerCount	number of searches that run at the same time
+	 */
+	public BotMoveService(int workerCount) {
+		this(workerCount, null);
+	}
+	
+	/**
+	 * @param workerCount	number of searches that run at the same time
+	 * @param book			opening book to play from, or null to always search
+	 */
+	public BotMoveService(int workerCount, OpeningBook book) {
+		this(workerCount, book, null);
+	}
+	
+	/**
+	 * @param workerCount	number of searches that run at the same time
+	 * @param book			opening book to play from, or null to always search
+	 * @param tablebases	tablebases probed by the searches, or null for none
+	 */
+	public BotMoveService(int workerCount, OpeningBook book, Tablebases tablebases) {
+		this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), runnable -> {
+			Thread thread = new Thread(runnable, "bot-worker");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.book = book;
+		this.tablebases = tablebases;
+		this.random = new Random();
+	}
+	
+	/*******************
+	 * PUBLIC METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Request a move for the player to move
+	 * The position is copied before returning, so the board may keep being used by its game
+	 * @param board					board in the current position
+	 * @param sideToMove			color of the bot
+	 * @param clockRemainingMillis	time left on the bot's clock
+	 * @return the pending move
+	 */
+	public PendingMove requestMove(Board board, Color sideToMove, long clockRemainingMillis) {
+		Board position = board.copy();
+		Player player = position.getPlayer(sideToMove);
+		int moveCount = new MoveGenerator(position).generateMoves(player).size();
+		long slice = allocateTime(clockRemainingMillis, moveCount);
+		PendingMove pending = new PendingMove(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(slice));
+		
+		try {
+			workers.execute(new MoveTask(position, player, pending));
+		} catch (RuntimeException e) {
+			pending.getResult().completeExceptionally(e);
+		}
+		return pending;
+	}
+	
+	/**
+	 * Get the number of requested moves that are waiting for a worker
+	 * @return number of queued moves
+	 */
+	public int getQueuedCount() {
+		return workers.getQueue().size();
+	}
+	
+	/**
+	 * Compute the time slice of a move
+	 * @param clockRemainingMillis	time left on the clock
+	 * @param moveCount				number of moves in the position, a measure of its complexity
+	 * @return time to spend on the move, in milliseconds
+	 */
+	public static long allocateTime(long clockRemainingMillis, int moveCount) {
+		double complexity = Math.max(0.5, Math.min(2.0, moveCount / (double) AVERAGE_MOVE_COUNT));
+		long slice = (long) (clockRemainingMillis / MOVES_TO_GO * complexity);
+		slice = Math.min(slice, clockRemainingMillis / MAX_SLICE_DIVISOR);
+		return Math.max(slice, MIN_SLICE_MILLIS);
+	}
+	
+	/**
+	 * Stop every search, and wait for the workers to finish
+	 * Searches in progress return their best move so far, and the moves still queued are cancelled
+	 */
+	@Override
+	public void close() {
+		for (Runnable task : workers.shutdownNow()) {
+			((MoveTask) task).pending.getResult().completeExceptionally(new CancellationException("Bot move service closed"));
+		}
+		try {
+			workers.awaitTermination(1, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/*******************
+	 * PRIVATE METHODS
+	 * 
+	 *******************/
+	
+	private BotMove findMove(Board position, Player player, PendingMove pending) {
+		BotMove bookMove = findBookMove(position, player);
+		if (bookMove != null) {
+			return bookMove;
+		}
+		SearchResult result = new Searcher(position, tablebases).searchUntil(player, MAX_DEPTH, pending::shouldStop);
+		Move move = result.getBestMove();
+		if (move == null) {
+			return null;
+		}
+		return new BotMove(move.getStartRow(), move.getStartCol(), move.getEndRow(), move.getEndCol(), result.getScore(), result.getDepth(), false);
+	}
+	
+	/**
+	 * Look the position up in the opening book
+	 * @return a legal book move, or null if there is none
+	 */
+	private BotMove findBookMove(Board position, Player player) {
+		if (book == null) {
+			return null;
+		}
+		BookMove bookMove = book.choose(position, player.getColor(), random);
+		if (bookMove == null) {
+			return null;
+		}
+		int numCols = position.getNumCols();
+		int startRow = bookMove.getStartSquare() / numCols;
+		int startCol = bookMove.getStartSquare() % numCols;
+		int endRow = bookMove.getEndSquare() / numCols;
+		int endCol = bookMove.getEndSquare() % numCols;
+		if (position.getSquare(startRow, startCol) == null || position.getSquare(endRow, endCol) == null) {
+			return null;
+		}
+		
+		// Hash collisions could name an impossible move, so the move is checked before it is played
+		Move move = new MoveGenerator(position).findMove(player, position.getSquare(startRow, startCol), position.getSquare(endRow, endCol));
+		if (move == null || !position.makeSearchMove(move)) {
+			return null;
+		}
+		position.undoSearchMove();
+		return new BotMove(startRow, startCol, endRow, endCol, 0, 0, true);
+	}
+	
+	/**
+	 * Search for a requested move on a worker
+	 */
+	private class MoveTask implements Runnable {
+		private final Board position;
+		private final Player player;
+		private final PendingMove pending;
+		
+		private MoveTask(Board position, Player player, PendingMove pending) {
+			this.position = position;
+			this.player = player;
+			this.pending = pending;
+		}
+		
+		@Override
+		public void run() {
+			try {
+				pending.getResult().complete(findMove(position, player, pending));
+			} catch (RuntimeException e) {
+				pending.getResult().completeExceptionally(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,139 @@
+package main.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import main.core.Board;
+import main.core.Move;
+import main.core.MoveTargets;
+import main.core.Player;
+import main.core.Square;
+import main.core.WideBitboard;
+import main.pieces.Piece;
+import main.pieces.Piece.Color;
+
+/**
+ * Generates the moves of a player for a search
+ * 
+ * Moves are pseudo-legal: they follow the movement patterns of the pieces, as checked by
+ * Board.isMoveValid, but may leave the player in check. Board.makeSearchMove rejects those
+ * @author einar
+ *
+ */
+public class MoveGenerator {
+	private final Board board;
+	
+	/**
+	 * @param board		board to generate moves on
+	 */
+	public MoveGenerator(Board board) {
+		this.board = board;
+	}
+	
+	/*******************
+	 * PUBLIC METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Generate every move of a player
+	 * @param player	player to move
+	 * @return list of pseudo-legal moves
+	 */
+	public List<Move> generateMoves(Player player) {
+		List<Move> moves = new ArrayList<Move>();
+		for (Piece piece : new ArrayList<Piece>(player.getAvailablePieces())) {
+			generatePieceMoves(piece, player, moves);
+		}
+		return moves;
+	}
+	
+	/**
+	 * Generate every move of one piece
+	 * @param piece		piece to move, which is on the board
+	 * @param player	player owning the piece
+	 * @param moves		list the pseudo-legal moves are added to
+	 */
+	public void generatePieceMoves(Piece piece, Player player, List<Move> moves) {
+		Square startSquare = piece.getSquare();
+		MoveTargets targets = getTargets(piece, player);
+		int startIndex = startSquare.getRow() * board.getNumCols() + startSquare.getCol();
+		WideBitboard quietTargets = targets.getQuietTargets(startIndex);
+		WideBitboard captureTargets = targets.getCaptureTargets(startIndex);
+		WideBitboard ownSquares = board.getPieceSquares(player.getColor());
+		WideBitboard enemySquares = board.getPieceSquares(getOppositeColor(player));
+		
+		// Only the empty squares the piece could move to and the enemy squares it could capture on are validated
+		for (int word=0; word<quietTargets.getWordCount(); word++) {
+			long empty = ~(ownSquares.getWord(word) | enemySquares.getWord(word));
+			long candidates = (quietTargets.getWord(word) & empty) | (captureTargets.getWord(word) & enemySquares.getWord(word));
+			addCandidates(moves, startSquare, candidates, word, player);
+		}
+	}
+	
+	/**
+	 * Generate the moves of a player that capture a piece
+	 * @param player	player to move
+	 * @return list of pseudo-legal captures
+	 */
+	public List<Move> generateCaptures(Player player) {
+		List<Move> captures = new ArrayList<Move>();
+		WideBitboard enemySquares = board.getPieceSquares(getOppositeColor(player));
+		for (Piece piece : new ArrayList<Piece>(player.getAvailablePieces())) {
+			Square startSquare = piece.getSquare();
+			int startIndex = startSquare.getRow() * board.getNumCols() + startSquare.getCol();
+			WideBitboard captureTargets = getTargets(piece, player).getCaptureTargets(startIndex);
+			for (int word=0; word<captureTargets.getWordCount(); word++) {
+				addCandidates(captures, startSquare, captureTargets.getWord(word) & enemySquares.getWord(word), word, player);
+			}
+		}
+		return captures;
+	}
+	
+	/**
+	 * Find the move of a player from one square to another
+	 * @param player		player to move
+	 * @param startSquare	square of the piece to move
+	 * @param endSquare		square to move to
+	 * @return the move, or null if the piece cannot move there
+	 */
+	public Move findMove(Player player, Square startSquare, Square endSquare) {
+		if (!startSquare.hasPiece() || startSquare.getPiece().getColor() != player.getColor()) {
+			return null;
+		}
+		Move move = new Move(startSquare, endSquare, player);
+		return board.isMoveValid(move) ? move : null;
+	}
+	
+	/*******************
+	 * PRIVATE METHODS
+	 * 
+	 *******************/
+	
+	private MoveTargets getTargets(Piece piece, Player player) {
+		return MoveTargets.get(board.getNumRows(), board.getNumCols(), piece.getDescriptor(), player.getDirection());
+	}
+	
+	private Color getOppositeColor(Player player) {
+		return player.getColor() == Color.WHITE ? Color.BLACK : Color.WHITE;
+	}
+	
+	/**
+	 * Validate the moves to the squares of one word of a WideBitboard
+	 */
+	private void addCandidates(List<Move> moves, Square startSquare, long candidates, int word, Player player) {
+		while (candidates != 0) {
+			int squareIndex = word * 64 + Long.numberOfTrailingZeros(candidates);
+			candidates &= candidates - 1;
+			Square endSquare = board.getSquare(squareIndex / board.getNumCols(), squareIndex % board.getNumCols());
+			addIfValid(moves, startSquare, endSquare, player);
+		}
+	}
+	
+	private void addIfValid(List<Move> moves, Square startSquare, Square endSquare, Player player) {
+		Move move = new Move(startSquare, endSquare, player);
+		if (board.isMoveValid(move)) {
+			moves.add(move);
+		}
+	}
+}
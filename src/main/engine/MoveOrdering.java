@@ -0,0 +1,178 @@
+package main.engine;
+
+import java.util.List;
+
+import main.core.Board;
+import main.core.Move;
+import main.pieces.Piece;
+import main.pieces.PieceType;
+
+/**
+ * Orders the moves of a search node so that the moves most likely to cause a cutoff come first
+ * 	captures, by most valuable victim and then least valuable attacker (MVV-LVA)
+ * 	killer moves, the last two quiet moves that caused a cutoff at the same ply
+ * 	other quiet moves, by how often they caused cutoffs anywhere in the tree (history)
+ * 
+ * All state is kept in primitive arrays sized when the ordering is created, so ordering a node
+ * allocates nothing. Moves are identified by their start and end squares
+ * @author einar
+ *
+ */
+public class MoveOrdering {
+	// Killer moves kept per ply
+	public static final int KILLER_SLOTS = 2;
+	
+	// Score bands, from the best moves to the worst
+	private static final int KING_CAPTURE_SCORE = 1 << 28;
+	private static final int CAPTURE_SCORE = 1 << 26;
+	private static final int KILLER_SCORE = 1 << 25;
+	private static final int MAX_HISTORY = 1 << 24;
+	
+	// Moves of a node that are scored, enlarged if a node has more
+	private static final int INITIAL_MOVE_CAPACITY = 256;
+	
+	private static final int NO_MOVE = -1;
+	
+	private final int numColumns;
+	private final int numSquares;
+	private final int[][] killers;
+	private final int[] history;
+	private int[] scores;
+	
+	/**
+	 * @param board		board the moves are made on
+	 * @param maxPly	deepest ply of the search
+	 */
+	public MoveOrdering(Board board, int maxPly) {
+		this.numColumns = board.getNumCols();
+		this.numSquares = board.getNumRows() * board.getNumCols();
+		this.killers = new int[maxPly + 1][KILLER_SLOTS];
+		this.history = new int[numSquares * numSquares];
+		this.scores = new int[INITIAL_MOVE_CAPACITY];
+		clearKillers();
+	}
+	
+	/*******************
+	 * PUBLIC METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Prepare for a new search: killers are forgotten, and history is aged so that recent searches weigh more
+	 */
+	public void startSearch() {
+		clearKillers();
+		for (int idx=0; idx<history.length; idx++) {
+			history[idx] >>= 1;
+		}
+	}
+	
+	/**
+	 * Sort the moves of a node, best first
+	 * @param moves		moves of the node, sorted in place
+	 * @param ply		ply of the node
+	 */
+	public void order(List<Move> moves, int ply) {
+		int count = moves.size();
+		if (count > scores.length) {
+			scores = new int[Math.max(count, scores.length * 2)];
+		}
+		for (int idx=0; idx<count; idx++) {
+			scores[idx] = score(moves.get(idx), ply);
+		}
+		
+		// Insertion sort: nodes have few moves, and the sort is stable for equal scores
+		for (int idx=1; idx<count; idx++) {
+			int score = scores[idx];
+			Move move = moves.get(idx);
+			int position = idx - 1;
+			while (position >= 0 && scores[position] < score) {
+				scores[position + 1] = scores[position];
+				moves.set(position + 1, moves.get(position));
+				position--;
+			}
+			scores[position + 1] = score;
+			moves.set(position + 1, move);
+		}
+	}
+	
+	/**
+	 * Record a move that caused a beta cutoff
+	 * Only quiet moves are recorded, since captures are already ordered first
+	 * @param move		the move
+	 * @param ply		ply of the node
+	 * @param depth		remaining depth of the node, deeper cutoffs count for more
+	 */
+	public void recordCutoff(Move move, int ply, int depth) {
+		if (move.isCaptureMove()) {
+			return;
+		}
+		int key = getKey(move);
+		if (killers[ply][0] != key) {
+			killers[ply][1] = killers[ply][0];
+			killers[ply][0] = key;
+		}
+		history[key] += depth * depth;
+		if (history[key] > MAX_HISTORY) {
+			// Keep the history below the killers, preserving the relative order
+			for (int idx=0; idx<history.length; idx++) {
+				history[idx] >>= 1;
+			}
+		}
+	}
+	
+	/**
+	 * Score a move for ordering
+	 * @param move	the move
+	 * @param ply	ply of the node the move is made in
+	 * @return score of the move, higher is searched first
+	 */
+	public int score(Move move, int ply) {
+		if (move.isCaptureMove()) {
+			Piece victim = move.getCapturedPiece();
+			if (victim.getType() == PieceType.KING) {
+				return KING_CAPTURE_SCORE;
+			}
+			return CAPTURE_SCORE + victim.getType().getMaterialValue() * 64 - getAttackerRank(move.getPiece());
+		}
+		int key = getKey(move);
+		for (int slot=0; slot<KILLER_SLOTS; slot++) {
+			if (killers[ply][slot] == key) {
+				return KILLER_SCORE - slot;
+			}
+		}
+		return history[key];
+	}
+	
+	/*******************
+	 * PRIVATE METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Get the index of a move in the history table, from its start and end squares
+	 */
+	private int getKey(Move move) {
+		int start = move.getStartRow() * numColumns + move.getStartCol();
+		int end = move.getEndRow() * numColumns + move.getEndCol();
+		return start * numSquares + end;
+	}
+	
+	/**
+	 * Rank of a capturing piece, the king being the worst attacker since it can never be recaptured
+	 */
+	private static int getAttackerRank(Piece attacker) {
+		if (attacker.getType() == PieceType.KING) {
+			return 63;
+		}
+		return attacker.getType().getMaterialValue();
+	}
+	
+	private void clearKillers() {
+		for (int[] plyKillers : killers) {
+			for (int slot=0; slot<KILLER_SLOTS; slot++) {
+				plyKillers[slot] = NO_MOVE;
+			}
+		}
+	}
+}
@@ -0,0 +1,111 @@
+package main.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import main.core.Board;
+import main.core.Move;
+import main.core.Player;
+import main.pieces.Piece.Color;
+import main.pieces.PieceType;
+
+/**
+ * Perft split over the moves of the root position, on a ForkJoinPool
+ * 
+ * Each root move is counted by its own task on its own copy of the board, since a Board can
+ * only be used by one thread. The tasks share one PerftCache, so a subtree counted by one task
+ * is not counted again by another. Boards too large to hash are counted without the cache
+ * @author einar
+ *
+ */
+public class ParallelPerft {
+	// Default size of the cache: 2^20 entries, 16 MiB
+	public static final int DEFAULT_CACHE_BITS = 20;
+	
+	private final ForkJoinPool pool;
+	private final PerftCache cache;
+	
+	/**
+	 * @param parallelism	number of threads counting at the same time
+	 * @param cacheBits		log2 of the number of cache entries
+	 */
+	public ParallelPerft(int parallelism, int cacheBits) {
+		this.pool = new ForkJoinPool(parallelism);
+		this.cache = new PerftCache(cacheBits);
+	}
+	
+	/*******************
+	 * PUBLIC METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Count the leaf positions of the move tree
+	 * The board is only read, and can be used again once the count returns
+	 * @param board			board in the position to count from
+	 * @param sideToMove	color of the player to move
+	 * @param depth			depth of the tree, in plies
+	 * @return number of positions at the given depth
+	 */
+	public long count(Board board, Color sideToMove, int depth) {
+		if (depth <= 1) {
+			return new Perft(board, null).count(board.getPlayer(sideToMove), depth);
+		}
+		List<RootMoveTask> tasks = new ArrayList<RootMoveTask>();
+		for (Move move : new MoveGenerator(board).generateMoves(board.getPlayer(sideToMove))) {
+			if (move.isCaptureMove() && move.getCapturedPiece().getType() == PieceType.KING) {
+				continue;
+			}
+			tasks.add(new RootMoveTask(board, sideToMove, move, depth - 1));
+		}
+		return pool.submit(() -> {
+			long nodes = 0;
+			for (RootMoveTask task : RecursiveTask.invokeAll(tasks)) {
+				nodes += task.join();
+			}
+			return nodes;
+		}).join();
+	}
+	
+	/**
+	 * Stop the threads of the pool
+	 */
+	public void shutdown() {
+		pool.shutdown();
+	}
+	
+	/**
+	 * Count the subtree of one root move, on a copy of the board
+	 */
+	private class RootMoveTask extends RecursiveTask<Long> {
+		private static final long serialVersionUID = 1L;
+		
+		private final Board board;
+		private final Color sideToMove;
+		private final int startRow, startCol, endRow, endCol;
+		private final int depth;
+		
+		RootMoveTask(Board board, Color sideToMove, Move move, int depth) {
+			this.board = board;
+			this.sideToMove = sideToMove;
+			this.startRow = move.getStartRow();
+			this.startCol = move.getStartCol();
+			this.endRow = move.getEndRow();
+			this.endCol = move.getEndCol();
+			this.depth = depth;
+		}
+		
+		@Override
+		protected Long compute() {
+			Board copy = board.copy();
+			Player player = copy.getPlayer(sideToMove);
+			Move move = new Move(copy.getSquare(startRow, startCol), copy.getSquare(endRow, endCol), player);
+			if (!copy.makeSearchMove(move)) {
+				return 0L;
+			}
+			return new Perft(copy, cache).count(copy.getOppositePlayer(player), depth);
+		}
+	}
+}
@@ -0,0 +1,57 @@
+package main.engine;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A bot move that has been requested from BotMoveService, and may still be queued or searching
+ * @author einar
+ *
+ */
+public class PendingMove {
+	private final CompletableFuture<BotMove> result;
+	private final AtomicBoolean stopRequested;
+	private final long deadline;
+	
+	PendingMove(long deadline) {
+		this.result = new CompletableFuture<BotMove>();
+		this.stopRequested = new AtomicBoolean();
+		this.deadline = deadline;
+	}
+	
+	/*******************
+	 * PUBLIC METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Get the move, completed once the search has returned
+	 * The move is null if the bot has no legal move
+	 * @return future of the move
+	 */
+	public CompletableFuture<BotMove> getResult() {
+		return result;
+	}
+	
+	/**
+	 * Ask the search to return its best move so far, e.g. because the game ended or the bot must move now
+	 */
+	public void stop() {
+		stopRequested.set(true);
+	}
+	
+	/**
+	 * Get the time by which the search returns
+	 * @return deadline, in System.nanoTime units
+	 */
+	public long getDeadline() {
+		return deadline;
+	}
+	
+	/**
+	 * Whether the search should return: stopped, past its deadline, or its worker is interrupted
+	 */
+	boolean shouldStop() {
+		return stopRequested.get() || System.nanoTime() - deadline >= 0 || Thread.currentThread().isInterrupted();
+	}
+}
@@ -0,0 +1,122 @@
+package main.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import main.core.Board;
+import main.core.Move;
+import main.core.Player;
+import main.pieces.Piece;
+import main.pieces.PieceType;
+
+/**
+ * Performance test of the move rules: counts the positions reachable in a number of plies
+ * 
+ * Leaf moves are counted in bulk: when the player is not in check, every move of a piece that
+ * is not pinned is legal, so only king moves, moves of pinned pieces, and moves out of check
+ * are made on the board to test them. A move that captures a king ends the game, so nothing
+ * is counted below it
+ * 
+ * Optionally, subtree counts are kept in a PerftCache keyed by position hash and depth, so
+ * that transpositions are only counted once
+ * @author einar
+ *
+ */
+public class Perft {
+	private final Board board;
+	private final MoveGenerator generator;
+	private final PerftCache cache;
+	
+	/**
+	 * @param board		board to count on, in the position to count from
+	 * @param cache		cache of subtree counts, or null for none; ignored if the board is too large to hash
+	 */
+	public Perft(Board board, PerftCache cache) {
+		this.board = board;
+		this.generator = new MoveGenerator(board);
+		// Every position of a board too large to hash has the same hash, so nothing could be cached
+		this.cache = board.isHashable() ? cache : null;
+	}
+	
+	/*******************
+	 * PUBLIC METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Count the leaf positions of the move tree
+	 * @param player	player to move
+	 * @param depth		depth of the tree, in plies
+	 * @return number of positions at the given depth
+	 */
+	public long count(Player player, int depth) {
+		if (depth == 0) {
+			return 1;
+		}
+		if (depth == 1) {
+			return countLegalMoves(player);
+		}
+		
+		long hash = 0;
+		if (cache != null) {
+			hash = board.getPositionHash(player.getColor());
+			long cached = cache.get(hash, depth);
+			if (cached >= 0) {
+				return cached;
+			}
+		}
+		
+		long nodes = 0;
+		Player opponent = board.getOppositePlayer(player);
+		for (Move move : generator.generateMoves(player)) {
+			if (capturesKing(move) || !board.makeSearchMove(move)) {
+				continue;
+			}
+			nodes += count(opponent, depth - 1);
+			board.undoSearchMove();
+		}
+		
+		if (cache != null) {
+			cache.put(hash, depth, nodes);
+		}
+		return nodes;
+	}
+	
+	/**
+	 * Count the legal moves of a player, making only the moves that might leave it in check
+	 * @param player	player to move
+	 * @return number of legal moves
+	 */
+	public long countLegalMoves(Player player) {
+		boolean isInCheck = board.isCheck(player);
+		long count = 0;
+		List<Move> moves = new ArrayList<Move>();
+		for (Piece piece : new ArrayList<Piece>(player.getAvailablePieces())) {
+			moves.clear();
+			generator.generatePieceMoves(piece, player, moves);
+			if (moves.isEmpty()) {
+				continue;
+			}
+			if (!isInCheck && piece.getType() != PieceType.KING && !board.isPinned(piece, player)) {
+				count += moves.size();
+				continue;
+			}
+			for (Move move : moves) {
+				if (board.makeSearchMove(move)) {
+					count++;
+					board.undoSearchMove();
+				}
+			}
+		}
+		return count;
+	}
+	
+	/*******************
+	 * PRIVATE METHODS
+	 * 
+	 *******************/
+	
+	private static boolean capturesKing(Move move) {
+		return move.isCaptureMove() && move.getCapturedPiece().getType() == PieceType.KING;
+	}
+}
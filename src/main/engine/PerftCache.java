@@ -0,0 +1,76 @@
+package main.engine;
+
+/**
+ * Lock-free hash table of perft subtree counts, keyed by position hash and depth, shared by every perft thread
+ * 
+ * Each entry stores the count and the key XORed with the count. A reader only accepts an
+ * entry whose two words agree, so an entry half-written by another thread is seen as a miss
+ * rather than as a wrong count. Colliding entries simply replace each other
+ * @author einar
+ *
+ */
+public class PerftCache {
+	private static final long DEPTH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+	
+	private final long[] checks;
+	private final long[] counts;
+	private final int shift;
+	
+	/**
+	 * @param sizeBits	log2 of the number of entries, each taking 16 bytes
+	 */
+	public PerftCache(int sizeBits) {
+		this.checks = new long[1 << sizeBits];
+		this.counts = new long[1 << sizeBits];
+		this.shift = 64 - sizeBits;
+	}
+	
+	/*******************
+	 * PUBLIC METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Look up the count of a subtree
+	 * @param hash		hash of the position
+	 * @param depth		depth of the subtree
+	 * @return the count, or -1 if it is not cached
+	 */
+	public long get(long hash, int depth) {
+		long key = getKey(hash, depth);
+		int index = getIndex(key);
+		long count = counts[index];
+		if ((checks[index] ^ count) != key) {
+			return -1;
+		}
+		return count;
+	}
+	
+	/**
+	 * Cache the count of a subtree
+	 * @param hash		hash of the position
+	 * @param depth		depth of the subtree
+	 * @param count		number of leaf positions of the subtree
+	 */
+	public void put(long hash, int depth, long count) {
+		long key = getKey(hash, depth);
+		int index = getIndex(key);
+		counts[index] = count;
+		checks[index] = key ^ count;
+	}
+	
+	/*******************
+	 * PRIVATE METHODS
+	 * 
+	 *******************/
+	
+	private static long getKey(long hash, int depth) {
+		// Key 0 would match an empty entry
+		long key = hash ^ (depth * DEPTH_MULTIPLIER);
+		return key == 0 ? 1 : key;
+	}
+	
+	private int getIndex(long key) {
+		return (int) (key >>> shift);
+	}
+}
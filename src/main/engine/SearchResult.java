@@ -0,0 +1,52 @@
+package main.engine;
+
+import main.core.Move;
+
+/**
+ * Outcome of a search: the best move found and its score
+ * @author einar
+ *
+ */
+public class SearchResult {
+	private final Move bestMove;
+	private final int score;
+	private final int depth;
+	private final long nodeCount;
+	
+	/**
+	 * @param bestMove		best move found, null if the player has no legal move
+	 * @param score			score of the best move for the player to move, in centipawns
+	 * @param depth			depth that was searched, in plies
+	 * @param nodeCount		number of positions visited
+	 */
+	public SearchResult(Move bestMove, int score, int depth, long nodeCount) {
+		this.bestMove = bestMove;
+		this.score = score;
+		this.depth = depth;
+		this.nodeCount = nodeCount;
+	}
+	
+	public Move getBestMove() {
+		return bestMove;
+	}
+	
+	public int getScore() {
+		return score;
+	}
+	
+	public int getDepth() {
+		return depth;
+	}
+	
+	public long getNodeCount() {
+		return nodeCount;
+	}
+	
+	/**
+	 * Whether the score is a forced mate, for either side
+	 * @return true if the score is a mate score
+	 */
+	public boolean isMateScore() {
+		return Math.abs(score) >= Searcher.MATE_SCORE - Searcher.MAX_PLY;
+	}
+}
@@ -0,0 +1,343 @@
+package main.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import main.core.Board;
+import main.core.Move;
+import main.core.Player;
+import main.pieces.PieceType;
+import main.tablebase.Tablebase;
+import main.tablebase.Tablebases;
+
+/**
+ * Alpha-beta search over a Board, using the board's incremental evaluation at the leaves
+ * 
+ * At the end of the main search a quiescence search keeps resolving captures until the
+ * position is quiet, so that the evaluation is never read in the middle of an exchange.
+ * Captures that lose material according to static exchange evaluation are not searched,
+ * which keeps the quiescence search small in positions full of captures. Moves of the main
+ * search are tried in the order given by MoveOrdering
+ * 
+ * Given tablebases, the search scores every position whose material they cover from the tables,
+ * by distance to mate, instead of searching it
+ * 
+ * A search can be given a stop condition, which it polls cooperatively: iterative deepening then
+ * returns the best move of the deepest iteration it completed
+ * 
+ * The search makes moves on the board and takes them back, so the board must not be used
+ * by anything else while a search runs
+ * @author einar
+ *
+ */
+public class Searcher {
+	// Score of mating the opponent now, less one per ply it takes to get there
+	public static final int MATE_SCORE = 1000000;
+	public static final int MAX_PLY = 128;
+	private static final int INFINITY = MATE_SCORE + 1;
+	
+	// Returned by probeTablebases when the position is not in a tablebase
+	private static final int NO_SCORE = Integer.MIN_VALUE;
+	
+	// Nodes between two polls of the stop condition, a power of two
+	private static final int CHECK_INTERVAL = 1024;
+	
+	private final Board board;
+	private final MoveGenerator generator;
+	private final MoveOrdering ordering;
+	private final Tablebases tablebases;
+	private long nodeCount;
+	
+	// Condition ending the search early, and whether it has ended it
+	private BooleanSupplier stopCondition;
+	private boolean aborted;
+	
+	/**
+	 * @param board		board to search on
+	 */
+	public Searcher(Board board) {
+		this(board, null);
+	}
+	
+	/**
+	 * @param board			board to search on
+	 * @param tablebases	tablebases to score endgames from, or null for none
+	 */
+	public Searcher(Board board, Tablebases tablebases) {
+		this.board = board;
+		this.generator = new MoveGenerator(board);
+		this.ordering = new MoveOrdering(board, MAX_PLY);
+		this.tablebases = tablebases;
+	}
+	
+	/*******************
+	 * PUBLIC METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Search the current position to a fixed depth
+	 * @param player	player to move
+	 * @param depth		depth of the main search, in plies, before the quiescence search
+	 * @return the best move and its score
+	 */
+	public SearchResult search(Player player, int depth) {
+		startSearch();
+		return searchRoot(player, depth, null);
+	}
+	
+	/**
+	 * Search the current position with iterative deepening, until the maximum depth or until asked to stop
+	 * The stop condition is polled every few thousand nodes; once it holds, the deepest completed
+	 * iteration is returned. The first iteration always completes, so that a move is always found
+	 * @param player			player to move
+	 * @param maxDepth			deepest iteration to search
+	 * @param stopCondition		polled during the search, true once the search should return
+	 * @return the best move and score of the deepest completed iteration
+	 */
+	public SearchResult searchUntil(Player player, int maxDepth, BooleanSupplier stopCondition) {
+		startSearch();
+		SearchResult best = null;
+		for (int depth=1; depth<=maxDepth; depth++) {
+			this.stopCondition = depth == 1 ? null : stopCondition;
+			SearchResult result = searchRoot(player, depth, best == null ? null : best.getBestMove());
+			if (aborted) {
+				break;
+			}
+			best = result;
+			if (result.getBestMove() == null || result.isMateScore()) {
+				break;
+			}
+			if (stopCondition.getAsBoolean()) {
+				break;
+			}
+		}
+		this.stopCondition = null;
+		return best;
+	}
+	
+	/**
+	 * Get the number of positions visited by the last search
+	 * @return number of nodes
+	 */
+	public long getNodeCount() {
+		return nodeCount;
+	}
+	
+	/*******************
+	 * PRIVATE METHODS
+	 * 
+	 *******************/
+	
+	private void startSearch() {
+		this.nodeCount = 0;
+		this.stopCondition = null;
+		this.aborted = false;
+		ordering.startSearch();
+	}
+	
+	/**
+	 * Search every move of the root position
+	 * @param firstMove		move to search first, usually the best move of the previous iteration, or null
+	 */
+	private SearchResult searchRoot(Player player, int depth, Move firstMove) {
+		Move bestMove = null;
+		int alpha = -INFINITY;
+		List<Move> moves = generator.generateMoves(player);
+		ordering.order(moves, 0);
+		if (firstMove != null) {
+			moveToFront(moves, firstMove);
+		}
+		for (Move move : moves) {
+			int score;
+			if (capturesKing(move)) {
+				score = MATE_SCORE;
+			} else if (board.makeSearchMove(move)) {
+				score = -search(board.getOppositePlayer(player), depth - 1, -INFINITY, -alpha, 1);
+				board.undoSearchMove();
+				if (aborted) {
+					break;
+				}
+			} else {
+				continue;
+			}
+			if (score > alpha) {
+				alpha = score;
+				bestMove = move;
+			}
+		}
+		if (bestMove == null && !aborted) {
+			alpha = getScoreWithoutMoves(player, 0);
+		}
+		return new SearchResult(bestMove, alpha, depth, nodeCount);
+	}
+	
+	/**
+	 * Negamax alpha-beta search
+	 * @return score of the position for the player to move
+	 */
+	private int search(Player player, int depth, int alpha, int beta, int ply) {
+		if (depth <= 0 || ply >= MAX_PLY) {
+			return quiescence(player, alpha, beta, ply);
+		}
+		nodeCount++;
+		if (isStopRequested()) {
+			return 0;
+		}
+		int tablebaseScore = probeTablebases(player, ply);
+		if (tablebaseScore != NO_SCORE) {
+			return tablebaseScore;
+		}
+		
+		boolean hasLegalMove = false;
+		List<Move> moves = generator.generateMoves(player);
+		ordering.order(moves, ply);
+		for (Move move : moves) {
+			if (capturesKing(move)) {
+				return MATE_SCORE - ply;
+			}
+			if (!board.makeSearchMove(move)) {
+				continue;
+			}
+			hasLegalMove = true;
+			int score = -search(board.getOppositePlayer(player), depth - 1, -beta, -alpha, ply + 1);
+			board.undoSearchMove();
+			if (aborted) {
+				return 0;
+			}
+			
+			if (score >= beta) {
+				ordering.recordCutoff(move, ply, depth);
+				return score;
+			}
+			if (score > alpha) {
+				alpha = score;
+			}
+		}
+		if (!hasLegalMove) {
+			return getScoreWithoutMoves(player, ply);
+		}
+		return alpha;
+	}
+	
+	/**
+	 * Search captures only, until the position is quiet
+	 * The player to move may also stand pat, taking the static evaluation, instead of capturing
+	 * @return score of the position for the player to move
+	 */
+	private int quiescence(Player player, int alpha, int beta, int ply) {
+		nodeCount++;
+		if (isStopRequested()) {
+			return 0;
+		}
+		int tablebaseScore = probeTablebases(player, ply);
+		if (tablebaseScore != NO_SCORE) {
+			return tablebaseScore;
+		}
+		int standPat = board.getEvaluation(player);
+		if (standPat >= beta || ply >= MAX_PLY) {
+			return standPat;
+		}
+		if (standPat > alpha) {
+			alpha = standPat;
+		}
+		
+		// Keep the captures that do not lose material, best exchanges first
+		List<Move> captures = new ArrayList<Move>();
+		List<Integer> exchanges = new ArrayList<Integer>();
+		for (Move capture : generator.generateCaptures(player)) {
+			if (capturesKing(capture)) {
+				return MATE_SCORE - ply;
+			}
+			int exchange = StaticExchange.evaluate(board, capture);
+			if (exchange < 0) {
+				continue;
+			}
+			int position = 0;
+			while (position < exchanges.size() && exchanges.get(position) >= exchange) {
+				position++;
+			}
+			captures.add(position, capture);
+			exchanges.add(position, exchange);
+		}
+		
+		for (Move capture : captures) {
+			if (!board.makeSearchMove(capture)) {
+				continue;
+			}
+			int score = -quiescence(board.getOppositePlayer(player), -beta, -alpha, ply + 1);
+			board.undoSearchMove();
+			if (aborted) {
+				return 0;
+			}
+			
+			if (score >= beta) {
+				return score;
+			}
+			if (score > alpha) {
+				alpha = score;
+			}
+		}
+		return alpha;
+	}
+	
+	/**
+	 * Poll the stop condition every CHECK_INTERVAL nodes, and remember once it holds
+	 */
+	private boolean isStopRequested() {
+		if (!aborted && stopCondition != null && (nodeCount & (CHECK_INTERVAL - 1)) == 0) {
+			aborted = stopCondition.getAsBoolean();
+		}
+		return aborted;
+	}
+	
+	/**
+	 * Score the position from the tablebases, counting a mate found there like one found by the search
+	 * @return score of the position for the player to move, or NO_SCORE if no tablebase covers it
+	 */
+	private int probeTablebases(Player player, int ply) {
+		if (tablebases == null) {
+			return NO_SCORE;
+		}
+		int value = tablebases.probe(board, player.getColor());
+		if (value == Tablebase.NOT_FOUND) {
+			return NO_SCORE;
+		}
+		if (Tablebase.isWin(value)) {
+			return MATE_SCORE - ply - Tablebase.getDistance(value);
+		}
+		if (Tablebase.isLoss(value)) {
+			return -MATE_SCORE + ply + Tablebase.getDistance(value);
+		}
+		return 0;
+	}
+	
+	/**
+	 * Move the move with the same squares as the given move to the front of the list
+	 */
+	private static void moveToFront(List<Move> moves, Move first) {
+		for (int idx=0; idx<moves.size(); idx++) {
+			Move move = moves.get(idx);
+			if (move.getStartSquare() == first.getStartSquare() && move.getEndSquare() == first.getEndSquare()) {
+				moves.remove(idx);
+				moves.add(0, move);
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * Score a position where the player to move has no legal move: mated if in check, otherwise a stalemate
+	 */
+	private int getScoreWithoutMoves(Player player, int ply) {
+		return board.isCheck(player) ? -MATE_SCORE + ply : 0;
+	}
+	
+	/**
+	 * Whether a move captures the opponent's king, which ends the game at once
+	 */
+	private static boolean capturesKing(Move move) {
+		return move.isCaptureMove() && move.getCapturedPiece().getType() == PieceType.KING;
+	}
+}
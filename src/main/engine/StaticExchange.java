@@ -0,0 +1,137 @@
+package main.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import main.core.Board;
+import main.core.Evaluation;
+import main.core.Move;
+import main.core.Player;
+import main.core.Square;
+import main.pieces.Piece;
+import main.pieces.PieceType;
+
+/**
+ * Static exchange evaluation (SEE): the material won or lost by a capture, once every
+ * recapture on the target square has been played out
+ * 
+ * Both sides recapture with their least valuable piece, and either side may stop capturing
+ * when that is better for it. Attackers are found with Board.isMoveValid, so every piece
+ * captures the way it does in the game: a row mover from anywhere on the row behind the
+ * target, a double jumper from two squares away diagonally. The exchange is played on the
+ * board itself and taken back, so pieces lined up behind an attacker join in as it moves
+ * @author einar
+ *
+ */
+public class StaticExchange {
+	// Value of a capture that cannot be made, lower than any exchange
+	public static final int ILLEGAL = Integer.MIN_VALUE / 2;
+	
+	// Value of the king as an attacker, so that it recaptures last
+	private static final int KING_VALUE = 20000;
+	
+	// Longest exchange played out: every piece of both sides
+	private static final int MAX_EXCHANGE = 64;
+	
+	private StaticExchange() {}
+	
+	/*******************
+	 * PUBLIC METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Evaluate the exchange started by a capture
+	 * @param board		board in the position before the capture
+	 * @param capture	valid capture, as checked by Board.isMoveValid
+	 * @return material won by the player making the capture, in centipawns, or ILLEGAL if the capture leaves that player in check
+	 */
+	public static int evaluate(Board board, Move capture) {
+		int[] gains = new int[MAX_EXCHANGE];
+		gains[0] = getValue(capture.getCapturedPiece());
+		if (capture.getCapturedPiece().getType() == PieceType.KING) {
+			return gains[0];
+		}
+		int attackerValue = getValue(capture.getPiece());
+		if (!board.makeSearchMove(capture)) {
+			return ILLEGAL;
+		}
+		int madeMoves = 1;
+		
+		Square target = capture.getEndSquare();
+		Player side = capture.getPlayer();
+		int depth = 0;
+		while (depth < MAX_EXCHANGE - 1 && target.getPiece().getType() != PieceType.KING) {
+			// A king is never recaptured: it only captures onto squares that Board.isCheck sees as safe
+			side = board.getOppositePlayer(side);
+			List<Move> recaptures = getRecapturesByValue(board, side, target);
+			if (recaptures.isEmpty()) {
+				break;
+			}
+			depth++;
+			gains[depth] = attackerValue - gains[depth - 1];
+			if (Math.max(-gains[depth - 1], gains[depth]) < 0) {
+				// Neither side can improve on stopping here
+				break;
+			}
+			
+			// Recapture with the least valuable piece that is not pinned
+			Move recapture = null;
+			for (Move candidate : recaptures) {
+				if (board.makeSearchMove(candidate)) {
+					recapture = candidate;
+					break;
+				}
+			}
+			if (recapture == null) {
+				depth--;
+				break;
+			}
+			madeMoves++;
+			attackerValue = getValue(recapture.getPiece());
+		}
+		
+		for (int idx=0; idx<madeMoves; idx++) {
+			board.undoSearchMove();
+		}
+		
+		// Fold the gains back, each side choosing between recapturing and standing pat
+		while (depth > 0) {
+			gains[depth - 1] = -Math.max(-gains[depth - 1], gains[depth]);
+			depth--;
+		}
+		return gains[0];
+	}
+	
+	/**
+	 * Get the value of a piece in an exchange
+	 * @param piece		the piece
+	 * @return value of the piece in centipawns, with the king worth more than any other piece
+	 */
+	public static int getValue(Piece piece) {
+		if (piece.getType() == PieceType.KING) {
+			return KING_VALUE;
+		}
+		return Evaluation.getPieceValue(piece.getType());
+	}
+	
+	/*******************
+	 * PRIVATE METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Find the pieces of a player that can capture on a square, least valuable first
+	 */
+	private static List<Move> getRecapturesByValue(Board board, Player player, Square target) {
+		List<Move> recaptures = new ArrayList<Move>();
+		for (Piece piece : player.getAvailablePieces()) {
+			Move move = new Move(piece.getSquare(), target, player);
+			if (board.isMoveValid(move)) {
+				recaptures.add(move);
+			}
+		}
+		recaptures.sort((first, second) -> Integer.compare(getValue(first.getPiece()), getValue(second.getPiece())));
+		return recaptures;
+	}
+}
@@ -10,4 +10,12 @@ public class InvalidMoveException extends Exception {
 	public InvalidMoveException() {
 		super("Move invalid");
 	}
+	
+	/**
+	 * Used when the reason a move is invalid is known, e.g. when replaying recorded games
+	 * @param message	description of why the move is invalid
+	 */
+	public InvalidMoveException(String message) {
+		super(message);
+	}
 }
@@ -0,0 +1,329 @@
+package main.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import main.exceptions.InvalidMoveException;
+
+/**
+ * Append-only log of every change made to the games of a server, used to rebuild them after a restart
+ * 
+ * Records are fixed-width (see JournalRecord), and are made durable with group commit:
+ * callers append into a shared batch and wait, while a single commit thread writes the batch
+ * and forces it to disk. Everything appended while one batch is being forced goes into the
+ * next one, so a single fsync covers the changes of many games under load
+ * 
+ * Opening a journal replays it: every game that was created and not closed is rebuilt,
+ * and a record torn by a crash is cut off the end of the file
+ * @author einar
+ *
+ */
+public class GameJournal implements Closeable {
+	// Number of records in a batch, appends wait when the batch is full
+	public static final int BATCH_RECORDS = 4096;
+	
+	// Number of records read at once during recovery
+	private static final int RECOVERY_READ_RECORDS = 4096;
+	
+	private final FileChannel channel;
+	private final Map<Long, JournaledChessModel> recoveredGames;
+	
+	// Batch being filled by appends, and batch being written by the commit thread
+	private ByteBuffer pendingBatch;
+	private ByteBuffer writingBatch;
+	
+	// Number of records appended, and number of records known to be on disk
+	private long appendedRecords;
+	private long durableRecords;
+	
+	private boolean closed;
+	private IOException failure;
+	
+	private final ReentrantLock lock;
+	private final Condition recordsPending;
+	private final Condition batchAvailable;
+	private final Condition recordsDurable;
+	private final Thread commitThread;
+	
+	private GameJournal(FileChannel channel) throws IOException {
+		this.channel = channel;
+		this.lock = new ReentrantLock();
+		this.recordsPending = lock.newCondition();
+		this.batchAvailable = lock.newCondition();
+		this.recordsDurable = lock.newCondition();
+		this.recoveredGames = Collections.unmodifiableMap(recover());
+		this.pendingBatch = ByteBuffer.allocateDirect(BATCH_RECORDS * JournalRecord.LENGTH);
+		this.writingBatch = ByteBuffer.allocateDirect(BATCH_RECORDS * JournalRecord.LENGTH);
+		this.commitThread = new Thread(this::commitBatches, "game-journal-commit");
+		commitThread.setDaemon(true);
+		commitThread.start();
+	}
+	
+	/**
+	 * Open a journal, creating it if it does not exist, and rebuild the games it holds
+	 * @param path	path of the journal file
+	 * @return the journal, ready for appends
+	 * @throws IOException if the journal cannot be read, or holds a change that cannot be replayed
+	 */
+	public static GameJournal open(Path path) throws IOException {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			return new GameJournal(channel);
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Get the games that were in flight when the journal was last closed
+	 * Rebuilt games keep journaling their changes to this journal
+	 * @return map of game ID to game, in order of creation
+	 */
+	public Map<Long, JournaledChessModel> getRecoveredGames() {
+		return recoveredGames;
+	}
+	
+	/**
+	 * Start a new journaled game
+	 * @param gameId			ID of the game, not used by any game in the journal
+	 * @param useCustomPieces	whether the game uses the RowMover and DoubleJumper pieces
+	 * @return the new game, once its creation is durable
+	 * @throws IOException if the journal cannot be written
+	 */
+	public JournaledChessModel createGame(long gameId, boolean useCustomPieces) throws IOException {
+		JournaledChessModel game = new JournaledChessModel(this, gameId, useCustomPieces);
+		append(gameId, JournalRecord.CREATE, 0, 0, useCustomPieces ? JournalRecord.FLAG_CUSTOM_PIECES : 0);
+		game.setJournaling(true);
+		return game;
+	}
+	
+	/**
+	 * Record that a game is finished, so it is not rebuilt by recovery
+	 * @param gameId	ID of the game
+	 * @throws IOException if the journal cannot be written
+	 */
+	public void closeGame(long gameId) throws IOException {
+		append(gameId, JournalRecord.CLOSE, 0, 0, (byte) 0);
+	}
+	
+	/**
+	 * Append a record, and wait until it is durable
+	 * @throws IOException if the journal is closed, or the batch holding the record could not be written
+	 */
+	public void append(long gameId, byte type, int startSquare, int endSquare, byte flags) throws IOException {
+		lock.lock();
+		try {
+			while (!pendingBatch.hasRemaining() && !closed && failure == null) {
+				batchAvailable.await();
+			}
+			checkWritable();
+			JournalRecord.put(pendingBatch, gameId, type, startSquare, endSquare, flags);
+			long record = ++appendedRecords;
+			recordsPending.signal();
+			
+			while (durableRecords < record && failure == null) {
+				recordsDurable.await();
+			}
+			if (durableRecords < record) {
+				throw new IOException("Journal write failed", failure);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for the journal");
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Write the remaining records, and close the journal file
+	 * @throws IOException if the file cannot be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		lock.lock();
+		try {
+			closed = true;
+			recordsPending.signal();
+			batchAvailable.signalAll();
+		} finally {
+			lock.unlock();
+		}
+		try {
+			commitThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		channel.close();
+	}
+	
+	/*******************
+	 * PRIVATE METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Run by the commit thread: swap out the pending batch, then write and force it
+	 * while the next batch fills up
+	 */
+	private void commitBatches() {
+		while (true) {
+			long batchEnd;
+			lock.lock();
+			try {
+				while (pendingBatch.position() == 0 && !closed) {
+					recordsPending.awaitUninterruptibly();
+				}
+				if (pendingBatch.position() == 0) {
+					return;
+				}
+				ByteBuffer batch = pendingBatch;
+				pendingBatch = writingBatch;
+				writingBatch = batch;
+				batchEnd = appendedRecords;
+				batchAvailable.signalAll();
+			} finally {
+				lock.unlock();
+			}
+			
+			IOException writeFailure = null;
+			try {
+				writingBatch.flip();
+				while (writingBatch.hasRemaining()) {
+					channel.write(writingBatch);
+				}
+				channel.force(false);
+			} catch (IOException e) {
+				writeFailure = e;
+			}
+			writingBatch.clear();
+			
+			lock.lock();
+			try {
+				if (writeFailure != null) {
+					failure = writeFailure;
+				} else {
+					durableRecords = batchEnd;
+				}
+				recordsDurable.signalAll();
+				batchAvailable.signalAll();
+			} finally {
+				lock.unlock();
+			}
+			if (writeFailure != null) {
+				return;
+			}
+		}
+	}
+	
+	private void checkWritable() throws IOException {
+		if (failure != null) {
+			throw new IOException("Journal write failed", failure);
+		}
+		if (closed) {
+			throw new IOException("Journal is closed");
+		}
+	}
+	
+	/**
+	 * Replay every record of the file, leaving the channel positioned after the last intact record
+	 * @return games created and not closed
+	 */
+	private Map<Long, JournaledChessModel> recover() throws IOException {
+		Map<Long, JournaledChessModel> games = new LinkedHashMap<Long, JournaledChessModel>();
+		ByteBuffer buffer = ByteBuffer.allocateDirect(RECOVERY_READ_RECORDS * JournalRecord.LENGTH);
+		long position = 0;
+		boolean torn = false;
+		channel.position(0);
+		
+		while (!torn && channel.read(buffer) != -1) {
+			buffer.flip();
+			int offset = 0;
+			while (buffer.limit() - offset >= JournalRecord.LENGTH) {
+				if (!JournalRecord.isValid(buffer, offset)) {
+					// Only the last record can have been torn by a crash, a bad record before it is corruption
+					if (position + JournalRecord.LENGTH < channel.size()) {
+						throw new IOException("Corrupt journal record at " + position + ", followed by more records");
+					}
+					torn = true;
+					break;
+				}
+				replay(games, buffer, offset, position);
+				offset += JournalRecord.LENGTH;
+				position += JournalRecord.LENGTH;
+			}
+			buffer.position(offset);
+			buffer.compact();
+		}
+		
+		// Cut off a partial or torn record left by a crash
+		if (position < channel.size()) {
+			channel.truncate(position);
+		}
+		channel.position(position);
+		
+		for (JournaledChessModel game : games.values()) {
+			game.setJournaling(true);
+		}
+		return games;
+	}
+	
+	/**
+	 * Apply a single record to the games being rebuilt
+	 * @param position	position of the record in the file, for error messages
+	 */
+	private void replay(Map<Long, JournaledChessModel> games, ByteBuffer buffer, int offset, long position) throws IOException {
+		long gameId = JournalRecord.getGameId(buffer, offset);
+		byte type = JournalRecord.getType(buffer, offset);
+		if (type == JournalRecord.CREATE) {
+			boolean useCustomPieces = (JournalRecord.getFlags(buffer, offset) & JournalRecord.FLAG_CUSTOM_PIECES) != 0;
+			games.put(gameId, new JournaledChessModel(this, gameId, useCustomPieces));
+			return;
+		}
+		
+		JournaledChessModel game = games.get(gameId);
+		if (game == null) {
+			throw new IOException("Journal record at " + position + " refers to unknown game " + gameId);
+		}
+		switch (type) {
+			case JournalRecord.MOVE:
+				int numCols = game.getCols();
+				int startSquare = JournalRecord.getStartSquare(buffer, offset);
+				int endSquare = JournalRecord.getEndSquare(buffer, offset);
+				try {
+					game.move(startSquare / numCols, startSquare % numCols, endSquare / numCols, endSquare % numCols);
+				} catch (InvalidMoveException e) {
+					throw new IOException("Journal record at " + position + " is not a legal move", e);
+				}
+				break;
+			case JournalRecord.UNDO:
+				game.undo();
+				break;
+			case JournalRecord.REDO:
+				game.redo();
+				break;
+			case JournalRecord.FORFEIT:
+				game.forfeit();
+				break;
+			case JournalRecord.RESET:
+				game.resetGame();
+				break;
+			case JournalRecord.CLOSE:
+				games.remove(gameId);
+				break;
+			default:
+				throw new IOException("Journal record at " + position + " has unknown type " + type);
+		}
+	}
+}
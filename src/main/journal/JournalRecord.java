@@ -0,0 +1,93 @@
+package main.journal;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+/**
+ * Layout of a single record of the game journal
+ * Every record has the same width, so the journal can be scanned without a parse step:
+ * 
+ * 	[game ID 8][type 1][start square 1][end square 1][flags 1][CRC-32 of the first 12 bytes 4]
+ * 
+ * Squares are row-major indexes, and are only used by MOVE records. The checksum
+ * lets recovery detect a record that was torn by a crash while it was being written
+ * @author einar
+ *
+ */
+public final class JournalRecord {
+	// Width of every record
+	public static final int LENGTH = 16;
+	
+	// Record types
+	public static final byte CREATE = 1;
+	public static final byte MOVE = 2;
+	public static final byte UNDO = 3;
+	public static final byte REDO = 4;
+	public static final byte FORFEIT = 5;
+	public static final byte RESET = 6;
+	public static final byte CLOSE = 7;
+	
+	// Flag of a CREATE record for games using the RowMover and DoubleJumper pieces
+	public static final byte FLAG_CUSTOM_PIECES = 0x01;
+	
+	// Number of bytes covered by the checksum
+	private static final int CHECKED_LENGTH = 12;
+	
+	private JournalRecord() {}
+	
+	/**
+	 * Write a record at the position of the buffer
+	 * @param buffer		buffer with at least LENGTH bytes remaining
+	 * @param gameId		ID of the game
+	 * @param type			type of the record
+	 * @param startSquare	index of the start square of a move, 0 otherwise
+	 * @param endSquare		index of the end square of a move, 0 otherwise
+	 * @param flags			flags of the record
+	 */
+	public static void put(ByteBuffer buffer, long gameId, byte type, int startSquare, int endSquare, byte flags) {
+		int start = buffer.position();
+		buffer.putLong(gameId).put(type).put((byte) startSquare).put((byte) endSquare).put(flags);
+		buffer.putInt(checksum(buffer, start));
+	}
+	
+	/**
+	 * Whether the record at the given offset is intact
+	 * @param buffer	buffer holding the whole record
+	 * @param offset	offset of the record in the buffer
+	 * @return true if the stored checksum matches the record
+	 */
+	public static boolean isValid(ByteBuffer buffer, int offset) {
+		return buffer.getInt(offset + CHECKED_LENGTH) == checksum(buffer, offset);
+	}
+	
+	public static long getGameId(ByteBuffer buffer, int offset) {
+		return buffer.getLong(offset);
+	}
+	
+	public static byte getType(ByteBuffer buffer, int offset) {
+		return buffer.get(offset + 8);
+	}
+	
+	public static int getStartSquare(ByteBuffer buffer, int offset) {
+		return buffer.get(offset + 9) & 0xFF;
+	}
+	
+	public static int getEndSquare(ByteBuffer buffer, int offset) {
+		return buffer.get(offset + 10) & 0xFF;
+	}
+	
+	public static byte getFlags(ByteBuffer buffer, int offset) {
+		return buffer.get(offset + 11);
+	}
+	
+	/**
+	 * Compute the checksum of the first bytes of the record at the given offset
+	 */
+	private static int checksum(ByteBuffer buffer, int offset) {
+		CRC32 crc = new CRC32();
+		ByteBuffer checked = buffer.duplicate();
+		checked.limit(offset + CHECKED_LENGTH).position(offset);
+		crc.update(checked);
+		return (int) crc.getValue();
+	}
+}
@@ -0,0 +1,161 @@
+package main.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import main.core.Board;
+import main.core.ChessModel;
+import main.core.Move;
+import main.core.Square;
+import main.exceptions.InvalidMoveException;
+
+/**
+ * A game between "White" and "Black" whose every change is written to a GameJournal
+ * Each change is only journaled after it succeeded, and returns once its record is durable.
+ * A change whose record cannot be written is rolled back, so the game never gets ahead of the journal
+ * 
+ * Created through GameJournal.createGame, or rebuilt by GameJournal.open after a restart
+ * @author einar
+ *
+ */
+public class JournaledChessModel extends ChessModel {
+	private final GameJournal journal;
+	private final long gameId;
+	
+	// Whether changes are currently written to the journal, false while replaying it
+	private boolean journaling;
+	
+	/**
+	 * @param journal			journal the changes are written to
+	 * @param gameId			ID of the game in the journal
+	 * @param useCustomPieces	whether the game uses the RowMover and DoubleJumper pieces
+	 */
+	JournaledChessModel(GameJournal journal, long gameId, boolean useCustomPieces) {
+		super("White", "Black");
+		this.journal = journal;
+		this.gameId = gameId;
+		startGameWithNewPlayers("White", "Black", useCustomPieces);
+	}
+	
+	@Override
+	public void move(String startPosition, String endPosition) throws InvalidMoveException {
+		super.move(startPosition, endPosition);
+		try {
+			journalLastMove();
+		} catch (UncheckedIOException e) {
+			super.undo();
+			throw e;
+		}
+	}
+	
+	@Override
+	public void move(int startRow, int startCol, int endRow, int endCol) throws InvalidMoveException {
+		super.move(startRow, startCol, endRow, endCol);
+		try {
+			journalLastMove();
+		} catch (UncheckedIOException e) {
+			super.undo();
+			throw e;
+		}
+	}
+	
+	@Override
+	public void undo() {
+		if (!canUndo()) {
+			return;
+		}
+		super.undo();
+		try {
+			journal(JournalRecord.UNDO, 0, 0);
+		} catch (UncheckedIOException e) {
+			super.redo();
+			throw e;
+		}
+	}
+	
+	@Override
+	public void redo() {
+		if (!canRedo()) {
+			return;
+		}
+		super.redo();
+		try {
+			journal(JournalRecord.REDO, 0, 0);
+		} catch (UncheckedIOException e) {
+			super.undo();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Forfeits for the current player
+	 * Journaled as a single record, since forfeiting also resets the game. The reset cannot be
+	 * rolled back, so the record is written first
+	 */
+	@Override
+	public void forfeit() {
+		journal(JournalRecord.FORFEIT, 0, 0);
+		boolean wasJournaling = journaling;
+		journaling = false;
+		try {
+			super.forfeit();
+		} finally {
+			journaling = wasJournaling;
+		}
+	}
+	
+	/**
+	 * Restart the game
+	 * The reset cannot be rolled back, so the record is written first
+	 */
+	@Override
+	public void resetGame() {
+		journal(JournalRecord.RESET, 0, 0);
+		super.resetGame();
+	}
+	
+	public long getGameId() {
+		return gameId;
+	}
+	
+	/**
+	 * Turn journaling on or off, used to replay the journal without writing to it
+	 * @param journaling	whether changes are written to the journal
+	 */
+	void setJournaling(boolean journaling) {
+		this.journaling = journaling;
+	}
+	
+	/*******************
+	 * PRIVATE METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Journal the move that was just made, by the indexes of its squares
+	 */
+	private void journalLastMove() {
+		Move move = getBoard().getLastMove();
+		journal(JournalRecord.MOVE, getIndex(move.getStartSquare()), getIndex(move.getEndSquare()));
+	}
+	
+	/**
+	 * Write a record for this game, waiting until it is durable
+	 * @throws UncheckedIOException if the journal cannot be written
+	 */
+	private void journal(byte type, int startSquare, int endSquare) {
+		if (!journaling) {
+			return;
+		}
+		try {
+			journal.append(gameId, type, startSquare, endSquare, (byte) 0);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	private int getIndex(Square square) {
+		Board board = getBoard();
+		return square.getRow() * board.getNumCols() + square.getCol();
+	}
+}
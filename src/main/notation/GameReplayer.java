@@ -0,0 +1,206 @@
+package main.notation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import main.core.Board;
+import main.core.Move;
+import main.core.Player;
+import main.core.Square;
+import main.core.StartingPosition;
+import main.exceptions.InvalidMoveException;
+import main.pieces.Piece;
+
+/**
+ * Replays moves given in standard algebraic notation on a Board
+ * Each SAN move is resolved to the single piece of the current player that can legally make it,
+ * and is then made through the same Board.move path used by interactive games
+ * @author einar
+ *
+ */
+public class GameReplayer {
+	private final StartingPosition startingPosition;
+	private Board board;
+	private Player[] players;
+	private int currentPlayerIndex;
+	private int plyCount;
+	
+	// Reused when resolving a move to the piece making it
+	private final List<Square> candidateSquares;
+	
+	/**
+	 * Create a replayer for games starting from the given position
+	 * @param startingPosition	initial layout of every replayed game
+	 */
+	public GameReplayer(StartingPosition startingPosition) {
+		this.startingPosition = startingPosition;
+		this.candidateSquares = new ArrayList<Square>();
+		startGame();
+	}
+	
+	/*******************
+	 * PUBLIC METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Put the board in the starting position, with white to move
+	 * The board is created once, later games undo every move of the previous game
+	 * so that the same board and pieces are reused
+	 */
+	public void startGame() {
+		if (board == null) {
+			Map<String, Piece> pieceMapping = startingPosition.generatePieceMapping();
+			players = StartingPosition.createPlayers("White", "Black", pieceMapping);
+			board = new Board(startingPosition.getNumRows(), startingPosition.getNumCols(), pieceMapping, players);
+		} else {
+			while (board.canUndoMove()) {
+				board.undoLastMove();
+			}
+		}
+		currentPlayerIndex = 0;
+		plyCount = 0;
+	}
+	
+	/**
+	 * Make the given move for the player whose turn it is
+	 * @param sanMove	move to make
+	 * @throws InvalidMoveException if the move is not supported, ambiguous, or not legal in the current position
+	 */
+	public void apply(SanMove sanMove) throws InvalidMoveException {
+		if (sanMove.isCastle()) {
+			throw new InvalidMoveException("Castling is not supported");
+		}
+		if (sanMove.getPromotionType() != null) {
+			throw new InvalidMoveException("Promotion is not supported");
+		}
+		
+		// Convert the notation's file and rank to board rows and columns
+		int endRow = board.getNumRows() - sanMove.getToRank();
+		int endCol = sanMove.getToFile();
+		Square endSquare = board.getSquare(endRow, endCol);
+		if (endSquare == null) {
+			throw new InvalidMoveException("Destination is outside the board");
+		}
+		
+		Player currentPlayer = players[currentPlayerIndex];
+		findCandidateSquares(sanMove, endSquare, currentPlayer);
+		
+		Square startSquare = null;
+		if (candidateSquares.size() == 1) {
+			startSquare = candidateSquares.get(0);
+		} else if (candidateSquares.size() > 1) {
+			// Notation only disambiguates between legal moves, so discard candidates that leave the king in check
+			for (Square candidate : candidateSquares) {
+				if (isLegal(candidate, endSquare, currentPlayer)) {
+					if (startSquare != null) {
+						throw new InvalidMoveException("Ambiguous move");
+					}
+					startSquare = candidate;
+				}
+			}
+		}
+		if (startSquare == null) {
+			throw new InvalidMoveException("No piece can make this move");
+		}
+		
+		board.move(startSquare.getRow(), startSquare.getCol(), endRow, endCol, currentPlayer);
+		currentPlayerIndex = (currentPlayerIndex + 1) % 2;
+		plyCount++;
+	}
+	
+	/**
+	 * Make the move between two squares for the player whose turn it is
+	 * Used for games stored as square indexes, which need no resolving
+	 * @param startSquare	row-major index of the square of the piece to move
+	 * @param endSquare		row-major index of the square to move to
+	 * @throws InvalidMoveException if the move is not legal in the current position
+	 */
+	public void apply(int startSquare, int endSquare) throws InvalidMoveException {
+		int numCols = board.getNumCols();
+		board.move(startSquare / numCols, startSquare % numCols, endSquare / numCols, endSquare % numCols, players[currentPlayerIndex]);
+		currentPlayerIndex = (currentPlayerIndex + 1) % 2;
+		plyCount++;
+	}
+	
+	/*******************
+	 * PRIVATE METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Collect the squares of the current player's pieces that match the notation, and
+	 * whose movement pattern and path allow the move to the end square
+	 * @param sanMove			move being resolved
+	 * @param endSquare			square the piece moves to
+	 * @param currentPlayer		player making the move
+	 */
+	private void findCandidateSquares(SanMove sanMove, Square endSquare, Player currentPlayer) {
+		candidateSquares.clear();
+		int fromRow = sanMove.getFromRank() > 0 ? board.getNumRows() - sanMove.getFromRank() : -1;
+		for (Piece piece : currentPlayer.getAvailablePieces()) {
+			if (piece.getType() != sanMove.getPieceType() || !piece.hasSquare()) {
+				continue;
+			}
+			Square square = piece.getSquare();
+			if (sanMove.getFromFile() >= 0 && square.getCol() != sanMove.getFromFile()) {
+				continue;
+			}
+			if (fromRow >= 0 && square.getRow() != fromRow) {
+				continue;
+			}
+			Move move = new Move(square, endSquare, currentPlayer);
+			if (move.isCaptureMove() == sanMove.isCapture() && board.isMoveValid(move)) {
+				candidateSquares.add(square);
+			}
+		}
+	}
+	
+	/**
+	 * Whether moving from the start square to the end square leaves the player out of check
+	 * The board is left unchanged
+	 */
+	private boolean isLegal(Square startSquare, Square endSquare, Player currentPlayer) {
+		try {
+			board.move(startSquare.getRow(), startSquare.getCol(), endSquare.getRow(), endSquare.getCol(), currentPlayer);
+		} catch (InvalidMoveException e) {
+			return false;
+		}
+		board.undoLastMove();
+		return true;
+	}
+	
+	/*******************
+	 * GET/SET
+	 * 
+	 *******************/
+	
+	public Board getBoard() {
+		return board;
+	}
+	
+	public StartingPosition getStartingPosition() {
+		return startingPosition;
+	}
+	
+	public Player[] getPlayers() {
+		return players;
+	}
+	
+	/**
+	 * Get the player whose turn it is
+	 * @return player to move
+	 */
+	public Player getCurrentPlayer() {
+		return players[currentPlayerIndex];
+	}
+	
+	/**
+	 * Get the number of half-moves made since the start of the game
+	 * @return number of half-moves made
+	 */
+	public int getPlyCount() {
+		return plyCount;
+	}
+}
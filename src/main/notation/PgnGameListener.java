@@ -0,0 +1,31 @@
+package main.notation;
+
+import main.notation.PgnReader.Result;
+
+/**
+ * Receives the games read by a PgnReader, one callback per game event
+ * @author einar
+ *
+ */
+public interface PgnGameListener {
+	
+	/**
+	 * Called when a new game starts, before any of its moves
+	 * @param gameNumber	1-based index of the game within the input
+	 */
+	void startGame(long gameNumber);
+	
+	/**
+	 * Called for every move of the main line of the current game
+	 * The move instance is reused by the reader, and must not be kept after returning
+	 * @param move		the parsed move, or null if the token was not valid SAN
+	 * @return false to skip the remaining moves of the current game
+	 */
+	boolean move(SanMove move);
+	
+	/**
+	 * Called once the game has ended
+	 * @param result	result recorded for the game
+	 */
+	void endGame(Result result);
+}
@@ -0,0 +1,310 @@
+package main.notation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Streaming reader for games in Portable Game Notation (PGN)
+ * The input is read in fixed-size blocks from a channel, and the movetext is
+ * tokenized byte by byte into a reusable buffer, so arbitrarily large archives
+ * can be read with constant memory
+ * 
+ * Tag pairs, comments, variations, numeric annotation glyphs and move numbers are skipped,
+ * only the moves of the main line and the result of each game are reported to the listener
+ * @author einar
+ *
+ */
+public class PgnReader {
+	public enum Result { WHITE_WINS, BLACK_WINS, DRAW, UNKNOWN }
+	
+	// Size of the blocks read from the channel
+	private static final int READ_BUFFER_SIZE = 1 << 16;
+	
+	// Longest token that is kept, longer tokens are truncated and reported as invalid SAN
+	private static final int MAX_TOKEN_LENGTH = 32;
+	
+	// States of the tokenizer
+	private static final int MOVETEXT = 0;
+	private static final int TAG = 1;
+	private static final int TAG_STRING = 2;
+	private static final int TAG_STRING_ESCAPE = 3;
+	private static final int BRACE_COMMENT = 4;
+	private static final int LINE_COMMENT = 5;
+	
+	private final PgnGameListener listener;
+	private ByteBuffer readBuffer;
+	
+	// Token currently being collected
+	private final byte[] token;
+	private int tokenLength;
+	private boolean tokenTruncated;
+	
+	// Reused for every move token
+	private final SanMove sanMove;
+	
+	// Tokenizer state
+	private int state;
+	private int variationDepth;
+	private boolean inGame;
+	private boolean hasMoves;
+	private boolean skipMoves;
+	private long gameCount;
+	
+	/**
+	 * Create a reader that reports games to the given listener
+	 * The same reader can be used for several inputs, games are numbered across all of them
+	 * @param listener	listener that receives every game
+	 */
+	public PgnReader(PgnGameListener listener) {
+		this.listener = listener;
+		this.token = new byte[MAX_TOKEN_LENGTH];
+		this.sanMove = new SanMove();
+		this.state = MOVETEXT;
+	}
+	
+	/*******************
+	 * PUBLIC METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Read the channel until its end, e.g. a FileChannel opened on a PGN archive,
+	 * reporting each game to the listener
+	 * @param channel	channel to read PGN text from
+	 * @return number of games read so far by this reader
+	 * @throws IOException if the channel cannot be read
+	 */
+	public long readAll(ReadableByteChannel channel) throws IOException {
+		if (readBuffer == null) {
+			readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+		}
+		readBuffer.clear();
+		while (channel.read(readBuffer) != -1) {
+			readBuffer.flip();
+			while (readBuffer.hasRemaining()) {
+				accept(readBuffer.get());
+			}
+			readBuffer.clear();
+		}
+		finishInput();
+		return gameCount;
+	}
+	
+	/**
+	 * Read PGN text that is already in memory, reporting each game to the listener
+	 * @param text		buffer holding the PGN text
+	 * @param offset	index of the first byte of text
+	 * @param length	number of bytes of text
+	 * @return number of games read so far by this reader
+	 */
+	public long read(byte[] text, int offset, int length) {
+		for (int idx=offset; idx<offset + length; idx++) {
+			accept(text[idx]);
+		}
+		finishInput();
+		return gameCount;
+	}
+	
+	/*******************
+	 * PRIVATE METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Terminate the last token and game, which may not be followed by whitespace or a result,
+	 * and reset the tokenizer for the next input
+	 */
+	private void finishInput() {
+		if (state == MOVETEXT) {
+			finishToken();
+		}
+		tokenLength = 0;
+		tokenTruncated = false;
+		if (inGame) {
+			endGame(Result.UNKNOWN);
+		}
+		state = MOVETEXT;
+	}
+	
+	/**
+	 * Advance the tokenizer by a single byte of input
+	 * @param character		next byte of the input
+	 */
+	private void accept(byte character) {
+		switch (state) {
+			case TAG:
+				if (character == '"') {
+					state = TAG_STRING;
+				} else if (character == ']') {
+					state = MOVETEXT;
+				}
+				return;
+			case TAG_STRING:
+				if (character == '\\') {
+					state = TAG_STRING_ESCAPE;
+				} else if (character == '"') {
+					state = TAG;
+				}
+				return;
+			case TAG_STRING_ESCAPE:
+				state = TAG_STRING;
+				return;
+			case BRACE_COMMENT:
+				if (character == '}') {
+					state = MOVETEXT;
+				}
+				return;
+			case LINE_COMMENT:
+				if (character == '\n') {
+					state = MOVETEXT;
+				}
+				return;
+			default:
+				acceptMovetext(character);
+		}
+	}
+	
+	/**
+	 * Handle a byte of movetext, i.e. outside of tags and comments
+	 * @param character		next byte of the input
+	 */
+	private void acceptMovetext(byte character) {
+		switch (character) {
+			case '[':
+				finishToken();
+				// A tag section after moves starts a new game, even without a result token
+				if (inGame && hasMoves) {
+					endGame(Result.UNKNOWN);
+				}
+				startGameIfNeeded();
+				state = TAG;
+				return;
+			case '{':
+				finishToken();
+				state = BRACE_COMMENT;
+				return;
+			case ';':
+				finishToken();
+				state = LINE_COMMENT;
+				return;
+			case '(':
+				finishToken();
+				variationDepth++;
+				return;
+			case ')':
+				finishToken();
+				if (variationDepth > 0) {
+					variationDepth--;
+				}
+				return;
+			case ' ':
+			case '\t':
+			case '\n':
+			case '\r':
+				finishToken();
+				return;
+			default:
+				if (tokenLength < MAX_TOKEN_LENGTH) {
+					token[tokenLength++] = character;
+				} else {
+					tokenTruncated = true;
+				}
+		}
+	}
+	
+	/**
+	 * Classify and dispatch the token collected so far
+	 */
+	private void finishToken() {
+		if (tokenLength == 0) {
+			return;
+		}
+		int length = tokenLength;
+		boolean truncated = tokenTruncated;
+		tokenLength = 0;
+		tokenTruncated = false;
+		
+		// Moves inside variations are not part of the game
+		if (variationDepth > 0) {
+			return;
+		}
+		
+		Result result = parseResult(length);
+		if (result != null) {
+			startGameIfNeeded();
+			endGame(result);
+			return;
+		}
+		
+		// Numeric annotation glyphs, e.g. "$1"
+		if (token[0] == '$') {
+			return;
+		}
+		
+		// Skip a leading move number, e.g. "12." or "12...", which may be attached to the move
+		int offset = 0;
+		if (token[0] >= '1' && token[0] <= '9') {
+			while (offset < length && token[offset] >= '0' && token[offset] <= '9') {
+				offset++;
+			}
+			if (offset < length && token[offset] != '.') {
+				offset = 0;
+			}
+		}
+		while (offset < length && token[offset] == '.') {
+			offset++;
+		}
+		if (offset == length) {
+			return;
+		}
+		
+		startGameIfNeeded();
+		hasMoves = true;
+		if (skipMoves) {
+			return;
+		}
+		boolean isValidSan = !truncated && sanMove.parse(token, offset, length - offset);
+		skipMoves = !listener.move(isValidSan ? sanMove : null);
+	}
+	
+	/**
+	 * Check whether the current token is a game termination marker
+	 * @param length	length of the current token
+	 * @return the result, or null if the token is not a result
+	 */
+	private Result parseResult(int length) {
+		if (length == 1 && token[0] == '*') {
+			return Result.UNKNOWN;
+		}
+		if (length == 3 && token[1] == '-') {
+			if (token[0] == '1' && token[2] == '0') {
+				return Result.WHITE_WINS;
+			}
+			if (token[0] == '0' && token[2] == '1') {
+				return Result.BLACK_WINS;
+			}
+		}
+		if (length == 7 && token[0] == '1' && token[1] == '/' && token[2] == '2' && token[3] == '-'
+				&& token[4] == '1' && token[5] == '/' && token[6] == '2') {
+			return Result.DRAW;
+		}
+		return null;
+	}
+	
+	private void startGameIfNeeded() {
+		if (!inGame) {
+			inGame = true;
+			hasMoves = false;
+			skipMoves = false;
+			gameCount++;
+			listener.startGame(gameCount);
+		}
+	}
+	
+	private void endGame(Result result) {
+		inGame = false;
+		variationDepth = 0;
+		listener.endGame(result);
+	}
+}
@@ -0,0 +1,109 @@
+package main.notation;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import main.core.StartingPosition;
+import main.exceptions.InvalidMoveException;
+import main.notation.PgnReader.Result;
+import main.notation.ReplayStatistics.IllegalGame;
+
+/**
+ * Replays every game of a PGN archive through a Board, to validate
+ * that the recorded games are legal under the rules implemented by Board
+ * @author einar
+ *
+ */
+public class PgnReplay implements PgnGameListener {
+	private final GameReplayer replayer;
+	private final ReplayStatistics statistics;
+	private long currentGameNumber;
+	
+	/**
+	 * Create a replay of games starting from the given position
+	 * @param startingPosition	initial layout of every game in the archive
+	 */
+	public PgnReplay(StartingPosition startingPosition) {
+		this.replayer = new GameReplayer(startingPosition);
+		this.statistics = new ReplayStatistics();
+	}
+	
+	/**
+	 * Replay every game read from the channel
+	 * @param channel	channel to read PGN text from
+	 * @return statistics of the replay
+	 * @throws IOException if the channel cannot be read
+	 */
+	public ReplayStatistics replay(ReadableByteChannel channel) throws IOException {
+		long startTime = System.nanoTime();
+		new PgnReader(this).readAll(channel);
+		statistics.setElapsedNanos(System.nanoTime() - startTime);
+		return statistics;
+	}
+	
+	/**
+	 * Replay every game of the PGN file at the given path
+	 * @param path					path of the PGN file
+	 * @param startingPosition		initial layout of every game in the file
+	 * @return statistics of the replay
+	 * @throws IOException if the file cannot be read
+	 */
+	public static ReplayStatistics replayFile(Path path, StartingPosition startingPosition) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return new PgnReplay(startingPosition).replay(channel);
+		}
+	}
+	
+	@Override
+	public void startGame(long gameNumber) {
+		currentGameNumber = gameNumber;
+		replayer.startGame();
+	}
+
+	@Override
+	public boolean move(SanMove move) {
+		if (move == null) {
+			flagIllegalGame("Unreadable move");
+			return false;
+		}
+		try {
+			replayer.apply(move);
+			return true;
+		} catch (InvalidMoveException e) {
+			flagIllegalGame(e.getMessage());
+			return false;
+		}
+	}
+
+	@Override
+	public void endGame(Result result) {
+		statistics.addGame(replayer.getPlyCount());
+	}
+	
+	private void flagIllegalGame(String reason) {
+		statistics.addIllegalGame(new IllegalGame(currentGameNumber, replayer.getPlyCount() + 1, reason));
+	}
+	
+	/**
+	 * Replay a PGN file from the command line
+	 * @param args	path of the PGN file, optionally followed by "custom" for games with custom pieces
+	 * @throws IOException if the file cannot be read
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length == 0) {
+			System.err.println("Usage: PgnReplay <file.pgn> [custom]");
+			return;
+		}
+		StartingPosition startingPosition = (args.length > 1 && args[1].equals("custom"))
+				? StartingPosition.CUSTOM_PIECES : StartingPosition.STANDARD;
+		ReplayStatistics statistics = replayFile(Paths.get(args[0]), startingPosition);
+		for (IllegalGame illegalGame : statistics.getIllegalGames()) {
+			System.out.println(illegalGame);
+		}
+		System.out.println(statistics);
+	}
+}
@@ -0,0 +1,124 @@
+package main.notation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Counters collected while replaying a PGN archive
+ * @author einar
+ *
+ */
+public class ReplayStatistics {
+	private long gameCount;
+	private long plyCount;
+	private long elapsedNanos;
+	private List<IllegalGame> illegalGames;
+	
+	/**
+	 * A game that could not be replayed, and the reason why
+	 */
+	public static class IllegalGame {
+		private final long gameNumber;
+		private final int ply;
+		private final String reason;
+		
+		public IllegalGame(long gameNumber, int ply, String reason) {
+			this.gameNumber = gameNumber;
+			this.ply = ply;
+			this.reason = reason;
+		}
+		
+		/**
+		 * Get the 1-based index of the game within the archive
+		 * @return index of the game
+		 */
+		public long getGameNumber() {
+			return gameNumber;
+		}
+		
+		/**
+		 * Get the 1-based half-move at which the game became illegal
+		 * @return half-move of the illegal move
+		 */
+		public int getPly() {
+			return ply;
+		}
+		
+		public String getReason() {
+			return reason;
+		}
+		
+		@Override
+		public String toString() {
+			return "Game " + gameNumber + ", ply " + ply + ": " + reason;
+		}
+	}
+	
+	public ReplayStatistics() {
+		this.illegalGames = new ArrayList<IllegalGame>();
+	}
+	
+	/**
+	 * Record a game that was replayed, legal or not
+	 * @param plies		number of half-moves that were replayed
+	 */
+	public void addGame(int plies) {
+		gameCount++;
+		plyCount += plies;
+	}
+	
+	/**
+	 * Record a game that contains an illegal move
+	 * @param illegalGame	the game and the reason it is illegal
+	 */
+	public void addIllegalGame(IllegalGame illegalGame) {
+		illegalGames.add(illegalGame);
+	}
+	
+	/**
+	 * Merge the counters of another run into this one
+	 * @param other		statistics to add to these
+	 */
+	public void merge(ReplayStatistics other) {
+		gameCount += other.gameCount;
+		plyCount += other.plyCount;
+		illegalGames.addAll(other.illegalGames);
+	}
+	
+	public void setElapsedNanos(long elapsedNanos) {
+		this.elapsedNanos = elapsedNanos;
+	}
+	
+	public long getGameCount() {
+		return gameCount;
+	}
+	
+	public long getPlyCount() {
+		return plyCount;
+	}
+	
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+	
+	public List<IllegalGame> getIllegalGames() {
+		return illegalGames;
+	}
+	
+	/**
+	 * Get the replay throughput
+	 * @return games replayed per second, 0 if no time was recorded
+	 */
+	public double getGamesPerSecond() {
+		if (elapsedNanos == 0) {
+			return 0;
+		}
+		return gameCount * 1e9 / elapsedNanos;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("%d games, %d plies, %d illegal, %.1f games/s",
+				gameCount, plyCount, illegalGames.size(), getGamesPerSecond());
+	}
+}
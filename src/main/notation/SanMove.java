@@ -0,0 +1,232 @@
+package main.notation;
+
+import main.pieces.PieceType;
+
+/**
+ * A single move in standard algebraic notation (SAN), e.g. "Nbxd7+" or "exd5"
+ * Instances are mutable and are reused for every token read by the PgnReader,
+ * so a move is parsed straight from the input bytes without creating a String
+ * 
+ * Files are 0-based from the left ('a' is 0), ranks are 1-based from the bottom,
+ * as they are written in the notation
+ * @author einar
+ *
+ */
+public class SanMove {
+	private PieceType pieceType;
+	private int fromFile;
+	private int fromRank;
+	private int toFile;
+	private int toRank;
+	private boolean isCapture;
+	private boolean isKingsideCastle;
+	private boolean isQueensideCastle;
+	private PieceType promotionType;
+	
+	/**
+	 * Parse a SAN token into this instance, overwriting any previously parsed move
+	 * Check, mate and annotation suffixes ('+', '#', '!', '?') are ignored
+	 * @param token		buffer holding the ASCII characters of the token
+	 * @param offset	index of the first character of the token
+	 * @param length	number of characters in the token
+	 * @return true if the token is well-formed SAN
+	 */
+	public boolean parse(byte[] token, int offset, int length) {
+		clear();
+		
+		// Strip check, mate and annotation suffixes
+		int end = offset + length;
+		while (end > offset && isSuffix(token[end - 1])) {
+			end--;
+		}
+		if (end == offset) {
+			return false;
+		}
+		
+		// Castling, written with either letter O or digit zero
+		if (isCastle(token, offset, end, 5)) {
+			isQueensideCastle = true;
+			return true;
+		}
+		if (isCastle(token, offset, end, 3)) {
+			isKingsideCastle = true;
+			return true;
+		}
+		
+		// Promotion, either "e8=Q" or "e8Q"
+		int last = token[end - 1];
+		PieceType promotion = PieceType.fromSanLetter(last);
+		if (promotion != null) {
+			promotionType = promotion;
+			end--;
+			if (end > offset && token[end - 1] == '=') {
+				end--;
+			}
+		}
+		
+		// Piece letter, pawns have none
+		int position = offset;
+		PieceType type = PieceType.fromSanLetter(token[position]);
+		if (type != null) {
+			pieceType = type;
+			position++;
+		} else {
+			pieceType = PieceType.PAWN;
+		}
+		
+		// Destination rank is the trailing run of digits, destination file precedes it
+		int rankStart = end;
+		while (rankStart > position && isDigit(token[rankStart - 1])) {
+			rankStart--;
+		}
+		if (rankStart == end || rankStart == position || !isFile(token[rankStart - 1])) {
+			return false;
+		}
+		toRank = parseNumber(token, rankStart, end);
+		toFile = token[rankStart - 1] - 'a';
+		int disambiguationEnd = rankStart - 1;
+		
+		// Capture marker
+		if (disambiguationEnd > position && token[disambiguationEnd - 1] == 'x') {
+			isCapture = true;
+			disambiguationEnd--;
+		}
+		
+		// Optional disambiguation of the starting file and/or rank
+		if (position < disambiguationEnd && isFile(token[position])) {
+			fromFile = token[position] - 'a';
+			position++;
+		}
+		if (position < disambiguationEnd) {
+			for (int idx=position; idx<disambiguationEnd; idx++) {
+				if (!isDigit(token[idx])) {
+					return false;
+				}
+			}
+			fromRank = parseNumber(token, position, disambiguationEnd);
+		}
+		return toRank > 0;
+	}
+	
+	/**
+	 * Reset all fields to an empty move
+	 */
+	private void clear() {
+		pieceType = null;
+		fromFile = -1;
+		fromRank = -1;
+		toFile = -1;
+		toRank = -1;
+		isCapture = false;
+		isKingsideCastle = false;
+		isQueensideCastle = false;
+		promotionType = null;
+	}
+	
+	/**
+	 * Whether the characters form a castling token, i.e. "O-O" or "O-O-O"
+	 * @param expectedLength	3 for kingside castling, 5 for queenside castling
+	 */
+	private static boolean isCastle(byte[] token, int start, int end, int expectedLength) {
+		if (end - start != expectedLength) {
+			return false;
+		}
+		for (int idx=start; idx<end; idx++) {
+			boolean isDash = (idx - start) % 2 == 1;
+			byte character = token[idx];
+			if (isDash ? character != '-' : (character != 'O' && character != '0')) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private static boolean isSuffix(byte character) {
+		return character == '+' || character == '#' || character == '!' || character == '?';
+	}
+	
+	private static boolean isDigit(byte character) {
+		return character >= '0' && character <= '9';
+	}
+	
+	private static boolean isFile(byte character) {
+		return character >= 'a' && character <= 'z' && character != 'x';
+	}
+	
+	private static int parseNumber(byte[] token, int start, int end) {
+		int value = 0;
+		for (int idx=start; idx<end; idx++) {
+			value = value * 10 + (token[idx] - '0');
+		}
+		return value;
+	}
+	
+	/*******************
+	 * GET/SET
+	 * 
+	 *******************/
+	
+	/**
+	 * Get the type of the piece being moved, null for castling moves
+	 * @return type of the piece being moved
+	 */
+	public PieceType getPieceType() {
+		return pieceType;
+	}
+	
+	/**
+	 * Get the 0-based file the piece moves from, -1 if not given in the notation
+	 * @return file the piece moves from
+	 */
+	public int getFromFile() {
+		return fromFile;
+	}
+	
+	/**
+	 * Get the 1-based rank the piece moves from, -1 if not given in the notation
+	 * @return rank the piece moves from
+	 */
+	public int getFromRank() {
+		return fromRank;
+	}
+	
+	/**
+	 * Get the 0-based file the piece moves to
+	 * @return file the piece moves to
+	 */
+	public int getToFile() {
+		return toFile;
+	}
+	
+	/**
+	 * Get the 1-based rank the piece moves to
+	 * @return rank the piece moves to
+	 */
+	public int getToRank() {
+		return toRank;
+	}
+	
+	public boolean isCapture() {
+		return isCapture;
+	}
+	
+	public boolean isCastle() {
+		return isKingsideCastle || isQueensideCastle;
+	}
+	
+	public boolean isKingsideCastle() {
+		return isKingsideCastle;
+	}
+	
+	public boolean isQueensideCastle() {
+		return isQueensideCastle;
+	}
+	
+	/**
+	 * Get the type the pawn is promoted to, null if the move is not a promotion
+	 * @return type of piece promoted to
+	 */
+	public PieceType getPromotionType() {
+		return promotionType;
+	}
+}
@@ -0,0 +1,209 @@
+package main.pieces;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import main.core.MovementPattern;
+import main.core.MovementPattern.MovementDirection;
+
+/**
+ * Compiles the movement of a piece written in Betza notation into a PieceDescriptor
+ * 
+ * A definition is a sequence of atoms, each an upper-case letter naming a leap and its
+ * symmetric images: W (1,0), F (1,1), D (2,0), N (2,1), A (2,2), H (3,0), C (3,1), Z (3,2)
+ * and G (3,3), with the shorthands R (WW), B (FF), Q (WWFF) and K (WF)
+ * 
+ * A doubled atom, like NN, is a rider that repeats its leap any number of times, and a number
+ * after an atom, like W3, limits it to that many leaps; riders stop at the first piece in
+ * the way, single leaps jump. Lower-case prefixes restrict an atom:
+ *   m		moves without capturing only
+ *   c		captures only
+ *   i		only as the first move of the piece, which must not capture, so always with m
+ *   f, b	forward or backward leaps only
+ *   l, r	leaps to the left or right only
+ *   v, s	leaps that are more vertical, or more sideways, than they are wide
+ * Forward/backward and left/right prefixes combine, so fl is the forward-left leap
+ * 
+ * For example, a pawn is mfWcfFifmW2, and a knightrider NN
+ * @author einar
+ *
+ */
+public final class BetzaNotation {
+	private static final String MODIFIERS = "mcifblrvs";
+	
+	private BetzaNotation() {}
+	
+	/*******************
+	 * PUBLIC METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Compile a definition into the movement patterns of a custom piece
+	 * @param notation	the definition
+	 * @return descriptor of the piece
+	 * @throws IllegalArgumentException if the definition cannot be parsed
+	 */
+	public static PieceDescriptor compile(String notation) {
+		Set<MovementPattern> movements = new HashSet<MovementPattern>();
+		Set<MovementPattern> captureMovements = new HashSet<MovementPattern>();
+		Set<MovementPattern> initialOnly = new HashSet<MovementPattern>();
+		
+		int pos = 0;
+		while (pos < notation.length()) {
+			// Prefixes
+			String modifiers = "";
+			while (pos < notation.length() && MODIFIERS.indexOf(notation.charAt(pos)) >= 0) {
+				modifiers += notation.charAt(pos++);
+			}
+			if (pos == notation.length()) {
+				throw new IllegalArgumentException("Missing atom at the end of " + notation);
+			}
+			
+			// Atom, doubled for a rider, and an optional range
+			char atom = notation.charAt(pos++);
+			int range = 1;
+			if (pos < notation.length() && notation.charAt(pos) == atom) {
+				range = Integer.MAX_VALUE;
+				pos++;
+			} else if (pos < notation.length() && Character.isDigit(notation.charAt(pos))) {
+				int start = pos;
+				while (pos < notation.length() && Character.isDigit(notation.charAt(pos))) {
+					pos++;
+				}
+				range = Integer.parseInt(notation.substring(start, pos));
+				if (range == 0) {
+					range = Integer.MAX_VALUE;
+				}
+			}
+			
+			List<MovementPattern> patterns = new ArrayList<MovementPattern>();
+			for (int[] leap : expandAtom(atom, range, notation)) {
+				addPatterns(patterns, leap[0], leap[1], leap[2], modifiers);
+			}
+			
+			boolean moveOnly = modifiers.indexOf('m') >= 0;
+			boolean captureOnly = modifiers.indexOf('c') >= 0;
+			if (modifiers.indexOf('i') >= 0) {
+				// Initial movements only replace the moves that do not capture
+				if (!moveOnly || captureOnly) {
+					throw new IllegalArgumentException("First-move-only atoms must be move-only (im) in " + notation);
+				}
+				initialOnly.addAll(patterns);
+				continue;
+			}
+			if (!captureOnly) {
+				movements.addAll(patterns);
+			}
+			if (!moveOnly) {
+				captureMovements.addAll(patterns);
+			}
+		}
+		
+		Set<MovementPattern> initialMovements = new HashSet<MovementPattern>();
+		if (!initialOnly.isEmpty()) {
+			initialMovements.addAll(movements);
+			initialMovements.addAll(initialOnly);
+		}
+		return new PieceDescriptor(PieceType.CUSTOM, movements, captureMovements, initialMovements);
+	}
+	
+	/*******************
+	 * PRIVATE METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Get the leaps of an atom as {long side, short side, range}
+	 */
+	private static List<int[]> expandAtom(char atom, int range, String notation) {
+		List<int[]> leaps = new ArrayList<int[]>();
+		switch (atom) {
+			case 'W': leaps.add(new int[] {1, 0, range}); break;
+			case 'F': leaps.add(new int[] {1, 1, range}); break;
+			case 'D': leaps.add(new int[] {2, 0, range}); break;
+			case 'N': leaps.add(new int[] {2, 1, range}); break;
+			case 'A': leaps.add(new int[] {2, 2, range}); break;
+			case 'H': leaps.add(new int[] {3, 0, range}); break;
+			case 'C': leaps.add(new int[] {3, 1, range}); break;
+			case 'Z': leaps.add(new int[] {3, 2, range}); break;
+			case 'G': leaps.add(new int[] {3, 3, range}); break;
+			case 'K':
+				leaps.add(new int[] {1, 0, range});
+				leaps.add(new int[] {1, 1, range});
+				break;
+			// The slider shorthands ride unless given a range
+			case 'R':
+				leaps.add(new int[] {1, 0, range == 1 ? Integer.MAX_VALUE : range});
+				break;
+			case 'B':
+				leaps.add(new int[] {1, 1, range == 1 ? Integer.MAX_VALUE : range});
+				break;
+			case 'Q':
+				leaps.add(new int[] {1, 0, range == 1 ? Integer.MAX_VALUE : range});
+				leaps.add(new int[] {1, 1, range == 1 ? Integer.MAX_VALUE : range});
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown atom '" + atom + "' in " + notation);
+		}
+		return leaps;
+	}
+	
+	/**
+	 * Add the patterns of every symmetric image of a leap that the direction prefixes allow
+	 */
+	private static void addPatterns(List<MovementPattern> patterns, int longSide, int shortSide, int range, String modifiers) {
+		Set<String> seen = new HashSet<String>();
+		int[][] images = {
+			{longSide, shortSide}, {shortSide, longSide}
+		};
+		for (int[] image : images) {
+			for (int rowSign=-1; rowSign<=1; rowSign+=2) {
+				for (int colSign=-1; colSign<=1; colSign+=2) {
+					int forward = image[0] * rowSign;
+					int right = image[1] * colSign;
+					if (!seen.add(forward + "," + right) || !isAllowed(forward, right, modifiers)) {
+						continue;
+					}
+					List<MovementDirection> directions = new ArrayList<MovementDirection>();
+					for (int step=0; step<Math.abs(forward); step++) {
+						directions.add(forward > 0 ? MovementDirection.FORWARD : MovementDirection.BACKWARD);
+					}
+					for (int step=0; step<Math.abs(right); step++) {
+						directions.add(right > 0 ? MovementDirection.RIGHT : MovementDirection.LEFT);
+					}
+					if (range == Integer.MAX_VALUE) {
+						patterns.add(new MovementPattern(directions, Integer.MAX_VALUE));
+					} else {
+						// A pattern with a fixed number of iterations takes exactly that many leaps
+						for (int iterations=1; iterations<=range; iterations++) {
+							patterns.add(new MovementPattern(directions, iterations));
+						}
+					}
+				}
+			}
+		}
+	}
+	
+	private static boolean isAllowed(int forward, int right, String modifiers) {
+		boolean hasForward = modifiers.indexOf('f') >= 0;
+		boolean hasBackward = modifiers.indexOf('b') >= 0;
+		if ((hasForward || hasBackward) && !(hasForward && forward > 0) && !(hasBackward && forward < 0)) {
+			return false;
+		}
+		boolean hasLeft = modifiers.indexOf('l') >= 0;
+		boolean hasRight = modifiers.indexOf('r') >= 0;
+		if ((hasLeft || hasRight) && !(hasLeft && right < 0) && !(hasRight && right > 0)) {
+			return false;
+		}
+		if (modifiers.indexOf('v') >= 0 && Math.abs(forward) <= Math.abs(right)) {
+			return false;
+		}
+		if (modifiers.indexOf('s') >= 0 && Math.abs(right) <= Math.abs(forward)) {
+			return false;
+		}
+		return true;
+	}
+}
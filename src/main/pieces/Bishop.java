@@ -36,6 +36,11 @@ public class Bishop extends Piece {
 		return "Bishop";
 	}
 
+	@Override
+	public PieceType getType() {
+		return PieceType.BISHOP;
+	}
+
 	@Override
 	public boolean canJump() {
 		return false;
@@ -0,0 +1,80 @@
+package main.pieces;
+
+import java.util.Set;
+
+import main.core.MovementPattern;
+
+/**
+ * A piece whose movement comes from a PieceDefinition rather than from a subclass
+ * 
+ * Its leaps jump over other pieces and its riders slide, so the piece itself never jumps:
+ * a single leap reaches its end square in one step of the path
+ * @author einar
+ *
+ */
+public class CustomPiece extends Piece {
+	private final PieceDefinition definition;
+	
+	/**
+	 * @param color			color of the piece
+	 * @param definition	definition of the piece
+	 */
+	public CustomPiece(Color color, PieceDefinition definition) {
+		super(color, definition.getDescriptor());
+		this.definition = definition;
+	}
+	
+	@Override
+	protected void generateAvailableMovements(Set<MovementPattern> availableMovements) {
+		availableMovements.addAll(getDescriptor().getMovements());
+	}
+	
+	@Override
+	protected void generateAvailableCaptureMovements(Set<MovementPattern> availableMovements) {
+		availableMovements.addAll(getDescriptor().getCaptureMovements());
+	}
+	
+	@Override
+	protected void generateInitialMovements(Set<MovementPattern> availableMovements) {
+		availableMovements.addAll(getDescriptor().getInitialMovements());
+	}
+	
+	@Override
+	public char getCharacterRepresentation() {
+		return getColor() == Color.WHITE ? definition.getLetter() : Character.toLowerCase(definition.getLetter());
+	}
+	
+	@Override
+	public String getName() {
+		return definition.getName();
+	}
+	
+	@Override
+	public PieceType getType() {
+		return PieceType.CUSTOM;
+	}
+	
+	@Override
+	public boolean canJump() {
+		return false;
+	}
+	
+	@Override
+	protected boolean hasCustomCaptureMoves() {
+		return true;
+	}
+	
+	@Override
+	public boolean hasInitialMovements() {
+		return !getDescriptor().getInitialMovements().isEmpty();
+	}
+	
+	@Override
+	public Piece createSameKind(Color color) {
+		return definition.createPiece(color);
+	}
+	
+	public PieceDefinition getDefinition() {
+		return definition;
+	}
+}
@@ -1,9 +1,9 @@
 package main.pieces;
 
 import java.util.Arrays;
-import java.util.List;
 import java.util.Set;
 
+import main.core.Move;
 import main.core.MovementPattern;
 import main.core.MovementPattern.MovementDirection;
 
@@ -17,6 +17,15 @@ import main.core.MovementPattern.MovementDirection;
  *
  */
 public class DoubleJumper extends Piece {
+	// Patterns of the piece, shared by every double jumper so that moves can be matched to them directly
+	private static final MovementPattern DOUBLE_FORWARD = createPattern(MovementDirection.FORWARD, MovementDirection.FORWARD);
+	private static final MovementPattern DOUBLE_BACKWARD = createPattern(MovementDirection.BACKWARD, MovementDirection.BACKWARD);
+	private static final MovementPattern DOUBLE_LEFT = createPattern(MovementDirection.LEFT, MovementDirection.LEFT);
+	private static final MovementPattern DOUBLE_RIGHT = createPattern(MovementDirection.RIGHT, MovementDirection.RIGHT);
+	private static final MovementPattern DOUBLE_FORWARD_LEFT = createPattern(MovementDirection.FORWARD, MovementDirection.LEFT, MovementDirection.FORWARD, MovementDirection.LEFT);
+	private static final MovementPattern DOUBLE_FORWARD_RIGHT = createPattern(MovementDirection.FORWARD, MovementDirection.RIGHT, MovementDirection.FORWARD, MovementDirection.RIGHT);
+	private static final MovementPattern DOUBLE_BACKWARD_LEFT = createPattern(MovementDirection.BACKWARD, MovementDirection.LEFT, MovementDirection.BACKWARD, MovementDirection.LEFT);
+	private static final MovementPattern DOUBLE_BACKWARD_RIGHT = createPattern(MovementDirection.BACKWARD, MovementDirection.RIGHT, MovementDirection.BACKWARD, MovementDirection.RIGHT);
 
 	public DoubleJumper(Color color) {
 		super(color);
@@ -28,10 +37,10 @@ public class DoubleJumper extends Piece {
 	 * @param availableMovements	set of movement patterns used by the piece class to validate non-capture movements
 	 */
 	protected void generateAvailableMovements(Set<MovementPattern> availableMovements) {
-		availableMovements.add(generatePieceMovementWithDoubleDirection(MovementDirection.FORWARD, MovementDirection.FORWARD, Integer.MAX_VALUE));
-		availableMovements.add(generatePieceMovementWithDoubleDirection(MovementDirection.BACKWARD, MovementDirection.BACKWARD, Integer.MAX_VALUE));
-		availableMovements.add(generatePieceMovementWithDoubleDirection(MovementDirection.LEFT, MovementDirection.LEFT, Integer.MAX_VALUE));
-		availableMovements.add(generatePieceMovementWithDoubleDirection(MovementDirection.RIGHT, MovementDirection.RIGHT, Integer.MAX_VALUE));
+		availableMovements.add(DOUBLE_FORWARD);
+		availableMovements.add(DOUBLE_BACKWARD);
+		availableMovements.add(DOUBLE_LEFT);
+		availableMovements.add(DOUBLE_RIGHT);
 	}
 	
 	@Override
@@ -40,37 +49,45 @@ public class DoubleJumper extends Piece {
 	 * @param availableMovements	set of movement patterns used by the piece class to determine if captures are allowed
 	 */
 	protected void generateAvailableCaptureMovements(Set<MovementPattern> availableMovements) {
-		// Generate each of the possible movement directions for captures
-		List<MovementDirection> doubleForwardLeft = Arrays.asList(
-			MovementDirection.FORWARD,
-			MovementDirection.LEFT, 
-			MovementDirection.FORWARD, 
-			MovementDirection.LEFT
-		);
-		List<MovementDirection> doubleForwardRight = Arrays.asList(
-				MovementDirection.FORWARD,
-				MovementDirection.RIGHT, 
-				MovementDirection.FORWARD, 
-				MovementDirection.RIGHT
-		);
-		List<MovementDirection> doubleBackwardLeft = Arrays.asList(
-				MovementDirection.BACKWARD,
-				MovementDirection.LEFT, 
-				MovementDirection.BACKWARD, 
-				MovementDirection.LEFT
-		);
-		List<MovementDirection> doubleBackwardRight = Arrays.asList(
-				MovementDirection.BACKWARD,
-				MovementDirection.RIGHT, 
-				MovementDirection.BACKWARD, 
-				MovementDirection.RIGHT
-		);
-		
-		// Generate a movement pattern object for each of the above movements
-		availableMovements.add(new MovementPattern(doubleForwardLeft, Integer.MAX_VALUE));
-		availableMovements.add(new MovementPattern(doubleForwardRight, Integer.MAX_VALUE));
-		availableMovements.add(new MovementPattern(doubleBackwardLeft, Integer.MAX_VALUE));
-		availableMovements.add(new MovementPattern(doubleBackwardRight, Integer.MAX_VALUE));
+		availableMovements.add(DOUBLE_FORWARD_LEFT);
+		availableMovements.add(DOUBLE_FORWARD_RIGHT);
+		availableMovements.add(DOUBLE_BACKWARD_LEFT);
+		availableMovements.add(DOUBLE_BACKWARD_RIGHT);
+	}
+	
+	@Override
+	/**
+	 * Match a move directly from its movement, without dividing it by each unlimited pattern:
+	 * an even number of squares along a row or column, or along a diagonal for captures
+	 * @param move	move to validate
+	 * @return the pattern of the move, or null if the piece cannot make it
+	 */
+	public MovementPattern findValidMovementPatternForMove(Move move) {
+		int rowMovement = move.getRowMovementFromPlayerPerspective();
+		int colMovement = move.getColMovementFromPlayerPerspective();
+		if (((rowMovement | colMovement) & 1) != 0) {
+			return null;
+		}
+		if (move.isCaptureMove()) {
+			if (rowMovement == 0 || Math.abs(rowMovement) != Math.abs(colMovement)) {
+				return null;
+			}
+			if (rowMovement > 0) {
+				return colMovement > 0 ? DOUBLE_FORWARD_RIGHT : DOUBLE_FORWARD_LEFT;
+			}
+			return colMovement > 0 ? DOUBLE_BACKWARD_RIGHT : DOUBLE_BACKWARD_LEFT;
+		}
+		if ((rowMovement == 0) == (colMovement == 0)) {
+			return null;
+		}
+		if (rowMovement != 0) {
+			return rowMovement > 0 ? DOUBLE_FORWARD : DOUBLE_BACKWARD;
+		}
+		return colMovement > 0 ? DOUBLE_RIGHT : DOUBLE_LEFT;
+	}
+	
+	private static MovementPattern createPattern(MovementDirection... directions) {
+		return new MovementPattern(Arrays.asList(directions), Integer.MAX_VALUE);
 	}
 
 	@Override
@@ -90,6 +107,11 @@ public class DoubleJumper extends Piece {
 		return "Double Jumper";
 	}
 
+	@Override
+	public PieceType getType() {
+		return PieceType.DOUBLE_JUMPER;
+	}
+
 	@Override
 	public boolean canJump() {
 		return true;
@@ -42,6 +42,11 @@ public class King extends Piece {
 		return "King";
 	}
 
+	@Override
+	public PieceType getType() {
+		return PieceType.KING;
+	}
+
 	@Override
 	public boolean canJump() {
 		return false;
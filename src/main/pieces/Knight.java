@@ -83,4 +83,9 @@ public class Knight extends Piece {
 	public String getName() {
 		return "Knight";
 	}
+
+	@Override
+	public PieceType getType() {
+		return PieceType.KNIGHT;
+	}
 }
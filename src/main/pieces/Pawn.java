@@ -58,18 +58,10 @@ public class Pawn extends Piece {
 		// Pawn can move forward by one space
 		availableMovements.add(generatePieceMovementWithSingleDirection(MovementDirection.FORWARD, 1));
 		
-		// Pawn can move forward by two spaces - This movement capability is removed after the pawn's first move
+		// Pawn can move forward by two spaces - Initial movements are only used while the pawn has not moved
 		availableMovements.add(generatePieceMovementWithSingleDirection(MovementDirection.FORWARD, 2));
 	}
 	
-	@Override
-	/**
-	 * Removes the double jump capability after the pawns first move
-	 */
-	public void afterMove() {
-		availableMovements.remove(generatePieceMovementWithSingleDirection(MovementDirection.FORWARD, 2));
-	}
-	
 	@Override
 	/**
 	 * Get the character representation of the piece, used for printing the board state
@@ -90,6 +82,11 @@ public class Pawn extends Piece {
 	public String getName() {
 		return "Pawn";
 	}
+
+	@Override
+	public PieceType getType() {
+		return PieceType.PAWN;
+	}
 	
 	public boolean hasInitialMovements() {
 		return true;
@@ -1,7 +1,6 @@
 package main.pieces;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
@@ -18,10 +17,8 @@ public abstract class Piece {
 	// Square the piece is on
 	private Square square;
 	
-	// Set of movements that are available to this piece
-	protected Set<MovementPattern> availableMovements;
-	protected Set<MovementPattern> availableKillMovements;
-	protected Set<MovementPattern> initialMovements;
+	// Movement patterns of the piece type, shared by every piece of the type
+	private final PieceDescriptor descriptor;
 	
 	// Number of moves this piece has made
 	private int moveCount = 0;
@@ -32,18 +29,17 @@ public abstract class Piece {
 	 */
 	public Piece(Color color) {
 		this.color = color;
-		this.availableMovements = new HashSet<MovementPattern>();
-		this.availableKillMovements = new HashSet<MovementPattern>();
-		this.initialMovements = new HashSet<MovementPattern>();
-		generateAvailableMovements(availableMovements);
-		if (hasCustomCaptureMoves()) {
-			generateAvailableCaptureMovements(availableKillMovements);
-		} else {
-			generateAvailableMovements(availableKillMovements);
-		}
-		if (hasInitialMovements()) {
-			generateInitialMovements(initialMovements);
-		}
+		this.descriptor = PieceDescriptor.forPiece(this);
+	}
+	
+	/**
+	 * Instantiate a piece with a color and movements described elsewhere, e.g. compiled from a notation
+	 * @param color
+	 * @param descriptor	movements of the piece
+	 */
+	protected Piece(Color color, PieceDescriptor descriptor) {
+		this.color = color;
+		this.descriptor = descriptor;
 	}
 	
 	protected void generateInitialMovements(Set<MovementPattern> availableMovements) {}
@@ -63,7 +59,13 @@ public abstract class Piece {
 	 * @return name of the piece
 	 */
 	public abstract String getName();
-	
+
+	/**
+	 * Gets the type of the piece
+	 * @return type of the piece
+	 */
+	public abstract PieceType getType();
+
 	/**
 	 * Returns true if the specific piece can jump other main.pieces
 	 */
@@ -122,12 +124,12 @@ public abstract class Piece {
 	public MovementPattern findValidMovementPatternForMove(Move move) {
 		Iterator<MovementPattern> it;
 		if (move.isCaptureMove()) {
-			it = availableKillMovements.iterator(); 
+			it = descriptor.getCaptureMovements().iterator(); 
 		} else {
 			if (isInitialMovement() && hasInitialMovements()) {
-				it = initialMovements.iterator(); 
+				it = descriptor.getInitialMovements().iterator(); 
 			} else {
-				it = availableMovements.iterator(); 
+				it = descriptor.getMovements().iterator(); 
 			}
 			
 		}
@@ -149,6 +151,22 @@ public abstract class Piece {
 		moveCount--;
 	}
 	
+	/**
+	 * Get the number of moves this piece has made
+	 * @return number of moves
+	 */
+	public int getMoveCount() {
+		return moveCount;
+	}
+	
+	/**
+	 * Set the number of moves this piece has made, e.g. when copying a piece
+	 * @param moveCount		number of moves
+	 */
+	public void setMoveCount(int moveCount) {
+		this.moveCount = moveCount;
+	}
+	
 	public boolean isInitialMovement() {
 		return (moveCount == 0);
 	}
@@ -157,6 +175,15 @@ public abstract class Piece {
 		return false;
 	}
 	
+	/**
+	 * Create a new piece that moves like this one
+	 * @param color		color of the new piece
+	 * @return the new piece, which has not moved
+	 */
+	public Piece createSameKind(Color color) {
+		return getType().createPiece(color);
+	}
+	
 	/**
 	 * Get the color of this piece
 	 * @return color of this piece
@@ -194,7 +221,15 @@ public abstract class Piece {
 	 * @return set of legal MovementPatterns available to this piece
 	 */
 	public Set<MovementPattern> getLegalMovementDirection() {
-		return availableMovements;
+		return descriptor.getMovements();
 	}
-	
+
+	/**
+	 * The shared description of the movements of this piece's type
+	 * @return descriptor of the piece type
+	 */
+	public PieceDescriptor getDescriptor() {
+		return descriptor;
+	}
+
 }
@@ -0,0 +1,107 @@
+package main.pieces;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import main.pieces.Piece.Color;
+
+/**
+ * A custom piece defined by a name, a letter and its movement in Betza notation
+ * 
+ * Definitions are read from text files with one piece per line, as the letter, the name and
+ * the notation separated by spaces, e.g. "Z Knightrider NN". Blank lines and lines starting
+ * with # are ignored. The notation is compiled once, and every piece created from the
+ * definition shares the compiled movements
+ * @author einar
+ *
+ */
+public class PieceDefinition {
+	private final char letter;
+	private final String name;
+	private final String notation;
+	private final PieceDescriptor descriptor;
+	
+	/**
+	 * Define a custom piece
+	 * @param letter	letter drawn for the piece, upper case for white and lower case for black
+	 * @param name		name of the piece
+	 * @param notation	movement of the piece in Betza notation
+	 * @throws IllegalArgumentException if the notation cannot be parsed
+	 */
+	public PieceDefinition(char letter, String name, String notation) {
+		this.letter = Character.toUpperCase(letter);
+		this.name = name;
+		this.notation = notation;
+		this.descriptor = BetzaNotation.compile(notation);
+	}
+	
+	/*******************
+	 * PUBLIC METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Parse one line of a definition file
+	 * @param line	letter, name and notation separated by spaces
+	 * @return the definition
+	 * @throws IllegalArgumentException if the line is malformed
+	 */
+	public static PieceDefinition parse(String line) {
+		String[] fields = line.trim().split("\\s+");
+		if (fields.length < 3 || fields[0].length() != 1) {
+			throw new IllegalArgumentException("Expected a letter, a name and a notation: " + line);
+		}
+		StringBuilder name = new StringBuilder(fields[1]);
+		for (int idx=2; idx<fields.length-1; idx++) {
+			name.append(' ').append(fields[idx]);
+		}
+		return new PieceDefinition(fields[0].charAt(0), name.toString(), fields[fields.length - 1]);
+	}
+	
+	/**
+	 * Read every definition of a file
+	 * @param path	file to read
+	 * @return the definitions, in the order of the file
+	 * @throws IOException if the file cannot be read
+	 * @throws IllegalArgumentException if a line is malformed
+	 */
+	public static List<PieceDefinition> load(Path path) throws IOException {
+		List<PieceDefinition> definitions = new ArrayList<PieceDefinition>();
+		for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+			if (line.trim().isEmpty() || line.trim().startsWith("#")) {
+				continue;
+			}
+			definitions.add(parse(line));
+		}
+		return definitions;
+	}
+	
+	/**
+	 * Create a piece following this definition
+	 * @param color		color of the piece
+	 * @return the new piece
+	 */
+	public Piece createPiece(Color color) {
+		return new CustomPiece(color, this);
+	}
+	
+	public char getLetter() {
+		return letter;
+	}
+	
+	public String getName() {
+		return name;
+	}
+	
+	public String getNotation() {
+		return notation;
+	}
+	
+	public PieceDescriptor getDescriptor() {
+		return descriptor;
+	}
+}
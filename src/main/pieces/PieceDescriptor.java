@@ -0,0 +1,138 @@
+package main.pieces;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import main.core.MovementPattern;
+
+/**
+ * Immutable description of how a type of piece moves, shared by every piece of that type
+ * 
+ * The movement patterns only depend on the piece type, so they are generated once per type and
+ * referenced by each piece, which only keeps its own color, square and move count. Custom pieces
+ * get one descriptor per PieceDefinition, compiled from its notation
+ * @author einar
+ *
+ */
+public final class PieceDescriptor {
+	private static final Map<PieceType, PieceDescriptor> DESCRIPTORS = new ConcurrentHashMap<PieceType, PieceDescriptor>();
+	private static final AtomicInteger NEXT_ID = new AtomicInteger();
+	
+	// Unique number of the descriptor, used to key tables built from it
+	private final int id;
+	private final PieceType type;
+	private final Set<MovementPattern> movements;
+	private final Set<MovementPattern> captureMovements;
+	private final Set<MovementPattern> initialMovements;
+	
+	/**
+	 * Generate the movement patterns of a type from a piece of that type
+	 * @param piece		piece whose generators are used
+	 */
+	private PieceDescriptor(Piece piece) {
+		this.id = NEXT_ID.getAndIncrement();
+		this.type = piece.getType();
+		Set<MovementPattern> movements = new HashSet<MovementPattern>();
+		Set<MovementPattern> captureMovements = new HashSet<MovementPattern>();
+		Set<MovementPattern> initialMovements = new HashSet<MovementPattern>();
+		piece.generateAvailableMovements(movements);
+		if (piece.hasCustomCaptureMoves()) {
+			piece.generateAvailableCaptureMovements(captureMovements);
+		} else {
+			piece.generateAvailableMovements(captureMovements);
+		}
+		if (piece.hasInitialMovements()) {
+			piece.generateInitialMovements(initialMovements);
+		}
+		this.movements = Collections.unmodifiableSet(movements);
+		this.captureMovements = Collections.unmodifiableSet(captureMovements);
+		this.initialMovements = Collections.unmodifiableSet(initialMovements);
+	}
+	
+	/**
+	 * Describe a kind of piece from movement patterns generated elsewhere
+	 * @param type				type of the piece
+	 * @param movements			patterns of moves that do not capture
+	 * @param captureMovements	patterns of captures
+	 * @param initialMovements	patterns replacing the moves that do not capture on the first move, may be empty
+	 */
+	PieceDescriptor(PieceType type, Set<MovementPattern> movements, Set<MovementPattern> captureMovements, Set<MovementPattern> initialMovements) {
+		this.id = NEXT_ID.getAndIncrement();
+		this.type = type;
+		this.movements = Collections.unmodifiableSet(new HashSet<MovementPattern>(movements));
+		this.captureMovements = Collections.unmodifiableSet(new HashSet<MovementPattern>(captureMovements));
+		this.initialMovements = Collections.unmodifiableSet(new HashSet<MovementPattern>(initialMovements));
+	}
+	
+	/*******************
+	 * PUBLIC METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Get the descriptor of a piece type
+	 * @param type	type of the piece, which is not CUSTOM
+	 * @return the shared descriptor
+	 */
+	public static PieceDescriptor get(PieceType type) {
+		PieceDescriptor descriptor = DESCRIPTORS.get(type);
+		if (descriptor == null) {
+			// Creating a piece registers the descriptor of its type
+			descriptor = type.createPiece(Piece.Color.WHITE).getDescriptor();
+		}
+		return descriptor;
+	}
+	
+	/**
+	 * Get the descriptor of the type of a piece being constructed, generating it on first use
+	 * @param piece		the piece
+	 * @return the shared descriptor
+	 */
+	static PieceDescriptor forPiece(Piece piece) {
+		PieceDescriptor descriptor = DESCRIPTORS.get(piece.getType());
+		if (descriptor == null) {
+			PieceDescriptor generated = new PieceDescriptor(piece);
+			descriptor = DESCRIPTORS.putIfAbsent(generated.type, generated);
+			if (descriptor == null) {
+				descriptor = generated;
+			}
+		}
+		return descriptor;
+	}
+	
+	public int getId() {
+		return id;
+	}
+	
+	public PieceType getType() {
+		return type;
+	}
+	
+	/**
+	 * The movements used for moves that do not capture
+	 * @return unmodifiable set of patterns
+	 */
+	public Set<MovementPattern> getMovements() {
+		return movements;
+	}
+	
+	/**
+	 * The movements used for captures
+	 * @return unmodifiable set of patterns
+	 */
+	public Set<MovementPattern> getCaptureMovements() {
+		return captureMovements;
+	}
+	
+	/**
+	 * The movements that replace the non-capture movements on the first move of a piece
+	 * @return unmodifiable set of patterns, empty if the type has none
+	 */
+	public Set<MovementPattern> getInitialMovements() {
+		return initialMovements;
+	}
+}
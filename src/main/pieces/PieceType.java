@@ -0,0 +1,102 @@
+package main.pieces;
+
+import main.pieces.Piece.Color;
+
+/**
+ * The kinds of pieces that can appear on a board
+ * Each type carries the letter used for it in standard algebraic notation (SAN),
+ * pawns have no letter and custom pieces use letters that are unused by standard chess
+ * @author einar
+ *
+ */
+public enum PieceType {
+	PAWN(' ', 1),
+	KNIGHT('N', 3),
+	BISHOP('B', 3),
+	ROOK('R', 5),
+	QUEEN('Q', 9),
+	KING('K', 0),
+	ROW_MOVER('M', 4),
+	DOUBLE_JUMPER('J', 5),
+	CUSTOM('C', 4);
+	
+	private final char sanLetter;
+	private final int materialValue;
+	
+	private PieceType(char sanLetter, int materialValue) {
+		this.sanLetter = sanLetter;
+		this.materialValue = materialValue;
+	}
+	
+	/**
+	 * Get the letter used for this piece type in algebraic notation
+	 * @return SAN letter of this piece type, or ' ' for pawns
+	 */
+	public char getSanLetter() {
+		return sanLetter;
+	}
+	
+	/**
+	 * Get the conventional material value of this piece type, in pawns
+	 * The king is given no value, since it can never be traded
+	 * @return material value of this piece type
+	 */
+	public int getMaterialValue() {
+		return materialValue;
+	}
+	
+	/**
+	 * Create a new piece of this type
+	 * Custom pieces are created from their PieceDefinition instead
+	 * @param color		color of the piece
+	 * @return the new piece
+	 */
+	public Piece createPiece(Color color) {
+		switch (this) {
+			case PAWN:
+				return new Pawn(color);
+			case KNIGHT:
+				return new Knight(color);
+			case BISHOP:
+				return new Bishop(color);
+			case ROOK:
+				return new Rook(color);
+			case QUEEN:
+				return new Queen(color);
+			case KING:
+				return new King(color);
+			case ROW_MOVER:
+				return new RowMover(color);
+			case DOUBLE_JUMPER:
+				return new DoubleJumper(color);
+			default:
+				throw new IllegalArgumentException("Custom pieces are created from a PieceDefinition");
+		}
+	}
+	
+	/**
+	 * Find the piece type corresponding to a SAN letter
+	 * @param letter	SAN letter, as an ASCII byte
+	 * @return the piece type, or null if the letter does not name a piece
+	 */
+	public static PieceType fromSanLetter(int letter) {
+		switch (letter) {
+			case 'N':
+				return KNIGHT;
+			case 'B':
+				return BISHOP;
+			case 'R':
+				return ROOK;
+			case 'Q':
+				return QUEEN;
+			case 'K':
+				return KING;
+			case 'M':
+				return ROW_MOVER;
+			case 'J':
+				return DOUBLE_JUMPER;
+			default:
+				return null;
+		}
+	}
+}
@@ -41,6 +41,11 @@ public class Queen extends Piece {
 		return "Queen";
 	}
 
+	@Override
+	public PieceType getType() {
+		return PieceType.QUEEN;
+	}
+
 	@Override
 	public boolean canJump() {
 		return false;
@@ -59,4 +59,9 @@ public class Rook extends Piece {
 	public String getName() {
 		return "Rook";
 	}
+
+	@Override
+	public PieceType getType() {
+		return PieceType.ROOK;
+	}
 }
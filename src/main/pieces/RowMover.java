@@ -2,8 +2,11 @@ package main.pieces;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+import main.core.Move;
 import main.core.MovementPattern;
 import main.core.MovementPattern.MovementDirection;
 
@@ -16,8 +19,12 @@ import main.core.MovementPattern.MovementDirection;
  *
  */
 public class RowMover extends Piece {
-	// Store the width of the board, which is used in generating the move pattern
+	// Width of the standard board, used to list the patterns of the piece
+	// Moves are matched by findValidMovementPatternForMove, which accepts any column offset
 	private static final int BOARD_WIDTH = 8;
+	
+	// Patterns of one row forward or backward and a column offset, created on first use and shared
+	private static final Map<Integer, MovementPattern> ROW_PATTERNS = new ConcurrentHashMap<Integer, MovementPattern>();
 
 	public RowMover(Color color) {
 		super(color);
@@ -30,8 +37,8 @@ public class RowMover extends Piece {
 	 */
 	protected void generateAvailableMovements(Set<MovementPattern> availableMovements) {
 		for (int i=0; i<BOARD_WIDTH; i++) {
-			availableMovements.add(generatePieceMovementForRowMovePiece(MovementDirection.FORWARD, MovementDirection.LEFT, i));
-			availableMovements.add(generatePieceMovementForRowMovePiece(MovementDirection.FORWARD, MovementDirection.RIGHT, i));
+			availableMovements.add(getRowPattern(true, -i));
+			availableMovements.add(getRowPattern(true, i));
 		}
 	}
 	
@@ -42,8 +49,8 @@ public class RowMover extends Piece {
 	 */
 	protected void generateAvailableCaptureMovements(Set<MovementPattern> availableMovements) {
 		for (int i=0; i<BOARD_WIDTH; i++) {
-			availableMovements.add(generatePieceMovementForRowMovePiece(MovementDirection.BACKWARD, MovementDirection.LEFT, i));
-			availableMovements.add(generatePieceMovementForRowMovePiece(MovementDirection.BACKWARD, MovementDirection.RIGHT, i));
+			availableMovements.add(getRowPattern(false, -i));
+			availableMovements.add(getRowPattern(false, i));
 		}
 	}
 
@@ -59,6 +66,33 @@ public class RowMover extends Piece {
 		}
 	}
 	
+	@Override
+	/**
+	 * Match a move directly from its movement: one row forward without capturing or one row backward
+	 * capturing, to any column of that row, whatever the width of the board
+	 * @param move	move to validate
+	 * @return the pattern of the move, or null if the piece cannot make it
+	 */
+	public MovementPattern findValidMovementPatternForMove(Move move) {
+		int rowMovement = move.getRowMovementFromPlayerPerspective();
+		if (rowMovement != (move.isCaptureMove() ? -1 : 1)) {
+			return null;
+		}
+		return getRowPattern(rowMovement > 0, move.getColMovementFromPlayerPerspective());
+	}
+	
+	/**
+	 * Get the shared pattern of a move to the next or previous row
+	 * @param forward		true for the next row, false for the previous row
+	 * @param colMovement	columns to move by, positive to the right
+	 * @return the pattern
+	 */
+	private MovementPattern getRowPattern(boolean forward, int colMovement) {
+		return ROW_PATTERNS.computeIfAbsent(colMovement * 2 + (forward ? 1 : 0), ignored -> generatePieceMovementForRowMovePiece(
+				forward ? MovementDirection.FORWARD : MovementDirection.BACKWARD,
+				colMovement < 0 ? MovementDirection.LEFT : MovementDirection.RIGHT, Math.abs(colMovement)));
+	}
+	
 	/**
 	 * Generate a custom MovementPattern object for the RowMover with a custom number of horizontal moves
 	 * @param verticalDirection			vertical direction in which to traverse
@@ -81,6 +115,11 @@ public class RowMover extends Piece {
 		return "Row Mover";
 	}
 
+	@Override
+	public PieceType getType() {
+		return PieceType.ROW_MOVER;
+	}
+
 	@Override
 	public boolean canJump() {
 		return false;
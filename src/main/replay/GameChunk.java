@@ -0,0 +1,38 @@
+package main.replay;
+
+/**
+ * The raw PGN text of a single game, as split from an archive by the reader stage
+ * @author einar
+ *
+ */
+public class GameChunk {
+	// Marks the end of the input for the worker stage
+	static final GameChunk END_OF_INPUT = new GameChunk(-1, new byte[0], 0);
+	
+	private final long gameNumber;
+	private final byte[] text;
+	private final int length;
+	
+	/**
+	 * @param gameNumber	1-based index of the game within the archive
+	 * @param text			buffer holding the PGN text of the game
+	 * @param length		number of bytes of the buffer that hold text
+	 */
+	public GameChunk(long gameNumber, byte[] text, int length) {
+		this.gameNumber = gameNumber;
+		this.text = text;
+		this.length = length;
+	}
+	
+	public long getGameNumber() {
+		return gameNumber;
+	}
+	
+	public byte[] getText() {
+		return text;
+	}
+	
+	public int getLength() {
+		return length;
+	}
+}
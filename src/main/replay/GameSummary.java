@@ -0,0 +1,71 @@
+package main.replay;
+
+import main.notation.PgnReader.Result;
+
+/**
+ * The outcome of replaying a single game
+ * @author einar
+ *
+ */
+public class GameSummary {
+	public enum Status { CHECKMATE, STALEMATE, ONGOING, ILLEGAL }
+	
+	// Marks the end of the results for the aggregator stage
+	static final GameSummary END_OF_RESULTS = new GameSummary(-1, Status.ILLEGAL, Result.UNKNOWN, 0, 0, 0, null);
+	
+	private final long gameNumber;
+	private final Status status;
+	private final Result recordedResult;
+	private final int plyCount;
+	private final int whiteCapturedMaterial;
+	private final int blackCapturedMaterial;
+	private final String illegalReason;
+	
+	/**
+	 * @param gameNumber				1-based index of the game within the archive
+	 * @param status					status of the board after the last replayed move
+	 * @param recordedResult			result recorded in the PGN
+	 * @param plyCount					number of half-moves replayed
+	 * @param whiteCapturedMaterial		material value of the pieces captured by white
+	 * @param blackCapturedMaterial		material value of the pieces captured by black
+	 * @param illegalReason				why the game is illegal, null for legal games
+	 */
+	public GameSummary(long gameNumber, Status status, Result recordedResult, int plyCount,
+			int whiteCapturedMaterial, int blackCapturedMaterial, String illegalReason) {
+		this.gameNumber = gameNumber;
+		this.status = status;
+		this.recordedResult = recordedResult;
+		this.plyCount = plyCount;
+		this.whiteCapturedMaterial = whiteCapturedMaterial;
+		this.blackCapturedMaterial = blackCapturedMaterial;
+		this.illegalReason = illegalReason;
+	}
+	
+	public long getGameNumber() {
+		return gameNumber;
+	}
+	
+	public Status getStatus() {
+		return status;
+	}
+	
+	public Result getRecordedResult() {
+		return recordedResult;
+	}
+	
+	public int getPlyCount() {
+		return plyCount;
+	}
+	
+	public int getWhiteCapturedMaterial() {
+		return whiteCapturedMaterial;
+	}
+	
+	public int getBlackCapturedMaterial() {
+		return blackCapturedMaterial;
+	}
+	
+	public String getIllegalReason() {
+		return illegalReason;
+	}
+}
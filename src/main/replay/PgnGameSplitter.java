@@ -0,0 +1,104 @@
+package main.replay;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Reader stage of the replay pipeline
+ * Splits a PGN archive into chunks of one game each, without parsing the moves
+ * A game is considered to end when a tag section starts on a new line after movetext
+ * @author einar
+ *
+ */
+public class PgnGameSplitter {
+	// Size of the blocks read from the channel
+	private static final int READ_BUFFER_SIZE = 1 << 16;
+	
+	// Initial capacity of the buffer for a single game
+	private static final int INITIAL_GAME_SIZE = 1 << 10;
+	
+	private final BlockingQueue<GameChunk> chunks;
+	
+	// Text of the game currently being collected
+	private byte[] gameText;
+	private int gameLength;
+	private long gameCount;
+	
+	// Scanner state
+	private boolean atLineStart;
+	private boolean inTag;
+	private boolean inComment;
+	private boolean hasMovetext;
+	
+	/**
+	 * @param chunks	queue to put game chunks on, blocks when the workers fall behind
+	 */
+	public PgnGameSplitter(BlockingQueue<GameChunk> chunks) {
+		this.chunks = chunks;
+		this.gameText = new byte[INITIAL_GAME_SIZE];
+		this.atLineStart = true;
+	}
+	
+	/**
+	 * Read the channel until its end, putting each game on the queue
+	 * @param channel	channel to read PGN text from
+	 * @return number of chunks put on the queue
+	 * @throws IOException if the channel cannot be read
+	 * @throws InterruptedException if interrupted while waiting for space on the queue
+	 */
+	public long split(ReadableByteChannel channel) throws IOException, InterruptedException {
+		ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+		while (channel.read(readBuffer) != -1) {
+			readBuffer.flip();
+			while (readBuffer.hasRemaining()) {
+				accept(readBuffer.get());
+			}
+			readBuffer.clear();
+		}
+		if (hasMovetext) {
+			emitGame();
+		}
+		return gameCount;
+	}
+	
+	/**
+	 * Add a byte to the current game, emitting the game first if the byte starts the next one
+	 * @param character		next byte of the input
+	 */
+	private void accept(byte character) throws InterruptedException {
+		if (inComment) {
+			inComment = character != '}';
+		} else if (inTag) {
+			inTag = character != ']';
+		} else if (character == '[' && atLineStart) {
+			if (hasMovetext) {
+				emitGame();
+			}
+			inTag = true;
+		} else if (character == '{') {
+			inComment = true;
+		} else if (character > ' ') {
+			hasMovetext = true;
+		}
+		atLineStart = character == '\n';
+		
+		if (gameLength == gameText.length) {
+			gameText = Arrays.copyOf(gameText, gameText.length * 2);
+		}
+		gameText[gameLength++] = character;
+	}
+	
+	/**
+	 * Put the current game on the queue, and start collecting the next one
+	 */
+	private void emitGame() throws InterruptedException {
+		gameCount++;
+		chunks.put(new GameChunk(gameCount, gameText, gameLength));
+		gameText = new byte[Math.max(INITIAL_GAME_SIZE, gameLength)];
+		gameLength = 0;
+		hasMovetext = false;
+	}
+}
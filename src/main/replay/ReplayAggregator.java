@@ -0,0 +1,78 @@
+package main.replay;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+
+import main.notation.ReplayStatistics;
+import main.notation.ReplayStatistics.IllegalGame;
+
+/**
+ * Aggregator stage of the replay pipeline
+ * Collects the summary of every game into a single set of statistics
+ * This is the only stage that touches the statistics, so they need no locking
+ * A listener that throws stops receiving summaries, but the stage keeps draining its queue so the
+ * workers are never blocked, and the failure is rethrown by the pipeline
+ * @author einar
+ *
+ */
+public class ReplayAggregator implements Runnable {
+	private final BlockingQueue<GameSummary> summaries;
+	private final Consumer<GameSummary> listener;
+	private final ReplayStatistics statistics;
+	
+	// First exception thrown by the listener, only safe to read once this stage has finished
+	private RuntimeException failure;
+	
+	/**
+	 * @param summaries		queue to take game summaries from
+	 * @param listener		receives every game summary, in completion order rather than archive order
+	 */
+	public ReplayAggregator(BlockingQueue<GameSummary> summaries, Consumer<GameSummary> listener) {
+		this.summaries = summaries;
+		this.listener = listener;
+		this.statistics = new ReplayStatistics();
+	}
+
+	@Override
+	public void run() {
+		try {
+			while (true) {
+				GameSummary summary = summaries.take();
+				if (summary == GameSummary.END_OF_RESULTS) {
+					return;
+				}
+				statistics.addGame(summary.getPlyCount());
+				if (summary.getIllegalReason() != null) {
+					statistics.addIllegalGame(new IllegalGame(summary.getGameNumber(), summary.getPlyCount() + 1, summary.getIllegalReason()));
+				}
+				if (failure == null) {
+					try {
+						listener.accept(summary);
+					} catch (RuntimeException e) {
+						failure = e;
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/**
+	 * Get the exception thrown by the listener
+	 * Only safe to read once this stage has finished
+	 * @return first exception thrown by the listener, or null if it never threw
+	 */
+	public RuntimeException getFailure() {
+		return failure;
+	}
+	
+	/**
+	 * Get the statistics collected so far
+	 * Only safe to read once this stage has finished
+	 * @return collected statistics
+	 */
+	public ReplayStatistics getStatistics() {
+		return statistics;
+	}
+}
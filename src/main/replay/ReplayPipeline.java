@@ -0,0 +1,134 @@
+package main.replay;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+
+import main.core.StartingPosition;
+import main.notation.ReplayStatistics;
+import main.replay.GameSummary.Status;
+
+/**
+ * Replays a PGN archive on several threads
+ * The calling thread splits the archive into games, a pool of workers replays the games,
+ * each on its own board, and a single aggregator collects the results
+ * The stages are connected by bounded queues, so a slow stage holds back the stages before it
+ * @author einar
+ *
+ */
+public class ReplayPipeline {
+	private final StartingPosition startingPosition;
+	private final int workerCount;
+	private final int queueCapacity;
+	
+	/**
+	 * @param startingPosition	initial layout of every game in the archive
+	 * @param workerCount		number of replay workers
+	 * @param queueCapacity		number of games that can wait between two stages
+	 */
+	public ReplayPipeline(StartingPosition startingPosition, int workerCount, int queueCapacity) {
+		this.startingPosition = startingPosition;
+		this.workerCount = workerCount;
+		this.queueCapacity = queueCapacity;
+	}
+	
+	/**
+	 * Replay every game read from the channel
+	 * @param channel		channel to read PGN text from
+	 * @param listener		receives the summary of every game, on the aggregator thread
+	 * @return statistics of the replay
+	 * @throws IOException if the channel cannot be read
+	 * @throws InterruptedException if interrupted while waiting on the other stages
+	 * @throws RuntimeException the first exception thrown by a worker or by the listener
+	 */
+	public ReplayStatistics run(ReadableByteChannel channel, Consumer<GameSummary> listener) throws IOException, InterruptedException {
+		long startTime = System.nanoTime();
+		BlockingQueue<GameChunk> chunks = new ArrayBlockingQueue<GameChunk>(queueCapacity);
+		BlockingQueue<GameSummary> summaries = new ArrayBlockingQueue<GameSummary>(queueCapacity);
+		
+		// Start the worker and aggregator stages
+		ReplayWorker[] workers = new ReplayWorker[workerCount];
+		Thread[] workerThreads = new Thread[workerCount];
+		for (int idx=0; idx<workerCount; idx++) {
+			workers[idx] = new ReplayWorker(startingPosition, chunks, summaries);
+			workerThreads[idx] = new Thread(workers[idx], "replay-worker-" + idx);
+			workerThreads[idx].start();
+		}
+		ReplayAggregator aggregator = new ReplayAggregator(summaries, listener);
+		Thread aggregatorThread = new Thread(aggregator, "replay-aggregator");
+		aggregatorThread.start();
+		
+		// The calling thread is the reader stage
+		try {
+			new PgnGameSplitter(chunks).split(channel);
+		} finally {
+			// Stop each stage once the stage before it has drained
+			for (int idx=0; idx<workerCount; idx++) {
+				chunks.put(GameChunk.END_OF_INPUT);
+			}
+			for (Thread workerThread : workerThreads) {
+				workerThread.join();
+			}
+			summaries.put(GameSummary.END_OF_RESULTS);
+			aggregatorThread.join();
+		}
+		
+		// Every stage has drained, so a failure in one of them can be reported without leaving threads behind
+		for (ReplayWorker worker : workers) {
+			if (worker.getFailure() != null) {
+				throw worker.getFailure();
+			}
+		}
+		if (aggregator.getFailure() != null) {
+			throw aggregator.getFailure();
+		}
+		
+		ReplayStatistics statistics = aggregator.getStatistics();
+		statistics.setElapsedNanos(System.nanoTime() - startTime);
+		return statistics;
+	}
+	
+	/**
+	 * Replay every game of the PGN file at the given path
+	 * @param path			path of the PGN file
+	 * @param listener		receives the summary of every game, on the aggregator thread
+	 * @return statistics of the replay
+	 * @throws IOException if the file cannot be read
+	 * @throws InterruptedException if interrupted while waiting on the other stages
+	 */
+	public ReplayStatistics runFile(Path path, Consumer<GameSummary> listener) throws IOException, InterruptedException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return run(channel, listener);
+		}
+	}
+	
+	/**
+	 * Replay a PGN file from the command line, using one worker per available processor
+	 * @param args	path of the PGN file, optionally followed by "custom" for games with custom pieces
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if (args.length == 0) {
+			System.err.println("Usage: ReplayPipeline <file.pgn> [custom]");
+			return;
+		}
+		StartingPosition startingPosition = (args.length > 1 && args[1].equals("custom"))
+				? StartingPosition.CUSTOM_PIECES : StartingPosition.STANDARD;
+		int workerCount = Runtime.getRuntime().availableProcessors();
+		
+		// Only touched by the aggregator thread
+		Map<Status, Long> statusCounts = new EnumMap<Status, Long>(Status.class);
+		ReplayStatistics statistics = new ReplayPipeline(startingPosition, workerCount, workerCount * 64)
+				.runFile(Paths.get(args[0]), summary -> statusCounts.merge(summary.getStatus(), 1L, Long::sum));
+		
+		System.out.println(statusCounts);
+		System.out.println(statistics);
+	}
+}
@@ -0,0 +1,151 @@
+package main.replay;
+
+import java.util.concurrent.BlockingQueue;
+
+import main.core.Board;
+import main.core.Player;
+import main.core.StartingPosition;
+import main.exceptions.InvalidMoveException;
+import main.notation.GameReplayer;
+import main.notation.PgnGameListener;
+import main.notation.PgnReader;
+import main.notation.PgnReader.Result;
+import main.notation.SanMove;
+import main.pieces.Piece;
+import main.replay.GameSummary.Status;
+
+/**
+ * Worker stage of the replay pipeline
+ * Takes game chunks from its input queue, replays them on a board owned by this worker,
+ * and puts a summary of every game on its output queue
+ * A chunk that fails to replay is skipped, and the first failure is rethrown by the pipeline;
+ * the worker keeps taking chunks so the reader is never blocked
+ * @author einar
+ *
+ */
+public class ReplayWorker implements Runnable, PgnGameListener {
+	private final BlockingQueue<GameChunk> chunks;
+	private final BlockingQueue<GameSummary> summaries;
+	
+	// Each worker owns its reader and board, so no state is shared between workers
+	private final PgnReader pgnReader;
+	private final GameReplayer replayer;
+	
+	// State of the game currently being replayed
+	private long currentGameNumber;
+	private String illegalReason;
+	
+	// First exception thrown while replaying a chunk, only safe to read once this stage has finished
+	private RuntimeException failure;
+	
+	/**
+	 * @param startingPosition	initial layout of every game
+	 * @param chunks			queue to take games from
+	 * @param summaries			queue to put game summaries on
+	 */
+	public ReplayWorker(StartingPosition startingPosition, BlockingQueue<GameChunk> chunks, BlockingQueue<GameSummary> summaries) {
+		this.chunks = chunks;
+		this.summaries = summaries;
+		this.pgnReader = new PgnReader(this);
+		this.replayer = new GameReplayer(startingPosition);
+	}
+
+	@Override
+	public void run() {
+		try {
+			while (true) {
+				GameChunk chunk = chunks.take();
+				if (chunk == GameChunk.END_OF_INPUT) {
+					return;
+				}
+				
+				// A chunk normally holds one game, games without tags may share their chunk with the previous game
+				currentGameNumber = chunk.getGameNumber() - 1;
+				try {
+					pgnReader.read(chunk.getText(), 0, chunk.getLength());
+				} catch (RuntimeException e) {
+					if (failure == null) {
+						failure = e;
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Get the exception thrown while replaying a chunk
+	 * Only safe to read once this stage has finished
+	 * @return first exception thrown, or null if every chunk was replayed
+	 */
+	public RuntimeException getFailure() {
+		return failure;
+	}
+	
+	@Override
+	public void startGame(long gameNumber) {
+		currentGameNumber++;
+		illegalReason = null;
+		replayer.startGame();
+	}
+
+	@Override
+	public boolean move(SanMove move) {
+		if (move == null) {
+			illegalReason = "Unreadable move";
+			return false;
+		}
+		try {
+			replayer.apply(move);
+			return true;
+		} catch (InvalidMoveException e) {
+			illegalReason = e.getMessage();
+			return false;
+		}
+	}
+
+	@Override
+	public void endGame(Result result) {
+		Player[] players = replayer.getPlayers();
+		GameSummary summary = new GameSummary(currentGameNumber, calculateStatus(), result, replayer.getPlyCount(),
+				calculateCapturedMaterial(players[0]), calculateCapturedMaterial(players[1]), illegalReason);
+		try {
+			summaries.put(summary);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/**
+	 * Find the status of the board after the last replayed move
+	 * @return status of the current game
+	 */
+	private Status calculateStatus() {
+		if (illegalReason != null) {
+			return Status.ILLEGAL;
+		}
+		Board board = replayer.getBoard();
+		Player currentPlayer = replayer.getCurrentPlayer();
+		if (board.isCheckmate(currentPlayer)) {
+			return Status.CHECKMATE;
+		}
+		if (board.isStalemate(currentPlayer)) {
+			return Status.STALEMATE;
+		}
+		return Status.ONGOING;
+	}
+	
+	/**
+	 * Sum the material value of the pieces captured by a player
+	 * @param player	player who captured the pieces
+	 * @return total material value of the captured pieces
+	 */
+	private static int calculateCapturedMaterial(Player player) {
+		int material = 0;
+		for (Piece piece : player.getCapturedPieces()) {
+			material += piece.getType().getMaterialValue();
+		}
+		return material;
+	}
+}
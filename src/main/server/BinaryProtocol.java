@@ -0,0 +1,164 @@
+package main.server;
+
+import java.nio.ByteBuffer;
+
+import main.pieces.Piece;
+import main.pieces.Piece.Color;
+
+/**
+ * The compact binary protocol spoken by the NIO game server
+ * Every frame starts with a one byte opcode, which also determines the length of the frame
+ * Game IDs are 4 byte big-endian integers, squares are single bytes holding the row-major square index
+ * 
+ * Requests:
+ * 	NEW		[custom flag]				starts a game, answered by GAME
+ * 	MOVE	[game ID][from][to]			moves a piece, answered by RESULT
+ * 	UNDO	[game ID]					undoes the last move, answered by RESULT
+ * 	WATCH	[game ID]					subscribes to the game's updates, answered by RESULT and the catch-up frames
+ * 
+ * Responses and updates:
+ * 	GAME	[game ID]					ID of a new game
+ * 	RESULT	[status]					outcome of a request, one of the STATUS constants
+ * 	BOARD	[game ID][sequence][count 2][pieces]
+ * 										keyframe with the piece code of every square of a watched game
+ * 	DELTA	[game ID][sequence][square][code][square][code][captured]
+ * 										update of a watched game, the two squares that changed with their
+ * 										new piece codes, and the code of the captured piece
+ * 
+ * A new watcher receives the latest keyframe followed by the deltas published after it,
+ * and then every new delta; sequence numbers are 4 byte integers increasing by one per update
+ * 
+ * @author einar
+ *
+ */
+public final class BinaryProtocol {
+	// Request opcodes
+	public static final byte NEW = 0x01;
+	public static final byte MOVE = 0x02;
+	public static final byte UNDO = 0x03;
+	public static final byte WATCH = 0x04;
+	
+	// Response and update opcodes
+	public static final byte GAME = (byte) 0x81;
+	public static final byte RESULT = (byte) 0x82;
+	public static final byte BOARD = (byte) 0x90;
+	public static final byte DELTA = (byte) 0x91;
+	
+	// Length of a DELTA frame
+	public static final int DELTA_LENGTH = 14;
+	
+	// Status codes of a RESULT frame
+	public static final byte STATUS_OK = 0;
+	public static final byte STATUS_INVALID_MOVE = 1;
+	public static final byte STATUS_UNKNOWN_GAME = 2;
+	public static final byte STATUS_UNKNOWN_REQUEST = 3;
+	
+	// Length of the longest request frame
+	public static final int MAX_REQUEST_LENGTH = 7;
+	
+	// Largest number of squares of a board, since squares are single bytes
+	public static final int MAX_SQUARES = 256;
+	
+	// Bit marking a black piece in a piece code
+	private static final int BLACK_BIT = 0x10;
+	
+	private BinaryProtocol() {}
+	
+	/**
+	 * Get the total length of a request frame, including its opcode
+	 * @param opcode	first byte of the frame
+	 * @return length of the frame, or -1 for an unknown opcode
+	 */
+	public static int getRequestLength(byte opcode) {
+		switch (opcode) {
+			case NEW:
+				return 2;
+			case MOVE:
+				return 7;
+			case UNDO:
+			case WATCH:
+				return 5;
+			default:
+				return -1;
+		}
+	}
+	
+	/**
+	 * Encode a piece as a single byte
+	 * The low bits hold the ordinal of the piece type plus one, and BLACK_BIT is set for black pieces
+	 * @param piece		piece to encode, null for an empty square
+	 * @return code of the piece, 0 for an empty square
+	 */
+	public static byte encodePiece(Piece piece) {
+		if (piece == null) {
+			return 0;
+		}
+		int code = piece.getType().ordinal() + 1;
+		if (piece.getColor() == Color.BLACK) {
+			code |= BLACK_BIT;
+		}
+		return (byte) code;
+	}
+	
+	/**
+	 * Write a RESULT frame
+	 * @param buffer	buffer to write into
+	 * @param status	one of the STATUS constants
+	 */
+	public static void putResult(ByteBuffer buffer, byte status) {
+		buffer.put(RESULT).put(status);
+	}
+	
+	/**
+	 * Write a GAME frame
+	 * @param buffer	buffer to write into
+	 * @param gameId	ID of the game
+	 */
+	public static void putGame(ByteBuffer buffer, long gameId) {
+		buffer.put(GAME).putInt((int) gameId);
+	}
+	
+	/**
+	 * Create a read-only BOARD frame holding the state of a game
+	 * @param gameId	ID of the game
+	 * @param sequence	sequence number of the latest update included in the state
+	 * @param board		piece code of every square
+	 * @return the frame, positioned at its start
+	 * @throws IllegalArgumentException if the board has more than MAX_SQUARES squares
+	 */
+	public static ByteBuffer createBoardFrame(long gameId, int sequence, byte[] board) {
+		if (board.length > MAX_SQUARES) {
+			throw new IllegalArgumentException("Boards of more than " + MAX_SQUARES + " squares cannot be sent");
+		}
+		ByteBuffer frame = ByteBuffer.allocate(11 + board.length);
+		frame.put(BOARD).putInt((int) gameId).putInt(sequence).putShort((short) board.length).put(board);
+		frame.flip();
+		return frame.asReadOnlyBuffer();
+	}
+	
+	/**
+	 * Get the sequence number of a BOARD or DELTA frame
+	 * @param frame		frame positioned at its start
+	 * @return sequence number of the frame
+	 */
+	public static int getSequence(ByteBuffer frame) {
+		return frame.getInt(frame.position() + 5);
+	}
+	
+	/**
+	 * Create a read-only DELTA frame describing a change of two squares
+	 * Frames are small and created on every move, so they live on the heap: direct buffers are
+	 * slow to allocate and are only freed once the garbage collector finds them
+	 * @return the frame, positioned at its start
+	 */
+	public static ByteBuffer createDeltaFrame(long gameId, int sequence, int firstSquare, byte firstCode,
+			int secondSquare, byte secondCode, byte capturedCode) {
+		ByteBuffer frame = ByteBuffer.allocate(DELTA_LENGTH);
+		frame.put(DELTA).putInt((int) gameId).putInt(sequence)
+			.put((byte) firstSquare).put(firstCode)
+			.put((byte) secondSquare).put(secondCode)
+			.put(capturedCode);
+		frame.flip();
+		return frame.asReadOnlyBuffer();
+	}
+}
@@ -0,0 +1,63 @@
+package main.server;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * Pool of direct buffers of a single size
+ * Buffers are only borrowed while a connection has data in flight, so idle connections hold no buffer
+ * Not thread-safe, a pool belongs to a single selector thread
+ * @author einar
+ *
+ */
+public class BufferPool {
+	private final int bufferSize;
+	private final int maxPooledBuffers;
+	private final ArrayDeque<ByteBuffer> buffers;
+	
+	/**
+	 * @param bufferSize		capacity of every buffer
+	 * @param maxPooledBuffers	number of released buffers kept for reuse, further ones are left to the garbage collector
+	 */
+	public BufferPool(int bufferSize, int maxPooledBuffers) {
+		this.bufferSize = bufferSize;
+		this.maxPooledBuffers = maxPooledBuffers;
+		this.buffers = new ArrayDeque<ByteBuffer>();
+	}
+	
+	/**
+	 * Take a cleared buffer from the pool, allocating one if the pool is empty
+	 * @return an empty buffer
+	 */
+	public ByteBuffer acquire() {
+		ByteBuffer buffer = buffers.poll();
+		if (buffer == null) {
+			return ByteBuffer.allocateDirect(bufferSize);
+		}
+		return buffer;
+	}
+	
+	/**
+	 * Give a buffer back to the pool
+	 * The caller must not use the buffer afterwards
+	 * @param buffer	buffer previously returned by acquire()
+	 */
+	public void release(ByteBuffer buffer) {
+		if (buffers.size() < maxPooledBuffers) {
+			buffer.clear();
+			buffers.push(buffer);
+		}
+	}
+	
+	public int getBufferSize() {
+		return bufferSize;
+	}
+	
+	/**
+	 * Get the number of buffers waiting for reuse
+	 * @return number of pooled buffers
+	 */
+	public int getPooledCount() {
+		return buffers.size();
+	}
+}
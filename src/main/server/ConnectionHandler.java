@@ -0,0 +1,48 @@
+package main.server;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serves the requests of a single client connection until the client disconnects
+ * @author einar
+ *
+ */
+public class ConnectionHandler implements Runnable {
+	private final Socket socket;
+	private final GameProtocol protocol;
+	
+	public ConnectionHandler(Socket socket, GameProtocol protocol) {
+		this.socket = socket;
+		this.protocol = protocol;
+	}
+
+	@Override
+	public void run() {
+		try (Socket connection = socket;
+			 BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.US_ASCII));
+			 BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(connection.getOutputStream(), StandardCharsets.US_ASCII))) {
+			connection.setTcpNoDelay(true);
+			String request;
+			while ((request = reader.readLine()) != null) {
+				if (request.isEmpty()) {
+					continue;
+				}
+				writer.write(protocol.handle(request));
+				writer.newLine();
+				
+				// Only flush once every pipelined request has been answered
+				if (!reader.ready()) {
+					writer.flush();
+				}
+			}
+		} catch (IOException e) {
+			// The client disconnected, nothing left to serve
+		}
+	}
+}
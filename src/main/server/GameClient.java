@@ -0,0 +1,67 @@
+package main.server;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Blocking client for the game server's text protocol
+ * @author einar
+ *
+ */
+public class GameClient implements Closeable {
+	private final Socket socket;
+	private final BufferedReader reader;
+	private final BufferedWriter writer;
+	
+	/**
+	 * Connect to a server on the loopback interface
+	 * @param port	port of the server
+	 * @throws IOException if the connection fails
+	 */
+	public GameClient(int port) throws IOException {
+		this.socket = new Socket(InetAddress.getLoopbackAddress(), port);
+		this.socket.setTcpNoDelay(true);
+		this.reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+		this.writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII));
+	}
+	
+	/**
+	 * Send a request and wait for its response
+	 * @param request	request line, e.g. "MOVE 1 e2 e4"
+	 * @return response line
+	 * @throws IOException if the connection fails
+	 */
+	public String send(String request) throws IOException {
+		writer.write(request);
+		writer.newLine();
+		writer.flush();
+		String response = reader.readLine();
+		if (response == null) {
+			throw new IOException("Connection closed by server");
+		}
+		return response;
+	}
+	
+	/**
+	 * Start a new game
+	 * @param useCustomPieces	whether the game uses the RowMover and DoubleJumper pieces
+	 * @return ID of the new game
+	 * @throws IOException if the connection fails
+	 */
+	public String newGame(boolean useCustomPieces) throws IOException {
+		String response = send(useCustomPieces ? "NEW custom" : "NEW");
+		return response.substring("OK ".length());
+	}
+
+	@Override
+	public void close() throws IOException {
+		socket.close();
+	}
+}
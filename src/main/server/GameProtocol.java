@@ -0,0 +1,103 @@
+package main.server;
+
+import java.util.List;
+
+import main.exceptions.InvalidMoveException;
+
+/**
+ * The line-based text protocol spoken by the game server
+ * Each request is a single line of space-separated words, and is answered by a single line
+ * starting with "OK" or "ERR"
+ * 
+ * 	NEW [custom]					starts a game, answers "OK <gameId>"
+ * 	MOVE <gameId> <from> <to>		moves a piece, e.g. "MOVE 1 e2 e4"
+ * 	UNDO <gameId>					undoes the last move
+ * 	STATUS <gameId>					answers "OK <player to move> <checkmate|stalemate|check|ongoing>"
+ * 	LEGAL <gameId> <square>			answers "OK" followed by the squares the piece can move to
+ * 	BOARD <gameId>					answers "OK" followed by one character per square, row by row
+ * 	CLOSE <gameId>					stops hosting the game
+ * 
+ * @author einar
+ *
+ */
+public class GameProtocol {
+	private final GameRegistry registry;
+	
+	public GameProtocol(GameRegistry registry) {
+		this.registry = registry;
+	}
+	
+	/**
+	 * Execute a single request
+	 * @param request	line of the request, without the line terminator
+	 * @return line of the response, without the line terminator
+	 */
+	public String handle(String request) {
+		String[] words = request.trim().split(" +");
+		String command = words[0];
+		
+		if (command.equals("NEW")) {
+			boolean useCustomPieces = words.length > 1 && words[1].equals("custom");
+			return "OK " + registry.createGame(useCustomPieces).getGameId();
+		}
+		
+		// Every other command refers to an existing game
+		if (words.length < 2) {
+			return "ERR Missing game ID";
+		}
+		GameSession session = registry.getGame(parseGameId(words[1]));
+		if (session == null) {
+			return "ERR Unknown game";
+		}
+		
+		switch (command) {
+			case "MOVE":
+				if (words.length != 4) {
+					return "ERR Usage: MOVE <gameId> <from> <to>";
+				}
+				try {
+					session.move(words[2], words[3]);
+					return "OK";
+				} catch (InvalidMoveException e) {
+					return "ERR " + e.getMessage();
+				}
+			case "UNDO":
+				return session.undo() ? "OK" : "ERR No move to undo";
+			case "STATUS":
+				return "OK " + session.getStatus();
+			case "LEGAL":
+				if (words.length != 3) {
+					return "ERR Usage: LEGAL <gameId> <square>";
+				}
+				return formatList(session.getLegalMoves(words[2]));
+			case "BOARD":
+				return "OK " + session.getBoard();
+			case "CLOSE":
+				registry.removeGame(session.getGameId());
+				return "OK";
+			default:
+				return "ERR Unknown command";
+		}
+	}
+	
+	/**
+	 * Parse a game ID, invalid IDs are mapped to an ID that no game has
+	 * @param word	game ID as sent by the client
+	 * @return the game ID, or -1 if the word is not a number
+	 */
+	private static long parseGameId(String word) {
+		try {
+			return Long.parseLong(word);
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+	
+	private static String formatList(List<String> squares) {
+		StringBuilder response = new StringBuilder("OK");
+		for (String square : squares) {
+			response.append(' ').append(square);
+		}
+		return response.toString();
+	}
+}
@@ -0,0 +1,111 @@
+package main.server;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import main.journal.GameJournal;
+import main.journal.JournaledChessModel;
+
+/**
+ * All games hosted by a server, keyed by game ID
+ * Lookups are lock-free, so a busy game never slows down access to the others
+ * 
+ * When given a GameJournal, every game is journaled, and the games in flight at the
+ * last shutdown are hosted again under their old IDs
+ * @author einar
+ *
+ */
+public class GameRegistry {
+	private final ConcurrentMap<Long, GameSession> sessions;
+	private final AtomicLong nextGameId;
+	private final GameJournal journal;
+	
+	public GameRegistry() {
+		this.sessions = new ConcurrentHashMap<Long, GameSession>();
+		this.nextGameId = new AtomicLong(1);
+		this.journal = null;
+	}
+	
+	/**
+	 * Create a registry whose games are journaled, starting with the games recovered by the journal
+	 * @param journal	open journal
+	 */
+	public GameRegistry(GameJournal journal) {
+		this.sessions = new ConcurrentHashMap<Long, GameSession>();
+		this.journal = journal;
+		long lastGameId = 0;
+		for (JournaledChessModel game : journal.getRecoveredGames().values()) {
+			sessions.put(game.getGameId(), new GameSession(game.getGameId(), game));
+			lastGameId = Math.max(lastGameId, game.getGameId());
+		}
+		this.nextGameId = new AtomicLong(lastGameId + 1);
+	}
+	
+	/**
+	 * Start a new game with a freshly assigned ID
+	 * @param useCustomPieces	whether the game uses the RowMover and DoubleJumper pieces
+	 * @return the new game
+	 * @throws UncheckedIOException if the game cannot be journaled
+	 */
+	public GameSession createGame(boolean useCustomPieces) {
+		long gameId = nextGameId.getAndIncrement();
+		GameSession session;
+		if (journal == null) {
+			session = new GameSession(gameId, useCustomPieces);
+		} else {
+			try {
+				session = new GameSession(gameId, journal.createGame(gameId, useCustomPieces));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		sessions.put(gameId, session);
+		return session;
+	}
+	
+	/**
+	 * Get the game with the given ID
+	 * @param gameId	ID of the game
+	 * @return the game, or null if there is no such game
+	 */
+	public GameSession getGame(long gameId) {
+		return sessions.get(gameId);
+	}
+	
+	/**
+	 * Stop hosting the game with the given ID
+	 * @param gameId	ID of the game
+	 * @return the removed game, or null if there was no such game
+	 * @throws UncheckedIOException if the removal cannot be journaled
+	 */
+	public GameSession removeGame(long gameId) {
+		GameSession session = sessions.remove(gameId);
+		if (session != null && journal != null) {
+			try {
+				journal.closeGame(gameId);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		return session;
+	}
+	
+	/**
+	 * Whether the changes to the games are journaled, so that they block until the journal is synced
+	 * @return true if the registry was given a GameJournal
+	 */
+	public boolean isJournaled() {
+		return journal != null;
+	}
+	
+	/**
+	 * Get the number of games hosted
+	 * @return number of games
+	 */
+	public int getGameCount() {
+		return sessions.size();
+	}
+}
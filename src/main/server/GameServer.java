@@ -0,0 +1,156 @@
+package main.server;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import main.journal.GameJournal;
+
+/**
+ * Headless server hosting many independent games over a local socket
+ * Every connection is served by its own thread, using virtual threads when the JVM supports them
+ * @author einar
+ *
+ */
+public class GameServer {
+	private final GameRegistry registry;
+	private final GameProtocol protocol;
+	private ServerSocket serverSocket;
+	private ExecutorService connectionExecutor;
+	private Thread acceptThread;
+	
+	// Whether connections are accepted, and the error that stopped accepting them, if any
+	private volatile boolean running;
+	private volatile IOException failure;
+	
+	public GameServer() {
+		this(new GameRegistry());
+	}
+	
+	/**
+	 * Create a server hosting the games of the given registry
+	 * @param registry	registry of the games, e.g. one backed by a journal
+	 */
+	public GameServer(GameRegistry registry) {
+		this.registry = registry;
+		this.protocol = new GameProtocol(registry);
+	}
+	
+	/**
+	 * Start accepting connections on the loopback interface
+	 * @param port	port to listen on, 0 to pick any free port
+	 * @throws IOException if the port cannot be bound
+	 */
+	public void start(int port) throws IOException {
+		serverSocket = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+		connectionExecutor = newConnectionExecutor();
+		acceptThread = new Thread(this::acceptConnections, "game-server-accept");
+		running = true;
+		acceptThread.start();
+	}
+	
+	/**
+	 * Stop accepting connections, and stop serving the connected clients
+	 * @throws IOException if the server socket cannot be closed
+	 */
+	public void stop() throws IOException {
+		serverSocket.close();
+		connectionExecutor.shutdownNow();
+	}
+	
+	/**
+	 * Wait until the server stops accepting connections, either through stop() or because accepting failed
+	 * @throws IOException if accepting a connection failed
+	 * @throws InterruptedException if interrupted while waiting for the accept thread
+	 */
+	public void awaitTermination() throws IOException, InterruptedException {
+		acceptThread.join();
+		if (failure != null) {
+			throw new IOException("Accepting connections failed", failure);
+		}
+	}
+	
+	/**
+	 * Whether the server is accepting connections
+	 * @return false once stopped, or once accepting failed
+	 */
+	public boolean isRunning() {
+		return running;
+	}
+	
+	/**
+	 * Get the port the server is listening on
+	 * @return port of the server
+	 */
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+	
+	public GameRegistry getRegistry() {
+		return registry;
+	}
+	
+	/**
+	 * Accept connections until the server socket is closed
+	 * If accepting fails, the server stops and the failure is kept for awaitTermination
+	 */
+	private void acceptConnections() {
+		try {
+			while (true) {
+				Socket socket = serverSocket.accept();
+				connectionExecutor.execute(new ConnectionHandler(socket, protocol));
+			}
+		} catch (IOException e) {
+			// Closing the server socket in stop() also ends the loop, and is not a failure
+			if (!serverSocket.isClosed()) {
+				failure = e;
+				try {
+					stop();
+				} catch (IOException closeFailure) {
+					e.addSuppressed(closeFailure);
+				}
+			}
+		} finally {
+			running = false;
+		}
+	}
+	
+	/**
+	 * Create an executor running one virtual thread per connection
+	 * Virtual threads need JDK 21, older JVMs fall back to a cached pool of platform threads
+	 * @return executor for connection handlers
+	 */
+	private static ExecutorService newConnectionExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool();
+		}
+	}
+	
+	/**
+	 * Run the server from the command line
+	 * @param args	port to listen on, optionally followed by the path of a journal to recover and extend
+	 * @throws IOException if the port cannot be bound, the journal cannot be opened, or accepting connections fails
+	 * @throws InterruptedException if interrupted while serving
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : 7070;
+		GameRegistry registry;
+		if (args.length > 1) {
+			GameJournal journal = GameJournal.open(Paths.get(args[1]));
+			registry = new GameRegistry(journal);
+			System.out.println("Recovered " + registry.getGameCount() + " games from " + args[1]);
+		} else {
+			registry = new GameRegistry();
+		}
+		GameServer server = new GameServer(registry);
+		server.start(port);
+		System.out.println("Game server listening on port " + server.getPort());
+		server.awaitTermination();
+	}
+}
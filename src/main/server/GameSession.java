@@ -0,0 +1,208 @@
+package main.server;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import main.core.Board;
+import main.core.ChessModel;
+import main.core.Move;
+import main.core.Square;
+import main.exceptions.InvalidMoveException;
+import main.pieces.Piece;
+
+/**
+ * A single game hosted by the server
+ * Every call is synchronized on the session, so moves on the same game are applied one at a time
+ * while different games never wait on each other
+ * @author einar
+ *
+ */
+public class GameSession {
+	private final long gameId;
+	private final ChessModel model;
+	private final SpectatorFeed feed;
+	
+	/**
+	 * Create a session with a new game between "White" and "Black"
+	 * @param gameId			identifier of the game
+	 * @param useCustomPieces	whether the game uses the RowMover and DoubleJumper pieces
+	 */
+	public GameSession(long gameId, boolean useCustomPieces) {
+		this.gameId = gameId;
+		this.model = new ChessModel();
+		model.startGameWithNewPlayers("White", "Black", useCustomPieces);
+		this.feed = new SpectatorFeed(gameId, this::encodeBoard);
+	}
+	
+	/**
+	 * Create a session hosting an existing game, e.g. one rebuilt from a journal
+	 * @param gameId	identifier of the game
+	 * @param model		the game, with players "White" and "Black"
+	 */
+	public GameSession(long gameId, ChessModel model) {
+		this.gameId = gameId;
+		this.model = model;
+		this.feed = new SpectatorFeed(gameId, this::encodeBoard);
+	}
+	
+	/**
+	 * Move a piece for the player whose turn it is
+	 * @param startPosition		position of the piece to move, e.g. "e2"
+	 * @param endPosition		position to move the piece to, e.g. "e4"
+	 * @throws InvalidMoveException if the move is not legal
+	 */
+	public synchronized void move(String startPosition, String endPosition) throws InvalidMoveException {
+		model.move(startPosition, endPosition);
+		publishMove(model.getBoard().getLastMove());
+	}
+	
+	/**
+	 * Move a piece for the player whose turn it is
+	 * Squares are given as row-major indexes, i.e. row * number of columns + column
+	 * @param startIndex	index of the square of the piece to move
+	 * @param endIndex		index of the square to move the piece to
+	 * @throws InvalidMoveException if the move is not legal
+	 */
+	public synchronized void move(int startIndex, int endIndex) throws InvalidMoveException {
+		int numCols = model.getCols();
+		model.move(startIndex / numCols, startIndex % numCols, endIndex / numCols, endIndex % numCols);
+		publishMove(model.getBoard().getLastMove());
+	}
+	
+	/**
+	 * Subscribe to the updates of this game
+	 * The frames the listener needs to catch up are taken under the same lock as the subscription,
+	 * so every update after them reaches the listener
+	 * @param listener		receives every update published after the catch-up frames, null if already subscribed
+	 * @return the latest keyframe followed by the deltas published after it
+	 */
+	public synchronized List<ByteBuffer> watch(SpectatorFeed.Listener listener) {
+		if (listener != null) {
+			feed.addListener(listener);
+		}
+		return feed.getCatchUpFrames();
+	}
+	
+	/**
+	 * Stop sending updates of this game to the listener
+	 * @param listener	listener previously passed to watch()
+	 */
+	public void unwatch(SpectatorFeed.Listener listener) {
+		feed.removeListener(listener);
+	}
+	
+	/**
+	 * Undo the last move of the game
+	 * @return false if there was no move to undo
+	 */
+	public synchronized boolean undo() {
+		if (!model.canUndo()) {
+			return false;
+		}
+		// The undone move puts the piece back on its start square, and the captured piece on the end square
+		Move lastMove = model.getBoard().getLastMove();
+		model.undo();
+		byte capturedCode = BinaryProtocol.encodePiece(lastMove.getCapturedPiece());
+		feed.publish(getIndex(lastMove.getStartSquare()), BinaryProtocol.encodePiece(lastMove.getPiece()),
+				getIndex(lastMove.getEndSquare()), capturedCode, capturedCode);
+		return true;
+	}
+	
+	/**
+	 * Describe the state of the game in a single line: the player to move, followed by
+	 * "checkmate", "stalemate", "check" or "ongoing"
+	 * @return status of the game
+	 */
+	public synchronized String getStatus() {
+		String state;
+		if (model.isCheckmate()) {
+			state = "checkmate";
+		} else if (model.isStalemate()) {
+			state = "stalemate";
+		} else if (model.isCheck()) {
+			state = "check";
+		} else {
+			state = "ongoing";
+		}
+		return model.getCurrentPlayerName() + " " + state;
+	}
+	
+	/**
+	 * Find the positions the piece at the given position can move to
+	 * @param position	position of the piece, e.g. "b1"
+	 * @return list of positions, empty if there is no piece of the player to move at the position
+	 */
+	public synchronized List<String> getLegalMoves(String position) {
+		List<String> legalMoves = new ArrayList<String>();
+		if (position.length() != 2) {
+			return legalMoves;
+		}
+		int numRows = model.getRows();
+		int numCols = model.getCols();
+		int row = numRows - (position.charAt(1) - '0');
+		int col = position.charAt(0) - 'a';
+		if (!model.squareBelongsToCurrentPlayer(row, col)) {
+			return legalMoves;
+		}
+		for (int index : model.getAvailableLocationsForMove(row, col)) {
+			char file = (char) ('a' + index % numCols);
+			legalMoves.add("" + file + (numRows - index / numCols));
+		}
+		return legalMoves;
+	}
+	
+	/**
+	 * Get the board as a row-major string with one character per square, 'E' for empty squares
+	 * @return the board as a string
+	 */
+	public synchronized String getBoard() {
+		StringBuilder boardString = new StringBuilder();
+		for (Character square : model.getBoardStateAsArray()) {
+			boardString.append(square);
+		}
+		return boardString.toString();
+	}
+	
+	/*******************
+	 * PRIVATE METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Publish a move that was just made to the spectators
+	 * @param move	the move that was made
+	 */
+	private void publishMove(Move move) {
+		feed.publish(getIndex(move.getStartSquare()), (byte) 0,
+				getIndex(move.getEndSquare()), BinaryProtocol.encodePiece(move.getPiece()),
+				BinaryProtocol.encodePiece(move.getCapturedPiece()));
+	}
+	
+	/**
+	 * Get the piece code of every square, in row-major order
+	 * @return one piece code per square
+	 * @see BinaryProtocol#encodePiece(Piece)
+	 */
+	private byte[] encodeBoard() {
+		Board board = model.getBoard();
+		byte[] codes = new byte[board.getNumRows() * board.getNumCols()];
+		for (int row=0; row<board.getNumRows(); row++) {
+			for (int col=0; col<board.getNumCols(); col++) {
+				codes[row * board.getNumCols() + col] = BinaryProtocol.encodePiece(board.getSquare(row, col).getPiece());
+			}
+		}
+		return codes;
+	}
+	
+	/**
+	 * Get the row-major index of a square
+	 */
+	private int getIndex(Square square) {
+		return square.getRow() * model.getCols() + square.getCol();
+	}
+	
+	public long getGameId() {
+		return gameId;
+	}
+}
@@ -0,0 +1,128 @@
+package main.server;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load generator for a local game server
+ * Each connection starts its own game, and shuffles both knights back and forth,
+ * so that every request is a legal move
+ * @author einar
+ *
+ */
+public class LoadGenerator {
+	// One round of moves, which returns the board to the starting position
+	private static final String[][] KNIGHT_SHUFFLE = {
+		{ "b1", "c3" }, { "b8", "c6" }, { "c3", "b1" }, { "c6", "b8" }
+	};
+	
+	private final int port;
+	private final int connectionCount;
+	private final int roundsPerConnection;
+	
+	// Totals over all connections
+	private final AtomicLong moveCount;
+	private final AtomicLong totalLatencyNanos;
+	private final AtomicLong maxLatencyNanos;
+	private final AtomicLong errorCount;
+	
+	/**
+	 * @param port					port of the server
+	 * @param connectionCount		number of concurrent connections, each playing its own game
+	 * @param roundsPerConnection	number of knight shuffles each connection plays
+	 */
+	public LoadGenerator(int port, int connectionCount, int roundsPerConnection) {
+		this.port = port;
+		this.connectionCount = connectionCount;
+		this.roundsPerConnection = roundsPerConnection;
+		this.moveCount = new AtomicLong();
+		this.totalLatencyNanos = new AtomicLong();
+		this.maxLatencyNanos = new AtomicLong();
+		this.errorCount = new AtomicLong();
+	}
+	
+	/**
+	 * Run every connection to completion
+	 * @return elapsed time, in nanoseconds
+	 * @throws InterruptedException if interrupted while waiting for the connections
+	 */
+	public long run() throws InterruptedException {
+		long startTime = System.nanoTime();
+		Thread[] connections = new Thread[connectionCount];
+		for (int idx=0; idx<connectionCount; idx++) {
+			connections[idx] = new Thread(this::playGame, "load-generator-" + idx);
+			connections[idx].start();
+		}
+		for (Thread connection : connections) {
+			connection.join();
+		}
+		return System.nanoTime() - startTime;
+	}
+	
+	/**
+	 * Play a single game on its own connection
+	 */
+	private void playGame() {
+		try (GameClient client = new GameClient(port)) {
+			String gameId = client.newGame(false);
+			for (int round=0; round<roundsPerConnection; round++) {
+				for (String[] move : KNIGHT_SHUFFLE) {
+					long startTime = System.nanoTime();
+					String response = client.send("MOVE " + gameId + " " + move[0] + " " + move[1]);
+					long latency = System.nanoTime() - startTime;
+					
+					moveCount.incrementAndGet();
+					totalLatencyNanos.addAndGet(latency);
+					maxLatencyNanos.accumulateAndGet(latency, Math::max);
+					if (!response.equals("OK")) {
+						errorCount.incrementAndGet();
+					}
+				}
+			}
+			client.send("CLOSE " + gameId);
+		} catch (IOException e) {
+			errorCount.incrementAndGet();
+		}
+	}
+	
+	public long getMoveCount() {
+		return moveCount.get();
+	}
+	
+	public long getErrorCount() {
+		return errorCount.get();
+	}
+	
+	/**
+	 * Get the mean latency of a move request
+	 * @return mean latency, in microseconds
+	 */
+	public double getAverageLatencyMicros() {
+		long moves = moveCount.get();
+		return moves == 0 ? 0 : totalLatencyNanos.get() / 1e3 / moves;
+	}
+	
+	/**
+	 * Get the worst latency of a move request
+	 * @return maximum latency, in microseconds
+	 */
+	public double getMaxLatencyMicros() {
+		return maxLatencyNanos.get() / 1e3;
+	}
+	
+	/**
+	 * Run the load generator from the command line
+	 * @param args	port, number of connections, and rounds per connection
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : 7070;
+		int connections = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+		int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 25;
+		
+		LoadGenerator generator = new LoadGenerator(port, connections, rounds);
+		long elapsedNanos = generator.run();
+		System.out.println(String.format("%d moves, %d errors, %.0f moves/s, mean %.0f us, max %.0f us",
+				generator.getMoveCount(), generator.getErrorCount(), generator.getMoveCount() * 1e9 / elapsedNanos,
+				generator.getAverageLatencyMicros(), generator.getMaxLatencyMicros()));
+	}
+}
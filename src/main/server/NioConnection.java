@@ -0,0 +1,216 @@
+package main.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * State of a single client connection of the NIO game server
+ * Kept small, since most connections are idle spectators: buffers are only held while data is in flight
+ * @author einar
+ *
+ */
+public class NioConnection {
+	// Frames that may wait to be written before the client is considered stalled
+	public static final int MAX_PENDING_WRITES = 256;
+	
+	private final SocketChannel channel;
+	private final SelectionKey key;
+	private final BufferPool pool;
+	
+	// Bytes of a request frame that was split across reads
+	private final byte[] partialFrame;
+	private int partialLength;
+	
+	// Response buffer being filled, and frames waiting to be written, in order
+	private ByteBuffer responseBuffer;
+	private ArrayDeque<ByteBuffer> pendingWrites;
+	
+	// Games this connection watches
+	private List<Long> watchedGames;
+	
+	// Whether the connection is queued for a flush at the end of the selector iteration
+	private boolean isDirty;
+	
+	public NioConnection(SocketChannel channel, SelectionKey key, BufferPool pool) {
+		this.channel = channel;
+		this.key = key;
+		this.pool = pool;
+		this.partialFrame = new byte[BinaryProtocol.MAX_REQUEST_LENGTH];
+	}
+	
+	/*******************
+	 * PUBLIC METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Get a buffer with room for a response of the given length
+	 * Responses of all requests read in one selector iteration share a buffer, and are written together
+	 * @param length	number of bytes of the response
+	 * @return buffer to write the response into
+	 */
+	public ByteBuffer responseBuffer(int length) {
+		if (responseBuffer != null && responseBuffer.remaining() < length) {
+			queueResponseBuffer();
+		}
+		if (responseBuffer == null) {
+			responseBuffer = pool.acquire();
+		}
+		return responseBuffer;
+	}
+	
+	/**
+	 * Queue a frame that is shared with other connections
+	 * The frame is never modified, each connection writes from its own view of it
+	 * @param frame		read-only frame to write
+	 */
+	public void queueSharedFrame(ByteBuffer frame) {
+		queueResponseBuffer();
+		getPendingWrites().add(frame.duplicate());
+	}
+	
+	/**
+	 * Write as much of the queued data as the socket accepts, with a single gathering write
+	 * Write interest is only registered while data remains queued
+	 * @throws IOException if the write fails
+	 */
+	public void flush() throws IOException {
+		isDirty = false;
+		if (!key.isValid()) {
+			return;
+		}
+		queueResponseBuffer();
+		if (pendingWrites == null || pendingWrites.isEmpty()) {
+			return;
+		}
+		channel.write(pendingWrites.toArray(new ByteBuffer[pendingWrites.size()]));
+		
+		// Drop the frames that were fully written, giving pooled buffers back
+		while (!pendingWrites.isEmpty() && !pendingWrites.peek().hasRemaining()) {
+			releaseIfPooled(pendingWrites.poll());
+		}
+		if (pendingWrites.isEmpty()) {
+			pendingWrites = null;
+			key.interestOps(SelectionKey.OP_READ);
+		} else {
+			key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+		}
+	}
+	
+	/**
+	 * Whether the client has stopped reading, leaving more than MAX_PENDING_WRITES frames queued
+	 * @return true if the connection should be dropped
+	 */
+	public boolean isOverloaded() {
+		return pendingWrites != null && pendingWrites.size() > MAX_PENDING_WRITES;
+	}
+	
+	/**
+	 * Give back every buffer held by this connection, and close its channel
+	 */
+	public void close() {
+		if (responseBuffer != null) {
+			pool.release(responseBuffer);
+			responseBuffer = null;
+		}
+		if (pendingWrites != null) {
+			for (ByteBuffer buffer : pendingWrites) {
+				releaseIfPooled(buffer);
+			}
+			pendingWrites = null;
+		}
+		key.cancel();
+		try {
+			channel.close();
+		} catch (IOException e) {
+			// Nothing left to clean up
+		}
+	}
+	
+	/**
+	 * Record that this connection watches the given game
+	 * @param gameId	ID of the game
+	 */
+	public void addWatchedGame(long gameId) {
+		if (watchedGames == null) {
+			watchedGames = new ArrayList<Long>(1);
+		}
+		watchedGames.add(gameId);
+	}
+	
+	/*******************
+	 * PRIVATE METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Move the response buffer being filled to the write queue
+	 */
+	private void queueResponseBuffer() {
+		if (responseBuffer == null) {
+			return;
+		}
+		if (responseBuffer.position() == 0) {
+			pool.release(responseBuffer);
+		} else {
+			responseBuffer.flip();
+			getPendingWrites().add(responseBuffer);
+		}
+		responseBuffer = null;
+	}
+	
+	/**
+	 * Shared frames are read-only views, every writable buffer in the queue came from the pool
+	 * @param buffer	buffer that is no longer queued
+	 */
+	private void releaseIfPooled(ByteBuffer buffer) {
+		if (!buffer.isReadOnly()) {
+			pool.release(buffer);
+		}
+	}
+	
+	private ArrayDeque<ByteBuffer> getPendingWrites() {
+		if (pendingWrites == null) {
+			pendingWrites = new ArrayDeque<ByteBuffer>(4);
+		}
+		return pendingWrites;
+	}
+	
+	/*******************
+	 * GET/SET
+	 * 
+	 *******************/
+	
+	public SocketChannel getChannel() {
+		return channel;
+	}
+	
+	public byte[] getPartialFrame() {
+		return partialFrame;
+	}
+	
+	public int getPartialLength() {
+		return partialLength;
+	}
+	
+	public void setPartialLength(int partialLength) {
+		this.partialLength = partialLength;
+	}
+	
+	public List<Long> getWatchedGames() {
+		return watchedGames;
+	}
+	
+	public boolean isDirty() {
+		return isDirty;
+	}
+	
+	public void setDirty(boolean isDirty) {
+		this.isDirty = isDirty;
+	}
+}
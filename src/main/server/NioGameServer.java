@@ -0,0 +1,473 @@
+package main.server;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import main.exceptions.InvalidMoveException;
+
+/**
+ * Selector-based front-end for the game server, speaking the BinaryProtocol
+ * A single thread serves every connection, so an idle connection costs a socket and a small
+ * NioConnection object rather than a thread and its stack
+ * 
+ * Requests are executed on the selector thread, and every response and update produced in one
+ * iteration of the selector loop is written with a single gathering write per connection.
+ * A journaled change blocks until the journal is synced, which would stall every connection,
+ * so journaled registries are served by the thread-per-connection GameServer instead
+ * 
+ * Spectators receive the shared DELTA frames of a game's SpectatorFeed, whichever front-end made the move,
+ * so the server subscribes once per watched game rather than once per spectator
+ * @author einar
+ *
+ */
+public class NioGameServer implements Runnable, SpectatorFeed.Listener {
+	// Size of the pooled buffers used for reads and responses
+	private static final int BUFFER_SIZE = 4096;
+	private static final int MAX_POOLED_BUFFERS = 256;
+	
+	private static final Logger LOGGER = Logger.getLogger(NioGameServer.class.getName());
+	
+	private final GameRegistry registry;
+	private final BufferPool pool;
+	
+	// Connections watching each game, only touched by the selector thread
+	private final Map<Long, GameWatchers> watchers;
+	
+	// Updates published by the games, waiting to be sent by the selector thread
+	private final Queue<Update> updates;
+	
+	// Connections with data to write at the end of the current selector iteration
+	private final List<NioConnection> dirtyConnections;
+	
+	private Selector selector;
+	private ServerSocketChannel serverChannel;
+	private Thread selectorThread;
+	
+	// Whether the selector loop runs, and the error that ended it, if any
+	private volatile boolean running;
+	private volatile IOException failure;
+	
+	/**
+	 * @param registry	games hosted by this server, may be shared with other front-ends
+	 * @throws IllegalArgumentException if the registry is journaled
+	 */
+	public NioGameServer(GameRegistry registry) {
+		if (registry.isJournaled()) {
+			throw new IllegalArgumentException("Journaled games must be served by GameServer");
+		}
+		this.registry = registry;
+		this.pool = new BufferPool(BUFFER_SIZE, MAX_POOLED_BUFFERS);
+		this.watchers = new HashMap<Long, GameWatchers>();
+		this.updates = new ConcurrentLinkedQueue<Update>();
+		this.dirtyConnections = new ArrayList<NioConnection>();
+	}
+	
+	/*******************
+	 * PUBLIC METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Start accepting connections on the loopback interface
+	 * @param port	port to listen on, 0 to pick any free port
+	 * @throws IOException if the port cannot be bound
+	 */
+	public void start(int port) throws IOException {
+		selector = Selector.open();
+		serverChannel = ServerSocketChannel.open();
+		serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+		serverChannel.configureBlocking(false);
+		serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+		selectorThread = new Thread(this, "nio-game-server");
+		running = true;
+		selectorThread.start();
+	}
+	
+	/**
+	 * Stop the server, closing every connection
+	 * @throws IOException if the sockets cannot be closed, or the selector loop had already failed
+	 * @throws InterruptedException if interrupted while waiting for the selector thread
+	 */
+	public void stop() throws IOException, InterruptedException {
+		serverChannel.close();
+		selector.close();
+		awaitTermination();
+	}
+	
+	/**
+	 * Wait until the server stops, either through stop() or because the selector loop failed
+	 * @throws IOException if the selector loop failed
+	 * @throws InterruptedException if interrupted while waiting for the selector thread
+	 */
+	public void awaitTermination() throws IOException, InterruptedException {
+		selectorThread.join();
+		if (failure != null) {
+			throw new IOException("Selector loop failed", failure);
+		}
+	}
+	
+	/**
+	 * Whether the server is serving connections
+	 * @return false once stopped, or once the selector loop failed
+	 */
+	public boolean isRunning() {
+		return running;
+	}
+	
+	/**
+	 * Get the port the server is listening on
+	 * @return port of the server
+	 */
+	public int getPort() throws IOException {
+		return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+	}
+	
+	@Override
+	public void run() {
+		try {
+			while (selector.isOpen()) {
+				selector.select();
+				Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+				while (it.hasNext()) {
+					SelectionKey key = it.next();
+					it.remove();
+					handleKey(key);
+				}
+				dispatchUpdates();
+				flushDirtyConnections();
+			}
+		} catch (ClosedSelectorException | CancelledKeyException e) {
+			// The server was stopped
+		} catch (IOException e) {
+			failure = e;
+			closeAll();
+		} finally {
+			running = false;
+		}
+	}
+	
+	/**
+	 * Called by a watched game after every change, possibly on another front-end's thread
+	 * The update is handed to the selector thread, which sends it to the game's watchers
+	 */
+	@Override
+	public void onUpdate(long gameId, int sequence, ByteBuffer frame) {
+		updates.add(new Update(gameId, sequence, frame));
+		if (Thread.currentThread() != selectorThread) {
+			selector.wakeup();
+		}
+	}
+	
+	/*******************
+	 * PRIVATE METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Handle a single ready key
+	 * @param key	key that is ready for IO
+	 */
+	private void handleKey(SelectionKey key) {
+		if (!key.isValid()) {
+			return;
+		}
+		if (key.isAcceptable()) {
+			acceptConnection();
+			return;
+		}
+		NioConnection connection = (NioConnection) key.attachment();
+		try {
+			if (key.isReadable()) {
+				readRequests(connection);
+			}
+			if (key.isValid() && key.isWritable()) {
+				markDirty(connection);
+			}
+		} catch (IOException e) {
+			closeConnection(connection);
+		} catch (RuntimeException e) {
+			// A failure while serving one client must not stop the selector thread for the others
+			LOGGER.log(Level.WARNING, "Failed to serve a request, closing its connection", e);
+			closeConnection(connection);
+		}
+	}
+	
+	/**
+	 * Accept a pending connection and register it for reads
+	 */
+	private void acceptConnection() {
+		try {
+			SocketChannel channel = serverChannel.accept();
+			if (channel == null) {
+				return;
+			}
+			channel.configureBlocking(false);
+			channel.setOption(java.net.StandardSocketOptions.TCP_NODELAY, true);
+			SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+			key.attach(new NioConnection(channel, key, pool));
+		} catch (IOException e) {
+			// The client went away before it was accepted
+		}
+	}
+	
+	/**
+	 * Read the available bytes of a connection, and execute every complete request in them
+	 * A request split across reads is kept in the connection until the rest of it arrives
+	 * @param connection	connection that is ready for reading
+	 * @throws IOException if the read fails
+	 */
+	private void readRequests(NioConnection connection) throws IOException {
+		ByteBuffer buffer = pool.acquire();
+		try {
+			buffer.put(connection.getPartialFrame(), 0, connection.getPartialLength());
+			int bytesRead = connection.getChannel().read(buffer);
+			if (bytesRead == -1) {
+				closeConnection(connection);
+				return;
+			}
+			buffer.flip();
+			
+			while (buffer.hasRemaining()) {
+				int frameLength = BinaryProtocol.getRequestLength(buffer.get(buffer.position()));
+				if (frameLength == -1) {
+					BinaryProtocol.putResult(connection.responseBuffer(2), BinaryProtocol.STATUS_UNKNOWN_REQUEST);
+					markDirty(connection);
+					// The stream cannot be resynchronized, so the rest of the bytes read are dropped
+					buffer.position(buffer.limit());
+					break;
+				}
+				if (buffer.remaining() < frameLength) {
+					break;
+				}
+				executeRequest(connection, buffer);
+			}
+			
+			// Keep the start of an incomplete frame for the next read
+			int remaining = buffer.remaining();
+			buffer.get(connection.getPartialFrame(), 0, remaining);
+			connection.setPartialLength(remaining);
+		} finally {
+			pool.release(buffer);
+		}
+	}
+	
+	/**
+	 * Execute a single complete request frame
+	 * @param connection	connection that sent the request
+	 * @param frame			buffer positioned at the start of the frame
+	 */
+	private void executeRequest(NioConnection connection, ByteBuffer frame) {
+		byte opcode = frame.get();
+		markDirty(connection);
+		
+		if (opcode == BinaryProtocol.NEW) {
+			boolean useCustomPieces = frame.get() != 0;
+			GameSession session = registry.createGame(useCustomPieces);
+			BinaryProtocol.putGame(connection.responseBuffer(5), session.getGameId());
+			return;
+		}
+		
+		// Every other request refers to an existing game
+		GameSession session = registry.getGame(frame.getInt() & 0xFFFFFFFFL);
+		byte status = BinaryProtocol.STATUS_OK;
+		int from = 0, to = 0;
+		if (opcode == BinaryProtocol.MOVE) {
+			from = frame.get() & 0xFF;
+			to = frame.get() & 0xFF;
+		}
+		if (session == null) {
+			BinaryProtocol.putResult(connection.responseBuffer(2), BinaryProtocol.STATUS_UNKNOWN_GAME);
+			return;
+		}
+		
+		switch (opcode) {
+			case BinaryProtocol.MOVE:
+				try {
+					session.move(from, to);
+				} catch (InvalidMoveException e) {
+					status = BinaryProtocol.STATUS_INVALID_MOVE;
+				}
+				break;
+			case BinaryProtocol.UNDO:
+				if (!session.undo()) {
+					status = BinaryProtocol.STATUS_INVALID_MOVE;
+				}
+				break;
+			case BinaryProtocol.WATCH:
+				BinaryProtocol.putResult(connection.responseBuffer(2), status);
+				watch(connection, session);
+				return;
+		}
+		BinaryProtocol.putResult(connection.responseBuffer(2), status);
+	}
+	
+	/**
+	 * Subscribe a connection to the updates of a game, and send it the frames to catch up with the game
+	 * @param connection	connection that wants to watch the game
+	 * @param session		game to watch
+	 */
+	private void watch(NioConnection connection, GameSession session) {
+		GameWatchers gameWatchers = watchers.get(session.getGameId());
+		List<ByteBuffer> catchUpFrames;
+		if (gameWatchers == null) {
+			gameWatchers = new GameWatchers(session);
+			watchers.put(session.getGameId(), gameWatchers);
+			catchUpFrames = session.watch(this);
+		} else {
+			catchUpFrames = session.watch(null);
+		}
+		
+		// Updates already queued up to the last catch-up frame must not be sent again
+		int joinedAtSequence = BinaryProtocol.getSequence(catchUpFrames.get(catchUpFrames.size() - 1));
+		gameWatchers.connections.add(connection);
+		gameWatchers.joinedAtSequences.add(joinedAtSequence);
+		connection.addWatchedGame(session.getGameId());
+		
+		for (ByteBuffer frame : catchUpFrames) {
+			connection.queueSharedFrame(frame);
+		}
+	}
+	
+	/**
+	 * Send every published update to the connections watching its game
+	 * Each update is a single shared frame, queued on every watcher without copying
+	 */
+	private void dispatchUpdates() {
+		Update update;
+		while ((update = updates.poll()) != null) {
+			GameWatchers gameWatchers = watchers.get(update.gameId);
+			if (gameWatchers == null) {
+				continue;
+			}
+			for (int idx=0; idx<gameWatchers.connections.size(); idx++) {
+				if (update.sequence > gameWatchers.joinedAtSequences.get(idx)) {
+					NioConnection watcher = gameWatchers.connections.get(idx);
+					watcher.queueSharedFrame(update.frame);
+					markDirty(watcher);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Queue a connection for a flush at the end of the current selector iteration
+	 */
+	private void markDirty(NioConnection connection) {
+		if (!connection.isDirty()) {
+			connection.setDirty(true);
+			dirtyConnections.add(connection);
+		}
+	}
+	
+	/**
+	 * Write the queued data of every connection that received responses or updates
+	 * A connection whose client has stopped reading is dropped, so it cannot queue updates without bound
+	 */
+	private void flushDirtyConnections() {
+		for (NioConnection connection : dirtyConnections) {
+			try {
+				connection.flush();
+				if (connection.isOverloaded()) {
+					closeConnection(connection);
+				}
+			} catch (IOException e) {
+				closeConnection(connection);
+			}
+		}
+		dirtyConnections.clear();
+	}
+	
+	/**
+	 * Close a connection, and stop sending it updates
+	 */
+	private void closeConnection(NioConnection connection) {
+		if (connection.getWatchedGames() != null) {
+			for (long gameId : connection.getWatchedGames()) {
+				GameWatchers gameWatchers = watchers.get(gameId);
+				if (gameWatchers == null) {
+					continue;
+				}
+				int idx = gameWatchers.connections.indexOf(connection);
+				if (idx >= 0) {
+					gameWatchers.connections.remove(idx);
+					gameWatchers.joinedAtSequences.remove(idx);
+				}
+				if (gameWatchers.connections.isEmpty()) {
+					gameWatchers.session.unwatch(this);
+					watchers.remove(gameId);
+				}
+			}
+		}
+		connection.close();
+	}
+	
+	/**
+	 * Close the server socket and every connection after the selector loop failed, so clients are not left waiting
+	 */
+	private void closeAll() {
+		try {
+			for (SelectionKey key : selector.keys()) {
+				if (key.attachment() instanceof NioConnection) {
+					((NioConnection) key.attachment()).close();
+				}
+			}
+		} catch (ClosedSelectorException e) {
+			// Stopped at the same time
+		}
+		try {
+			serverChannel.close();
+			selector.close();
+		} catch (IOException e) {
+			failure.addSuppressed(e);
+		}
+	}
+	
+	/**
+	 * The connections of this server watching a single game
+	 */
+	private static class GameWatchers {
+		private final GameSession session;
+		private final List<NioConnection> connections;
+		
+		// Sequence number of the last catch-up frame sent to each connection
+		private final List<Integer> joinedAtSequences;
+		
+		private GameWatchers(GameSession session) {
+			this.session = session;
+			this.connections = new ArrayList<NioConnection>();
+			this.joinedAtSequences = new ArrayList<Integer>();
+		}
+	}
+	
+	/**
+	 * An update published by a game, waiting for the selector thread
+	 */
+	private static class Update {
+		private final long gameId;
+		private final int sequence;
+		private final ByteBuffer frame;
+		
+		private Update(long gameId, int sequence, ByteBuffer frame) {
+			this.gameId = gameId;
+			this.sequence = sequence;
+			this.frame = frame;
+		}
+	}
+}
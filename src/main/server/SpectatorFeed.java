@@ -0,0 +1,112 @@
+package main.server;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+/**
+ * The stream of updates of a single game, as seen by its spectators
+ * Every change is published as a small DELTA frame holding only the squares that changed,
+ * encoded once and shared by every subscriber
+ * 
+ * Every KEYFRAME_INTERVAL updates a full BOARD frame is encoded, so that a late joiner
+ * catches up with the latest keyframe and the few deltas published after it
+ * 
+ * Only called while holding the lock of the owning GameSession, so updates are published in sequence
+ * @author einar
+ *
+ */
+public class SpectatorFeed {
+	// Number of deltas between two keyframes
+	public static final int KEYFRAME_INTERVAL = 32;
+	
+	/**
+	 * Receives the updates of a game
+	 */
+	public interface Listener {
+		/**
+		 * Called for every delta, while the game is locked, so must not block
+		 * @param gameId		ID of the game that changed
+		 * @param sequence		sequence number of the update
+		 * @param frame			shared read-only DELTA frame, positioned at its start
+		 */
+		void onUpdate(long gameId, int sequence, ByteBuffer frame);
+	}
+	
+	private final long gameId;
+	private final Supplier<byte[]> boardEncoder;
+	private final List<Listener> listeners;
+	
+	// Sequence number of the latest update
+	private int sequence;
+	
+	// Latest keyframe, and the deltas published after it
+	private ByteBuffer keyframe;
+	private final List<ByteBuffer> deltasSinceKeyframe;
+	
+	/**
+	 * @param gameId			ID of the game
+	 * @param boardEncoder		gives the piece code of every square of the current state, only called for keyframes
+	 */
+	public SpectatorFeed(long gameId, Supplier<byte[]> boardEncoder) {
+		this.gameId = gameId;
+		this.boardEncoder = boardEncoder;
+		this.listeners = new CopyOnWriteArrayList<Listener>();
+		this.deltasSinceKeyframe = new ArrayList<ByteBuffer>(KEYFRAME_INTERVAL);
+		this.keyframe = BinaryProtocol.createBoardFrame(gameId, 0, boardEncoder.get());
+	}
+	
+	/**
+	 * Publish a change of two squares to every listener
+	 * @param firstSquare		index of the first changed square
+	 * @param firstCode			new piece code of the first square
+	 * @param secondSquare		index of the second changed square
+	 * @param secondCode		new piece code of the second square
+	 * @param capturedCode		code of the piece captured by the change, 0 if none
+	 */
+	public void publish(int firstSquare, byte firstCode, int secondSquare, byte secondCode, byte capturedCode) {
+		sequence++;
+		ByteBuffer delta = BinaryProtocol.createDeltaFrame(gameId, sequence, firstSquare, firstCode, secondSquare, secondCode, capturedCode);
+		
+		if (deltasSinceKeyframe.size() + 1 >= KEYFRAME_INTERVAL) {
+			keyframe = BinaryProtocol.createBoardFrame(gameId, sequence, boardEncoder.get());
+			deltasSinceKeyframe.clear();
+		} else {
+			deltasSinceKeyframe.add(delta);
+		}
+		
+		for (Listener listener : listeners) {
+			listener.onUpdate(gameId, sequence, delta);
+		}
+	}
+	
+	/**
+	 * Get the frames a new spectator needs to reach the current state: the latest
+	 * keyframe followed by the deltas published after it
+	 * @return shared read-only frames, in order
+	 */
+	public List<ByteBuffer> getCatchUpFrames() {
+		List<ByteBuffer> frames = new ArrayList<ByteBuffer>(deltasSinceKeyframe.size() + 1);
+		frames.add(keyframe);
+		frames.addAll(deltasSinceKeyframe);
+		return frames;
+	}
+	
+	public void addListener(Listener listener) {
+		listeners.add(listener);
+	}
+	
+	public void removeListener(Listener listener) {
+		listeners.remove(listener);
+	}
+	
+	/**
+	 * Get the sequence number of the latest update
+	 * @return sequence number, 0 before the first update
+	 */
+	public int getSequence() {
+		return sequence;
+	}
+}
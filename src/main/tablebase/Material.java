@@ -0,0 +1,172 @@
+package main.tablebase;
+
+import java.util.Arrays;
+
+import main.pieces.Piece.Color;
+import main.pieces.PieceType;
+
+/**
+ * The pieces of a tablebase: both kings, and a few other pieces for each side
+ * 
+ * Written like "KRvK" or "KQvKM", using the SAN letters of the piece types. The pieces are
+ * numbered in slots: the white king, the black king, the other white pieces, then the other
+ * black pieces, and a position is identified by the square of every slot
+ * @author einar
+ *
+ */
+public final class Material {
+	// Largest number of pieces, kings included, a tablebase can have
+	public static final int MAX_PIECES = 4;
+	
+	private final PieceType[] whitePieces;
+	private final PieceType[] blackPieces;
+	
+	/**
+	 * @param whitePieces	white pieces other than the king
+	 * @param blackPieces	black pieces other than the king
+	 */
+	public Material(PieceType[] whitePieces, PieceType[] blackPieces) {
+		if (2 + whitePieces.length + blackPieces.length > MAX_PIECES) {
+			throw new IllegalArgumentException("At most " + MAX_PIECES + " pieces are supported");
+		}
+		for (PieceType type : concat(whitePieces, blackPieces)) {
+			if (type == PieceType.KING || type == PieceType.PAWN) {
+				throw new IllegalArgumentException("Material cannot have extra kings or pawns");
+			}
+		}
+		this.whitePieces = whitePieces.clone();
+		this.blackPieces = blackPieces.clone();
+	}
+	
+	/**
+	 * Parse material written like "KRvK"
+	 * @param material	white pieces, 'v', then black pieces, each side starting with its king
+	 * @return the material
+	 * @throws IllegalArgumentException if the material is malformed or too large
+	 */
+	public static Material parse(String material) {
+		String[] sides = material.split("v");
+		if (sides.length != 2 || !sides[0].startsWith("K") || !sides[1].startsWith("K")) {
+			throw new IllegalArgumentException("Malformed material: " + material);
+		}
+		return new Material(parseSide(sides[0]), parseSide(sides[1]));
+	}
+	
+	private static PieceType[] parseSide(String side) {
+		PieceType[] types = new PieceType[side.length() - 1];
+		for (int idx=1; idx<side.length(); idx++) {
+			types[idx - 1] = PieceType.fromSanLetter(side.charAt(idx));
+			if (types[idx - 1] == null) {
+				throw new IllegalArgumentException("Unknown piece letter: " + side.charAt(idx));
+			}
+		}
+		return types;
+	}
+	
+	/**
+	 * Get the number of slots, i.e. of pieces including both kings
+	 * @return number of pieces
+	 */
+	public int getSlotCount() {
+		return 2 + whitePieces.length + blackPieces.length;
+	}
+	
+	/**
+	 * Get the type of the piece in a slot
+	 * @param slot	slot of the piece
+	 * @return type of the piece
+	 */
+	public PieceType getSlotType(int slot) {
+		if (slot < 2) {
+			return PieceType.KING;
+		}
+		slot -= 2;
+		return slot < whitePieces.length ? whitePieces[slot] : blackPieces[slot - whitePieces.length];
+	}
+	
+	/**
+	 * Get the color of the piece in a slot
+	 * @param slot	slot of the piece
+	 * @return color of the piece
+	 */
+	public Color getSlotColor(int slot) {
+		if (slot < 2) {
+			return slot == 0 ? Color.WHITE : Color.BLACK;
+		}
+		return slot - 2 < whitePieces.length ? Color.WHITE : Color.BLACK;
+	}
+	
+	/**
+	 * Get the material left after the piece in a slot is captured
+	 * @param slot	slot of a piece other than a king
+	 * @return the remaining material, whose slots keep their order
+	 */
+	public Material withoutSlot(int slot) {
+		int pieceIndex = slot - 2;
+		if (pieceIndex < whitePieces.length) {
+			return new Material(remove(whitePieces, pieceIndex), blackPieces);
+		}
+		return new Material(whitePieces, remove(blackPieces, pieceIndex - whitePieces.length));
+	}
+	
+	/**
+	 * Get the number of positions of the tablebase, one per placement of the slots and side to move
+	 * Placements with two pieces on one square are counted, and are marked invalid in the table
+	 * @return number of positions
+	 */
+	public long getPositionCount() {
+		long count = 2;
+		for (int slot=0; slot<getSlotCount(); slot++) {
+			count *= PieceGeometry.NUM_SQUARES;
+		}
+		return count;
+	}
+	
+	/**
+	 * Whether the material has any piece besides the kings
+	 * @return true if a side can still win with this material
+	 */
+	public boolean hasPieces() {
+		return getSlotCount() > 2;
+	}
+	
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof Material)) {
+			return false;
+		}
+		Material other = (Material) o;
+		return Arrays.equals(whitePieces, other.whitePieces) && Arrays.equals(blackPieces, other.blackPieces);
+	}
+	
+	@Override
+	public int hashCode() {
+		return 31 * Arrays.hashCode(whitePieces) + Arrays.hashCode(blackPieces);
+	}
+	
+	@Override
+	public String toString() {
+		StringBuilder material = new StringBuilder("K");
+		for (PieceType type : whitePieces) {
+			material.append(type.getSanLetter());
+		}
+		material.append("vK");
+		for (PieceType type : blackPieces) {
+			material.append(type.getSanLetter());
+		}
+		return material.toString();
+	}
+	
+	private static PieceType[] remove(PieceType[] types, int index) {
+		PieceType[] remaining = new PieceType[types.length - 1];
+		System.arraycopy(types, 0, remaining, 0, index);
+		System.arraycopy(types, index + 1, remaining, index, types.length - index - 1);
+		return remaining;
+	}
+	
+	private static PieceType[] concat(PieceType[] first, PieceType[] second) {
+		PieceType[] all = Arrays.copyOf(first, first.length + second.length);
+		System.arraycopy(second, 0, all, first.length, second.length);
+		return all;
+	}
+}
@@ -0,0 +1,205 @@
+package main.tablebase;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+import main.core.Board;
+import main.core.GameDirection;
+import main.core.Move;
+import main.core.Player;
+import main.core.Square;
+import main.pieces.Piece;
+import main.pieces.Piece.Color;
+import main.pieces.PieceType;
+
+/**
+ * The squares a piece type can reach from every square of an 8x8 board, as bitboards
+ * 
+ * The tables are derived by probing Board.isMoveValid on an otherwise empty board, so they
+ * follow the movement patterns of the pieces exactly, including the custom pieces. For every
+ * target the squares that must be empty on the way are recorded as a path mask
+ * 
+ * Three tables are kept per color:
+ * 	quiet		moves to an empty square
+ * 	capture		moves onto a piece of the other color
+ * 	attack		captures as Board.isCheck sees them, i.e. from the perspective of the attacked player,
+ * 				which only differs from the capture table for pieces whose moves depend on direction
+ * @author einar
+ *
+ */
+public final class PieceGeometry {
+	// Dimensions of the board the tables are computed for
+	public static final int NUM_ROWS = 8;
+	public static final int NUM_COLS = 8;
+	public static final int NUM_SQUARES = NUM_ROWS * NUM_COLS;
+	
+	private static final Map<PieceType, PieceGeometry> GEOMETRIES = new EnumMap<PieceType, PieceGeometry>(PieceType.class);
+	
+	// Targets indexed by [color][from], and path masks by [color][from][to]
+	private final long[][] quietTargets = new long[2][NUM_SQUARES];
+	private final long[][][] quietPaths = new long[2][NUM_SQUARES][NUM_SQUARES];
+	private final long[][] captureTargets = new long[2][NUM_SQUARES];
+	private final long[][][] capturePaths = new long[2][NUM_SQUARES][NUM_SQUARES];
+	private final long[][] attackTargets = new long[2][NUM_SQUARES];
+	private final long[][][] attackPaths = new long[2][NUM_SQUARES][NUM_SQUARES];
+	
+	private PieceGeometry(PieceType type) {
+		ProbeBoard probe = new ProbeBoard();
+		for (Color color : Color.values()) {
+			Color opposite = color == Color.WHITE ? Color.BLACK : Color.WHITE;
+			probe.fill(type, color, color, false, quietTargets[colorIndex(color)], quietPaths[colorIndex(color)]);
+			probe.fill(type, color, color, true, captureTargets[colorIndex(color)], capturePaths[colorIndex(color)]);
+			probe.fill(type, color, opposite, true, attackTargets[colorIndex(color)], attackPaths[colorIndex(color)]);
+		}
+	}
+	
+	/**
+	 * Get the tables of a piece type, computing them on first use
+	 * @param type	type of the piece, not a pawn since pawn moves depend on the piece's history
+	 * @return the tables of the piece type
+	 */
+	public static synchronized PieceGeometry get(PieceType type) {
+		if (type == PieceType.PAWN) {
+			throw new IllegalArgumentException("Pawn moves depend on whether the pawn has moved");
+		}
+		PieceGeometry geometry = GEOMETRIES.get(type);
+		if (geometry == null) {
+			geometry = new PieceGeometry(type);
+			GEOMETRIES.put(type, geometry);
+		}
+		return geometry;
+	}
+	
+	/**
+	 * Get the index of a color in the tables
+	 * @return 0 for white, 1 for black
+	 */
+	public static int colorIndex(Color color) {
+		return color == Color.WHITE ? 0 : 1;
+	}
+	
+	/**
+	 * Whether a piece can make a move to an empty square
+	 * @param colorIndex	index of the color of the piece
+	 * @param from			square of the piece
+	 * @param to			empty square to move to
+	 * @param occupied		bitboard of every occupied square
+	 * @return true if the move follows a movement pattern, and its path is empty
+	 */
+	public boolean canMove(int colorIndex, int from, int to, long occupied) {
+		return ((quietTargets[colorIndex][from] >>> to) & 1) != 0 && (quietPaths[colorIndex][from][to] & occupied) == 0;
+	}
+	
+	/**
+	 * Whether a piece can capture on a square
+	 * @param colorIndex	index of the color of the piece
+	 * @param from			square of the piece
+	 * @param to			square of the piece to capture
+	 * @param occupied		bitboard of every occupied square
+	 * @return true if the capture follows a movement pattern, and its path is empty
+	 */
+	public boolean canCapture(int colorIndex, int from, int to, long occupied) {
+		return ((captureTargets[colorIndex][from] >>> to) & 1) != 0 && (capturePaths[colorIndex][from][to] & occupied) == 0;
+	}
+	
+	/**
+	 * Whether a piece gives check to a king on a square, as decided by Board.isCheck
+	 * @param colorIndex	index of the color of the attacking piece
+	 * @param from			square of the attacking piece
+	 * @param to			square of the king
+	 * @param occupied		bitboard of every occupied square
+	 * @return true if the piece attacks the square
+	 */
+	public boolean attacks(int colorIndex, int from, int to, long occupied) {
+		return ((attackTargets[colorIndex][from] >>> to) & 1) != 0 && (attackPaths[colorIndex][from][to] & occupied) == 0;
+	}
+	
+	public long getQuietTargets(int colorIndex, int from) {
+		return quietTargets[colorIndex][from];
+	}
+	
+	public long getCaptureTargets(int colorIndex, int from) {
+		return captureTargets[colorIndex][from];
+	}
+	
+	/**
+	 * An empty board used to probe the movement patterns of a piece
+	 */
+	private static class ProbeBoard {
+		private final Board board;
+		private final Map<Color, Player> players;
+		
+		ProbeBoard() {
+			Player white = new Player("White", Color.WHITE, GameDirection.UPWARDS, new ArrayList<Piece>());
+			Player black = new Player("Black", Color.BLACK, GameDirection.DOWNWARDS, new ArrayList<Piece>());
+			this.board = new Board(NUM_ROWS, NUM_COLS, new HashMap<String, Piece>(), new Player[] {white, black});
+			this.players = new EnumMap<Color, Player>(Color.class);
+			players.put(Color.WHITE, white);
+			players.put(Color.BLACK, black);
+		}
+		
+		/**
+		 * Fill the targets and path masks of a piece for every square
+		 * @param type			type of the piece
+		 * @param color			color of the piece
+		 * @param perspective	color of the player whose direction the moves are seen with
+		 * @param capture		whether to probe captures, with a piece of the other color on the target
+		 */
+		void fill(PieceType type, Color color, Color perspective, boolean capture, long[] targets, long[][] paths) {
+			Piece piece = type.createPiece(color);
+			Color opposite = color == Color.WHITE ? Color.BLACK : Color.WHITE;
+			Piece victim = PieceType.ROOK.createPiece(opposite);
+			Piece blocker = PieceType.ROOK.createPiece(opposite);
+			Player player = players.get(perspective);
+			
+			for (int from=0; from<NUM_SQUARES; from++) {
+				Square fromSquare = getSquare(from);
+				fromSquare.setPiece(piece);
+				for (int to=0; to<NUM_SQUARES; to++) {
+					if (to == from) {
+						continue;
+					}
+					Square toSquare = getSquare(to);
+					if (capture) {
+						toSquare.setPiece(victim);
+					}
+					if (board.isMoveValid(new Move(fromSquare, toSquare, player))) {
+						targets[from] |= 1L << to;
+						if (!piece.canJump()) {
+							paths[from][to] = findPath(fromSquare, toSquare, player, blocker);
+						}
+					}
+					if (capture) {
+						toSquare.removePiece();
+					}
+				}
+				fromSquare.removePiece();
+			}
+		}
+		
+		/**
+		 * Find the squares that block a valid move when occupied
+		 */
+		private long findPath(Square fromSquare, Square toSquare, Player player, Piece blocker) {
+			long path = 0;
+			for (int square=0; square<NUM_SQUARES; square++) {
+				Square blockingSquare = getSquare(square);
+				if (blockingSquare == fromSquare || blockingSquare == toSquare) {
+					continue;
+				}
+				blockingSquare.setPiece(blocker);
+				if (!board.isMoveValid(new Move(fromSquare, toSquare, player))) {
+					path |= 1L << square;
+				}
+				blockingSquare.removePiece();
+			}
+			return path;
+		}
+		
+		private Square getSquare(int index) {
+			return board.getSquare(index / NUM_COLS, index % NUM_COLS);
+		}
+	}
+}
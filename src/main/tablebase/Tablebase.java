@@ -0,0 +1,236 @@
+package main.tablebase;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import main.core.Board;
+import main.core.GameDirection;
+import main.pieces.Piece;
+import main.pieces.Piece.Color;
+import main.pieces.PieceType;
+
+/**
+ * Read-only endgame tablebase of one material, memory-mapped and bit-packed
+ * 
+ * A position is indexed by the side to move and the square of every slot of the material:
+ * 	index = side * 64^n + square(slot 0) * 64^(n-1) + ... + square(slot n-1)
+ * with side 0 for white. The value of a position is its distance to mate in plies plus one,
+ * odd distances winning for the side to move and even distances losing, or DRAW if the side
+ * to move can neither force nor be forced into mate
+ * 
+ * The file, written by TablebaseGenerator, is a header followed by the values packed in
+ * little-endian 64 bit words:
+ * 	[magic 4][bits per value 1][white count 1][black count 1][piece type ordinals 4][reserved 5]
+ * @author einar
+ *
+ */
+public class Tablebase implements Closeable {
+	public static final String FILE_EXTENSION = ".ctb";
+	public static final int HEADER_LENGTH = 16;
+	
+	// Values of a position
+	public static final int NOT_FOUND = -1;
+	public static final int DRAW = 0;
+	public static final int MATED = 1;
+	public static final int WIN_IN_ONE = 2;
+	
+	static final int MAGIC = 0x31425443; // "CTB1" read little-endian
+	static final int SQUARE_BITS = 6;
+	static final int SQUARE_MASK = (1 << SQUARE_BITS) - 1;
+	private static final int TYPE_BYTES = 4;
+	private static final int NO_TYPE = 0xFF;
+	
+	private final FileChannel channel;
+	private final MappedByteBuffer buffer;
+	private final Material material;
+	private final int bitsPerValue;
+	private final long valueMask;
+	
+	private Tablebase(FileChannel channel) throws IOException {
+		this.channel = channel;
+		this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		if (channel.size() < HEADER_LENGTH || buffer.getInt(0) != MAGIC) {
+			throw new IOException("Not a tablebase file");
+		}
+		this.bitsPerValue = buffer.get(4);
+		this.valueMask = (1L << bitsPerValue) - 1;
+		PieceType[] whitePieces = readTypes(7, buffer.get(5));
+		PieceType[] blackPieces = readTypes(7 + whitePieces.length, buffer.get(6));
+		this.material = new Material(whitePieces, blackPieces);
+		long expectedLength = HEADER_LENGTH + 8 * ((material.getPositionCount() * bitsPerValue + 63) / 64 + 1);
+		if (channel.size() < expectedLength) {
+			throw new IOException("Truncated tablebase file for " + material);
+		}
+	}
+	
+	/**
+	 * Open a tablebase for lookups
+	 * @param file	path of the tablebase file
+	 * @return the tablebase
+	 * @throws IOException if the file cannot be mapped or is not a tablebase
+	 */
+	public static Tablebase open(Path file) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			return new Tablebase(channel);
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+	
+	/*******************
+	 * PUBLIC METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Get the material of the positions in this tablebase
+	 * @return material of the tablebase
+	 */
+	public Material getMaterial() {
+		return material;
+	}
+	
+	/**
+	 * Look up a position
+	 * @param sideToMove	color of the player to move
+	 * @param squares		square index (row * 8 + col) of every slot of the material
+	 * @return value of the position, DRAW for positions that cannot occur
+	 */
+	public int probe(Color sideToMove, int[] squares) {
+		long index = sideToMove == Color.WHITE ? 0 : 1;
+		for (int square : squares) {
+			index = (index << SQUARE_BITS) | square;
+		}
+		long bit = index * bitsPerValue;
+		int offset = HEADER_LENGTH + (int) (bit >>> 6) * 8;
+		int shift = (int) (bit & 63);
+		long value = buffer.getLong(offset) >>> shift;
+		if (shift + bitsPerValue > 64) {
+			value |= buffer.getLong(offset + 8) << (64 - shift);
+		}
+		return (int) (value & valueMask);
+	}
+	
+	/**
+	 * Look up the current position of a board
+	 * @param board			8x8 board in the position to look up, with white moving UPWARDS as when generated
+	 * @param sideToMove	color of the player to move
+	 * @return value of the position, or NOT_FOUND if the pieces on the board are not the material of this tablebase
+	 */
+	public int probe(Board board, Color sideToMove) {
+		if (board.getNumRows() != PieceGeometry.NUM_ROWS || board.getNumCols() != PieceGeometry.NUM_COLS
+				|| board.getPlayer(Color.WHITE).getDirection() != GameDirection.UPWARDS) {
+			return NOT_FOUND;
+		}
+		int[] squares = new int[material.getSlotCount()];
+		boolean[] filled = new boolean[squares.length];
+		for (int row=0; row<PieceGeometry.NUM_ROWS; row++) {
+			for (int col=0; col<PieceGeometry.NUM_COLS; col++) {
+				Piece piece = board.getSquare(row, col).getPiece();
+				if (piece == null) {
+					continue;
+				}
+				int slot = findFreeSlot(piece, filled);
+				if (slot < 0) {
+					return NOT_FOUND;
+				}
+				filled[slot] = true;
+				squares[slot] = row * PieceGeometry.NUM_COLS + col;
+			}
+		}
+		for (boolean slotFilled : filled) {
+			if (!slotFilled) {
+				return NOT_FOUND;
+			}
+		}
+		return probe(sideToMove, squares);
+	}
+	
+	/**
+	 * Whether a value is a forced win for the side to move
+	 */
+	public static boolean isWin(int value) {
+		return value > DRAW && (value - 1) % 2 == 1;
+	}
+	
+	/**
+	 * Whether a value is a forced loss for the side to move
+	 */
+	public static boolean isLoss(int value) {
+		return value > DRAW && (value - 1) % 2 == 0;
+	}
+	
+	/**
+	 * Get the number of plies until mate of a won or lost value
+	 */
+	public static int getDistance(int value) {
+		return value - 1;
+	}
+	
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+	
+	/*******************
+	 * PRIVATE METHODS
+	 * 
+	 *******************/
+	
+	private int findFreeSlot(Piece piece, boolean[] filled) {
+		for (int slot=0; slot<filled.length; slot++) {
+			if (!filled[slot] && material.getSlotType(slot) == piece.getType() && material.getSlotColor(slot) == piece.getColor()) {
+				return slot;
+			}
+		}
+		return -1;
+	}
+	
+	private PieceType[] readTypes(int offset, int count) throws IOException {
+		if (count < 0 || offset + count > 7 + TYPE_BYTES) {
+			throw new IOException("Corrupt tablebase header");
+		}
+		PieceType[] types = new PieceType[count];
+		for (int idx=0; idx<count; idx++) {
+			int ordinal = buffer.get(offset + idx) & 0xFF;
+			if (ordinal >= PieceType.values().length) {
+				throw new IOException("Corrupt tablebase header");
+			}
+			types[idx] = PieceType.values()[ordinal];
+		}
+		return types;
+	}
+	
+	/**
+	 * Write the header of a tablebase file
+	 */
+	static void putHeader(ByteBuffer buffer, Material material, int bitsPerValue) {
+		buffer.putInt(MAGIC);
+		buffer.put((byte) bitsPerValue);
+		int whiteCount = 0;
+		int blackCount = 0;
+		for (int slot=2; slot<material.getSlotCount(); slot++) {
+			if (material.getSlotColor(slot) == Color.WHITE) {
+				whiteCount++;
+			} else {
+				blackCount++;
+			}
+		}
+		buffer.put((byte) whiteCount);
+		buffer.put((byte) blackCount);
+		for (int idx=0; idx<TYPE_BYTES; idx++) {
+			int slot = idx + 2;
+			buffer.put((byte) (slot < material.getSlotCount() ? material.getSlotType(slot).ordinal() : NO_TYPE));
+		}
+		buffer.put(new byte[HEADER_LENGTH - 7 - TYPE_BYTES]);
+	}
+}
@@ -0,0 +1,484 @@
+package main.tablebase;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Offline generator of endgame tablebases, by retrograde analysis
+ * 
+ * Every position of a material is enumerated by index (see Tablebase). Mates and stalemates are
+ * found first, then values are propagated backwards from them one ply per pass: a position is
+ * won in n plies if a move reaches a position lost in n-1 plies, and lost in n plies if every
+ * move reaches a position won in at most n-1 plies. Captures lead into the tablebase of the
+ * remaining material, which is generated first
+ * 
+ * Each pass runs in parallel over ranges of indexes. A pass only writes values for its own ply
+ * and only reads values of earlier plies, so the ranges can be updated in place
+ * @author einar
+ *
+ */
+public class TablebaseGenerator {
+	// Value of an invalid position while generating: two pieces on a square, or the side not to move in check
+	static final byte INVALID = (byte) 0xFF;
+	
+	// Largest distance to mate a table can hold, so that every value fits in a byte
+	static final int MAX_DISTANCE = 253;
+	
+	// Number of index ranges per thread, so that fast ranges do not leave threads idle
+	private static final int RANGES_PER_THREAD = 8;
+	
+	private final int threadCount;
+	private final Map<Material, byte[]> tables;
+	
+	/**
+	 * @param threadCount	number of threads each pass runs on
+	 */
+	public TablebaseGenerator(int threadCount) {
+		this.threadCount = threadCount;
+		this.tables = new HashMap<Material, byte[]>();
+	}
+	
+	/*******************
+	 * PUBLIC METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Generate the table of a material, and the tables of every material it can be reduced to by captures
+	 * @param material	material of the table
+	 * @return one value per position index, see Tablebase for the encoding
+	 * @throws InterruptedException if interrupted while waiting for a pass
+	 */
+	public byte[] generate(Material material) throws InterruptedException {
+		byte[] table = tables.get(material);
+		if (table != null) {
+			return table;
+		}
+		
+		// Tables reached by captures are needed first
+		byte[][] subtables = new byte[material.getSlotCount()][];
+		for (int slot=2; slot<material.getSlotCount(); slot++) {
+			subtables[slot] = generate(material.withoutSlot(slot));
+		}
+		
+		Solver solver = new Solver(material, subtables);
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		try {
+			runPass(executor, solver, 0);
+			int maxSubtableDistance = solver.getMaxSubtableDistance();
+			for (int ply=1; ; ply++) {
+				if (ply > MAX_DISTANCE) {
+					throw new IllegalStateException(material + " has mates longer than " + MAX_DISTANCE + " plies");
+				}
+				int decided = runPass(executor, solver, ply);
+				if (decided == 0 && ply > maxSubtableDistance + 1) {
+					break;
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+		tables.put(material, solver.getValues());
+		return solver.getValues();
+	}
+	
+	/**
+	 * Generate the table of a material, and write it in the bit-packed format read by Tablebase
+	 * @param material	material of the table
+	 * @param file		path of the file to write
+	 * @throws IOException if the file cannot be written
+	 * @throws InterruptedException if interrupted while generating
+	 */
+	public void write(Material material, Path file) throws IOException, InterruptedException {
+		byte[] values = generate(material);
+		int maxValue = 1;
+		for (byte value : values) {
+			if (value != INVALID) {
+				maxValue = Math.max(maxValue, value & 0xFF);
+			}
+		}
+		int bitsPerEntry = 32 - Integer.numberOfLeadingZeros(maxValue);
+		
+		// One extra word, so that reading an entry never needs a bounds check
+		long[] words = new long[(int) (((long) values.length * bitsPerEntry + 63) / 64) + 1];
+		for (int index=0; index<values.length; index++) {
+			long value = values[index] == INVALID ? Tablebase.DRAW : values[index] & 0xFF;
+			long bit = (long) index * bitsPerEntry;
+			int word = (int) (bit >>> 6);
+			int shift = (int) (bit & 63);
+			words[word] |= value << shift;
+			if (shift + bitsPerEntry > 64) {
+				words[word + 1] |= value >>> (64 - shift);
+			}
+		}
+		
+		ByteBuffer buffer = ByteBuffer.allocate(Tablebase.HEADER_LENGTH + words.length * 8).order(ByteOrder.LITTLE_ENDIAN);
+		Tablebase.putHeader(buffer, material, bitsPerEntry);
+		for (long word : words) {
+			buffer.putLong(word);
+		}
+		buffer.flip();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+	}
+	
+	/*******************
+	 * PRIVATE METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Run one pass over every index range
+	 * @param ply	ply of the pass, 0 for finding mates and stalemates
+	 * @return number of positions decided by the pass
+	 */
+	private int runPass(ExecutorService executor, Solver solver, int ply) throws InterruptedException {
+		int positionCount = solver.getValues().length;
+		int rangeCount = threadCount * RANGES_PER_THREAD;
+		int rangeLength = (positionCount + rangeCount - 1) / rangeCount;
+		
+		List<Callable<Integer>> ranges = new ArrayList<Callable<Integer>>(rangeCount);
+		for (int start=0; start<positionCount; start+=rangeLength) {
+			int from = start;
+			int to = Math.min(positionCount, start + rangeLength);
+			ranges.add(() -> ply == 0 ? solver.initialize(from, to) : solver.propagate(ply, from, to));
+		}
+		
+		int decided = 0;
+		try {
+			for (Future<Integer> range : executor.invokeAll(ranges)) {
+				decided += range.get();
+			}
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Tablebase pass failed", e.getCause());
+		}
+		return decided;
+	}
+	
+	/**
+	 * Generate tablebases from the command line
+	 * @param args	output directory, followed by one or more materials, e.g. KRvK KQvK KMJvK
+	 * @throws Exception if a table cannot be generated or written
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length < 2) {
+			System.err.println("Usage: TablebaseGenerator <output directory> <material>...");
+			return;
+		}
+		TablebaseGenerator generator = new TablebaseGenerator(Runtime.getRuntime().availableProcessors());
+		for (int idx=1; idx<args.length; idx++) {
+			Material material = Material.parse(args[idx]);
+			long startTime = System.nanoTime();
+			Path file = Paths.get(args[0], material + Tablebase.FILE_EXTENSION);
+			generator.write(material, file);
+			System.out.println("Wrote " + file + " in " + (System.nanoTime() - startTime) / 1000000 + " ms");
+		}
+	}
+	
+	/**
+	 * Move generation and value propagation for the table of one material
+	 * Thread-safe: every call works on its own scratch arrays, and only writes the indexes of its range
+	 */
+	private static class Solver {
+		private final Material material;
+		private final int slotCount;
+		private final byte[] values;
+		private final byte[][] subtables;
+		private final PieceGeometry[] geometries;
+		private final int[] colorIndexes;
+		
+		// Bit of the side to move in an index, and shift of the square of every slot
+		private final int sideBit;
+		private final int[] shifts;
+		
+		Solver(Material material, byte[][] subtables) {
+			this.material = material;
+			this.slotCount = material.getSlotCount();
+			this.values = new byte[(int) material.getPositionCount()];
+			this.subtables = subtables;
+			this.geometries = new PieceGeometry[slotCount];
+			this.colorIndexes = new int[slotCount];
+			this.shifts = new int[slotCount];
+			for (int slot=0; slot<slotCount; slot++) {
+				geometries[slot] = PieceGeometry.get(material.getSlotType(slot));
+				colorIndexes[slot] = PieceGeometry.colorIndex(material.getSlotColor(slot));
+				shifts[slot] = Tablebase.SQUARE_BITS * (slotCount - 1 - slot);
+			}
+			this.sideBit = 1 << (Tablebase.SQUARE_BITS * slotCount);
+		}
+		
+		byte[] getValues() {
+			return values;
+		}
+		
+		/**
+		 * Get the longest distance to mate of the tables reached by captures
+		 */
+		int getMaxSubtableDistance() {
+			int maxDistance = 0;
+			for (byte[] subtable : subtables) {
+				if (subtable == null) {
+					continue;
+				}
+				for (byte value : subtable) {
+					if (value != INVALID && value != Tablebase.DRAW) {
+						maxDistance = Math.max(maxDistance, (value & 0xFF) - 1);
+					}
+				}
+			}
+			return maxDistance;
+		}
+		
+		/**
+		 * Mark invalid positions, mates, and positions where the enemy king can be captured
+		 * @return number of positions decided
+		 */
+		int initialize(int from, int to) {
+			int[] squares = new int[slotCount];
+			int decided = 0;
+			for (int index=from; index<to; index++) {
+				int side = decode(index, squares);
+				if (!isValid(squares, side)) {
+					values[index] = INVALID;
+					continue;
+				}
+				Successors successors = new Successors(squares, side);
+				boolean hasMove = false;
+				while (successors.next()) {
+					hasMove = true;
+					if (successors.capturesKing) {
+						values[index] = Tablebase.WIN_IN_ONE;
+						decided++;
+						break;
+					}
+				}
+				if (!hasMove && isAttacked(squares, side, squares[side], -1, -1, 0)) {
+					values[index] = Tablebase.MATED;
+					decided++;
+				}
+			}
+			return decided;
+		}
+		
+		/**
+		 * Decide the positions won or lost in exactly the given number of plies
+		 * @return number of positions decided
+		 */
+		int propagate(int ply, int from, int to) {
+			int[] squares = new int[slotCount];
+			int decided = 0;
+			for (int index=from; index<to; index++) {
+				if (values[index] != Tablebase.DRAW) {
+					continue;
+				}
+				int side = decode(index, squares);
+				Successors successors = new Successors(squares, side);
+				boolean hasMove = false;
+				boolean allLostForUs = true;
+				boolean winning = false;
+				while (successors.next()) {
+					hasMove = true;
+					int value = successors.getValue(index);
+					int distance = value - 1;
+					if (value == Tablebase.DRAW) {
+						allLostForUs = false;
+					} else if (distance % 2 == 0) {
+						// The opponent is mated in an even number of plies
+						if (distance <= ply - 1) {
+							winning = true;
+							break;
+						}
+						allLostForUs = false;
+					} else if (distance > ply - 1) {
+						allLostForUs = false;
+					}
+				}
+				if (winning || (hasMove && allLostForUs)) {
+					values[index] = (byte) (ply + 1);
+					decided++;
+				}
+			}
+			return decided;
+		}
+		
+		/**
+		 * Decode an index into the squares of the slots
+		 * @return side to move, 0 for white and 1 for black
+		 */
+		private int decode(int index, int[] squares) {
+			for (int slot=0; slot<slotCount; slot++) {
+				squares[slot] = (index >>> shifts[slot]) & Tablebase.SQUARE_MASK;
+			}
+			return (index & sideBit) != 0 ? 1 : 0;
+		}
+		
+		/**
+		 * Whether no two pieces share a square, and the side not to move is not in check
+		 */
+		private boolean isValid(int[] squares, int side) {
+			long occupied = 0;
+			for (int slot=0; slot<slotCount; slot++) {
+				long bit = 1L << squares[slot];
+				if ((occupied & bit) != 0) {
+					return false;
+				}
+				occupied |= bit;
+			}
+			return !isAttacked(squares, 1 - side, squares[1 - side], -1, -1, 0);
+		}
+		
+		/**
+		 * Whether the king of a side is attacked, after an optional move of one slot
+		 * @param squares		squares of the slots before the move
+		 * @param side			side whose king is tested
+		 * @param kingSquare	square of the king, after the move
+		 * @param movedSlot		slot that moved, -1 if none
+		 * @param capturedSlot	slot that was captured by the move, -1 if none
+		 * @param movedTo		square the moved slot moved to
+		 */
+		private boolean isAttacked(int[] squares, int side, int kingSquare, int movedSlot, int capturedSlot, int movedTo) {
+			long occupied = 0;
+			for (int slot=0; slot<slotCount; slot++) {
+				if (slot != capturedSlot) {
+					occupied |= 1L << (slot == movedSlot ? movedTo : squares[slot]);
+				}
+			}
+			for (int slot=0; slot<slotCount; slot++) {
+				if (colorIndexes[slot] == side || slot == capturedSlot) {
+					continue;
+				}
+				int square = slot == movedSlot ? movedTo : squares[slot];
+				if (geometries[slot].attacks(colorIndexes[slot], square, kingSquare, occupied)) {
+					return true;
+				}
+			}
+			return false;
+		}
+		
+		/**
+		 * Iterator over the legal moves of a position
+		 */
+		private class Successors {
+			private final int[] squares;
+			private final int side;
+			private final long occupied;
+			private int slot;
+			private long targets;
+			private boolean quiet;
+			
+			// Current move
+			private int movedTo;
+			private int capturedSlot;
+			private boolean capturesKing;
+			
+			Successors(int[] squares, int side) {
+				this.squares = squares;
+				this.side = side;
+				long occupied = 0;
+				for (int square : squares) {
+					occupied |= 1L << square;
+				}
+				this.occupied = occupied;
+				this.slot = -1;
+			}
+			
+			/**
+			 * Advance to the next legal move
+			 * @return false if there are no more moves
+			 */
+			boolean next() {
+				while (true) {
+					while (targets == 0) {
+						if (quiet) {
+							// Quiet moves of the slot are done, continue with its captures
+							quiet = false;
+							targets = geometries[slot].getCaptureTargets(side, squares[slot]) & occupied;
+							continue;
+						}
+						do {
+							slot++;
+							if (slot == slotCount) {
+								return false;
+							}
+						} while (colorIndexes[slot] != side);
+						quiet = true;
+						targets = geometries[slot].getQuietTargets(side, squares[slot]) & ~occupied;
+					}
+					movedTo = Long.numberOfTrailingZeros(targets);
+					targets &= targets - 1;
+					if (quiet ? accept(-1) : acceptCapture()) {
+						return true;
+					}
+				}
+			}
+			
+			private boolean acceptCapture() {
+				for (int victim=0; victim<slotCount; victim++) {
+					if (squares[victim] == movedTo) {
+						return colorIndexes[victim] != side && accept(victim);
+					}
+				}
+				return false;
+			}
+			
+			/**
+			 * Check the path of the current move, and that it does not leave the own king attacked
+			 */
+			private boolean accept(int victim) {
+				boolean pathClear = victim < 0
+						? geometries[slot].canMove(side, squares[slot], movedTo, occupied)
+						: geometries[slot].canCapture(side, squares[slot], movedTo, occupied);
+				if (!pathClear) {
+					return false;
+				}
+				capturedSlot = victim;
+				capturesKing = victim == 1 - side;
+				int kingSquare = slot == side ? movedTo : squares[side];
+				return capturesKing || !isAttacked(squares, side, kingSquare, slot, victim, movedTo);
+			}
+			
+			/**
+			 * Get the value of the position after the current move, for the side then to move
+			 * @param index		index of the position before the move
+			 */
+			int getValue(int index) {
+				if (capturesKing) {
+					return Tablebase.MATED;
+				}
+				if (capturedSlot < 0) {
+					int successor = (index ^ sideBit) - (squares[slot] << shifts[slot]) + (movedTo << shifts[slot]);
+					return values[successor] & 0xFF;
+				}
+				
+				// Index the remaining slots in the table of the remaining material
+				int successor = 0;
+				for (int other=0; other<slotCount; other++) {
+					if (other != capturedSlot) {
+						successor = (successor << Tablebase.SQUARE_BITS) | (other == slot ? movedTo : squares[other]);
+					}
+				}
+				if (side == 0) {
+					successor |= 1 << (Tablebase.SQUARE_BITS * (slotCount - 1));
+				}
+				return subtables[capturedSlot][successor] & 0xFF;
+			}
+		}
+	}
+}
@@ -0,0 +1,104 @@
+package main.tablebase;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import main.core.Board;
+import main.pieces.Piece.Color;
+
+/**
+ * The tablebases available to the engine, probed by the search once few enough pieces are left
+ * 
+ * Lookups only read the memory-mapped tables, so one set can be probed by several searches at once
+ * @author einar
+ * 
+ */
+public class Tablebases implements Closeable {
+	private final List<Tablebase> tablebases;
+	
+	/**
+	 * @param tablebases	open tablebases, closed with this set
+	 */
+	public Tablebases(List<Tablebase> tablebases) {
+		this.tablebases = new ArrayList<Tablebase>(tablebases);
+	}
+	
+	/**
+	 * Open every tablebase file of a directory, as written by TablebaseGenerator
+	 * @param directory		directory holding the tablebase files
+	 * @return the tablebases
+	 * @throws IOException if the directory cannot be listed, or a file is not a tablebase
+	 */
+	public static Tablebases open(Path directory) throws IOException {
+		List<Tablebase> tablebases = new ArrayList<Tablebase>();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + Tablebase.FILE_EXTENSION)) {
+			for (Path file : files) {
+				tablebases.add(Tablebase.open(file));
+			}
+		} catch (IOException e) {
+			for (Tablebase tablebase : tablebases) {
+				tablebase.close();
+			}
+			throw e;
+		}
+		return new Tablebases(tablebases);
+	}
+	
+	/*******************
+	 * PUBLIC METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Look up the current position of a board in the tablebase of its material
+	 * @param board			board in the position to look up
+	 * @param sideToMove	color of the player to move
+	 * @return value of the position, or Tablebase.NOT_FOUND if no tablebase has its material
+	 */
+	public int probe(Board board, Color sideToMove) {
+		int pieceCount = board.getPlayer(Color.WHITE).getAvailablePieces().size()
+				+ board.getPlayer(Color.BLACK).getAvailablePieces().size();
+		if (pieceCount > Material.MAX_PIECES) {
+			return Tablebase.NOT_FOUND;
+		}
+		for (int idx=0; idx<tablebases.size(); idx++) {
+			Tablebase tablebase = tablebases.get(idx);
+			if (tablebase.getMaterial().getSlotCount() != pieceCount) {
+				continue;
+			}
+			int value = tablebase.probe(board, sideToMove);
+			if (value != Tablebase.NOT_FOUND) {
+				return value;
+			}
+		}
+		return Tablebase.NOT_FOUND;
+	}
+	
+	/**
+	 * Get the number of tablebases in the set
+	 * @return number of tablebases
+	 */
+	public int size() {
+		return tablebases.size();
+	}
+	
+	@Override
+	public void close() throws IOException {
+		IOException failure = null;
+		for (Tablebase tablebase : tablebases) {
+			try {
+				tablebase.close();
+			} catch (IOException e) {
+				failure = e;
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+}
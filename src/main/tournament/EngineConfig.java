@@ -0,0 +1,40 @@
+package main.tournament;
+
+/**
+ * Settings of an engine taking part in a tournament
+ * @author einar
+ *
+ */
+public class EngineConfig {
+	private final String name;
+	private final int maxDepth;
+	private final long moveTimeMillis;
+	
+	/**
+	 * @param name				name shown in reports
+	 * @param maxDepth			deepest iteration of the search
+	 * @param moveTimeMillis	time the search may spend on a move
+	 */
+	public EngineConfig(String name, int maxDepth, long moveTimeMillis) {
+		this.name = name;
+		this.maxDepth = maxDepth;
+		this.moveTimeMillis = moveTimeMillis;
+	}
+	
+	public String getName() {
+		return name;
+	}
+	
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+	
+	public long getMoveTimeMillis() {
+		return moveTimeMillis;
+	}
+	
+	@Override
+	public String toString() {
+		return name + " (depth " + maxDepth + ", " + moveTimeMillis + " ms/move)";
+	}
+}
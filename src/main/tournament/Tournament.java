@@ -0,0 +1,214 @@
+package main.tournament;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import main.core.Board;
+import main.core.ChessModel;
+import main.core.Move;
+import main.core.Player;
+import main.engine.MoveGenerator;
+import main.engine.SearchResult;
+import main.engine.Searcher;
+import main.exceptions.InvalidMoveException;
+import main.pieces.PieceType;
+import main.pieces.Piece.Color;
+
+/**
+ * Headless self-play tournament between two engine configurations
+ * 
+ * Every game is played on its own ChessModel, and games run in parallel on a thread pool.
+ * Games are played in pairs from the same random opening, once with each engine as white,
+ * so that an unbalanced opening favours neither engine. Games that reach the ply limit are
+ * scored as draws
+ * @author einar
+ *
+ */
+public class Tournament {
+	public static final int DEFAULT_OPENING_PLIES = 4;
+	public static final int DEFAULT_MAX_PLIES = 200;
+	
+	// Outcomes of a game, for the first engine
+	private static final int WIN = 1;
+	private static final int DRAW = 0;
+	private static final int LOSS = -1;
+	
+	private final EngineConfig first;
+	private final EngineConfig second;
+	private final int gameCount;
+	private final int threadCount;
+	private final int openingPlies;
+	private final int maxPlies;
+	private final boolean useCustomPieces;
+	private final long seed;
+	
+	/**
+	 * @param first				first engine, whose point of view the result takes
+	 * @param second			second engine
+	 * @param gameCount			number of games to play
+	 * @param threadCount		number of games played at the same time
+	 */
+	public Tournament(EngineConfig first, EngineConfig second, int gameCount, int threadCount) {
+		this(first, second, gameCount, threadCount, DEFAULT_OPENING_PLIES, DEFAULT_MAX_PLIES, false, System.nanoTime());
+	}
+	
+	/**
+	 * @param first				first engine, whose point of view the result takes
+	 * @param second			second engine
+	 * @param gameCount			number of games to play
+	 * @param threadCount		number of games played at the same time
+	 * @param openingPlies		number of random plies played before the engines take over
+	 * @param maxPlies			ply limit after which a game is drawn
+	 * @param useCustomPieces	whether games start from the custom pieces layout
+	 * @param seed				seed of the random openings
+	 */
+	public Tournament(EngineConfig first, EngineConfig second, int gameCount, int threadCount,
+			int openingPlies, int maxPlies, boolean useCustomPieces, long seed) {
+		this.first = first;
+		this.second = second;
+		this.gameCount = gameCount;
+		this.threadCount = threadCount;
+		this.openingPlies = openingPlies;
+		this.maxPlies = maxPlies;
+		this.useCustomPieces = useCustomPieces;
+		this.seed = seed;
+	}
+	
+	/*******************
+	 * PUBLIC METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Play every game of the tournament
+	 * @return the result, from the point of view of the first engine
+	 * @throws InterruptedException if interrupted while waiting for the games
+	 */
+	public TournamentResult run() throws InterruptedException {
+		long startTime = System.nanoTime();
+		List<Callable<Integer>> games = new ArrayList<Callable<Integer>>(gameCount);
+		for (int game=0; game<gameCount; game++) {
+			int gameIndex = game;
+			games.add(() -> playGame(gameIndex));
+		}
+		
+		int wins = 0, draws = 0, losses = 0;
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		try {
+			for (Future<Integer> game : executor.invokeAll(games)) {
+				int outcome = game.get();
+				if (outcome == WIN) {
+					wins++;
+				} else if (outcome == LOSS) {
+					losses++;
+				} else {
+					draws++;
+				}
+			}
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Tournament game failed", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+		return new TournamentResult(wins, draws, losses, System.nanoTime() - startTime);
+	}
+	
+	/**
+	 * Run a tournament from the command line
+	 * @param args	games, threads, then depth and milliseconds per move of each engine
+	 * @throws InterruptedException if interrupted while waiting for the games
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		if (args.length < 6) {
+			System.err.println("Usage: Tournament <games> <threads> <depth A> <ms/move A> <depth B> <ms/move B> [custom]");
+			return;
+		}
+		EngineConfig first = new EngineConfig("A", Integer.parseInt(args[2]), Long.parseLong(args[3]));
+		EngineConfig second = new EngineConfig("B", Integer.parseInt(args[4]), Long.parseLong(args[5]));
+		boolean useCustomPieces = args.length > 6 && args[6].equals("custom");
+		Tournament tournament = new Tournament(first, second, Integer.parseInt(args[0]), Integer.parseInt(args[1]),
+				DEFAULT_OPENING_PLIES, DEFAULT_MAX_PLIES, useCustomPieces, System.nanoTime());
+		System.out.println(first + " vs " + second);
+		System.out.println(tournament.run());
+	}
+	
+	/*******************
+	 * PRIVATE METHODS
+	 * 
+	 *******************/
+	
+	/**
+	 * Play one game; the first engine is white in even games and black in odd games
+	 * @return outcome for the first engine
+	 */
+	private int playGame(int gameIndex) throws InvalidMoveException {
+		ChessModel model = new ChessModel("White", "Black");
+		if (useCustomPieces) {
+			model.startGameWithNewPlayers("White", "Black", true);
+		}
+		Board board = model.getBoard();
+		boolean firstIsWhite = gameIndex % 2 == 0;
+		
+		// Both games of a pair share their opening
+		Random random = new Random(seed + gameIndex / 2);
+		for (int ply=0; ply<openingPlies; ply++) {
+			Move move = pickRandomMove(board, board.getPlayer(model.getCurrentPlayerColor()), random);
+			if (move == null) {
+				break;
+			}
+			model.move(move.getStartRow(), move.getStartCol(), move.getEndRow(), move.getEndCol());
+		}
+		
+		Searcher[] searchers = { new Searcher(board), new Searcher(board) };
+		EngineConfig[] engines = firstIsWhite ? new EngineConfig[] { first, second } : new EngineConfig[] { second, first };
+		for (int ply=0; ply<maxPlies; ply++) {
+			Player player = board.getPlayer(model.getCurrentPlayerColor());
+			int side = player.getColor() == Color.WHITE ? 0 : 1;
+			EngineConfig engine = engines[side];
+			long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(engine.getMoveTimeMillis());
+			SearchResult result = searchers[side].searchUntil(player, engine.getMaxDepth(), () -> System.nanoTime() - deadline >= 0);
+			
+			Move move = result.getBestMove();
+			if (move == null) {
+				// Mated or stalemated
+				return board.isCheck(player) ? getOutcome(side == 1, firstIsWhite) : DRAW;
+			}
+			boolean capturesKing = move.isCaptureMove() && move.getCapturedPiece().getType() == PieceType.KING;
+			model.move(move.getStartRow(), move.getStartCol(), move.getEndRow(), move.getEndCol());
+			if (capturesKing) {
+				return getOutcome(side == 0, firstIsWhite);
+			}
+		}
+		return DRAW;
+	}
+	
+	/**
+	 * Get the outcome for the first engine of a decisive game
+	 */
+	private static int getOutcome(boolean whiteWon, boolean firstIsWhite) {
+		return whiteWon == firstIsWhite ? WIN : LOSS;
+	}
+	
+	/**
+	 * Pick a legal move at random
+	 * @return the move, or null if the player has no legal move
+	 */
+	private static Move pickRandomMove(Board board, Player player, Random random) {
+		List<Move> moves = new MoveGenerator(board).generateMoves(player);
+		while (!moves.isEmpty()) {
+			Move move = moves.remove(random.nextInt(moves.size()));
+			if (board.makeSearchMove(move)) {
+				board.undoSearchMove();
+				return move;
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,107 @@
+package main.tournament;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of a tournament between two engines, from the point of view of the first engine
+ * @author einar
+ *
+ */
+public class TournamentResult {
+	// Number of standard errors in the error bars, for a 95% confidence interval
+	private static final double CONFIDENCE_Z = 1.96;
+	
+	private final int wins, draws, losses;
+	private final long elapsedNanos;
+	
+	/**
+	 * @param wins			games won by the first engine
+	 * @param draws			games drawn
+	 * @param losses		games lost by the first engine
+	 * @param elapsedNanos	wall-clock time the tournament took
+	 */
+	public TournamentResult(int wins, int draws, int losses, long elapsedNanos) {
+		this.wins = wins;
+		this.draws = draws;
+		this.losses = losses;
+		this.elapsedNanos = elapsedNanos;
+	}
+	
+	/*******************
+	 * PUBLIC METHODS
+	 * 
+	 *******************/
+	
+	public int getWins() {
+		return wins;
+	}
+	
+	public int getDraws() {
+		return draws;
+	}
+	
+	public int getLosses() {
+		return losses;
+	}
+	
+	public int getGameCount() {
+		return wins + draws + losses;
+	}
+	
+	/**
+	 * Get the score of the first engine, counting a draw as half a win
+	 * @return score between 0 and 1
+	 */
+	public double getScore() {
+		return (wins + draws / 2.0) / getGameCount();
+	}
+	
+	/**
+	 * Get the Elo difference between the engines that the score corresponds to
+	 * @return Elo of the first engine minus Elo of the second, infinite if one engine won every game
+	 */
+	public double getEloDifference() {
+		return toElo(getScore());
+	}
+	
+	/**
+	 * Get the half-width of the 95% confidence interval of the Elo difference
+	 * @return error margin of the Elo difference
+	 */
+	public double getEloErrorMargin() {
+		double score = getScore();
+		int games = getGameCount();
+		double variance = (wins * square(1 - score) + draws * square(0.5 - score) + losses * square(score)) / games;
+		double standardError = Math.sqrt(variance / games);
+		double low = toElo(Math.max(0, score - CONFIDENCE_Z * standardError));
+		double high = toElo(Math.min(1, score + CONFIDENCE_Z * standardError));
+		return (high - low) / 2;
+	}
+	
+	/**
+	 * Get the rate at which games were played
+	 * @return games per hour of wall-clock time
+	 */
+	public double getGamesPerHour() {
+		return getGameCount() * (double) TimeUnit.HOURS.toNanos(1) / elapsedNanos;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("+%d =%d -%d  score %.1f%%  Elo %+.1f +/- %.1f  %.0f games/hour",
+				wins, draws, losses, 100 * getScore(), getEloDifference(), getEloErrorMargin(), getGamesPerHour());
+	}
+	
+	/*******************
+	 * PRIVATE METHODS
+	 * 
+	 *******************/
+	
+	private static double toElo(double score) {
+		return -400 * Math.log10(1 / score - 1);
+	}
+	
+	private static double square(double value) {
+		return value * value;
+	}
+}
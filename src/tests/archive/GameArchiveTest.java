@@ -0,0 +1,131 @@
+package tests.archive;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import main.archive.GameArchive;
+import main.archive.GameArchiveWriter;
+import main.archive.PgnArchiver;
+import main.core.StartingPosition;
+import main.notation.GameReplayer;
+import main.notation.PgnReader.Result;
+
+public class GameArchiveTest {
+	private static final String GAMES =
+			"[Result \"1-0\"]\n\n1. e4 e5 2. Bc4 Nc6 3. Qh5 Nf6 4. Qxf7# 1-0\n\n" +
+			"[Result \"*\"]\n\n1. e4 e5 2. Ke3 *\n\n" +
+			"[Result \"1/2-1/2\"]\n\n1. Nf3 Nf6 1/2-1/2\n";
+	
+	private Path dataFile;
+	private Path indexFile;
+	
+	@Before
+	public void setUp() throws Exception {
+		dataFile = Files.createTempFile("games", ".data");
+		indexFile = Files.createTempFile("games", ".index");
+	}
+	
+	@After
+	public void tearDown() throws Exception {
+		Files.deleteIfExists(dataFile);
+		Files.deleteIfExists(indexFile);
+	}
+
+	@Test
+	public void testArchivePgnGames() throws Exception {
+		try (GameArchiveWriter writer = GameArchiveWriter.open(dataFile, indexFile)) {
+			PgnArchiver archiver = new PgnArchiver(writer, StartingPosition.STANDARD);
+			archiver.archive(Channels.newChannel(new ByteArrayInputStream(GAMES.getBytes(StandardCharsets.UTF_8))));
+			assertEquals(1, archiver.getSkippedGameCount());
+		}
+		
+		try (GameArchive archive = GameArchive.open(dataFile, indexFile)) {
+			assertEquals(2, archive.getGameCount());
+			assertEquals(7, archive.getMoveCount(0));
+			assertEquals(Result.WHITE_WINS, archive.getResult(0));
+			assertEquals(Result.DRAW, archive.getResult(1));
+			
+			// e2 is square 52, e4 is square 36
+			ByteBuffer moves = archive.getMoves(0);
+			assertTrue(moves.isReadOnly());
+			assertEquals(7 * GameArchive.MOVE_LENGTH, moves.remaining());
+			assertEquals(52, moves.get(0));
+			assertEquals(36, moves.get(1));
+			
+			GameReplayer replayer = new GameReplayer(StartingPosition.STANDARD);
+			archive.replay(0, replayer);
+			assertEquals(7, replayer.getPlyCount());
+			assertEquals("Queen", replayer.getBoard().getNameOfPieceAtPosition("f7"));
+			assertTrue(replayer.getBoard().isCheckmate(replayer.getCurrentPlayer()));
+			
+			archive.replay(1, replayer);
+			assertEquals("Knight", replayer.getBoard().getNameOfPieceAtPosition("f3"));
+			assertEquals("Pawn", replayer.getBoard().getNameOfPieceAtPosition("f7"));
+		}
+	}
+	
+	@Test
+	public void testAppendToArchive() throws Exception {
+		try (GameArchiveWriter writer = GameArchiveWriter.open(dataFile, indexFile)) {
+			writer.startGame(false);
+			writer.addMove(52, 36);
+			assertEquals(0, writer.endGame(Result.UNKNOWN));
+		}
+		try (GameArchiveWriter writer = GameArchiveWriter.open(dataFile, indexFile)) {
+			writer.startGame(true);
+			writer.addMove(62, 45);
+			writer.addMove(6, 21);
+			assertEquals(1, writer.endGame(Result.BLACK_WINS));
+		}
+		
+		try (GameArchive archive = GameArchive.open(dataFile, indexFile)) {
+			assertEquals(2, archive.getGameCount());
+			assertEquals(StartingPosition.STANDARD, archive.getStartingPosition(0));
+			assertEquals(StartingPosition.CUSTOM_PIECES, archive.getStartingPosition(1));
+			assertEquals(2, archive.getMoveCount(1));
+			assertEquals(62, archive.getMoves(1).get(0));
+			
+			GameReplayer replayer = new GameReplayer(StartingPosition.CUSTOM_PIECES);
+			archive.replay(1, replayer);
+			assertEquals("Knight", replayer.getBoard().getNameOfPieceAtPosition("f3"));
+			assertEquals("Knight", replayer.getBoard().getNameOfPieceAtPosition("f6"));
+		}
+	}
+	
+	@Test
+	public void testGameWithoutMoves() throws Exception {
+		try (GameArchiveWriter writer = GameArchiveWriter.open(dataFile, indexFile)) {
+			PgnArchiver archiver = new PgnArchiver(writer, StartingPosition.STANDARD);
+			archiver.archive(Channels.newChannel(new ByteArrayInputStream("[Event \"x\"]\n\n*\n".getBytes(StandardCharsets.UTF_8))));
+		}
+		assertEquals(0, Files.size(dataFile));
+		
+		try (GameArchive archive = GameArchive.open(dataFile, indexFile)) {
+			assertEquals(1, archive.getGameCount());
+			assertEquals(0, archive.getMoves(0).remaining());
+			
+			GameReplayer replayer = new GameReplayer(StartingPosition.STANDARD);
+			archive.replay(0, replayer);
+			assertEquals(0, replayer.getPlyCount());
+		}
+	}
+	
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testUnknownGame() throws Exception {
+		// Empty archive
+		GameArchiveWriter.open(dataFile, indexFile).close();
+		try (GameArchive archive = GameArchive.open(dataFile, indexFile)) {
+			archive.getMoves(0);
+		}
+	}
+}
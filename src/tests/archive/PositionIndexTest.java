@@ -0,0 +1,117 @@
+package tests.archive;
+
+import static org.junit.Assert.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import main.archive.GameArchive;
+import main.archive.GameArchiveWriter;
+import main.archive.PositionIndex;
+import main.archive.PositionIndex.Postings;
+import main.archive.PositionIndexBuilder;
+import main.core.PositionHash;
+import main.core.StartingPosition;
+import main.notation.GameReplayer;
+import main.notation.PgnReader.Result;
+import main.pieces.Piece.Color;
+
+public class PositionIndexTest {
+	private Path dataFile;
+	private Path indexFile;
+	private Path keyFile;
+	private Path postingsFile;
+	
+	@Before
+	public void setUp() throws Exception {
+		dataFile = Files.createTempFile("games", ".data");
+		indexFile = Files.createTempFile("games", ".index");
+		keyFile = Files.createTempFile("positions", ".keys");
+		postingsFile = Files.createTempFile("positions", ".postings");
+		
+		try (GameArchiveWriter writer = GameArchiveWriter.open(dataFile, indexFile)) {
+			// Game 0: 1. e4 Nf6 2. Nf3
+			addGame(writer, 52, 36, 6, 21, 62, 45);
+			// Game 1: 1. Nf3 Nf6 2. e4, transposing to game 0
+			addGame(writer, 62, 45, 6, 21, 52, 36);
+			// Game 2: 1. Nf3 Nc6 2. Ng1 Nb8 3. Nf3, repeating a position
+			addGame(writer, 62, 45, 1, 18, 45, 62, 18, 1, 62, 45);
+		}
+	}
+	
+	@After
+	public void tearDown() throws Exception {
+		Files.deleteIfExists(dataFile);
+		Files.deleteIfExists(indexFile);
+		Files.deleteIfExists(keyFile);
+		Files.deleteIfExists(postingsFile);
+	}
+	
+	private static void addGame(GameArchiveWriter writer, int... squares) throws Exception {
+		writer.startGame(false);
+		for (int idx=0; idx<squares.length; idx+=2) {
+			writer.addMove(squares[idx], squares[idx + 1]);
+		}
+		writer.endGame(Result.UNKNOWN);
+	}
+	
+	private void buildIndex(int runCapacity) throws Exception {
+		try (GameArchive archive = GameArchive.open(dataFile, indexFile);
+				PositionIndexBuilder builder = new PositionIndexBuilder(keyFile, postingsFile, runCapacity)) {
+			builder.addArchive(archive);
+			builder.build();
+		}
+	}
+
+	@Test
+	public void testFindTransposition() throws Exception {
+		buildIndex(PositionIndexBuilder.DEFAULT_RUN_CAPACITY);
+		
+		GameReplayer replayer = new GameReplayer(StartingPosition.STANDARD);
+		replayer.apply(52, 36);
+		replayer.apply(6, 21);
+		replayer.apply(62, 45);
+		
+		try (PositionIndex index = PositionIndex.open(keyFile, postingsFile)) {
+			Postings postings = index.find(replayer.getBoard(), Color.BLACK);
+			assertEquals(2, postings.size());
+			assertTrue(postings.next());
+			assertEquals(0, postings.getGameId());
+			assertEquals(3, postings.getPly());
+			assertTrue(postings.next());
+			assertEquals(1, postings.getGameId());
+			assertEquals(3, postings.getPly());
+			assertFalse(postings.next());
+			
+			// The same squares with white to move is another position
+			assertEquals(0, index.find(replayer.getBoard(), Color.WHITE).size());
+		}
+	}
+	
+	@Test
+	public void testRepeatedPositionWithSpilledRuns() throws Exception {
+		// Force the 16 positions into several runs
+		buildIndex(3);
+		
+		GameReplayer replayer = new GameReplayer(StartingPosition.STANDARD);
+		replayer.apply(62, 45);
+		long afterNf3 = PositionHash.compute(replayer.getBoard(), Color.BLACK);
+		
+		try (PositionIndex index = PositionIndex.open(keyFile, postingsFile)) {
+			Postings postings = index.find(afterNf3);
+			int[] expectedGames = {1, 2, 2};
+			int[] expectedPlies = {1, 1, 5};
+			for (int idx=0; idx<expectedGames.length; idx++) {
+				assertTrue(postings.next());
+				assertEquals(expectedGames[idx], postings.getGameId());
+				assertEquals(expectedPlies[idx], postings.getPly());
+			}
+			assertFalse(postings.next());
+			assertFalse(index.find(afterNf3 + 1).next());
+		}
+	}
+}
@@ -0,0 +1,111 @@
+package tests.book;
+
+import static org.junit.Assert.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import main.archive.GameArchive;
+import main.archive.GameArchiveWriter;
+import main.book.BookMove;
+import main.book.OpeningBook;
+import main.book.OpeningBookBuilder;
+import main.core.PositionHash;
+import main.core.StartingPosition;
+import main.notation.GameReplayer;
+import main.notation.PgnReader.Result;
+import main.pieces.Piece.Color;
+
+public class OpeningBookTest {
+	private Path dataFile;
+	private Path indexFile;
+	private Path bookFile;
+	
+	@Before
+	public void setUp() throws Exception {
+		dataFile = Files.createTempFile("games", ".data");
+		indexFile = Files.createTempFile("games", ".index");
+		bookFile = Files.createTempFile("openings", ".book");
+		
+		try (GameArchiveWriter writer = GameArchiveWriter.open(dataFile, indexFile)) {
+			// 1. e4 e5, won by white twice
+			addGame(writer, Result.WHITE_WINS, 52, 36, 12, 28);
+			addGame(writer, Result.WHITE_WINS, 52, 36, 12, 28);
+			// 1. d4 d5, won by black
+			addGame(writer, Result.BLACK_WINS, 51, 35, 11, 27);
+			// 1. Nf3, drawn
+			addGame(writer, Result.DRAW, 62, 45);
+		}
+	}
+	
+	@After
+	public void tearDown() throws Exception {
+		Files.deleteIfExists(dataFile);
+		Files.deleteIfExists(indexFile);
+		Files.deleteIfExists(bookFile);
+	}
+	
+	private static void addGame(GameArchiveWriter writer, Result result, int... squares) throws Exception {
+		writer.startGame(false);
+		for (int idx=0; idx<squares.length; idx+=2) {
+			writer.addMove(squares[idx], squares[idx + 1]);
+		}
+		writer.endGame(result);
+	}
+	
+	private void buildBook(int minWeight) throws Exception {
+		OpeningBookBuilder builder = new OpeningBookBuilder(OpeningBookBuilder.DEFAULT_MAX_PLY);
+		try (GameArchive archive = GameArchive.open(dataFile, indexFile)) {
+			builder.addArchive(archive);
+		}
+		builder.write(bookFile, minWeight);
+	}
+
+	@Test
+	public void testMovesAreWeightedByResult() throws Exception {
+		buildBook(1);
+		GameReplayer replayer = new GameReplayer(StartingPosition.STANDARD);
+		long start = PositionHash.compute(replayer.getBoard(), Color.WHITE);
+		
+		try (OpeningBook book = OpeningBook.open(bookFile)) {
+			// d4 lost, so only e4 and Nf3 remain
+			List<BookMove> moves = book.getMoves(start);
+			assertEquals(2, moves.size());
+			assertEquals(52, moves.get(0).getStartSquare());
+			assertEquals(36, moves.get(0).getEndSquare());
+			assertEquals(4, moves.get(0).getWeight());
+			assertEquals(62, moves.get(1).getStartSquare());
+			assertEquals(1, moves.get(1).getWeight());
+			
+			// Black's reply to d4 won
+			replayer.apply(51, 35);
+			BookMove reply = book.choose(replayer.getBoard(), Color.BLACK, new Random(1));
+			assertEquals(11, reply.getStartSquare());
+			assertEquals(27, reply.getEndSquare());
+			
+			replayer.apply(11, 27);
+			assertNull(book.choose(replayer.getBoard(), Color.WHITE, new Random(1)));
+		}
+	}
+	
+	@Test
+	public void testChooseFollowsWeights() throws Exception {
+		buildBook(2);
+		long start = PositionHash.compute(new GameReplayer(StartingPosition.STANDARD).getBoard(), Color.WHITE);
+		
+		try (OpeningBook book = OpeningBook.open(bookFile)) {
+			// The draw is below the minimum weight, leaving a single move
+			assertEquals(1, book.getMoves(start).size());
+			Random random = new Random(7);
+			for (int idx=0; idx<10; idx++) {
+				assertEquals(36, book.choose(start, random).getEndSquare());
+			}
+		}
+	}
+}
@@ -9,7 +9,9 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import main.core.Board;
 import main.core.ChessModel;
+import main.engine.Perft;
 import main.exceptions.InvalidMoveException;
 import main.pieces.King;
 import main.pieces.Piece;
@@ -310,4 +312,45 @@ public class ChessGameTest {
 		assertEquals(false, game.isStalemate());
 	}
 
+	@Test
+	public void testResetReusesBoard() throws InvalidMoveException {
+		Board board = game.getBoard();
+		long initialHash = board.getPositionHash(Color.WHITE);
+		int initialScore = board.getEvaluation();
+		
+		// Play a few moves with a capture, then restart
+		game.move("e2", "e4");
+		game.move("d7", "d5");
+		game.move("e4", "d5");
+		game.resetGame();
+		
+		assertSame(board, game.getBoard());
+		assertEquals(defaultBoardState, game.getGameAsString());
+		assertEquals("Player 1", game.getCurrentPlayerName());
+		assertEquals(initialHash, board.getPositionHash(Color.WHITE));
+		assertEquals(initialScore, board.getEvaluation());
+		assertEquals(16, board.getPlayer(Color.BLACK).getAvailablePieces().size());
+		assertEquals(0, board.getPlayer(Color.WHITE).getCapturedPieces().size());
+		assertFalse(game.canUndo());
+		
+		// Pawns can step two squares again
+		assertEquals(2, game.getAvailableLocationsForMove(6, 4).size());
+		assertEquals(8902, new Perft(board, null).count(board.getPlayer(Color.WHITE), 3));
+	}
+	
+	@Test
+	public void testResetCustomMappingStartsStandardGame() {
+		Map<String, Piece> pieceMappings = new HashMap<String, Piece>();
+		King whiteKing = new King(Color.WHITE);
+		King blackKing = new King(Color.BLACK);
+		pieceMappings.put("e1", whiteKing);
+		pieceMappings.put("e8", blackKing);
+		game.startGameWithCustomMapping("Player 1", "Player 2", pieceMappings);
+		Board board = game.getBoard();
+		
+		game.resetGame();
+		assertNotSame(board, game.getBoard());
+		assertEquals(defaultBoardState, game.getGameAsString());
+	}
+
 }
@@ -0,0 +1,86 @@
+package tests.core;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import main.core.Board;
+import main.core.ChessModel;
+import main.core.Evaluation;
+import main.core.GameDirection;
+import main.pieces.Knight;
+import main.pieces.Piece.Color;
+import main.pieces.PieceType;
+import main.pieces.RowMover;
+
+public class EvaluationTest {
+	
+	@Test
+	public void testStartingPositionIsBalanced() {
+		ChessModel model = new ChessModel();
+		assertEquals(0, model.getBoard().getEvaluation());
+		assertEquals(0, model.getBoard().computeEvaluation());
+		
+		model.startGameWithNewPlayers("Player 1", "Player 2", true);
+		assertEquals(0, model.getBoard().getEvaluation());
+	}
+	
+	@Test
+	public void testEvaluationFollowsMovesAndUndo() throws Exception {
+		ChessModel model = new ChessModel();
+		Board board = model.getBoard();
+		
+		// 1. e4 d5 2. exd5
+		model.move("e2", "e4");
+		assertTrue(board.getEvaluation() > 0);
+		assertEquals(board.computeEvaluation(), board.getEvaluation());
+		model.move("d7", "d5");
+		int beforeCapture = board.getEvaluation();
+		model.move("e4", "d5");
+		assertEquals(board.computeEvaluation(), board.getEvaluation());
+		assertTrue(board.getEvaluation() >= beforeCapture + Evaluation.getPieceValue(PieceType.PAWN) - 50);
+		
+		model.undo();
+		assertEquals(beforeCapture, board.getEvaluation());
+		model.redo();
+		assertEquals(board.computeEvaluation(), board.getEvaluation());
+		
+		model.undo();
+		model.undo();
+		model.undo();
+		assertEquals(0, board.getEvaluation());
+	}
+	
+	@Test
+	public void testPieceSquareTablesFollowDirection() {
+		Evaluation upwards = Evaluation.get(8, 8, GameDirection.UPWARDS);
+		Evaluation downwards = Evaluation.get(8, 8, GameDirection.DOWNWARDS);
+		RowMover whiteMover = new RowMover(Color.WHITE);
+		RowMover blackMover = new RowMover(Color.BLACK);
+		
+		// A row mover is worth more the further it has advanced
+		assertTrue(upwards.getScore(whiteMover, 1 * 8 + 3) > upwards.getScore(whiteMover, 6 * 8 + 3));
+		assertTrue(downwards.getScore(whiteMover, 6 * 8 + 3) > downwards.getScore(whiteMover, 1 * 8 + 3));
+		
+		// Mirrored pieces score the same for either side
+		assertEquals(upwards.getScore(whiteMover, 2 * 8 + 4), -upwards.getScore(blackMover, 5 * 8 + 4));
+		assertEquals(downwards.getScore(whiteMover, 2 * 8 + 4), -downwards.getScore(blackMover, 5 * 8 + 4));
+	}
+	
+	@Test
+	public void testScoresSharedPerGeometry() {
+		assertSame(Evaluation.get(8, 8, GameDirection.UPWARDS), Evaluation.get(8, 8, GameDirection.UPWARDS));
+		assertNotSame(Evaluation.get(8, 8, GameDirection.UPWARDS), Evaluation.get(8, 8, GameDirection.DOWNWARDS));
+		assertNotSame(Evaluation.get(8, 8, GameDirection.UPWARDS), Evaluation.get(8, 10, GameDirection.UPWARDS));
+	}
+	
+	@Test
+	public void testMaterialValues() {
+		Evaluation evaluation = Evaluation.get(8, 8, GameDirection.UPWARDS);
+		assertEquals(400, Evaluation.getPieceValue(PieceType.ROW_MOVER));
+		assertEquals(500, Evaluation.getPieceValue(PieceType.DOUBLE_JUMPER));
+		
+		// A centralised knight is worth its material plus a bonus
+		assertEquals(Evaluation.getPieceValue(PieceType.KNIGHT) + 20, evaluation.getScore(new Knight(Color.WHITE), 4 * 8 + 3));
+	}
+}
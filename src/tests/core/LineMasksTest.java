@@ -0,0 +1,82 @@
+package tests.core;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import main.core.Board;
+import main.core.ChessModel;
+import main.core.LineMasks;
+import main.core.Move;
+import main.core.Player;
+import main.core.Square;
+import main.engine.MoveGenerator;
+import main.pieces.Piece;
+import main.pieces.Piece.Color;
+import main.pieces.PieceType;
+
+public class LineMasksTest {
+	
+	@Test
+	public void testBetween() {
+		// a1 (56) to a8 (0): a2 to a7
+		assertEquals(6, Long.bitCount(LineMasks.getBetween(56, 0)));
+		assertEquals(LineMasks.getBetween(56, 0), LineMasks.getBetween(0, 56));
+		// a1 to h8 (7): the long diagonal
+		long between = LineMasks.getBetween(56, 7);
+		assertEquals(6, Long.bitCount(between));
+		assertTrue((between & (1L << 35)) != 0);
+		// Adjacent squares and squares off a line
+		assertEquals(0, LineMasks.getBetween(56, 57));
+		assertEquals(0, LineMasks.getBetween(56, 41));
+		assertEquals(0, LineMasks.getLine(56, 41));
+	}
+	
+	@Test
+	public void testRayBeyond() {
+		// From a1 through a3 (40): a4 to a8
+		assertEquals(5, Long.bitCount(LineMasks.getRayBeyond(56, 40)));
+		assertEquals(0, LineMasks.getRayBeyond(56, 0));
+		assertEquals(8, Long.bitCount(LineMasks.getLine(56, 40)));
+		assertEquals(0, LineMasks.getFirstBlockerBeyond(56, 40, 1L << 0 | 1L << 56));
+		assertEquals(-1, LineMasks.getFirstBlockerBeyond(56, 40, 1L << 56));
+		assertEquals(48, LineMasks.getFirstBlockerBeyond(0, 24, 1L << 48 | 1L << 56));
+	}
+	
+	@Test
+	public void testPinsMatchRemovingThePiece() throws Exception {
+		Random random = new Random(5);
+		for (int game=0; game<20; game++) {
+			Board board = new ChessModel().getBoard();
+			Player player = board.getPlayer(Color.WHITE);
+			for (int ply=0; ply<40; ply++) {
+				if (!board.isCheck(player)) {
+					for (Piece piece : player.getAvailablePieces()) {
+						if (piece.getType() != PieceType.KING) {
+							assertEquals(isExposedWithoutPiece(board, piece, player), board.isPinned(piece, player));
+						}
+					}
+				}
+				List<Move> moves = new MoveGenerator(board).generateMoves(player);
+				Move move = moves.get(random.nextInt(moves.size()));
+				if (move.isCaptureMove() && move.getCapturedPiece().getType() == PieceType.KING) {
+					break;
+				}
+				if (board.makeSearchMove(move)) {
+					player = board.getOppositePlayer(player);
+				}
+			}
+		}
+	}
+	
+	private static boolean isExposedWithoutPiece(Board board, Piece piece, Player player) {
+		Square square = piece.getSquare();
+		square.removePiece();
+		boolean isInCheck = board.isCheck(player);
+		square.setPiece(piece);
+		return isInCheck;
+	}
+}
@@ -0,0 +1,56 @@
+package tests.core;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import main.core.Board;
+import main.core.ChessModel;
+import main.core.MagicBitboards;
+
+public class MagicBitboardsTest {
+	
+	@Test
+	public void testTablesMatchRayWalk() {
+		Random random = new Random(3);
+		for (int trial=0; trial<2000; trial++) {
+			long occupancy = random.nextLong() & random.nextLong();
+			int square = random.nextInt(MagicBitboards.NUM_SQUARES);
+			assertEquals(MagicBitboards.computeAttacksSlowly(square, occupancy, false), MagicBitboards.getRookAttacks(square, occupancy));
+			assertEquals(MagicBitboards.computeAttacksSlowly(square, occupancy, true), MagicBitboards.getBishopAttacks(square, occupancy));
+		}
+	}
+	
+	@Test
+	public void testRookAttacksStopAtBlocker() {
+		// Rook on a1 (row 7, col 0) with a blocker on a4 (row 4, col 0)
+		long attacks = MagicBitboards.getRookAttacks(56, 1L << 32);
+		assertTrue((attacks & (1L << 32)) != 0);
+		assertEquals(0, attacks & (1L << 24));
+		assertEquals(3 + 7, Long.bitCount(attacks));
+	}
+	
+	@Test
+	public void testBoardOccupancyFollowsMoves() throws Exception {
+		ChessModel model = new ChessModel();
+		Board board = model.getBoard();
+		assertEquals(0xFFFF00000000FFFFL, board.getOccupancy());
+		
+		model.move("e2", "e4");
+		assertEquals(0xFFFF00000000FFFFL & ~(1L << 52) | (1L << 36), board.getOccupancy());
+		model.undo();
+		assertEquals(0xFFFF00000000FFFFL, board.getOccupancy());
+	}
+	
+	@Test
+	public void testSlidersBlockedOnBoard() throws Exception {
+		ChessModel model = new ChessModel();
+		assertEquals(0, model.getAvailableLocationsForMove(7, 0).size());
+		model.move("a2", "a4");
+		model.move("h7", "h6");
+		// The rook on a1 can now reach a2 and a3
+		assertEquals(2, model.getAvailableLocationsForMove(7, 0).size());
+	}
+}
@@ -0,0 +1,53 @@
+package tests.core;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import main.core.Board;
+import main.core.ChessModel;
+import main.core.Mailbox;
+
+public class MailboxTest {
+	
+	@Test
+	public void testSquaresKeepTheirIndex() {
+		Board board = new ChessModel().getBoard();
+		Mailbox mailbox = board.getMailbox();
+		for (int row=0; row<board.getNumRows(); row++) {
+			for (int col=0; col<board.getNumCols(); col++) {
+				assertSame(board.getSquare(row, col), mailbox.getSquare(mailbox.getIndex(row, col)));
+			}
+		}
+	}
+	
+	@Test
+	public void testStepsOffTheBoardHitSentinels() {
+		Board board = new ChessModel().getBoard();
+		Mailbox mailbox = board.getMailbox();
+		for (int row=0; row<board.getNumRows(); row++) {
+			for (int col=0; col<board.getNumCols(); col++) {
+				for (int rowStep=-Mailbox.PADDING; rowStep<=Mailbox.PADDING; rowStep++) {
+					for (int colStep=-Mailbox.PADDING; colStep<=Mailbox.PADDING; colStep++) {
+						int index = mailbox.getIndex(row, col) + mailbox.getOffset(rowStep, colStep);
+						boolean onBoard = board.getSquare(row + rowStep, col + colStep) != null;
+						assertEquals(!onBoard, mailbox.isSentinel(index));
+						if (onBoard) {
+							assertSame(board.getSquare(row + rowStep, col + colStep), mailbox.getSquare(index));
+						}
+					}
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void testSliderPathsBlocked() throws Exception {
+		ChessModel model = new ChessModel();
+		// The bishop on c1 is blocked until the d2 pawn moves
+		assertEquals(0, model.getAvailableLocationsForMove(7, 2).size());
+		model.move("d2", "d4");
+		model.move("h7", "h6");
+		assertEquals(5, model.getAvailableLocationsForMove(7, 2).size());
+	}
+}
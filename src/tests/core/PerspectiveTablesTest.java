@@ -0,0 +1,39 @@
+package tests.core;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import main.core.GameDirection;
+import main.core.PerspectiveTables;
+
+public class PerspectiveTablesTest {
+	
+	@Test
+	public void testCoordinates() {
+		PerspectiveTables tables = PerspectiveTables.get(8, 10);
+		for (int row=0; row<8; row++) {
+			for (int col=0; col<10; col++) {
+				int index = row * 10 + col;
+				assertEquals(8 - row, tables.getRow(GameDirection.UPWARDS, index));
+				assertEquals(col, tables.getCol(GameDirection.UPWARDS, index));
+				assertEquals(row, tables.getRow(GameDirection.DOWNWARDS, index));
+				assertEquals(10 - col, tables.getCol(GameDirection.DOWNWARDS, index));
+			}
+		}
+		assertSame(tables, PerspectiveTables.get(8, 10));
+	}
+	
+	@Test
+	public void testSignsMatchCoordinateDifferences() {
+		PerspectiveTables tables = PerspectiveTables.get(8, 8);
+		// From (6, 4) to (4, 5), forward and to the right for a player moving upwards
+		for (GameDirection direction : GameDirection.values()) {
+			int rowMovement = tables.getRow(direction, 4 * 8 + 5) - tables.getRow(direction, 6 * 8 + 4);
+			int colMovement = tables.getCol(direction, 4 * 8 + 5) - tables.getCol(direction, 6 * 8 + 4);
+			assertEquals(rowMovement, PerspectiveTables.getRowSign(direction) * (4 - 6));
+			assertEquals(colMovement, PerspectiveTables.getColSign(direction) * (5 - 4));
+		}
+		assertEquals(2, PerspectiveTables.getRowSign(GameDirection.UPWARDS) * (4 - 6));
+	}
+}
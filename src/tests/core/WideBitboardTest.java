@@ -0,0 +1,189 @@
+package tests.core;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import main.core.Board;
+import main.core.ChessModel;
+import main.core.GameDirection;
+import main.core.Move;
+import main.core.MoveTargets;
+import main.core.Player;
+import main.core.WideBitboard;
+import main.engine.MoveGenerator;
+import main.engine.Perft;
+import main.pieces.Piece;
+import main.pieces.Piece.Color;
+import main.pieces.PieceType;
+
+public class WideBitboardTest {
+	
+	@Test
+	public void testSetAcrossWords() {
+		WideBitboard bitboard = new WideBitboard(16, 16);
+		assertEquals(4, bitboard.getWordCount());
+		bitboard.set(3);
+		bitboard.set(130);
+		bitboard.set(255);
+		assertTrue(bitboard.get(130));
+		assertEquals(3, bitboard.cardinality());
+		assertEquals(130, bitboard.nextSetBit(4));
+		assertEquals(255, bitboard.nextSetBit(131));
+		assertEquals(-1, bitboard.nextSetBit(256));
+		bitboard.clear(130);
+		assertEquals(255, bitboard.nextSetBit(4));
+	}
+	
+	@Test
+	public void testShiftDoesNotWrapRows() {
+		// Square (2, 9), on the last column of a 10x10 board
+		WideBitboard bitboard = new WideBitboard(10, 10);
+		bitboard.set(29);
+		assertTrue(bitboard.shift(0, 1).isEmpty());
+		assertTrue(bitboard.shift(1, 1).isEmpty());
+		assertTrue(bitboard.shift(0, -9).get(20));
+		assertTrue(bitboard.shift(7, -1).get(98));
+		assertTrue(bitboard.shift(8, 0).isEmpty());
+		assertTrue(bitboard.shift(-3, 0).isEmpty());
+		
+		// Square (1, 0), on the first column
+		bitboard = new WideBitboard(10, 10);
+		bitboard.set(10);
+		assertTrue(bitboard.shift(0, -1).isEmpty());
+		assertTrue(bitboard.shift(-1, 0).get(0));
+		assertTrue(bitboard.shift(8, 9).get(99));
+	}
+	
+	@Test
+	public void testShiftMovesWholeSet() {
+		Random random = new Random(7);
+		for (int trial=0; trial<200; trial++) {
+			WideBitboard bitboard = new WideBitboard(12, 12);
+			for (int square=0; square<144; square++) {
+				if (random.nextBoolean()) {
+					bitboard.set(square);
+				}
+			}
+			int rowOffset = random.nextInt(25) - 12;
+			int colOffset = random.nextInt(25) - 12;
+			WideBitboard expected = new WideBitboard(12, 12);
+			for (int square=bitboard.nextSetBit(0); square>=0; square=bitboard.nextSetBit(square + 1)) {
+				int row = square / 12 + rowOffset;
+				int col = square % 12 + colOffset;
+				if (row >= 0 && row < 12 && col >= 0 && col < 12) {
+					expected.set(row * 12 + col);
+				}
+			}
+			assertEquals(expected, bitboard.shift(rowOffset, colOffset));
+		}
+	}
+	
+	@Test
+	public void testMoveTargets() {
+		// A white rook on a 10x10 board reaches its row and column, a pawn moving up one or two rows
+		MoveTargets rookTargets = MoveTargets.get(10, 10, PieceType.ROOK, GameDirection.UPWARDS);
+		assertEquals(18, rookTargets.getQuietTargets(55).cardinality());
+		MoveTargets pawnTargets = MoveTargets.get(10, 10, PieceType.PAWN, GameDirection.UPWARDS);
+		WideBitboard quiet = pawnTargets.getQuietTargets(85);
+		assertEquals(2, quiet.cardinality());
+		assertTrue(quiet.get(75) && quiet.get(65));
+		WideBitboard captures = pawnTargets.getCaptureTargets(85);
+		assertEquals(2, captures.cardinality());
+		assertTrue(captures.get(74) && captures.get(76));
+	}
+	
+	@Test
+	public void testPieceSquaresFollowMoves() throws Exception {
+		ChessModel model = new ChessModel();
+		Board board = model.getBoard();
+		assertEquals(16, board.getPieceSquares(Color.WHITE).cardinality());
+		model.move("e2", "e4");
+		assertTrue(board.getPieceSquares(Color.WHITE).get(36));
+		assertFalse(board.getPieceSquares(Color.WHITE).get(52));
+		model.undo();
+		assertTrue(board.getPieceSquares(Color.WHITE).get(52));
+		assertFalse(board.getPieceSquares(Color.WHITE).get(36));
+	}
+	
+	@Test
+	public void testGeneratorMatchesEverySquareOnLargeBoards() {
+		Random random = new Random(11);
+		for (int size : new int[] {10, 12, 16}) {
+			for (int trial=0; trial<5; trial++) {
+				Board board = createRandomBoard(size, random);
+				for (Color color : Color.values()) {
+					Player player = board.getPlayer(color);
+					assertEquals(probeEverySquare(board, player), toStrings(new MoveGenerator(board).generateMoves(player)));
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void testPerftUnchanged() {
+		Board board = new ChessModel().getBoard();
+		assertEquals(8902, new Perft(board, null).count(board.getPlayer(Color.WHITE), 3));
+	}
+	
+	private static Board createRandomBoard(int size, Random random) {
+		Map<String, Piece> mapping = new HashMap<String, Piece>();
+		List<Piece> whitePieces = new ArrayList<Piece>();
+		List<Piece> blackPieces = new ArrayList<Piece>();
+		for (Color color : Color.values()) {
+			List<Piece> pieces = color == Color.WHITE ? whitePieces : blackPieces;
+			for (PieceType type : PieceType.values()) {
+				if (type == PieceType.CUSTOM) {
+					continue;
+				}
+				int count = type == PieceType.KING ? 1 : 2;
+				for (int idx=0; idx<count; idx++) {
+					String name;
+					do {
+						name = (char) ('a' + random.nextInt(size)) + Integer.toString(1 + random.nextInt(size));
+					} while (mapping.containsKey(name));
+					Piece piece = type.createPiece(color);
+					mapping.put(name, piece);
+					pieces.add(piece);
+				}
+			}
+		}
+		Player[] players = new Player[] {
+			new Player("White", Color.WHITE, GameDirection.UPWARDS, whitePieces),
+			new Player("Black", Color.BLACK, GameDirection.DOWNWARDS, blackPieces)
+		};
+		return new Board(size, size, mapping, players);
+	}
+	
+	private static Set<String> probeEverySquare(Board board, Player player) {
+		Set<String> moves = new HashSet<String>();
+		for (Piece piece : player.getAvailablePieces()) {
+			for (int row=0; row<board.getNumRows(); row++) {
+				for (int col=0; col<board.getNumCols(); col++) {
+					Move move = new Move(piece.getSquare(), board.getSquare(row, col), player);
+					if (board.isMoveValid(move)) {
+						moves.add(piece.getSquare() + "-" + board.getSquare(row, col));
+					}
+				}
+			}
+		}
+		return moves;
+	}
+	
+	private static Set<String> toStrings(List<Move> moves) {
+		Set<String> strings = new HashSet<String>();
+		for (Move move : moves) {
+			strings.add(move.getStartSquare() + "-" + move.getEndSquare());
+		}
+		assertEquals(moves.size(), strings.size());
+		return strings;
+	}
+}
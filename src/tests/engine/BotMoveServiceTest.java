@@ -0,0 +1,117 @@
+package tests.engine;
+
+import static org.junit.Assert.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import main.book.OpeningBook;
+import main.book.OpeningBookBuilder;
+import main.core.ChessModel;
+import main.core.PositionHash;
+import main.engine.BotMove;
+import main.engine.BotMoveService;
+import main.engine.PendingMove;
+import main.pieces.Piece.Color;
+
+public class BotMoveServiceTest {
+	private BotMoveService service;
+	private ChessModel model;
+	
+	@Before
+	public void setUp() {
+		service = new BotMoveService(2);
+		model = new ChessModel();
+	}
+	
+	@After
+	public void tearDown() {
+		service.close();
+	}
+	
+	@Test
+	public void testAllocateTime() {
+		// An average position gets a thirtieth of the clock
+		assertEquals(1000, BotMoveService.allocateTime(30000, 30));
+		// Complex positions get more, simple positions less, within bounds
+		assertEquals(2000, BotMoveService.allocateTime(30000, 90));
+		assertEquals(500, BotMoveService.allocateTime(30000, 1));
+		assertEquals(10, BotMoveService.allocateTime(50, 30));
+	}
+	
+	@Test
+	public void testMoveIsLegalAndWithinSlice() throws Exception {
+		long start = System.nanoTime();
+		PendingMove pending = service.requestMove(model.getBoard(), Color.WHITE, 3000);
+		BotMove move = pending.getResult().get(10, TimeUnit.SECONDS);
+		long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		
+		assertNotNull(move);
+		assertTrue(move.getDepth() >= 1);
+		assertFalse(move.isFromBook());
+		assertTrue("Search took " + elapsedMillis + " ms", elapsedMillis < 3000);
+		model.move(move.getStartRow(), move.getStartCol(), move.getEndRow(), move.getEndCol());
+	}
+	
+	@Test
+	public void testStopReturnsEarly() throws Exception {
+		PendingMove pending = service.requestMove(model.getBoard(), Color.WHITE, TimeUnit.HOURS.toMillis(1));
+		Thread.sleep(50);
+		long start = System.nanoTime();
+		pending.stop();
+		assertNotNull(pending.getResult().get(10, TimeUnit.SECONDS));
+		assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5000);
+	}
+	
+	@Test
+	public void testCloseCancelsQueuedMoves() throws Exception {
+		BotMoveService singleWorker = new BotMoveService(1);
+		PendingMove searching = singleWorker.requestMove(model.getBoard(), Color.WHITE, TimeUnit.HOURS.toMillis(1));
+		PendingMove queued = singleWorker.requestMove(model.getBoard(), Color.WHITE, TimeUnit.HOURS.toMillis(1));
+		singleWorker.close();
+		
+		assertNotNull(searching.getResult().get(10, TimeUnit.SECONDS));
+		try {
+			queued.getResult().get(10, TimeUnit.SECONDS);
+			fail("Queued move was not cancelled");
+		} catch (CancellationException e) {
+			assertTrue(queued.getResult().isCancelled());
+		}
+	}
+	
+	@Test
+	public void testSearchDoesNotTouchGameBoard() throws Exception {
+		String before = model.getGameAsString();
+		PendingMove pending = service.requestMove(model.getBoard(), Color.WHITE, 600);
+		pending.getResult().get(10, TimeUnit.SECONDS);
+		assertEquals(before, model.getGameAsString());
+		assertFalse(model.canUndo());
+	}
+	
+	@Test
+	public void testBookMoveIsPlayedWithoutSearch() throws Exception {
+		Path bookFile = Files.createTempFile("bot", ".book");
+		try {
+			OpeningBookBuilder builder = new OpeningBookBuilder(OpeningBookBuilder.DEFAULT_MAX_PLY);
+			builder.add(PositionHash.compute(model.getBoard(), Color.WHITE), 62, 45, 5);
+			builder.write(bookFile, 1);
+			
+			try (OpeningBook book = OpeningBook.open(bookFile); BotMoveService bookService = new BotMoveService(1, book)) {
+				BotMove move = bookService.requestMove(model.getBoard(), Color.WHITE, 60000).getResult().get(10, TimeUnit.SECONDS);
+				assertTrue(move.isFromBook());
+				assertEquals(7, move.getStartRow());
+				assertEquals(6, move.getStartCol());
+				assertEquals(5, move.getEndRow());
+				assertEquals(5, move.getEndCol());
+			}
+		} finally {
+			Files.deleteIfExists(bookFile);
+		}
+	}
+}
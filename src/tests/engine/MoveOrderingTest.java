@@ -0,0 +1,107 @@
+package tests.engine;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import main.core.Board;
+import main.core.GameDirection;
+import main.core.Move;
+import main.core.Player;
+import main.engine.MoveGenerator;
+import main.engine.MoveOrdering;
+import main.pieces.King;
+import main.pieces.Knight;
+import main.pieces.Pawn;
+import main.pieces.Piece;
+import main.pieces.Piece.Color;
+import main.pieces.Queen;
+import main.pieces.Rook;
+
+public class MoveOrderingTest {
+	private Board board;
+	private Player white;
+	private MoveGenerator generator;
+	private MoveOrdering ordering;
+	
+	@Before
+	public void setUp() {
+		// White can take the queen with the pawn or the rook, or the knight with the queen
+		Map<String, Piece> mapping = new HashMap<String, Piece>();
+		mapping.put("a1", new King(Color.WHITE));
+		mapping.put("c4", new Pawn(Color.WHITE));
+		mapping.put("d1", new Rook(Color.WHITE));
+		mapping.put("h3", new Queen(Color.WHITE));
+		mapping.put("h8", new King(Color.BLACK));
+		mapping.put("d5", new Queen(Color.BLACK));
+		mapping.put("h6", new Knight(Color.BLACK));
+		
+		List<Piece> whitePieces = new ArrayList<Piece>();
+		List<Piece> blackPieces = new ArrayList<Piece>();
+		for (Piece piece : mapping.values()) {
+			(piece.getColor() == Color.WHITE ? whitePieces : blackPieces).add(piece);
+		}
+		white = new Player("White", Color.WHITE, GameDirection.UPWARDS, whitePieces);
+		Player black = new Player("Black", Color.BLACK, GameDirection.DOWNWARDS, blackPieces);
+		board = new Board(8, 8, mapping, new Player[] {white, black});
+		generator = new MoveGenerator(board);
+		ordering = new MoveOrdering(board, 16);
+	}
+	
+	private static String describe(Move move) {
+		return move.getStartSquare().toString() + move.getEndSquare().toString();
+	}
+	
+	@Test
+	public void testCapturesOrderedByVictimThenAttacker() {
+		List<Move> moves = generator.generateMoves(white);
+		ordering.order(moves, 0);
+		assertEquals("c4d5", describe(moves.get(0)));
+		assertEquals("d1d5", describe(moves.get(1)));
+		assertEquals("h3h6", describe(moves.get(2)));
+		assertFalse(moves.get(3).isCaptureMove());
+	}
+	
+	@Test
+	public void testKillerMovesFollowCaptures() {
+		Move killer = generator.findMove(white, board.getSquare(7, 3), board.getSquare(7, 7));
+		ordering.recordCutoff(killer, 3, 2);
+		
+		List<Move> moves = generator.generateMoves(white);
+		ordering.order(moves, 3);
+		assertEquals("d1h1", describe(moves.get(3)));
+		
+		// Killers only apply to their own ply, but the history still favours the move at others
+		List<Move> otherPly = generator.generateMoves(white);
+		ordering.order(otherPly, 4);
+		assertEquals("d1h1", describe(otherPly.get(3)));
+	}
+	
+	@Test
+	public void testHistoryOrdersQuietMoves() {
+		Move first = generator.findMove(white, board.getSquare(7, 0), board.getSquare(7, 1));
+		Move second = generator.findMove(white, board.getSquare(7, 3), board.getSquare(6, 3));
+		ordering.recordCutoff(first, 5, 1);
+		ordering.recordCutoff(second, 6, 3);
+		
+		assertTrue(ordering.score(second, 0) > ordering.score(first, 0));
+		
+		// A new search forgets killers but keeps an aged history
+		ordering.startSearch();
+		assertEquals(4, ordering.score(second, 6));
+	}
+	
+	@Test
+	public void testCapturesAreNeverKillers() {
+		Move capture = generator.findMove(white, board.getSquare(4, 2), board.getSquare(3, 3));
+		int before = ordering.score(capture, 1);
+		ordering.recordCutoff(capture, 1, 4);
+		assertEquals(before, ordering.score(capture, 1));
+	}
+}
@@ -0,0 +1,132 @@
+package tests.engine;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import main.core.Board;
+import main.core.ChessModel;
+import main.core.GameDirection;
+import main.core.Player;
+import main.core.PositionHash;
+import main.engine.ParallelPerft;
+import main.engine.Perft;
+import main.engine.PerftCache;
+import main.pieces.CustomPiece;
+import main.pieces.King;
+import main.pieces.Piece;
+import main.pieces.Piece.Color;
+import main.pieces.PieceDefinition;
+import main.pieces.Rook;
+
+public class PerftTest {
+	
+	@Test
+	public void testStandardStartingPosition() {
+		// Castling, en passant and promotion cannot happen within three plies, so the counts match chess
+		Board board = new ChessModel().getBoard();
+		Perft perft = new Perft(board, null);
+		assertEquals(1, perft.count(board.getPlayer(Color.WHITE), 0));
+		assertEquals(20, perft.count(board.getPlayer(Color.WHITE), 1));
+		assertEquals(400, perft.count(board.getPlayer(Color.WHITE), 2));
+		assertEquals(8902, perft.count(board.getPlayer(Color.WHITE), 3));
+	}
+	
+	@Test
+	public void testParallelMatchesSerial() {
+		ChessModel model = new ChessModel();
+		model.startGameWithNewPlayers("Player 1", "Player 2", true);
+		Board board = model.getBoard();
+		String before = board.getGameAsString();
+		long serial = new Perft(board, null).count(board.getPlayer(Color.WHITE), 3);
+		
+		ParallelPerft parallel = new ParallelPerft(4, 16);
+		try {
+			assertEquals(serial, parallel.count(board, Color.WHITE, 3));
+			// The second count is answered from the cache
+			assertEquals(serial, parallel.count(board, Color.WHITE, 3));
+		} finally {
+			parallel.shutdown();
+		}
+		assertEquals(before, board.getGameAsString());
+	}
+	
+	@Test
+	public void testCacheMatchesUncached() {
+		Board board = new ChessModel().getBoard();
+		long uncached = new Perft(board, null).count(board.getPlayer(Color.WHITE), 4);
+		assertEquals(197281, uncached);
+		assertEquals(uncached, new Perft(board, new PerftCache(16)).count(board.getPlayer(Color.WHITE), 4));
+	}
+	
+	@Test
+	public void testCacheIgnoredOnUnhashableBoard() {
+		King whiteKing = new King(Color.WHITE);
+		Rook rook = new Rook(Color.WHITE);
+		King blackKing = new King(Color.BLACK);
+		Map<String, Piece> mapping = new HashMap<String, Piece>();
+		mapping.put("a1", whiteKing);
+		mapping.put("b3", rook);
+		mapping.put("i9", blackKing);
+		Player[] players = new Player[] {
+				new Player("White", Color.WHITE, GameDirection.UPWARDS, new ArrayList<Piece>(Arrays.asList(whiteKing, rook))),
+				new Player("Black", Color.BLACK, GameDirection.DOWNWARDS, new ArrayList<Piece>(Arrays.asList(blackKing))) };
+		Board board = new Board(17, 17, mapping, players);
+		assertFalse(board.isHashable());
+		
+		long uncached = new Perft(board, null).count(board.getPlayer(Color.WHITE), 3);
+		assertEquals(uncached, new Perft(board, new PerftCache(16)).count(board.getPlayer(Color.WHITE), 3));
+	}
+	
+	@Test
+	public void testCacheSeesFirstMoveOnlyMovements() {
+		// The custom piece keeps its double step until it moves, so it must hash differently once it has moved
+		King whiteKing = new King(Color.WHITE);
+		King blackKing = new King(Color.BLACK);
+		Piece custom = new CustomPiece(Color.WHITE, new PieceDefinition('X', "Initial Doubler", "KifmD"));
+		Map<String, Piece> mapping = new HashMap<String, Piece>();
+		mapping.put("e1", whiteKing);
+		mapping.put("a8", blackKing);
+		mapping.put("d4", custom);
+		Player[] players = new Player[] {
+				new Player("White", Color.WHITE, GameDirection.UPWARDS, new ArrayList<Piece>(Arrays.asList(whiteKing, custom))),
+				new Player("Black", Color.BLACK, GameDirection.DOWNWARDS, new ArrayList<Piece>(Arrays.asList(blackKing))) };
+		Board board = new Board(8, 8, mapping, players);
+		
+		assertEquals(47608, new Perft(board, null).count(board.getPlayer(Color.WHITE), 5));
+		assertEquals(47608, new Perft(board, new PerftCache(16)).count(board.getPlayer(Color.WHITE), 5));
+		ParallelPerft parallel = new ParallelPerft(4, 16);
+		try {
+			assertEquals(47608, parallel.count(board, Color.WHITE, 5));
+		} finally {
+			parallel.shutdown();
+		}
+		assertEquals(PositionHash.compute(board, Color.WHITE), board.getPositionHash(Color.WHITE));
+	}
+	
+	@Test
+	public void testIncrementalHashMatchesFullHash() throws Exception {
+		ChessModel model = new ChessModel();
+		Board board = model.getBoard();
+		model.move("e2", "e4");
+		model.move("d7", "d5");
+		model.move("e4", "d5");
+		assertEquals(PositionHash.compute(board, Color.BLACK), board.getPositionHash(Color.BLACK));
+		model.undo();
+		assertEquals(PositionHash.compute(board, Color.WHITE), board.getPositionHash(Color.WHITE));
+	}
+	
+	@Test
+	public void testCacheEntries() {
+		PerftCache cache = new PerftCache(4);
+		assertEquals(-1, cache.get(12345, 3));
+		cache.put(12345, 3, 999);
+		assertEquals(999, cache.get(12345, 3));
+		assertEquals(-1, cache.get(12345, 2));
+	}
+}
@@ -0,0 +1,103 @@
+package tests.engine;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import main.core.Board;
+import main.core.GameDirection;
+import main.core.Player;
+import main.engine.SearchResult;
+import main.engine.Searcher;
+import main.pieces.King;
+import main.pieces.Pawn;
+import main.pieces.Piece;
+import main.pieces.Piece.Color;
+import main.pieces.Queen;
+import main.pieces.Rook;
+
+public class SearcherTest {
+	private Map<String, Piece> mapping;
+	private Board board;
+	private Player[] players;
+	
+	@Before
+	public void setUp() {
+		mapping = new HashMap<String, Piece>();
+	}
+	
+	private void createBoard() {
+		List<Piece> whitePieces = new ArrayList<Piece>();
+		List<Piece> blackPieces = new ArrayList<Piece>();
+		for (Piece piece : mapping.values()) {
+			(piece.getColor() == Color.WHITE ? whitePieces : blackPieces).add(piece);
+		}
+		players = new Player[2];
+		players[0] = new Player("White", Color.WHITE, GameDirection.UPWARDS, whitePieces);
+		players[1] = new Player("Black", Color.BLACK, GameDirection.DOWNWARDS, blackPieces);
+		board = new Board(8, 8, mapping, players);
+	}
+	
+	@Test
+	public void testFindsMateInOne() {
+		mapping.put("b6", new King(Color.WHITE));
+		mapping.put("h2", new Queen(Color.WHITE));
+		mapping.put("a8", new King(Color.BLACK));
+		createBoard();
+		
+		SearchResult result = new Searcher(board).search(players[0], 2);
+		assertEquals("h8", result.getBestMove().getEndSquare().toString());
+		assertEquals(Searcher.MATE_SCORE - 1, result.getScore());
+		assertTrue(result.isMateScore());
+	}
+	
+	@Test
+	public void testCapturesHangingQueen() {
+		mapping.put("e1", new King(Color.WHITE));
+		mapping.put("a1", new Rook(Color.WHITE));
+		mapping.put("e8", new King(Color.BLACK));
+		mapping.put("a5", new Queen(Color.BLACK));
+		createBoard();
+		
+		SearchResult result = new Searcher(board).search(players[0], 1);
+		assertEquals("a5", result.getBestMove().getEndSquare().toString());
+	}
+	
+	@Test
+	public void testQuiescenceSeesRecapture() {
+		// Qxd5 wins a pawn at depth one, but exd5 wins the queen back just beyond the horizon
+		mapping.put("e1", new King(Color.WHITE));
+		mapping.put("d1", new Queen(Color.WHITE));
+		mapping.put("e8", new King(Color.BLACK));
+		mapping.put("d5", new Pawn(Color.BLACK));
+		mapping.put("e6", new Pawn(Color.BLACK));
+		createBoard();
+		
+		SearchResult result = new Searcher(board).search(players[0], 1);
+		assertNotEquals("d5", result.getBestMove().getEndSquare().toString());
+		assertTrue(result.getScore() > 0);
+	}
+	
+	@Test
+	public void testSearchRestoresBoard() {
+		mapping.put("e1", new King(Color.WHITE));
+		mapping.put("d1", new Queen(Color.WHITE));
+		mapping.put("e8", new King(Color.BLACK));
+		mapping.put("d5", new Pawn(Color.BLACK));
+		mapping.put("e6", new Pawn(Color.BLACK));
+		createBoard();
+		String before = board.getGameAsString();
+		int evaluation = board.getEvaluation();
+		
+		new Searcher(board).search(players[0], 3);
+		assertEquals(before, board.getGameAsString());
+		assertEquals(evaluation, board.getEvaluation());
+		assertFalse(board.canUndoMove());
+	}
+}
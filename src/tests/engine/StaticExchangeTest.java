@@ -0,0 +1,98 @@
+package tests.engine;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import main.core.Board;
+import main.core.GameDirection;
+import main.core.Move;
+import main.core.Player;
+import main.engine.MoveGenerator;
+import main.engine.StaticExchange;
+import main.pieces.DoubleJumper;
+import main.pieces.King;
+import main.pieces.Pawn;
+import main.pieces.Piece;
+import main.pieces.Piece.Color;
+import main.pieces.Rook;
+import main.pieces.RowMover;
+
+public class StaticExchangeTest {
+	private Map<String, Piece> mapping;
+	private Board board;
+	private Player[] players;
+	
+	@Before
+	public void setUp() {
+		mapping = new HashMap<String, Piece>();
+		mapping.put("h1", new King(Color.WHITE));
+		mapping.put("a8", new King(Color.BLACK));
+		mapping.put("e1", new Rook(Color.WHITE));
+		mapping.put("e5", new Pawn(Color.BLACK));
+	}
+	
+	private void createBoard() {
+		List<Piece> whitePieces = new ArrayList<Piece>();
+		List<Piece> blackPieces = new ArrayList<Piece>();
+		for (Piece piece : mapping.values()) {
+			(piece.getColor() == Color.WHITE ? whitePieces : blackPieces).add(piece);
+		}
+		players = new Player[2];
+		players[0] = new Player("White", Color.WHITE, GameDirection.UPWARDS, whitePieces);
+		players[1] = new Player("Black", Color.BLACK, GameDirection.DOWNWARDS, blackPieces);
+		board = new Board(8, 8, mapping, players);
+	}
+	
+	private int evaluateRookCapture() {
+		Move capture = new MoveGenerator(board).findMove(players[0], board.getSquare(7, 4), board.getSquare(3, 4));
+		assertNotNull(capture);
+		String before = board.getGameAsString();
+		int exchange = StaticExchange.evaluate(board, capture);
+		assertEquals(before, board.getGameAsString());
+		return exchange;
+	}
+	
+	@Test
+	public void testUndefendedPawn() {
+		createBoard();
+		assertEquals(100, evaluateRookCapture());
+	}
+	
+	@Test
+	public void testPawnDefendedByPawn() {
+		mapping.put("d6", new Pawn(Color.BLACK));
+		createBoard();
+		assertEquals(-400, evaluateRookCapture());
+	}
+	
+	@Test
+	public void testPawnDefendedByRowMoverFromTheRowBehind() {
+		// A black row mover captures anywhere on the row above it
+		mapping.put("a4", new RowMover(Color.BLACK));
+		createBoard();
+		assertEquals(-400, evaluateRookCapture());
+	}
+	
+	@Test
+	public void testPawnDefendedByDoubleJumperDiagonally() {
+		mapping.put("c7", new DoubleJumper(Color.BLACK));
+		createBoard();
+		assertEquals(-400, evaluateRookCapture());
+	}
+	
+	@Test
+	public void testRecaptureByWhiteRowMover() {
+		// The rook is lost, but the defender is won back by the row mover on the row above
+		mapping.put("d6", new Pawn(Color.BLACK));
+		mapping.put("b6", new RowMover(Color.WHITE));
+		createBoard();
+		assertEquals(-300, evaluateRookCapture());
+	}
+}
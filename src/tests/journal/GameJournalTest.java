@@ -0,0 +1,188 @@
+package tests.journal;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import main.journal.GameJournal;
+import main.journal.JournalRecord;
+import main.journal.JournaledChessModel;
+import main.server.GameRegistry;
+import main.server.NioGameServer;
+
+public class GameJournalTest {
+	private Path path;
+	
+	@Before
+	public void setUp() throws Exception {
+		path = Files.createTempFile("games", ".journal");
+	}
+	
+	@After
+	public void tearDown() throws Exception {
+		Files.deleteIfExists(path);
+	}
+
+	@Test
+	public void testGamesAreRecovered() throws Exception {
+		try (GameJournal journal = GameJournal.open(path)) {
+			JournaledChessModel game = journal.createGame(1, false);
+			game.move("e2", "e4");
+			game.move("e7", "e5");
+			game.undo();
+			game.redo();
+			game.move("g1", "f3");
+			
+			JournaledChessModel forfeited = journal.createGame(2, true);
+			forfeited.move("e2", "e4");
+			forfeited.forfeit();
+			
+			JournaledChessModel closed = journal.createGame(3, false);
+			journal.closeGame(closed.getGameId());
+		}
+		assertEquals(11 * JournalRecord.LENGTH, Files.size(path));
+		
+		try (GameJournal journal = GameJournal.open(path)) {
+			assertEquals(2, journal.getRecoveredGames().size());
+			
+			JournaledChessModel game = journal.getRecoveredGames().get(1L);
+			assertEquals("Pawn", game.getNameOfPieceAtPosition("e4"));
+			assertEquals("Pawn", game.getNameOfPieceAtPosition("e5"));
+			assertEquals("Knight", game.getNameOfPieceAtPosition("f3"));
+			assertEquals("Black", game.getCurrentPlayerName());
+			
+			// The forfeit reset the board and scored for white, since black forfeited
+			JournaledChessModel forfeited = journal.getRecoveredGames().get(2L);
+			assertEquals("Pawn", forfeited.getNameOfPieceAtPosition("e2"));
+			assertEquals("Row Mover", forfeited.getNameOfPieceAtPosition("a3"));
+			assertEquals(1, forfeited.getScoreByPlayerIndex(0));
+			
+			// Recovered games keep journaling
+			game.move("d7", "d6");
+		}
+		try (GameJournal journal = GameJournal.open(path)) {
+			assertEquals("Pawn", journal.getRecoveredGames().get(1L).getNameOfPieceAtPosition("d6"));
+		}
+	}
+	
+	@Test
+	public void testTornRecordIsCutOff() throws Exception {
+		try (GameJournal journal = GameJournal.open(path)) {
+			journal.createGame(1, false).move("e2", "e4");
+		}
+		
+		// Simulate a crash in the middle of writing a record
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.APPEND)) {
+			channel.write(ByteBuffer.wrap(new byte[] {0, 0, 0, 0, 0, 0, 0, 1, JournalRecord.MOVE, 52}));
+		}
+		
+		try (GameJournal journal = GameJournal.open(path)) {
+			assertEquals("Pawn", journal.getRecoveredGames().get(1L).getNameOfPieceAtPosition("e4"));
+			assertEquals(2 * JournalRecord.LENGTH, Files.size(path));
+		}
+	}
+	
+	@Test
+	public void testCorruptRecordBeforeTheTailFailsRecovery() throws Exception {
+		try (GameJournal journal = GameJournal.open(path)) {
+			JournaledChessModel game = journal.createGame(1, false);
+			game.move("e2", "e4");
+			game.move("e7", "e5");
+		}
+		
+		// Damage the first move, which is followed by an intact record
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.wrap(new byte[] {(byte) 0xFF}), JournalRecord.LENGTH + JournalRecord.LENGTH - 1);
+		}
+		
+		try {
+			GameJournal.open(path).close();
+			fail("Recovered a journal with a corrupt record");
+		} catch (IOException e) {
+			// The intact records after the corrupt one are kept
+			assertEquals(3 * JournalRecord.LENGTH, Files.size(path));
+		}
+	}
+	
+	@Test
+	public void testFailedAppendRollsBack() throws Exception {
+		JournaledChessModel game;
+		try (GameJournal journal = GameJournal.open(path)) {
+			game = journal.createGame(1, false);
+			game.move("e2", "e4");
+		}
+		
+		// The journal is closed, so the move cannot be journaled
+		try {
+			game.move("e7", "e5");
+			fail("Move was not journaled");
+		} catch (UncheckedIOException e) {
+			assertEquals("Pawn", game.getNameOfPieceAtPosition("e7"));
+			assertEquals("Black", game.getCurrentPlayerName());
+		}
+		try {
+			game.undo();
+			fail("Undo was not journaled");
+		} catch (UncheckedIOException e) {
+			assertEquals("Pawn", game.getNameOfPieceAtPosition("e4"));
+			assertEquals("Black", game.getCurrentPlayerName());
+		}
+	}
+	
+	@Test
+	public void testConcurrentGamesShareCommits() throws Exception {
+		int gameCount = 8;
+		try (GameJournal journal = GameJournal.open(path)) {
+			List<Thread> threads = new ArrayList<Thread>();
+			for (int idx=0; idx<gameCount; idx++) {
+				JournaledChessModel game = journal.createGame(idx + 1, false);
+				threads.add(new Thread(() -> {
+					for (int round=0; round<10; round++) {
+						try {
+							game.move("b1", "c3");
+							game.move("b8", "c6");
+							game.move("c3", "b1");
+							game.move("c6", "b8");
+						} catch (Exception e) {
+							throw new RuntimeException(e);
+						}
+					}
+				}));
+			}
+			for (Thread thread : threads) {
+				thread.start();
+			}
+			for (Thread thread : threads) {
+				thread.join();
+			}
+		}
+		
+		try (GameJournal journal = GameJournal.open(path)) {
+			assertEquals(gameCount, journal.getRecoveredGames().size());
+			for (JournaledChessModel game : journal.getRecoveredGames().values()) {
+				assertEquals("Knight", game.getNameOfPieceAtPosition("b1"));
+				assertEquals("White", game.getCurrentPlayerName());
+				assertTrue(game.canUndo());
+			}
+		}
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testNioServerRejectsJournaledRegistry() throws Exception {
+		try (GameJournal journal = GameJournal.open(path)) {
+			new NioGameServer(new GameRegistry(journal));
+		}
+	}
+}
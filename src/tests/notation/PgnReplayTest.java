@@ -0,0 +1,69 @@
+package tests.notation;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import main.core.StartingPosition;
+import main.notation.PgnReplay;
+import main.notation.ReplayStatistics;
+import main.notation.ReplayStatistics.IllegalGame;
+
+public class PgnReplayTest {
+	
+	private static final String SCHOLARS_MATE =
+			"[Event \"Casual \\\"game\\\"\"]\n" +
+			"[Result \"1-0\"]\n" +
+			"\n" +
+			"1. e4 e5 2. Bc4 {a comment} Nc6 (2... Nf6 3. d3) 3. Qh5 Nf6?? $4\n" +
+			"4. Qxf7# 1-0\n";
+	
+	private static final String CASTLING_GAME =
+			"[Event \"Castling\"]\n" +
+			"\n" +
+			"1.e4 e5 2.Nf3 Nc6 3.Bc4 Nf6 4.O-O Be7 *\n";
+	
+	private static final String ILLEGAL_MOVE_GAME =
+			"1. e4 e5 2. Ke3 *\n";
+	
+	private ReplayStatistics replay(String pgn) throws IOException {
+		ReadableByteChannel channel = Channels.newChannel(new ByteArrayInputStream(pgn.getBytes(StandardCharsets.UTF_8)));
+		return new PgnReplay(StartingPosition.STANDARD).replay(channel);
+	}
+
+	@Test
+	public void testReplayLegalGame() throws IOException {
+		ReplayStatistics statistics = replay(SCHOLARS_MATE);
+		assertEquals(1, statistics.getGameCount());
+		assertEquals(7, statistics.getPlyCount());
+		assertEquals(0, statistics.getIllegalGames().size());
+	}
+	
+	@Test
+	public void testReplayFlagsUnsupportedCastling() throws IOException {
+		ReplayStatistics statistics = replay(CASTLING_GAME);
+		assertEquals(1, statistics.getGameCount());
+		assertEquals(1, statistics.getIllegalGames().size());
+		
+		IllegalGame illegalGame = statistics.getIllegalGames().get(0);
+		assertEquals(1, illegalGame.getGameNumber());
+		assertEquals(7, illegalGame.getPly());
+	}
+	
+	@Test
+	public void testReplaySeparatesGamesAndFlagsIllegalMove() throws IOException {
+		ReplayStatistics statistics = replay(SCHOLARS_MATE + "\n" + ILLEGAL_MOVE_GAME + CASTLING_GAME);
+		assertEquals(3, statistics.getGameCount());
+		assertEquals(2, statistics.getIllegalGames().size());
+		
+		IllegalGame illegalGame = statistics.getIllegalGames().get(0);
+		assertEquals(2, illegalGame.getGameNumber());
+		assertEquals(3, illegalGame.getPly());
+	}
+}
@@ -0,0 +1,86 @@
+package tests.notation;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import main.notation.SanMove;
+import main.pieces.PieceType;
+
+public class SanMoveTest {
+
+	private SanMove sanMove;
+	
+	@Before
+	public void setUp() throws Exception {
+		sanMove = new SanMove();
+	}
+	
+	/**
+	 * Parse a string token into the shared SanMove instance
+	 */
+	private boolean parse(String token) {
+		byte[] bytes = token.getBytes(StandardCharsets.US_ASCII);
+		return sanMove.parse(bytes, 0, bytes.length);
+	}
+
+	@Test
+	public void testParsePawnMove() {
+		assertTrue(parse("e4"));
+		assertEquals(PieceType.PAWN, sanMove.getPieceType());
+		assertEquals(4, sanMove.getToFile());
+		assertEquals(4, sanMove.getToRank());
+		assertEquals(-1, sanMove.getFromFile());
+		assertFalse(sanMove.isCapture());
+	}
+	
+	@Test
+	public void testParsePawnCapture() {
+		assertTrue(parse("exd5"));
+		assertEquals(PieceType.PAWN, sanMove.getPieceType());
+		assertEquals(4, sanMove.getFromFile());
+		assertEquals(3, sanMove.getToFile());
+		assertEquals(5, sanMove.getToRank());
+		assertTrue(sanMove.isCapture());
+	}
+	
+	@Test
+	public void testParseDisambiguatedPieceCaptureWithCheck() {
+		assertTrue(parse("N1xd7+"));
+		assertEquals(PieceType.KNIGHT, sanMove.getPieceType());
+		assertEquals(-1, sanMove.getFromFile());
+		assertEquals(1, sanMove.getFromRank());
+		assertEquals(3, sanMove.getToFile());
+		assertEquals(7, sanMove.getToRank());
+		assertTrue(sanMove.isCapture());
+	}
+	
+	@Test
+	public void testParseCastlingAndPromotion() {
+		assertTrue(parse("O-O"));
+		assertTrue(sanMove.isKingsideCastle());
+		
+		assertTrue(parse("0-0-0"));
+		assertTrue(sanMove.isQueensideCastle());
+		
+		assertTrue(parse("e8=Q#"));
+		assertEquals(PieceType.QUEEN, sanMove.getPromotionType());
+		assertEquals(8, sanMove.getToRank());
+	}
+	
+	@Test
+	public void testParseCustomPieceLetter() {
+		assertTrue(parse("Ma4"));
+		assertEquals(PieceType.ROW_MOVER, sanMove.getPieceType());
+	}
+	
+	@Test
+	public void testParseRejectsMalformedTokens() {
+		assertFalse(parse("Nz"));
+		assertFalse(parse("+"));
+		assertFalse(parse("Q4"));
+	}
+}
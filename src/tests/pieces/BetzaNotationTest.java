@@ -0,0 +1,164 @@
+package tests.pieces;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import main.core.Board;
+import main.core.GameDirection;
+import main.core.Player;
+import main.core.PositionHash;
+import main.engine.Perft;
+import main.pieces.BetzaNotation;
+import main.pieces.CustomPiece;
+import main.pieces.King;
+import main.pieces.Knight;
+import main.pieces.Piece;
+import main.pieces.Piece.Color;
+import main.pieces.PieceDefinition;
+import main.pieces.PieceDescriptor;
+import main.pieces.PieceType;
+
+public class BetzaNotationTest {
+	private static final String BACK_RANK = "RNBQKBNR";
+	
+	@Test
+	public void testCompile() {
+		assertEquals(8, BetzaNotation.compile("N").getMovements().size());
+		assertEquals(8, BetzaNotation.compile("K").getCaptureMovements().size());
+		assertEquals(4, BetzaNotation.compile("R").getMovements().size());
+		assertEquals(2, BetzaNotation.compile("fvN").getMovements().size());
+		assertEquals(4, BetzaNotation.compile("vN").getMovements().size());
+		assertEquals(1, BetzaNotation.compile("flF").getMovements().size());
+		
+		PieceDescriptor pawn = BetzaNotation.compile("mfWcfFifmW2");
+		assertEquals(1, pawn.getMovements().size());
+		assertEquals(2, pawn.getCaptureMovements().size());
+		assertEquals(3, pawn.getInitialMovements().size());
+		assertEquals(PieceType.CUSTOM, pawn.getType());
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownAtom() {
+		BetzaNotation.compile("mX");
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testFirstMoveOnlyCapture() {
+		// Initial movements cannot capture, so an initial capture is rejected rather than dropped
+		BetzaNotation.compile("KicD");
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testFirstMoveOnlyWithoutMoveOnly() {
+		BetzaNotation.compile("KiD");
+	}
+	
+	@Test
+	public void testCompiledStandardPiecesMatchPerft() {
+		Board board = createStandardBoard();
+		assertEquals(20, new Perft(board, null).count(board.getPlayer(Color.WHITE), 1));
+		assertEquals(400, new Perft(board, null).count(board.getPlayer(Color.WHITE), 2));
+		assertEquals(8902, new Perft(board, null).count(board.getPlayer(Color.WHITE), 3));
+	}
+	
+	@Test
+	public void testLoadDefinitions() throws IOException {
+		Path file = Files.createTempFile("pieces", ".txt");
+		try {
+			Files.write(file, Arrays.asList("# fairy pieces", "", "Z Knight Rider NN", "A Archbishop BN"), StandardCharsets.UTF_8);
+			List<PieceDefinition> definitions = PieceDefinition.load(file);
+			assertEquals(2, definitions.size());
+			assertEquals("Knight Rider", definitions.get(0).getName());
+			assertEquals("NN", definitions.get(0).getNotation());
+			
+			Piece archbishop = definitions.get(1).createPiece(Color.BLACK);
+			assertEquals('a', archbishop.getCharacterRepresentation());
+			assertSame(definitions.get(1).getDescriptor(), archbishop.getDescriptor());
+			assertSame(archbishop.getDescriptor(), archbishop.createSameKind(Color.WHITE).getDescriptor());
+		} finally {
+			Files.delete(file);
+		}
+	}
+	
+	@Test
+	public void testCustomRiderPinsPiece() {
+		// The wazir rider on e8 pins the knight on e2, so only the king can move
+		Map<String, Piece> mapping = new HashMap<String, Piece>();
+		List<Piece> whitePieces = new ArrayList<Piece>();
+		List<Piece> blackPieces = new ArrayList<Piece>();
+		Piece whiteKing = new King(Color.WHITE);
+		Piece knight = new Knight(Color.WHITE);
+		Piece blackKing = new King(Color.BLACK);
+		Piece rider = new CustomPiece(Color.BLACK, new PieceDefinition('W', "Wazir Rider", "WW"));
+		mapping.put("e1", whiteKing);
+		mapping.put("e2", knight);
+		mapping.put("a8", blackKing);
+		mapping.put("e8", rider);
+		whitePieces.add(whiteKing);
+		whitePieces.add(knight);
+		blackPieces.add(blackKing);
+		blackPieces.add(rider);
+		Player[] players = new Player[] {
+				new Player("White", Color.WHITE, GameDirection.UPWARDS, whitePieces),
+				new Player("Black", Color.BLACK, GameDirection.DOWNWARDS, blackPieces) };
+		Board board = new Board(8, 8, mapping, players);
+		
+		assertTrue(board.isPinned(knight, board.getPlayer(Color.WHITE)));
+		assertEquals(4, new Perft(board, null).countLegalMoves(board.getPlayer(Color.WHITE)));
+	}
+	
+	@Test
+	public void testCustomPiecesHashApart() {
+		Piece rider = new CustomPiece(Color.WHITE, new PieceDefinition('W', "Wazir Rider", "WW"));
+		Piece ferzRider = new CustomPiece(Color.WHITE, new PieceDefinition('F', "Ferz Rider", "FF"));
+		assertNotEquals(PositionHash.getPieceKey(rider, 12), PositionHash.getPieceKey(ferzRider, 12));
+		assertNotEquals(PositionHash.getPieceKey(rider, 12), PositionHash.getPieceKey(rider, 13));
+		// Loading the same definition again gives the same keys
+		Piece reloaded = new CustomPiece(Color.WHITE, new PieceDefinition('W', "Wazir Rider", "WW"));
+		assertEquals(PositionHash.getPieceKey(rider, 12), PositionHash.getPieceKey(reloaded, 12));
+	}
+	
+	/**
+	 * The standard starting position with every piece but the kings compiled from notation
+	 */
+	private static Board createStandardBoard() {
+		Map<Character, PieceDefinition> definitions = new HashMap<Character, PieceDefinition>();
+		definitions.put('P', new PieceDefinition('P', "Pawn", "mfWcfFifmW2"));
+		definitions.put('N', new PieceDefinition('N', "Knight", "N"));
+		definitions.put('B', new PieceDefinition('B', "Bishop", "B"));
+		definitions.put('R', new PieceDefinition('R', "Rook", "R"));
+		definitions.put('Q', new PieceDefinition('Q', "Queen", "Q"));
+		
+		Map<String, Piece> mapping = new HashMap<String, Piece>();
+		Player[] players = new Player[2];
+		for (Color color : Color.values()) {
+			List<Piece> pieces = new ArrayList<Piece>();
+			String backRank = color == Color.WHITE ? "1" : "8";
+			String pawnRank = color == Color.WHITE ? "2" : "7";
+			for (int col=0; col<8; col++) {
+				char file = (char) ('a' + col);
+				char letter = BACK_RANK.charAt(col);
+				Piece piece = letter == 'K' ? new King(color) : new CustomPiece(color, definitions.get(letter));
+				Piece pawn = new CustomPiece(color, definitions.get('P'));
+				mapping.put(file + backRank, piece);
+				mapping.put(file + pawnRank, pawn);
+				pieces.add(piece);
+				pieces.add(pawn);
+			}
+			GameDirection direction = color == Color.WHITE ? GameDirection.UPWARDS : GameDirection.DOWNWARDS;
+			players[color == Color.WHITE ? 0 : 1] = new Player(color.toString(), color, direction, pieces);
+		}
+		return new Board(8, 8, mapping, players);
+	}
+}
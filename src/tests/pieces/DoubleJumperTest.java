@@ -5,13 +5,17 @@ import static org.junit.Assert.*;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 import org.junit.Before;
 import org.junit.Test;
 
 import main.core.Board;
 import main.core.GameDirection;
+import main.core.Move;
+import main.core.MovementPattern;
 import main.core.Player;
+import main.core.Square;
 import main.exceptions.InvalidMoveException;
 import main.pieces.Piece;
 import main.pieces.DoubleJumper;
@@ -273,4 +277,41 @@ public class DoubleJumperTest extends ChessBaseTest{
 		}
 	}
 
+	@Test
+	/**
+	 * Test that matching moves directly gives the same answer as comparing them with every pattern
+	 */
+	public void testFastMatchAgreesWithPatterns() {
+		DoubleJumper doubleJumper = new DoubleJumper(Color.WHITE);
+		DoubleJumper enemy = new DoubleJumper(Color.BLACK);
+		Board board = new Board(NUM_ROWS, NUM_COLUMNS, new HashMap<String, Piece>(), players);
+		Square start = board.getSquare(3, 4);
+		start.setPiece(doubleJumper);
+		for (int row=0; row<NUM_ROWS; row++) {
+			for (int col=0; col<NUM_COLUMNS; col++) {
+				Square end = board.getSquare(row, col);
+				if (end == start) {
+					continue;
+				}
+				for (boolean capture : new boolean[] {false, true}) {
+					if (capture) {
+						end.setPiece(enemy);
+					}
+					Move move = new Move(start, end, players[0]);
+					Set<MovementPattern> patterns = capture ? doubleJumper.getDescriptor().getCaptureMovements() : doubleJumper.getLegalMovementDirection();
+					MovementPattern expected = null;
+					for (MovementPattern pattern : patterns) {
+						if (pattern.equals(move)) {
+							expected = pattern;
+						}
+					}
+					assertSame(expected, move.getMovementPattern());
+					if (capture) {
+						end.removePiece();
+					}
+				}
+			}
+		}
+	}
+
 }
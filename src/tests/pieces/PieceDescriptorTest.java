@@ -0,0 +1,56 @@
+package tests.pieces;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import main.core.Board;
+import main.core.ChessModel;
+import main.pieces.Pawn;
+import main.pieces.Piece;
+import main.pieces.Piece.Color;
+import main.pieces.PieceDescriptor;
+import main.pieces.PieceType;
+
+public class PieceDescriptorTest {
+	
+	@Test
+	public void testPiecesShareDescriptor() {
+		for (PieceType type : PieceType.values()) {
+			if (type == PieceType.CUSTOM) {
+				continue;
+			}
+			Piece white = type.createPiece(Color.WHITE);
+			Piece black = type.createPiece(Color.BLACK);
+			assertSame(white.getDescriptor(), black.getDescriptor());
+			assertSame(PieceDescriptor.get(type), white.getDescriptor());
+			assertSame(white.getLegalMovementDirection(), black.getLegalMovementDirection());
+			assertEquals(type, white.getDescriptor().getType());
+		}
+	}
+	
+	@Test
+	public void testPawnMovements() {
+		PieceDescriptor descriptor = new Pawn(Color.WHITE).getDescriptor();
+		assertEquals(1, descriptor.getMovements().size());
+		assertEquals(2, descriptor.getInitialMovements().size());
+		assertEquals(2, descriptor.getCaptureMovements().size());
+	}
+	
+	@Test(expected = UnsupportedOperationException.class)
+	public void testDescriptorIsImmutable() {
+		PieceDescriptor.get(PieceType.ROOK).getMovements().clear();
+	}
+	
+	@Test
+	public void testMovedPawnLosesDoubleStep() throws Exception {
+		ChessModel model = new ChessModel();
+		model.move("e2", "e3");
+		model.move("a7", "a6");
+		assertEquals(1, model.getAvailableLocationsForMove(5, 4).size());
+		
+		// A copy keeps the move count, so the pawn still cannot step two squares
+		Board copy = model.getBoard().copy();
+		assertEquals(1, copy.getSquare(5, 4).getPiece().getMoveCount());
+	}
+}
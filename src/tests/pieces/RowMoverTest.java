@@ -214,4 +214,26 @@ public class RowMoverTest extends ChessBaseTest{
 		}
 	}
 
+	@Test
+	/**
+	 * Test that the RowMover reaches the whole next row of a board wider than 8 columns
+	 */
+	public void testRowMoverOnWideBoard() {
+		RowMover rowMover = new RowMover(Color.WHITE);
+		Map<String, Piece> pieceMapping = new HashMap<String, Piece>();
+		pieceMapping.put("a4", rowMover);
+		Player[] widePlayers = new Player[2];
+		widePlayers[0] = new Player("Player 1", Color.WHITE, GameDirection.UPWARDS, Arrays.asList(rowMover));
+		widePlayers[1] = new Player("Player 2", Color.BLACK, GameDirection.DOWNWARDS, Arrays.asList());
+		Board board = new Board(NUM_ROWS, 12, pieceMapping, widePlayers);
+		
+		assertEquals(12, board.getAvailableLocationsForMove(4, 0, widePlayers[0]).size());
+		try {
+			board.move("a4", "l5", widePlayers[0]);
+			assertEquals("Row Mover", board.getNameOfPieceAtPosition("l5"));
+		} catch (InvalidMoveException e) {
+			fail("Unexpected invalid move exception");
+		}
+	}
+
 }
@@ -0,0 +1,87 @@
+package tests.replay;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Test;
+
+import main.core.StartingPosition;
+import main.notation.ReplayStatistics;
+import main.replay.GameSummary;
+import main.replay.GameSummary.Status;
+import main.replay.ReplayPipeline;
+
+public class ReplayPipelineTest {
+	
+	private static final String SCHOLARS_MATE =
+			"[Event \"Scholar's mate\"]\n" +
+			"[Result \"1-0\"]\n" +
+			"\n" +
+			"1. e4 e5 2. Bc4 Nc6 3. Qh5 Nf6 4. Qxf7# 1-0\n" +
+			"\n";
+	
+	private static final String ILLEGAL_GAME =
+			"[Event \"Illegal\"]\n" +
+			"\n" +
+			"1. e4 e5 2. Ke3 *\n" +
+			"\n";
+	
+	private static final String OPEN_GAME =
+			"[Event \"Open\"]\n" +
+			"\n" +
+			"1. d4 {[a bracket in a comment]} d5\n" +
+			"2. Nc3 *\n" +
+			"\n";
+
+	@Test
+	public void testPipelineReplaysEveryGame() throws Exception {
+		// Repeat the games so that every worker gets some
+		StringBuilder archive = new StringBuilder();
+		for (int idx=0; idx<20; idx++) {
+			archive.append(SCHOLARS_MATE).append(ILLEGAL_GAME).append(OPEN_GAME);
+		}
+		
+		Map<Long, GameSummary> summaries = new ConcurrentHashMap<Long, GameSummary>();
+		ReplayPipeline pipeline = new ReplayPipeline(StartingPosition.STANDARD, 4, 2);
+		ReplayStatistics statistics = pipeline.run(
+				Channels.newChannel(new ByteArrayInputStream(archive.toString().getBytes(StandardCharsets.UTF_8))),
+				summary -> summaries.put(summary.getGameNumber(), summary));
+		
+		// Verify totals
+		assertEquals(60, statistics.getGameCount());
+		assertEquals(20, statistics.getIllegalGames().size());
+		assertEquals(60, summaries.size());
+		
+		// Verify per-game results, games are numbered in archive order
+		GameSummary mate = summaries.get(1L);
+		assertEquals(Status.CHECKMATE, mate.getStatus());
+		assertEquals(7, mate.getPlyCount());
+		assertEquals(1, mate.getWhiteCapturedMaterial());
+		assertEquals(0, mate.getBlackCapturedMaterial());
+		
+		assertEquals(Status.ILLEGAL, summaries.get(2L).getStatus());
+		
+		GameSummary open = summaries.get(3L);
+		assertEquals(Status.ONGOING, open.getStatus());
+		assertEquals(3, open.getPlyCount());
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void testListenerFailureIsRethrown() throws Exception {
+		// More games than the queues hold, so a stalled aggregator would block the other stages
+		StringBuilder archive = new StringBuilder();
+		for (int idx=0; idx<20; idx++) {
+			archive.append(SCHOLARS_MATE).append(OPEN_GAME);
+		}
+		
+		ReplayPipeline pipeline = new ReplayPipeline(StartingPosition.STANDARD, 2, 2);
+		pipeline.run(
+				Channels.newChannel(new ByteArrayInputStream(archive.toString().getBytes(StandardCharsets.UTF_8))),
+				summary -> { throw new IllegalStateException("Listener failed"); });
+	}
+}
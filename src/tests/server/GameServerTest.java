@@ -0,0 +1,64 @@
+package tests.server;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import main.server.GameClient;
+import main.server.GameServer;
+import main.server.LoadGenerator;
+
+public class GameServerTest {
+	private GameServer server;
+	
+	@Before
+	public void setUp() throws Exception {
+		server = new GameServer();
+		server.start(0);
+	}
+	
+	@After
+	public void tearDown() throws Exception {
+		server.stop();
+	}
+
+	@Test
+	public void testPlayGameOverProtocol() throws Exception {
+		try (GameClient client = new GameClient(server.getPort())) {
+			String gameId = client.newGame(false);
+			
+			assertEquals("OK White ongoing", client.send("STATUS " + gameId));
+			assertEquals("OK a3 c3", client.send("LEGAL " + gameId + " b1"));
+			assertEquals("OK", client.send("MOVE " + gameId + " e2 e4"));
+			assertEquals("OK Black ongoing", client.send("STATUS " + gameId));
+			
+			// Moving a white piece on black's turn is rejected
+			assertEquals("ERR Move invalid", client.send("MOVE " + gameId + " d2 d4"));
+			
+			assertEquals("OK", client.send("UNDO " + gameId));
+			assertEquals("ERR No move to undo", client.send("UNDO " + gameId));
+			assertEquals("ERR Unknown game", client.send("STATUS 12345"));
+		}
+	}
+	
+	@Test
+	public void testConcurrentGamesWithLoadGenerator() throws Exception {
+		LoadGenerator generator = new LoadGenerator(server.getPort(), 16, 5);
+		generator.run();
+		
+		assertEquals(16 * 5 * 4, generator.getMoveCount());
+		assertEquals(0, generator.getErrorCount());
+		assertEquals(0, server.getRegistry().getGameCount());
+	}
+	
+	@Test
+	public void testStopEndsAcceptLoop() throws Exception {
+		assertTrue(server.isRunning());
+		server.stop();
+		// Closing the socket is not a failure, so waiting returns without an exception
+		server.awaitTermination();
+		assertFalse(server.isRunning());
+	}
+}
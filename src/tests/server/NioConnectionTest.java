@@ -0,0 +1,54 @@
+package tests.server;
+
+import static org.junit.Assert.*;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+import org.junit.Test;
+
+import main.server.BinaryProtocol;
+import main.server.BufferPool;
+import main.server.NioConnection;
+
+public class NioConnectionTest {
+	
+	@Test
+	public void testStalledClientIsOverloaded() throws Exception {
+		try (ServerSocketChannel server = ServerSocketChannel.open(); Selector selector = Selector.open()) {
+			server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+			try (SocketChannel client = SocketChannel.open(server.getLocalAddress()); SocketChannel channel = server.accept()) {
+				channel.configureBlocking(false);
+				channel.setOption(StandardSocketOptions.SO_SNDBUF, 4096);
+				SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+				NioConnection connection = new NioConnection(channel, key, new BufferPool(4096, 4));
+				
+				// The client never reads, so the frames pile up once the socket buffers are full
+				ByteBuffer frame = ByteBuffer.allocate(64 * 1024).asReadOnlyBuffer();
+				for (int idx=0; idx<2000 && !connection.isOverloaded(); idx++) {
+					connection.queueSharedFrame(frame);
+					connection.flush();
+				}
+				assertTrue(connection.isOverloaded());
+				connection.close();
+			}
+		}
+	}
+	
+	@Test
+	public void testBoardFrameCountsEverySquare() {
+		ByteBuffer frame = BinaryProtocol.createBoardFrame(1, 0, new byte[BinaryProtocol.MAX_SQUARES]);
+		assertEquals(BinaryProtocol.MAX_SQUARES, frame.getShort(frame.position() + 9));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testBoardTooLargeForProtocol() {
+		BinaryProtocol.createBoardFrame(1, 0, new byte[BinaryProtocol.MAX_SQUARES + 1]);
+	}
+}
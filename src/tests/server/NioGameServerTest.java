@@ -0,0 +1,166 @@
+package tests.server;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import main.server.BinaryProtocol;
+import main.server.GameRegistry;
+import main.server.NioGameServer;
+
+public class NioGameServerTest {
+	private NioGameServer server;
+	private SocketChannel player;
+	private SocketChannel spectator;
+	
+	@Before
+	public void setUp() throws Exception {
+		server = new NioGameServer(new GameRegistry());
+		server.start(0);
+		player = connect();
+		spectator = connect();
+	}
+	
+	@After
+	public void tearDown() throws Exception {
+		player.close();
+		spectator.close();
+		server.stop();
+	}
+	
+	private SocketChannel connect() throws IOException {
+		return SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort()));
+	}
+	
+	/**
+	 * Read exactly the given number of bytes from a blocking channel
+	 */
+	private static ByteBuffer read(SocketChannel channel, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) == -1) {
+				fail("Connection closed");
+			}
+		}
+		buffer.flip();
+		return buffer;
+	}
+	
+	private static void write(SocketChannel channel, ByteBuffer frame) throws IOException {
+		frame.flip();
+		while (frame.hasRemaining()) {
+			channel.write(frame);
+		}
+	}
+	
+	private int newGame() throws IOException {
+		write(player, ByteBuffer.allocate(2).put(BinaryProtocol.NEW).put((byte) 0));
+		ByteBuffer response = read(player, 5);
+		assertEquals(BinaryProtocol.GAME, response.get());
+		return response.getInt();
+	}
+
+	@Test
+	public void testMoveIsSentToSpectator() throws Exception {
+		int gameId = newGame();
+		
+		// Watching answers with OK followed by the full board
+		write(spectator, ByteBuffer.allocate(5).put(BinaryProtocol.WATCH).putInt(gameId));
+		ByteBuffer result = read(spectator, 2);
+		assertEquals(BinaryProtocol.RESULT, result.get());
+		assertEquals(BinaryProtocol.STATUS_OK, result.get());
+		ByteBuffer board = read(spectator, 11 + 64);
+		assertEquals(BinaryProtocol.BOARD, board.get());
+		assertEquals(gameId, board.getInt());
+		assertEquals(0, board.getInt());
+		assertEquals(64, board.getShort());
+		
+		// e2 is square 52, e4 is square 36
+		assertEquals(0, board.get(11 + 36));
+		byte pawn = board.get(11 + 52);
+		write(player, ByteBuffer.allocate(7).put(BinaryProtocol.MOVE).putInt(gameId).put((byte) 52).put((byte) 36));
+		result = read(player, 2);
+		assertEquals(BinaryProtocol.RESULT, result.get());
+		assertEquals(BinaryProtocol.STATUS_OK, result.get());
+		
+		// The spectator only receives the squares that changed
+		ByteBuffer delta = read(spectator, BinaryProtocol.DELTA_LENGTH);
+		assertEquals(BinaryProtocol.DELTA, delta.get());
+		assertEquals(gameId, delta.getInt());
+		assertEquals(1, delta.getInt());
+		assertEquals(52, delta.get());
+		assertEquals(0, delta.get());
+		assertEquals(36, delta.get());
+		assertEquals(pawn, delta.get());
+		assertEquals(0, delta.get());
+	}
+	
+	@Test
+	public void testLateSpectatorCatchesUp() throws Exception {
+		int gameId = newGame();
+		write(player, ByteBuffer.allocate(7).put(BinaryProtocol.MOVE).putInt(gameId).put((byte) 52).put((byte) 36));
+		read(player, 2);
+		
+		// A spectator joining after a move gets the keyframe followed by the delta
+		write(spectator, ByteBuffer.allocate(5).put(BinaryProtocol.WATCH).putInt(gameId));
+		read(spectator, 2);
+		ByteBuffer board = read(spectator, 11 + 64);
+		assertEquals(BinaryProtocol.BOARD, board.get());
+		ByteBuffer delta = read(spectator, BinaryProtocol.DELTA_LENGTH);
+		assertEquals(BinaryProtocol.DELTA, delta.get());
+		assertEquals(gameId, delta.getInt());
+		assertEquals(1, delta.getInt());
+	}
+	
+	@Test
+	public void testRequestSplitAcrossWrites() throws Exception {
+		int gameId = newGame();
+		
+		// Send an illegal move in two parts
+		write(player, ByteBuffer.allocate(3).put(BinaryProtocol.MOVE).put((byte) 0).put((byte) 0));
+		Thread.sleep(50);
+		ByteBuffer rest = ByteBuffer.allocate(4);
+		rest.put((byte) (gameId >> 8)).put((byte) gameId).put((byte) 52).put((byte) 20);
+		write(player, rest);
+		
+		ByteBuffer result = read(player, 2);
+		assertEquals(BinaryProtocol.RESULT, result.get());
+		assertEquals(BinaryProtocol.STATUS_INVALID_MOVE, result.get());
+	}
+	
+	@Test
+	public void testUnknownGame() throws Exception {
+		write(player, ByteBuffer.allocate(5).put(BinaryProtocol.UNDO).putInt(999));
+		ByteBuffer result = read(player, 2);
+		assertEquals(BinaryProtocol.RESULT, result.get());
+		assertEquals(BinaryProtocol.STATUS_UNKNOWN_GAME, result.get());
+	}
+	
+	@Test(timeout = 5000)
+	public void testGarbageOpcode() throws Exception {
+		write(player, ByteBuffer.allocate(1).put((byte) 0x7F));
+		ByteBuffer result = read(player, 2);
+		assertEquals(BinaryProtocol.RESULT, result.get());
+		assertEquals(BinaryProtocol.STATUS_UNKNOWN_REQUEST, result.get());
+		
+		// The server keeps serving both this client and the others
+		assertTrue(newGame() >= 0);
+		write(spectator, ByteBuffer.allocate(5).put(BinaryProtocol.UNDO).putInt(999));
+		assertEquals(BinaryProtocol.STATUS_UNKNOWN_GAME, read(spectator, 2).get(1));
+	}
+	
+	@Test
+	public void testStopEndsSelectorLoop() throws Exception {
+		assertTrue(server.isRunning());
+		server.stop();
+		assertFalse(server.isRunning());
+	}
+}
@@ -0,0 +1,56 @@
+package tests.server;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import main.server.BinaryProtocol;
+import main.server.SpectatorFeed;
+
+public class SpectatorFeedTest {
+	private SpectatorFeed feed;
+	private List<ByteBuffer> received;
+	
+	@Before
+	public void setUp() {
+		feed = new SpectatorFeed(7, () -> new byte[64]);
+		received = new ArrayList<ByteBuffer>();
+		feed.addListener((gameId, sequence, frame) -> received.add(frame));
+	}
+
+	@Test
+	public void testDeltasAreShared() {
+		feed.publish(52, (byte) 0, 36, (byte) 1, (byte) 0);
+		assertEquals(1, received.size());
+		ByteBuffer frame = received.get(0);
+		assertTrue(frame.isReadOnly());
+		assertEquals(BinaryProtocol.DELTA_LENGTH, frame.remaining());
+		assertEquals(1, BinaryProtocol.getSequence(frame));
+		
+		// The same frame is used for catching up
+		List<ByteBuffer> frames = feed.getCatchUpFrames();
+		assertEquals(2, frames.size());
+		assertEquals(BinaryProtocol.BOARD, frames.get(0).get(0));
+		assertSame(frame, frames.get(1));
+	}
+	
+	@Test
+	public void testKeyframeInterval() {
+		for (int idx=0; idx<SpectatorFeed.KEYFRAME_INTERVAL; idx++) {
+			feed.publish(52, (byte) 0, 36, (byte) 1, (byte) 0);
+		}
+		
+		// A new keyframe replaces the accumulated deltas
+		List<ByteBuffer> frames = feed.getCatchUpFrames();
+		assertEquals(1, frames.size());
+		assertEquals(SpectatorFeed.KEYFRAME_INTERVAL, BinaryProtocol.getSequence(frames.get(0)));
+		
+		feed.publish(36, (byte) 0, 52, (byte) 1, (byte) 0);
+		assertEquals(2, feed.getCatchUpFrames().size());
+	}
+}
@@ -0,0 +1,147 @@
+package tests.tablebase;
+
+import static org.junit.Assert.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import main.core.Board;
+import main.core.GameDirection;
+import main.core.Player;
+import main.engine.SearchResult;
+import main.engine.Searcher;
+import main.pieces.King;
+import main.pieces.Piece;
+import main.pieces.Piece.Color;
+import main.pieces.PieceType;
+import main.pieces.Queen;
+import main.pieces.Rook;
+import main.tablebase.Material;
+import main.tablebase.Tablebase;
+import main.tablebase.TablebaseGenerator;
+import main.tablebase.Tablebases;
+
+public class TablebaseTest {
+	// Squares as row * 8 + col, with row 0 the eighth rank
+	private static final int A8 = 0;
+	private static final int H8 = 7;
+	private static final int C7 = 10;
+	private static final int B6 = 17;
+	private static final int H2 = 55;
+	
+	private static Path tableFile;
+	private static Tablebase tablebase;
+	
+	@BeforeClass
+	public static void setUpClass() throws Exception {
+		tableFile = Files.createTempFile("KQvK", ".ctb");
+		new TablebaseGenerator(2).write(Material.parse("KQvK"), tableFile);
+		tablebase = Tablebase.open(tableFile);
+	}
+	
+	@AfterClass
+	public static void tearDownClass() throws Exception {
+		tablebase.close();
+		Files.deleteIfExists(tableFile);
+	}
+	
+	@Test
+	public void testMaterialParsing() {
+		Material material = Material.parse("KQvKM");
+		assertEquals(4, material.getSlotCount());
+		assertEquals(PieceType.QUEEN, material.getSlotType(2));
+		assertEquals(Color.BLACK, material.getSlotColor(3));
+		assertEquals("KQvKM", material.toString());
+		assertEquals(Material.parse("KvKM"), material.withoutSlot(2));
+		assertEquals(Material.parse("KQvK"), tablebase.getMaterial());
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testMaterialRejectsPawns() {
+		Material.parse("KPvK");
+	}
+	
+	@Test
+	public void testMateInOne() {
+		int value = tablebase.probe(Color.WHITE, new int[] {B6, A8, H2});
+		assertTrue(Tablebase.isWin(value));
+		assertEquals(1, Tablebase.getDistance(value));
+	}
+	
+	@Test
+	public void testMated() {
+		int value = tablebase.probe(Color.BLACK, new int[] {B6, A8, H8});
+		assertTrue(Tablebase.isLoss(value));
+		assertEquals(0, Tablebase.getDistance(value));
+	}
+	
+	@Test
+	public void testStalemateIsDraw() {
+		assertEquals(Tablebase.DRAW, tablebase.probe(Color.BLACK, new int[] {B6, A8, C7}));
+	}
+	
+	@Test
+	public void testQueenWinsFromTheMiddle() {
+		// White Kh1 and Qa1 against Kd5, white to move
+		int value = tablebase.probe(Color.WHITE, new int[] {63, 27, 56});
+		assertTrue(Tablebase.isWin(value));
+		assertTrue(Tablebase.getDistance(value) > 1);
+	}
+	
+	@Test
+	public void testProbeBoard() {
+		assertEquals(tablebase.probe(Color.BLACK, new int[] {B6, A8, H8}), tablebase.probe(createBoard(false), Color.BLACK));
+		assertEquals(Tablebase.NOT_FOUND, tablebase.probe(createBoard(true), Color.BLACK));
+	}
+	
+	@Test
+	public void testSearchScoresEndgameFromTablebase() {
+		// White Kh1 and Qa1 against Kd5, white to move
+		King whiteKing = new King(Color.WHITE);
+		King blackKing = new King(Color.BLACK);
+		Queen queen = new Queen(Color.WHITE);
+		Map<String, Piece> mapping = new HashMap<String, Piece>();
+		mapping.put("h1", whiteKing);
+		mapping.put("a1", queen);
+		mapping.put("d5", blackKing);
+		Player[] players = new Player[] {
+				new Player("White", Color.WHITE, GameDirection.UPWARDS, new ArrayList<Piece>(Arrays.asList(whiteKing, queen))),
+				new Player("Black", Color.BLACK, GameDirection.DOWNWARDS, new ArrayList<Piece>(Arrays.asList(blackKing))) };
+		Board board = new Board(8, 8, mapping, players);
+		int distance = Tablebase.getDistance(tablebase.probe(Color.WHITE, new int[] {63, 27, 56}));
+		
+		// A one ply search already sees the mate, at the distance of the tablebase
+		SearchResult result = new Searcher(board, new Tablebases(Arrays.asList(tablebase))).search(board.getPlayer(Color.WHITE), 1);
+		assertTrue(result.isMateScore());
+		assertEquals(Searcher.MATE_SCORE - distance, result.getScore());
+		assertFalse(new Searcher(board).search(board.getPlayer(Color.WHITE), 1).isMateScore());
+	}
+	
+	private static Board createBoard(boolean extraRook) {
+		King whiteKing = new King(Color.WHITE);
+		King blackKing = new King(Color.BLACK);
+		Queen queen = new Queen(Color.WHITE);
+		Map<String, Piece> mapping = new HashMap<String, Piece>();
+		mapping.put("b6", whiteKing);
+		mapping.put("a8", blackKing);
+		mapping.put("h8", queen);
+		Player[] players = new Player[2];
+		if (extraRook) {
+			Rook rook = new Rook(Color.WHITE);
+			mapping.put("h1", rook);
+			players[0] = new Player("White", Color.WHITE, GameDirection.UPWARDS, Arrays.asList(whiteKing, queen, rook));
+		} else {
+			players[0] = new Player("White", Color.WHITE, GameDirection.UPWARDS, Arrays.asList(whiteKing, queen));
+		}
+		players[1] = new Player("Black", Color.BLACK, GameDirection.DOWNWARDS, Arrays.asList(blackKing));
+		return new Board(8, 8, mapping, players);
+	}
+}
@@ -0,0 +1,53 @@
+package tests.tournament;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import main.tournament.EngineConfig;
+import main.tournament.Tournament;
+import main.tournament.TournamentResult;
+
+public class TournamentTest {
+	
+	@Test
+	public void testEveryGameIsScored() throws Exception {
+		EngineConfig first = new EngineConfig("A", 1, 50);
+		EngineConfig second = new EngineConfig("B", 1, 50);
+		Tournament tournament = new Tournament(first, second, 4, 2, 2, 6, false, 42);
+		
+		TournamentResult result = tournament.run();
+		assertEquals(4, result.getGameCount());
+		assertTrue(result.getGamesPerHour() > 0);
+	}
+	
+	@Test
+	public void testCustomPiecesGames() throws Exception {
+		EngineConfig engine = new EngineConfig("A", 1, 50);
+		TournamentResult result = new Tournament(engine, engine, 2, 2, 2, 4, true, 7).run();
+		assertEquals(2, result.getGameCount());
+	}
+	
+	@Test
+	public void testEvenScoreIsZeroElo() {
+		TournamentResult result = new TournamentResult(30, 40, 30, TimeUnit.HOURS.toNanos(1));
+		assertEquals(0.5, result.getScore(), 1e-9);
+		assertEquals(0, result.getEloDifference(), 1e-9);
+		assertEquals(100, result.getGamesPerHour(), 1e-9);
+	}
+	
+	@Test
+	public void testEloFromScore() {
+		// Scoring 75% is worth 400 * log10(3) Elo
+		TournamentResult result = new TournamentResult(75, 0, 25, TimeUnit.MINUTES.toNanos(30));
+		assertEquals(190.85, result.getEloDifference(), 0.01);
+		assertEquals(200, result.getGamesPerHour(), 1e-9);
+		
+		// The error bars shrink with more games
+		TournamentResult larger = new TournamentResult(750, 0, 250, TimeUnit.MINUTES.toNanos(30));
+		assertTrue(larger.getEloErrorMargin() < result.getEloErrorMargin());
+		assertTrue(result.getEloErrorMargin() > 0);
+	}
+}